@@ -21,6 +21,10 @@ import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.data.schema.Schema.LogicalType;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -33,10 +37,16 @@ import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TimeZone;
@@ -44,13 +54,24 @@ import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
- * Instance of a record structured by a {@link Schema}. Fields are accessible by name.
+ * Instance of a record structured by a {@link Schema}. Fields are accessible by name, or by the position of
+ * the field in the schema.
  */
 @Beta
 public class StructuredRecord implements Serializable {
   private static final SimpleDateFormat DEFAULT_FORMAT = new SimpleDateFormat("YYYY-MM-DD'T'HH:mm:ss z");
-  private final Schema schema;
-  private final Map<String, Object> fields;
+
+  // Values are stored in an array indexed by the field position in the schema. The fields map is a view over the
+  // array, such that the reflective form, e.g. the one used by Gson, is still the schema and a map from field name
+  // to value. The Java serialized form is kept the same for compatibility.
+  private static final ObjectStreamField[] serialPersistentFields = {
+    new ObjectStreamField("schema", Schema.class),
+    new ObjectStreamField("fields", Map.class)
+  };
+
+  private Schema schema;
+  private Map<String, Object> fields;
+  private transient Object[] values;
 
   private static final long serialVersionUID = -6547770456592865613L;
 
@@ -58,9 +79,10 @@ public class StructuredRecord implements Serializable {
     DEFAULT_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC"));
   }
 
-  private StructuredRecord(Schema schema, Map<String, Object> fields) {
+  private StructuredRecord(Schema schema, Object[] values) {
     this.schema = schema;
-    this.fields = fields;
+    this.values = values;
+    this.fields = new FieldValues();
   }
 
   /**
@@ -82,7 +104,22 @@ public class StructuredRecord implements Serializable {
   @SuppressWarnings("unchecked")
   @Nullable
   public <T> T get(String fieldName) {
-    return (T) fields.get(fieldName);
+    int index = schema.getFieldIndex(fieldName);
+    return index < 0 ? null : (T) getValues()[index];
+  }
+
+  /**
+   * Get the value of a field in the record by the position of the field in the schema.
+   *
+   * @param index position of the field in the list of fields of the schema.
+   * @param <T> type of object of the field value.
+   * @return value of the field.
+   * @throws IndexOutOfBoundsException if the index is not a valid field position.
+   */
+  @SuppressWarnings("unchecked")
+  @Nullable
+  public <T> T get(int index) {
+    return (T) getValues()[index];
   }
 
   /**
@@ -96,7 +133,7 @@ public class StructuredRecord implements Serializable {
   public LocalDate getDate(String fieldName) {
     Schema logicalTypeSchema = validateAndGetLogicalTypeSchema(schema.getField(fieldName),
                                                                EnumSet.of(LogicalType.DATE));
-    Integer value = (Integer) fields.get(fieldName);
+    Integer value = get(fieldName);
     return (value == null || logicalTypeSchema == null) ? null : LocalDate.ofEpochDay(value.longValue());
   }
 
@@ -114,7 +151,7 @@ public class StructuredRecord implements Serializable {
     Schema logicalTypeSchema = validateAndGetLogicalTypeSchema(schema.getField(fieldName),
                                                                EnumSet.of(LogicalType.TIME_MILLIS,
                                                                           LogicalType.TIME_MICROS));
-    Object value = fields.get(fieldName);
+    Object value = get(fieldName);
     if (value == null || logicalTypeSchema == null) {
       return null;
     }
@@ -157,7 +194,7 @@ public class StructuredRecord implements Serializable {
     Schema logicalTypeSchema = validateAndGetLogicalTypeSchema(schema.getField(fieldName),
                                                                EnumSet.of(LogicalType.TIMESTAMP_MILLIS,
                                                                           LogicalType.TIMESTAMP_MICROS));
-    Object value = fields.get(fieldName);
+    Object value = get(fieldName);
     if (value == null || logicalTypeSchema == null) {
       return null;
     }
@@ -180,7 +217,7 @@ public class StructuredRecord implements Serializable {
   public BigDecimal getDecimal(String fieldName) {
     Schema logicalTypeSchema = validateAndGetLogicalTypeSchema(schema.getField(fieldName),
                                                                EnumSet.of(LogicalType.DECIMAL));
-    Object value = fields.get(fieldName);
+    Object value = get(fieldName);
     if (value == null || logicalTypeSchema == null) {
       return null;
     }
@@ -289,11 +326,13 @@ public class StructuredRecord implements Serializable {
    */
   public static class Builder {
     private final Schema schema;
-    private Map<String, Object> fields;
+    private final Object[] values;
+    private final boolean[] isSet;
 
     private Builder(Schema schema) {
       this.schema = schema;
-      this.fields = new HashMap<>();
+      this.values = new Object[schema.getFields().size()];
+      this.isSet = new boolean[values.length];
     }
 
     /**
@@ -307,7 +346,28 @@ public class StructuredRecord implements Serializable {
      */
     public Builder set(String fieldName, @Nullable Object value) {
       validateAndGetField(fieldName, value);
-      fields.put(fieldName, value);
+      put(fieldName, value);
+      return this;
+    }
+
+    /**
+     * Set the field at the given position in the schema to the given value.
+     *
+     * @param index position of the field in the list of fields of the schema
+     * @param value value for the field
+     * @return this builder
+     * @throws UnexpectedFormatException if the index is not a valid field position, or the field is not nullable
+     *                                   but a null value is given
+     */
+    public Builder set(int index, @Nullable Object value) {
+      List<Schema.Field> fields = schema.getFields();
+      if (index < 0 || index >= fields.size()) {
+        throw new UnexpectedFormatException("field index " + index + " is not in the schema.");
+      }
+      if (value == null) {
+        validateNullable(fields.get(index));
+      }
+      put(index, value);
       return this;
     }
 
@@ -323,11 +383,11 @@ public class StructuredRecord implements Serializable {
     public Builder setDate(String fieldName, @Nullable LocalDate localDate) {
       validateAndGetLogicalTypeSchema(validateAndGetField(fieldName, localDate), EnumSet.of(LogicalType.DATE));
       if (localDate == null) {
-        fields.put(fieldName, null);
+        put(fieldName, null);
         return this;
       }
       try {
-        fields.put(fieldName, Math.toIntExact(localDate.toEpochDay()));
+        put(fieldName, Math.toIntExact(localDate.toEpochDay()));
       } catch (ArithmeticException e) {
         // Highest integer is 2,147,483,647 which is Jan 1 2038.
         throw new UnexpectedFormatException(String.format("Field %s was set to a date that is too large." +
@@ -351,7 +411,7 @@ public class StructuredRecord implements Serializable {
                                                                             LogicalType.TIME_MICROS));
 
       if (localTime == null) {
-        fields.put(fieldName, null);
+        put(fieldName, null);
         return this;
       }
 
@@ -360,7 +420,7 @@ public class StructuredRecord implements Serializable {
       if (logicalTypeSchema.getLogicalType() == LogicalType.TIME_MILLIS) {
         try {
           int millis = Math.toIntExact(TimeUnit.NANOSECONDS.toMillis(nanos));
-          fields.put(fieldName, millis);
+          put(fieldName, millis);
         } catch (ArithmeticException e) {
           throw new UnexpectedFormatException(String.format("Field %s was set to a time that is too large.",
                                                             fieldName));
@@ -369,7 +429,7 @@ public class StructuredRecord implements Serializable {
       }
 
       long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
-      fields.put(fieldName, micros);
+      put(fieldName, micros);
       return this;
     }
 
@@ -389,7 +449,7 @@ public class StructuredRecord implements Serializable {
                                                                             LogicalType.TIMESTAMP_MICROS));
 
       if (zonedDateTime == null) {
-        fields.put(fieldName, null);
+        put(fieldName, null);
         return this;
       }
 
@@ -398,13 +458,13 @@ public class StructuredRecord implements Serializable {
         if (logicalTypeSchema.getLogicalType() == LogicalType.TIMESTAMP_MILLIS) {
           long millis = TimeUnit.SECONDS.toMillis(instant.getEpochSecond());
           long tsMillis = Math.addExact(millis, TimeUnit.NANOSECONDS.toMillis(instant.getNano()));
-          fields.put(fieldName, tsMillis);
+          put(fieldName, tsMillis);
           return this;
         }
 
         long micros = TimeUnit.SECONDS.toMicros(instant.getEpochSecond());
         long tsMicros = Math.addExact(micros, TimeUnit.NANOSECONDS.toMicros(instant.getNano()));
-        fields.put(fieldName, tsMicros);
+        put(fieldName, tsMicros);
         return this;
       } catch (ArithmeticException e) {
         throw new UnexpectedFormatException(String.format("Field %s was set to a timestamp that is too large.",
@@ -426,7 +486,7 @@ public class StructuredRecord implements Serializable {
       Schema logicalSchema = validateAndGetLogicalTypeSchema(validateAndGetField(fieldName, decimal),
                                                              EnumSet.of(LogicalType.DECIMAL));
       if (decimal == null) {
-        fields.put(fieldName, null);
+        put(fieldName, null);
         return this;
       }
 
@@ -442,7 +502,7 @@ public class StructuredRecord implements Serializable {
                         fieldName, decimal.scale(), logicalSchema.getScale()));
       }
 
-      fields.put(fieldName, decimal.unscaledValue().toByteArray());
+      put(fieldName, decimal.unscaledValue().toByteArray());
       return this;
     }
 
@@ -486,16 +546,16 @@ public class StructuredRecord implements Serializable {
       Schema.Field field = validateAndGetField(fieldName, date);
       boolean isNullable = field.getSchema().isNullable();
       if (isNullable && date == null) {
-        fields.put(fieldName, null);
+        put(fieldName, null);
         return this;
       }
 
       Schema.Type fieldType = isNullable ? field.getSchema().getNonNullable().getType() : field.getSchema().getType();
       if (fieldType == Schema.Type.LONG) {
-        fields.put(fieldName, date.getTime());
+        put(fieldName, date.getTime());
       } else if (fieldType == Schema.Type.STRING) {
         DateFormat format = dateFormat == null ? DEFAULT_FORMAT : dateFormat;
-        fields.put(fieldName, format.format(date));
+        put(fieldName, format.format(date));
       } else {
         throw new UnexpectedFormatException("Date must be either a long or a string, not a " + fieldType);
       }
@@ -514,7 +574,7 @@ public class StructuredRecord implements Serializable {
      */
     public Builder convertAndSet(String fieldName, @Nullable String strVal) throws UnexpectedFormatException {
       Schema.Field field = validateAndGetField(fieldName, strVal);
-      fields.put(fieldName, convertString(field.getSchema(), strVal));
+      put(fieldName, convertString(field.getSchema(), strVal));
       return this;
     }
 
@@ -526,19 +586,24 @@ public class StructuredRecord implements Serializable {
      */
     public StructuredRecord build() throws UnexpectedFormatException {
       // check that all non-nullable fields have a value.
-      for (Schema.Field field : schema.getFields()) {
-        String fieldName = field.getName();
-        if (!fields.containsKey(fieldName)) {
-          // if the field is not nullable and there is no value set for the field, this is invalid.
-          if (!field.getSchema().isNullable()) {
-            throw new UnexpectedFormatException("Field " + fieldName + " must contain a value.");
-          } else {
-            // otherwise, set the value for the field to null
-            fields.put(fieldName, null);
-          }
+      List<Schema.Field> fields = schema.getFields();
+      for (int i = 0; i < isSet.length; i++) {
+        // if the field is not nullable and there is no value set for the field, this is invalid.
+        // otherwise, the value for the field stays null
+        if (!isSet[i] && !fields.get(i).getSchema().isNullable()) {
+          throw new UnexpectedFormatException("Field " + fields.get(i).getName() + " must contain a value.");
         }
       }
-      return new StructuredRecord(schema, fields);
+      return new StructuredRecord(schema, values);
+    }
+
+    private void put(String fieldName, @Nullable Object value) {
+      put(schema.getFieldIndex(fieldName), value);
+    }
+
+    private void put(int index, @Nullable Object value) {
+      values[index] = value;
+      isSet[index] = true;
     }
 
     private Object convertString(Schema schema, String strVal) throws UnexpectedFormatException {
@@ -585,23 +650,27 @@ public class StructuredRecord implements Serializable {
       if (field == null) {
         throw new UnexpectedFormatException("field " + fieldName + " is not in the schema.");
       }
-      Schema fieldSchema = field.getSchema();
       if (val == null) {
-        if (fieldSchema.getType() == Schema.Type.NULL) {
-          return field;
-        }
-        if (fieldSchema.getType() != Schema.Type.UNION) {
-          throw new UnexpectedFormatException("field " + fieldName + " cannot be set to a null value.");
-        }
-        for (Schema unionSchema : fieldSchema.getUnionSchemas()) {
-          if (unionSchema.getType() == Schema.Type.NULL) {
-            return field;
-          }
-        }
-        throw new UnexpectedFormatException("field " + fieldName + " cannot be set to a null value.");
+        validateNullable(field);
       }
       return field;
     }
+
+    private void validateNullable(Schema.Field field) {
+      Schema fieldSchema = field.getSchema();
+      if (fieldSchema.getType() == Schema.Type.NULL) {
+        return;
+      }
+      if (fieldSchema.getType() != Schema.Type.UNION) {
+        throw new UnexpectedFormatException("field " + field.getName() + " cannot be set to a null value.");
+      }
+      for (Schema unionSchema : fieldSchema.getUnionSchemas()) {
+        if (unionSchema.getType() == Schema.Type.NULL) {
+          return;
+        }
+      }
+      throw new UnexpectedFormatException("field " + field.getName() + " cannot be set to a null value.");
+    }
   }
 
   @Override
@@ -615,12 +684,110 @@ public class StructuredRecord implements Serializable {
 
     StructuredRecord that = (StructuredRecord) o;
 
-    return Objects.equals(schema, that.schema) && Objects.equals(fields, that.fields);
+    return Objects.equals(schema, that.schema) && Arrays.equals(getValues(), that.getValues());
 
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(schema, fields);
+    return 31 * Objects.hashCode(schema) + Arrays.hashCode(getValues());
+  }
+
+  /**
+   * Returns the values indexed by the field position. If the record was created without calling the constructor,
+   * e.g. by Gson, only the fields map is set, hence the values are populated from it.
+   */
+  private Object[] getValues() {
+    Object[] values = this.values;
+    if (values != null) {
+      return values;
+    }
+    List<Schema.Field> schemaFields = schema.getFields();
+    values = new Object[schemaFields.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = fields == null ? null : fields.get(schemaFields.get(i).getName());
+    }
+    this.values = values;
+    return values;
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    Object[] values = getValues();
+    List<Schema.Field> fields = schema.getFields();
+    Map<String, Object> fieldValues = new HashMap<>();
+    for (int i = 0; i < values.length; i++) {
+      fieldValues.put(fields.get(i).getName(), values[i]);
+    }
+    ObjectOutputStream.PutField putField = out.putFields();
+    putField.put("schema", schema);
+    putField.put("fields", fieldValues);
+    out.writeFields();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    ObjectInputStream.GetField getField = in.readFields();
+    schema = (Schema) getField.get("schema", null);
+    Map<String, Object> fieldValues = (Map<String, Object>) getField.get("fields", null);
+    List<Schema.Field> fields = schema.getFields();
+    values = new Object[fields.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = fieldValues.get(fields.get(i).getName());
+    }
+    this.fields = new FieldValues();
+  }
+
+  /**
+   * A read only {@link Map} view of the field values, keyed by field name.
+   */
+  private final class FieldValues extends AbstractMap<String, Object> {
+
+    @Override
+    public int size() {
+      return getValues().length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return key instanceof String && schema.getFieldIndex((String) key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+      return key instanceof String ? StructuredRecord.this.get((String) key) : null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+      return new AbstractSet<Entry<String, Object>>() {
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+          List<Schema.Field> schemaFields = schema.getFields();
+          Object[] values = getValues();
+          return new Iterator<Entry<String, Object>>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+              return index < values.length;
+            }
+
+            @Override
+            public Entry<String, Object> next() {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              int i = index++;
+              return new SimpleImmutableEntry<>(schemaFields.get(i).getName(), values[i]);
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return getValues().length;
+        }
+      };
+    }
   }
 }
@@ -17,9 +17,11 @@
 package io.cdap.cdap.api.service.http;
 
 import io.cdap.cdap.api.ProgramLifecycle;
+import io.cdap.cdap.api.TxRunnable;
 import io.cdap.cdap.api.annotation.TransactionControl;
 import io.cdap.cdap.api.annotation.TransactionPolicy;
 
+import java.util.concurrent.CompletionStage;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
@@ -76,6 +78,27 @@ import javax.ws.rs.Path;
  *        }
  * </p>
  *
+ * A handler method can also return a {@link CompletionStage} to respond asynchronously, so that the thread
+ * calling the handler method can serve other requests while the response is being computed, for example, by
+ * calling another service with a non-blocking client. The response sent through the {@link HttpServiceResponder}
+ * is delivered to the client when the returned stage completes. If the stage completes exceptionally, or
+ * completes without any response being sent, an error response is sent instead. For example:
+ * <p>
+ *        {@literal @}GET
+ *        {@literal @}Path("/lookup/{key}")
+ *        public CompletionStage&lt;Void&gt; lookup(HttpServiceRequest request, HttpServiceResponder responder,
+ *                                               {@literal @}PathParam("key") String key) {
+ *          return client.lookup(key).thenAccept(value -&gt; responder.sendString(value));
+ *        }
+ * </p>
+ *
+ * The transaction policy of the handler method only applies to the call of the method itself, that is, an
+ * implicit transaction is committed when the method returns, before the stage completes. Datasets obtained
+ * within the handler method must not be used after it returns. Code that completes the stage runs without any
+ * transaction, and can use {@link HttpServiceContext#execute(TxRunnable)} to perform data operations.
+ * The handler instance is reserved for the request until the stage completes, hence it is not called
+ * concurrently for other requests. The {@link HttpServiceResponder} must not be used after the stage completes.
+ *
  * @see HttpContentConsumer
  * @see HttpContentProducer
  * @param <T> type of service context
@@ -73,7 +73,7 @@ public final class RemoteArtifactManager extends AbstractArtifactManager {
     this.namespaceId = namespaceId;
     this.retryStrategy = retryStrategy;
     this.authorizationEnabled = cConf.getBoolean(Constants.Security.Authorization.ENABLED);
-    this.remoteClient = new RemoteClient(discoveryServiceClient, Constants.Service.APP_FABRIC_HTTP,
+    this.remoteClient = new RemoteClient(cConf, discoveryServiceClient, Constants.Service.APP_FABRIC_HTTP,
                                          new DefaultHttpRequestConfig(false),
                                          String.format("%s", Constants.Gateway.API_VERSION_3));
   }
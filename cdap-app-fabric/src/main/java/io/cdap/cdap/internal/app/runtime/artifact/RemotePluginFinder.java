@@ -74,7 +74,7 @@ public class RemotePluginFinder implements PluginFinder, ArtifactFinder {
   RemotePluginFinder(CConfiguration cConf, DiscoveryServiceClient discoveryServiceClient,
                      AuthenticationContext authenticationContext,
                      LocationFactory locationFactory) {
-    this.remoteClient = new RemoteClient(discoveryServiceClient, Constants.Service.APP_FABRIC_HTTP,
+    this.remoteClient = new RemoteClient(cConf, discoveryServiceClient, Constants.Service.APP_FABRIC_HTTP,
                                          new DefaultHttpRequestConfig(false),
                                          String.format("%s", Constants.Gateway.API_VERSION_3));
     this.authorizationEnabled = cConf.getBoolean(Constants.Security.Authorization.ENABLED);
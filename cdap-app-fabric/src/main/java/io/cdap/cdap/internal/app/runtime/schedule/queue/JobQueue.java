@@ -59,8 +59,10 @@ public interface JobQueue {
    *
    * @param schedule the schedule for which jobs will be update
    * @param notification the new notification to update the schedule jobs with
+   * @return {@code true} if the job of the schedule is in {@link Job.State#PENDING_CONSTRAINT} state after adding
+   *         the notification, hence is ready for constraint checking
    */
-  void addNotification(ProgramScheduleRecord schedule, Notification notification) throws IOException;
+  boolean addNotification(ProgramScheduleRecord schedule, Notification notification) throws IOException;
 
   /**
    * Marks all jobs associated with the given schedule Id for deletion, recording the time of deletion.
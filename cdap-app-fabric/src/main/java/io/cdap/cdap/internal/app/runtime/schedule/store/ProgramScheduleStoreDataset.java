@@ -46,6 +46,7 @@ import io.cdap.cdap.spi.data.InvalidFieldException;
 import io.cdap.cdap.spi.data.StructuredRow;
 import io.cdap.cdap.spi.data.StructuredTable;
 import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.FieldFilter;
 import io.cdap.cdap.spi.data.table.field.Fields;
 import io.cdap.cdap.spi.data.table.field.Range;
 import io.cdap.cdap.store.StoreDefinition;
@@ -104,6 +105,10 @@ public class ProgramScheduleStoreDataset {
       .registerTypeAdapter(SatisfiableTrigger.class, new TriggerCodec())
       .create();
 
+  // deleted schedules are kept in the store with a null schedule and the deletion time as the update time
+  private static final FieldFilter EXISTING_SCHEDULE_FILTER =
+    FieldFilter.notEqualTo(Fields.stringField(StoreDefinition.ProgramScheduleStore.SCHEDULE, null));
+
   private final StructuredTable scheduleStore;
   private final StructuredTable triggerStore;
 
@@ -264,13 +269,12 @@ public class ProgramScheduleStoreDataset {
     Collection<Field<?>> scanKeys = getScheduleKeysForApplicationScan(appId);
     Range range = Range.singleton(scanKeys);
     // First collect all the schedules that are going to be deleted
-    try (CloseableIterator<StructuredRow> iterator = scheduleStore.scan(range, Integer.MAX_VALUE)) {
+    try (CloseableIterator<StructuredRow> iterator =
+           scheduleStore.scan(range, Integer.MAX_VALUE, EXISTING_SCHEDULE_FILTER, Collections.emptySet())) {
       while (iterator.hasNext()) {
         StructuredRow row = iterator.next();
-        if (row.getString(StoreDefinition.ProgramScheduleStore.SCHEDULE) != null) {
-          markScheduleAsDeleted(row, deleteTime);
-          deleted.add(rowToScheduleId(row));
-        }
+        markScheduleAsDeleted(row, deleteTime);
+        deleted.add(rowToScheduleId(row));
       }
     }
     // Then delete all triggers for the app
@@ -498,15 +502,14 @@ public class ProgramScheduleStoreDataset {
                                                         Predicate<ProgramSchedule> filter) throws IOException {
     List<ProgramSchedule> result = new ArrayList<>();
     try (CloseableIterator<StructuredRow> iterator =
-           scheduleStore.scan(Range.singleton(prefixKeys), Integer.MAX_VALUE)) {
+           scheduleStore.scan(Range.singleton(prefixKeys), Integer.MAX_VALUE, EXISTING_SCHEDULE_FILTER,
+                              Collections.singleton(StoreDefinition.ProgramScheduleStore.SCHEDULE))) {
       while (iterator.hasNext()) {
         StructuredRow row = iterator.next();
         String serializedSchedule = row.getString(StoreDefinition.ProgramScheduleStore.SCHEDULE);
-        if (serializedSchedule != null) {
-          ProgramSchedule schedule = GSON.fromJson(serializedSchedule, ProgramSchedule.class);
-          if (schedule != null && filter.test(schedule)) {
-            result.add(schedule);
-          }
+        ProgramSchedule schedule = GSON.fromJson(serializedSchedule, ProgramSchedule.class);
+        if (schedule != null && filter.test(schedule)) {
+          result.add(schedule);
         }
       }
     }
@@ -525,15 +528,13 @@ public class ProgramScheduleStoreDataset {
     throws IOException {
     List<ProgramScheduleRecord> result = new ArrayList<>();
     try (CloseableIterator<StructuredRow> iterator =
-           scheduleStore.scan(Range.singleton(prefixKeys), Integer.MAX_VALUE)) {
+           scheduleStore.scan(Range.singleton(prefixKeys), Integer.MAX_VALUE, EXISTING_SCHEDULE_FILTER, null)) {
       while (iterator.hasNext()) {
         StructuredRow row = iterator.next();
         String serializedSchedule = row.getString(StoreDefinition.ProgramScheduleStore.SCHEDULE);
-        if (serializedSchedule != null) {
-          ProgramSchedule schedule = GSON.fromJson(serializedSchedule, ProgramSchedule.class);
-          if (schedule != null && filter.test(schedule)) {
-            result.add(new ProgramScheduleRecord(schedule, extractMetaFromRow(schedule.getScheduleId(), row)));
-          }
+        ProgramSchedule schedule = GSON.fromJson(serializedSchedule, ProgramSchedule.class);
+        if (schedule != null && filter.test(schedule)) {
+          result.add(new ProgramScheduleRecord(schedule, extractMetaFromRow(schedule.getScheduleId(), row)));
         }
       }
     }
@@ -32,6 +32,8 @@ import io.cdap.http.HttpResponder;
 import io.netty.handler.codec.http.HttpRequest;
 import org.apache.twill.common.Cancellable;
 
+import java.util.concurrent.CompletionStage;
+
 /**
  * An abstract base class for all {@link HttpHandler} generated through the {@link HttpHandlerGenerator}.
  *
@@ -131,4 +133,47 @@ public abstract class AbstractHttpHandlerDelegator<T> implements HttpHandler {
       new BodyProducerAdapter(contentProducer, txServiceContext, contextReleaser, defaultTxControl)
     ), consumer, taskExecutor, contextReleaser, defaultTxControl);
   }
+
+  /**
+   * Sends the response buffered in the given {@link DelayedHttpServiceResponder} when the given
+   * {@link CompletionStage} returned by a handler method completes. If the stage completes exceptionally or
+   * completes without any response being sent, an error response is sent instead.
+   *
+   * IMPORTANT: This method will also capture the context associated with the current thread, such that the
+   * user service handler instance won't be used by other requests until the stage completes. Hence after
+   * this method is called, no other methods on this class should be called from the current thread.
+   *
+   * This method is called from handler class generated by {@link HttpHandlerGenerator}.
+   */
+  @SuppressWarnings("unused")
+  protected final void wrapCompletionStage(CompletionStage<?> stage,
+                                           DelayedHttpServiceResponder responder,
+                                           TransactionControl defaultTxControl) {
+    ServiceTaskExecutor taskExecutor = context.getServiceTaskExecutor();
+    Cancellable contextReleaser = context.capture();
+
+    stage.whenComplete((result, failure) -> {
+      // Close the provided responder, so that it can no longer be used after the completion.
+      // A new one is created to transfer the captured context to the content producer if there is one.
+      responder.close();
+      DelayedHttpServiceResponder completionResponder = new DelayedHttpServiceResponder(
+        responder, (contentProducer, txServiceContext) ->
+        new BodyProducerAdapter(contentProducer, txServiceContext, contextReleaser, defaultTxControl));
+
+      if (failure != null) {
+        completionResponder.setFailure(failure);
+      } else if (!completionResponder.hasBufferedResponse()) {
+        completionResponder.setFailure(new IllegalStateException(
+          "No response was sent before the completion of the CompletionStage returned by the handler method"));
+      }
+      try {
+        completionResponder.execute();
+      } finally {
+        taskExecutor.releaseCallResources();
+        if (!completionResponder.hasContentProducer()) {
+          contextReleaser.cancel();
+        }
+      }
+    });
+  }
 }
@@ -70,6 +70,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -104,7 +105,13 @@ import javax.ws.rs.Path;
  *
  *     @literal @PUT
  *     @literal @Path("/upload")
- *     public HttpContentConsumer userUpload(HttpRequest request, HttpResponder responder) {
+ *     public BodyConsumer userUpload(HttpRequest request, HttpResponder responder) {
+ *       // see generateDelegateBody() for generated method body.
+ *     }
+ *
+ *     @literal @GET
+ *     @literal @Path("/async")
+ *     public void userAsync(HttpRequest request, HttpResponder responder) {
  *       // see generateDelegateBody() for generated method body.
  *     }
  *   }
@@ -127,6 +134,7 @@ final class HttpHandlerGenerator {
   private static final Type EXCEPTION_TYPE = Type.getType(Exception.class);
   private static final Type DELAYED_HTTP_SERVICE_RESPONDER_TYPE = Type.getType(DelayedHttpServiceResponder.class);
   private static final Type HTTP_CONTENT_CONSUMER_TYPE = Type.getType(HttpContentConsumer.class);
+  private static final Type COMPLETION_STAGE_TYPE = Type.getType(CompletionStage.class);
 
   // Method descriptor of the LambdaMetafactory.metafactory method.
   private static final String LAMBDA_META_FACTORY_METHOD_DESC =
@@ -454,29 +462,34 @@ final class HttpHandlerGenerator {
 
       // If the return type is an instance of HttpContentConsumer, the generated method need to have
       // netty-http BodyConsumer as return type.
+      // If the return type is an instance of CompletionStage, the generated method returns void and
+      // the response is sent when the stage completes.
       // Otherwise, the return type must be void
+      boolean async = false;
       if (returnType.getSort() == Type.OBJECT) {
         try {
           Class<?> returnClass = delegateType.getRawType().getClassLoader().loadClass(returnType.getClassName());
-          if (!HttpContentConsumer.class.isAssignableFrom(returnClass)) {
-            throw new IllegalArgumentException("Handler method must either return void or a "
-                                                 + HttpContentConsumer.class.getName());
+          if (HttpContentConsumer.class.isAssignableFrom(returnClass)) {
+            returnType = Type.getType(BodyConsumer.class);
+          } else if (CompletionStage.class.isAssignableFrom(returnClass)) {
+            returnType = Type.VOID_TYPE;
+            async = true;
+          } else {
+            throw new IllegalArgumentException(getInvalidReturnTypeMessage());
           }
-          returnType = Type.getType(BodyConsumer.class);
         } catch (ClassNotFoundException e) {
           // Shouldn't happen since the delegateType (user handler class) is already loaded and the method return
           // type should be loadable through the same classloader
           throw Throwables.propagate(e);
         }
       } else if (!returnType.equals(Type.VOID_TYPE)) {
-        throw new IllegalArgumentException("Handler method must either return void or a "
-                                             + HttpContentConsumer.class.getName());
+        throw new IllegalArgumentException(getInvalidReturnTypeMessage());
       }
 
       // Copy the method signature with the first two parameter types changed and return type changed
       String methodDesc = Type.getMethodDescriptor(returnType, argTypes);
       MethodVisitor methodVisitor = classWriter.visitMethod(access, name, methodDesc,
-                                                            rewriteMethodSignature(signature), exceptions);
+                                                            rewriteMethodSignature(signature, async), exceptions);
       GeneratorAdapter mg = new GeneratorAdapter(methodVisitor, access, name, methodDesc);
 
       // Replay all annotations before generating the body.
@@ -490,11 +503,17 @@ final class HttpHandlerGenerator {
       }
 
       // Generate the method body
-      generateDelegateBody(classWriter, mg, new Method(name, desc), txCtrl);
+      generateDelegateBody(classWriter, mg, new Method(name, desc), txCtrl, async);
 
       super.visitEnd();
     }
 
+    private String getInvalidReturnTypeMessage() {
+      return String.format("Handler method %s.%s must either return void, a %s or a %s",
+                           delegateType.getRawType().getName(), name,
+                           HttpContentConsumer.class.getName(), CompletionStage.class.getName());
+    }
+
     /**
      * Preserves method parameter classes for class loading. The first two parameters are always
      * {@link HttpServiceRequest} and {@link HttpServiceResponder}, which don't need to be preserved since
@@ -528,9 +547,10 @@ final class HttpHandlerGenerator {
     /**
      * Rewrite the handler method signature to have the first two parameters rewritten from
      * {@link HttpServiceRequest} and {@link HttpServiceResponder} into
-     * {@link HttpRequest} and {@link HttpResponder}.
+     * {@link HttpRequest} and {@link HttpResponder}. If {@code voidReturn} is {@code true}, the return type is
+     * rewritten to {@code void}.
      */
-    private String rewriteMethodSignature(String signature) {
+    private String rewriteMethodSignature(String signature, boolean voidReturn) {
       if (signature == null) {
         return null;
       }
@@ -549,6 +569,17 @@ final class HttpHandlerGenerator {
           }
           super.visitClassType(name);
         }
+
+        @Override
+        public SignatureVisitor visitReturnType() {
+          SignatureVisitor visitor = super.visitReturnType();
+          if (!voidReturn) {
+            return visitor;
+          }
+          // Write the void return type and ignore the original one
+          visitor.visitBaseType('V');
+          return new SignatureVisitor(Opcodes.ASM5) { };
+        }
       };
       reader.accept(writer);
 
@@ -593,13 +624,36 @@ final class HttpHandlerGenerator {
      *   }
      * }
      * </pre>
+     *
+     * For handler that returns {@link CompletionStage}, it has the following form:
+     *
+     * <pre>
+     * public void handle(HttpRequest request, HttpResponder responder, ...) {
+     *   T handler = getHandler();
+     *   DelayedHttpServiceResponder wrappedResponder = wrapResponder(responder, defaultTxControl);
+     *   AtomicReference stageRef = new AtomicReference();
+     *   try {
+     *     execute(context -> stageRef.set(handler.handle(wrapRequest(request), wrappedResponder, ...)), useTx);
+     *   } catch (Exception e) {
+     *     wrappedResponder.setFailure(e);
+     *     stageRef.set(null);
+     *   }
+     *   CompletionStage stage = (CompletionStage) stageRef.get();
+     *   if (stage == null) {
+     *     wrappedResponder.execute();
+     *   } else {
+     *     wrapCompletionStage(stage, wrappedResponder, defaultTxControl);
+     *   }
+     * }
+     * </pre>
      */
     private void generateDelegateBody(ClassWriter classWriter, GeneratorAdapter mg,
-                                      Method method, TransactionControl txControl) {
-      boolean useBodyConsumer = method.getReturnType().getSort() == Type.OBJECT;
+                                      Method method, TransactionControl txControl, boolean async) {
+      boolean hasResult = method.getReturnType().getSort() == Type.OBJECT;
+      boolean useBodyConsumer = hasResult && !async;
 
       // Generate the synthetic static method for lambda invoke first
-      Method lambdaMethod = generateRunnableLambda(classWriter, method, useBodyConsumer);
+      Method lambdaMethod = generateRunnableLambda(classWriter, method, hasResult);
 
       Type handlerType = Type.getType(delegateType.getRawType());
 
@@ -628,7 +682,7 @@ final class HttpHandlerGenerator {
       mg.storeLocal(wrappedResponder, DELAYED_HTTP_SERVICE_RESPONDER_TYPE);
 
       int consumerRef = 0;
-      if (useBodyConsumer) {
+      if (hasResult) {
         // AtomicReference<HttpContentConsumer> consumerRef = new AtomicReference<>();
         consumerRef = mg.newLocal(ATOMIC_REFERENCE_TYPE);
         mg.newInstance(ATOMIC_REFERENCE_TYPE);
@@ -653,7 +707,7 @@ final class HttpHandlerGenerator {
       mg.loadThis();
 
       // Populate the parameters needed for the lambda method. See generateRunnableLambda for the signature.
-      if (useBodyConsumer) {
+      if (hasResult) {
         mg.loadLocal(consumerRef);
       }
       mg.loadLocal(handler);
@@ -708,7 +762,7 @@ final class HttpHandlerGenerator {
       mg.invokeVirtual(DELAYED_HTTP_SERVICE_RESPONDER_TYPE,
                        Methods.getMethod(void.class, "setFailure", Throwable.class));
 
-      if (useBodyConsumer) {
+      if (hasResult) {
         // consumerRef.set(null);
         mg.loadLocal(consumerRef);
         mg.visitInsn(Opcodes.ACONST_NULL);
@@ -759,6 +813,46 @@ final class HttpHandlerGenerator {
                                                       DelayedHttpServiceResponder.class,
                                                       TransactionControl.class));
         mg.returnValue();
+      } else if (async) {
+        // CompletionStage stage = consumerRef.get();
+        // if (stage == null) {
+        //   wrappedResponder.execute();
+        // } else {
+        //   wrapCompletionStage(stage, wrappedResponder, defaultTxControl);
+        // }
+        Label hasCompletionStage = mg.newLabel();
+
+        int stage = mg.newLocal(COMPLETION_STAGE_TYPE);
+        mg.loadLocal(consumerRef);
+        mg.invokeVirtual(ATOMIC_REFERENCE_TYPE, Methods.getMethod(Object.class, "get"));
+        mg.checkCast(COMPLETION_STAGE_TYPE);
+        mg.storeLocal(stage);
+
+        mg.loadLocal(stage);
+
+        // if stage != null, goto label hasCompletionStage
+        mg.ifNonNull(hasCompletionStage);
+
+        //   wrappedResponder.execute();
+        //   return;
+        mg.loadLocal(wrappedResponder);
+        mg.invokeVirtual(DELAYED_HTTP_SERVICE_RESPONDER_TYPE, Methods.getMethod(void.class, "execute"));
+        mg.returnValue();
+
+        mg.mark(hasCompletionStage);
+
+        // IMPORTANT: Same as the body consumer case, calling wrapCompletionStage must be the last thing to do
+        // in this generated method since the current context will be captured
+        // wrapCompletionStage(stage, wrappedResponder, defaultTxControl);
+        mg.loadThis();
+        mg.loadLocal(stage);
+        mg.loadLocal(wrappedResponder);
+        mg.getStatic(TX_CONTROL_TYPE, defaultTxControl.name(), TX_CONTROL_TYPE);
+        mg.invokeVirtual(classType, Methods.getMethod(void.class, "wrapCompletionStage",
+                                                      CompletionStage.class,
+                                                      DelayedHttpServiceResponder.class,
+                                                      TransactionControl.class));
+        mg.returnValue();
       } else {
         // wrappedResponder.execute();
         mg.loadLocal(wrappedResponder);
@@ -788,13 +882,14 @@ final class HttpHandlerGenerator {
      *   }
      * </pre>
      *
+     * The same form is used for handler method that returns {@link CompletionStage}.
      */
-    private Method generateRunnableLambda(ClassWriter classWriter, Method handlerMethod, boolean useBodyConsumer) {
+    private Method generateRunnableLambda(ClassWriter classWriter, Method handlerMethod, boolean hasResult) {
       Type handlerType = Type.getType(delegateType.getRawType());
 
       // Setup the method argument types
       List<Type> argumentTypes = new ArrayList<>();
-      if (useBodyConsumer) {
+      if (hasResult) {
         argumentTypes.add(ATOMIC_REFERENCE_TYPE);
       }
       argumentTypes.add(handlerType);
@@ -812,7 +907,7 @@ final class HttpHandlerGenerator {
       mg.loadArgs();
       mg.invokeVirtual(handlerType, handlerMethod);
 
-      if (useBodyConsumer) {
+      if (hasResult) {
         // consumerRef.set([top_of_stack])
         mg.invokeVirtual(ATOMIC_REFERENCE_TYPE, Methods.getMethod(void.class, "set", Object.class));
       }
@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.services;
+
+import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import com.google.inject.Inject;
+import io.cdap.cdap.internal.app.store.AppMetadataStore;
+import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Service that builds the run record indexes of the {@link AppMetadataStore} in the background, if they have not been
+ * marked as built yet. Until then, queries by completed statuses scan the run records, so that run records written
+ * before the indexes were introduced are still found.
+ *
+ * The indexes are built by first writing the index entries of every run record, then removing index entries that no
+ * longer refer to a run record of the same status. Each step processes the run records in batches, with each batch
+ * in its own transaction, hence it is safe to build the indexes while run records are being written.
+ */
+public class RunRecordIndexService extends AbstractExecutionThreadService {
+
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
+  private static final Logger LOG = LoggerFactory.getLogger(RunRecordIndexService.class);
+
+  private final TransactionRunner transactionRunner;
+  private volatile boolean stopping;
+
+  @Inject
+  public RunRecordIndexService(TransactionRunner transactionRunner) {
+    this.transactionRunner = transactionRunner;
+  }
+
+  @Override
+  protected void run() {
+    try {
+      boolean built = TransactionRunners.run(transactionRunner, context -> {
+        return AppMetadataStore.create(context).isRunRecordIndexesBuilt();
+      }, IOException.class);
+      if (!built && rebuild(DEFAULT_BATCH_SIZE)) {
+        LOG.info("Run record indexes built.");
+      }
+    } catch (Exception e) {
+      // Queries keep scanning the run records, and the indexes are built again on the next start
+      LOG.warn("Failed to build the run record indexes.", e);
+    }
+  }
+
+  @Override
+  protected void triggerShutdown() {
+    stopping = true;
+  }
+
+  /**
+   * Rebuilds the run record indexes, processing the given number of rows in each transaction, and marks the indexes
+   * as built once all run records are indexed.
+   *
+   * @return {@code true} if the indexes are built, or {@code false} if the service was stopped before completion
+   */
+  public boolean rebuild(int batchSize) throws IOException {
+    LOG.debug("Writing run record index entries.");
+    long count = 0;
+    List<Field<?>> lastKey = null;
+    do {
+      if (stopping) {
+        return false;
+      }
+      List<Field<?>> afterKey = lastKey;
+      AppMetadataStore.IndexBatch batch = TransactionRunners.run(transactionRunner, context -> {
+        return AppMetadataStore.create(context).rebuildRunRecordIndexes(afterKey, batchSize);
+      }, IOException.class);
+      lastKey = batch.getLastKey();
+      count += batch.getCount();
+      LOG.trace("Processed up to {} run records.", count);
+    } while (lastKey != null);
+
+    LOG.debug("Removing stale run record index entries.");
+    count = 0;
+    do {
+      if (stopping) {
+        return false;
+      }
+      List<Field<?>> afterKey = lastKey;
+      AppMetadataStore.IndexBatch batch = TransactionRunners.run(transactionRunner, context -> {
+        return AppMetadataStore.create(context).pruneRunRecordIndexes(afterKey, batchSize);
+      }, IOException.class);
+      lastKey = batch.getLastKey();
+      count += batch.getCount();
+      LOG.trace("Processed up to {} index entries.", count);
+    } while (lastKey != null);
+
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore.create(context).markRunRecordIndexesBuilt();
+    }, IOException.class);
+    return true;
+  }
+}
@@ -53,6 +53,7 @@ import io.cdap.cdap.spi.data.StructuredTable;
 import io.cdap.cdap.spi.data.StructuredTableContext;
 import io.cdap.cdap.spi.data.TableNotFoundException;
 import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.FieldFilter;
 import io.cdap.cdap.spi.data.table.field.Fields;
 import io.cdap.cdap.spi.data.table.field.Range;
 import io.cdap.cdap.store.StoreDefinition;
@@ -63,6 +64,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -71,7 +73,6 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -111,7 +112,11 @@ public class AppMetadataStore {
 
   private static final String TYPE_COUNT = "runRecordCount";
   private static final String TYPE_RUN_RECORD_UPGRADE_COUNT = "runRecordUpgradeCount";
+  // Marker row in the program counts table, written once every run record has been indexed
+  private static final String TYPE_RUN_RECORD_INDEXES_BUILT = "runRecordIndexesBuilt";
   private static final String SMALLEST_POSSIBLE_STRING = "";
+  // Maximum number of run records to read from the run records table in one batch for entries in the run record indexes
+  private static final int INDEX_READ_BATCH_SIZE = 100;
 
   private static final Map<ProgramRunStatus, String> STATUS_TYPE_MAP = ImmutableMap.<ProgramRunStatus, String>builder()
     .put(ProgramRunStatus.PENDING, TYPE_RUN_RECORD_ACTIVE)
@@ -129,6 +134,8 @@ public class AppMetadataStore {
   private StructuredTable applicationSpecificationTable;
   private StructuredTable workflowNodeStateTable;
   private StructuredTable runRecordsTable;
+  private StructuredTable runRecordsStatusIndexTable;
+  private StructuredTable runRecordsProgramIndexTable;
   private StructuredTable workflowsTable;
   private StructuredTable programCountsTable;
   private StructuredTable subscriberStateTable;
@@ -177,6 +184,28 @@ public class AppMetadataStore {
     return runRecordsTable;
   }
 
+  private StructuredTable getRunRecordsStatusIndexTable() {
+    try {
+      if (runRecordsStatusIndexTable == null) {
+        runRecordsStatusIndexTable = context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS_STATUS_INDEX);
+      }
+    } catch (TableNotFoundException e) {
+      throw new RuntimeException(e);
+    }
+    return runRecordsStatusIndexTable;
+  }
+
+  private StructuredTable getRunRecordsProgramIndexTable() {
+    try {
+      if (runRecordsProgramIndexTable == null) {
+        runRecordsProgramIndexTable = context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS_PROGRAM_INDEX);
+      }
+    } catch (TableNotFoundException e) {
+      throw new RuntimeException(e);
+    }
+    return runRecordsProgramIndexTable;
+  }
+
   private StructuredTable getWorkflowsTable() {
     try {
       if (workflowsTable == null) {
@@ -362,9 +391,8 @@ public class AppMetadataStore {
       // Update the parent Workflow run record by adding node id and program run id in the properties
       Map<String, String> properties = new HashMap<>(record.getProperties());
       properties.put(workflowNodeId, programRunId.getRun());
-      writeToStructuredTableWithPrimaryKeys(
-        runRecordFields, RunRecordMeta.builder(record).setProperties(properties).setSourceId(sourceId).build(),
-        getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+      writeRunRecord(runRecordFields,
+                     RunRecordMeta.builder(record).setProperties(properties).setSourceId(sourceId).build());
     }
   }
 
@@ -425,8 +453,7 @@ public class AppMetadataStore {
       .setPrincipal(systemArgs.get(ProgramOptionConstants.PRINCIPAL))
       .build();
     List<Field<?>> fields = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_ACTIVE, programRunId, startTs);
-    writeToStructuredTableWithPrimaryKeys(
-      fields, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(fields, meta);
     List<Field<?>> countKey = getProgramCountPrimaryKeys(TYPE_COUNT, programRunId.getParent());
     getProgramCountsTable().increment(countKey, StoreDefinition.AppMetadataStore.COUNTS, 1L);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.PROVISIONING, programRunId);
@@ -480,8 +507,7 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.PROVISIONED, programRunId);
     return meta;
   }
@@ -520,8 +546,7 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.DEPROVISIONING, programRunId);
     return meta;
   }
@@ -561,8 +586,7 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.DEPROVISIONED, programRunId);
     return meta;
   }
@@ -601,8 +625,7 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.ORPHANED, programRunId);
     return meta;
   }
@@ -643,8 +666,7 @@ public class AppMetadataStore {
       .build();
 
     List<Field<?>> fields = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_COMPLETED, programRunId, startTs);
-    writeToStructuredTableWithPrimaryKeys(
-      fields, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(fields, meta);
     List<Field<?>> countKey = getProgramCountPrimaryKeys(TYPE_COUNT, programRunId.getParent());
     getProgramCountsTable().increment(countKey, StoreDefinition.AppMetadataStore.COUNTS, 1L);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.REJECTED, programRunId);
@@ -690,8 +712,7 @@ public class AppMetadataStore {
       .setTwillRunId(twillRunId)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.STARTING, programRunId);
     return meta;
   }
@@ -737,8 +758,7 @@ public class AppMetadataStore {
       .setTwillRunId(twillRunId)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.RUNNING, programRunId);
     return meta;
   }
@@ -813,8 +833,7 @@ public class AppMetadataStore {
       }
     }
     RunRecordMeta meta = builder.build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", toStatus, programRunId);
     return meta;
   }
@@ -860,8 +879,7 @@ public class AppMetadataStore {
       .setStatus(runStatus)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", runStatus, programRunId);
     return meta;
   }
@@ -913,9 +931,27 @@ public class AppMetadataStore {
 
   public Map<ProgramRunId, RunRecordMeta> getRuns(Set<ProgramRunId> programRunIds)
     throws IOException {
-    Map<ProgramRunId, RunRecordMeta> result = new HashMap();
+    // Both the active and the completed run record keys can be derived from the run id,
+    // hence all run records can be fetched with a single batch read.
+    List<List<Field<?>>> keys = new ArrayList<>(programRunIds.size() * 2);
     for (ProgramRunId runId : programRunIds) {
-      result.put(runId, getRun(runId));
+      long startTs = RunIds.getTime(runId.getRun(), TimeUnit.SECONDS);
+      keys.add(getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_ACTIVE, runId, startTs));
+      keys.add(getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_COMPLETED, runId, startTs));
+    }
+
+    Map<ProgramRunId, RunRecordMeta> result = new HashMap<>();
+    for (StructuredRow row : getRunRecordsTable().multiRead(keys)) {
+      RunRecordMeta meta = deserializeRunRecordMeta(row);
+      // Active run record takes precedence, same as getRun(ProgramRunId)
+      if (TYPE_RUN_RECORD_ACTIVE.equals(row.getString(StoreDefinition.AppMetadataStore.RUN_STATUS))
+        || !result.containsKey(meta.getProgramRunId())) {
+        result.put(meta.getProgramRunId(), meta);
+      }
+    }
+    // Keep the behavior of returning null for runs that do not exist
+    for (ProgramRunId runId : programRunIds) {
+      result.putIfAbsent(runId, null);
     }
     return result;
   }
@@ -944,13 +980,11 @@ public class AppMetadataStore {
    * @param limit count at most that many runs, stop if there are more.
    */
   public int countActiveRuns(@Nullable Integer limit) throws IOException {
-    AtomicInteger count = new AtomicInteger(0);
-    enumerateProgramRuns(Range.singleton(getRunRecordNamespacePrefix(TYPE_RUN_RECORD_ACTIVE, null)),
-                         null, key -> !NamespaceId.SYSTEM.getNamespace().equals(
-                           key.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD)),
-                         limit != null ? limit : Integer.MAX_VALUE,
-                         run -> count.incrementAndGet());
-    return count.get();
+    long count = getRunRecordsTable().count(
+      Range.singleton(getRunRecordNamespacePrefix(TYPE_RUN_RECORD_ACTIVE, null)),
+      FieldFilter.notEqualTo(Fields.stringField(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD,
+                                                NamespaceId.SYSTEM.getNamespace())));
+    return (int) Math.min(count, limit != null ? limit : Integer.MAX_VALUE);
   }
 
   /**
@@ -1030,7 +1064,15 @@ public class AppMetadataStore {
         }
         return getNonCompleteRuns(programId, TYPE_RUN_RECORD_ACTIVE, startTime, endTime, limit, stateFilter);
       default:
-        return getHistoricalRuns(programId, status, startTime, endTime, limit, filter);
+        if (!isRunRecordIndexesBuilt()) {
+          // Run records written before the indexes were introduced can only be found by scanning the run records
+          Predicate<RunRecordMeta> statusFilter = record -> record.getStatus() == status;
+          if (filter != null) {
+            statusFilter = statusFilter.and(filter);
+          }
+          return getHistoricalRuns(programId, ProgramRunStatus.ALL, startTime, endTime, limit, statusFilter);
+        }
+        return getIndexedRuns(programId, status, startTime, endTime, limit, filter);
     }
   }
 
@@ -1054,6 +1096,86 @@ public class AppMetadataStore {
     List<Field<?>> key = getProgramRunInvertedTimeKey(STATUS_TYPE_MAP.get(record.getStatus()), programRunId,
                                               record.getStartTs());
     getRunRecordsTable().delete(key);
+    getRunRecordsStatusIndexTable().delete(getRunRecordStatusIndexKey(key, record.getStatus()));
+    getRunRecordsProgramIndexTable().delete(getRunRecordProgramIndexKey(key, record.getStatus()));
+  }
+
+  /**
+   * Writes the given run record to the run records table, and updates the run record indexes for the status of the
+   * run record. The caller is responsible for deleting the index entries of the previous status of the run through
+   * the {@link #delete(RunRecordMeta)} method.
+   *
+   * @param key the primary keys of the run record in the run records table
+   * @param meta the run record to write
+   */
+  private void writeRunRecord(List<Field<?>> key, RunRecordMeta meta) throws IOException {
+    List<Field<?>> statusIndexKey = getRunRecordStatusIndexKey(key, meta.getStatus());
+    List<Field<?>> programIndexKey = getRunRecordProgramIndexKey(key, meta.getStatus());
+    writeToStructuredTableWithPrimaryKeys(key, meta, getRunRecordsTable(),
+                                          StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecordIndexes(statusIndexKey, programIndexKey, getStringFromField(key.get(0)));
+  }
+
+  private void writeRunRecordIndexes(List<Field<?>> statusIndexKey, List<Field<?>> programIndexKey,
+                                     String recordType) throws IOException {
+    Field<?> recordTypeField = Fields.stringField(StoreDefinition.AppMetadataStore.RUN_RECORD_TYPE, recordType);
+    statusIndexKey.add(recordTypeField);
+    getRunRecordsStatusIndexTable().upsert(statusIndexKey);
+    programIndexKey.add(recordTypeField);
+    getRunRecordsProgramIndexTable().upsert(programIndexKey);
+  }
+
+  /**
+   * Returns the primary keys of the status index entry of a run record, which are in the form of
+   * status|namespace|inverted start time|app|version|programtype|program|runid.
+   *
+   * @param runRecordKey the primary keys of the run record in the run records table
+   * @param status the status of the run
+   */
+  private List<Field<?>> getRunRecordStatusIndexKey(List<Field<?>> runRecordKey, ProgramRunStatus status) {
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_STATUS, status.name()));
+    fields.add(runRecordKey.get(1));
+    fields.add(runRecordKey.get(6));
+    fields.addAll(runRecordKey.subList(2, 6));
+    fields.add(runRecordKey.get(7));
+    return fields;
+  }
+
+  /**
+   * Returns the primary keys of the program index entry of a run record, which are in the form of
+   * namespace|app|version|programtype|program|status|inverted start time|runid.
+   *
+   * @param runRecordKey the primary keys of the run record in the run records table
+   * @param status the status of the run
+   */
+  private List<Field<?>> getRunRecordProgramIndexKey(List<Field<?>> runRecordKey, ProgramRunStatus status) {
+    List<Field<?>> fields = new ArrayList<>(runRecordKey.subList(1, 6));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_STATUS, status.name()));
+    fields.addAll(runRecordKey.subList(6, 8));
+    return fields;
+  }
+
+  /**
+   * Returns the primary keys of the run record in the run records table that the given index entry refers to.
+   * Index entries of both run record indexes have the same fields, hence this method works for both indexes.
+   */
+  private static List<Field<?>> getRunRecordKeyFromIndex(StructuredRow indexRow) {
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_STATUS,
+                                  indexRow.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_TYPE)));
+    for (String field : Arrays.asList(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD,
+                                      StoreDefinition.AppMetadataStore.APPLICATION_FIELD,
+                                      StoreDefinition.AppMetadataStore.VERSION_FIELD,
+                                      StoreDefinition.AppMetadataStore.PROGRAM_TYPE_FIELD,
+                                      StoreDefinition.AppMetadataStore.PROGRAM_FIELD)) {
+      fields.add(Fields.stringField(field, indexRow.getString(field)));
+    }
+    fields.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME,
+                                indexRow.getLong(StoreDefinition.AppMetadataStore.RUN_START_TIME)));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_FIELD,
+                                  indexRow.getString(StoreDefinition.AppMetadataStore.RUN_FIELD)));
+    return fields;
   }
 
   /**
@@ -1086,7 +1208,7 @@ public class AppMetadataStore {
     throws IOException {
     Predicate<RunRecordMeta> valuePredicate = andPredicate(getTimeRangePredicate(startTime, endTime), filter);
     List<Field<?>> prefix = getRunRecordProgramPrefix(recordType, programId);
-    return getProgramRunIdMap(Range.singleton(prefix), valuePredicate, null, limit);
+    return getProgramRunIdMap(Range.singleton(prefix), valuePredicate, FieldFilter.all(), limit);
   }
 
   /**
@@ -1094,16 +1216,16 @@ public class AppMetadataStore {
    *
    * @param range to scan runRecordsTable with
    * @param predicate to filter the runRecordMetas by. If null, then does not filter.
-   * @param keyPredicate to filter the row keys by. If null, then does not filter.
+   * @param keyFilter to filter the row keys by, which is applied by the table during the scan
    * @param limit the maximum number of entries to return
    * @return map with keys as program run IDs
    */
   private Map<ProgramRunId, RunRecordMeta> getProgramRunIdMap(Range range,
                                                               @Nullable Predicate<RunRecordMeta> predicate,
-                                                              @Nullable Predicate<StructuredRow> keyPredicate,
+                                                              FieldFilter keyFilter,
                                                               int limit) throws IOException {
     Map<ProgramRunId, RunRecordMeta> map = new LinkedHashMap<>();
-    enumerateProgramRuns(range, predicate, keyPredicate, limit, meta -> map.put(meta.getProgramRunId(), meta));
+    enumerateProgramRuns(range, predicate, keyFilter, limit, meta -> map.put(meta.getProgramRunId(), meta));
     return map;
   }
 
@@ -1112,21 +1234,18 @@ public class AppMetadataStore {
    *
    * @param range to scan runRecordsTable with
    * @param predicate to filter the runRecordMetas by. If null, then does not filter.
-   * @param keyPredicate to filter the row keys by. If null, then does not filter.
+   * @param keyFilter to filter the row keys by, which is applied by the table during the scan
    * @param limit the maximum number of entries to return
    */
   private void enumerateProgramRuns(Range range, @Nullable Predicate<RunRecordMeta> predicate,
-                                    @Nullable Predicate<StructuredRow> keyPredicate, int limit,
+                                    FieldFilter keyFilter, int limit,
                                     Consumer<RunRecordMeta> consumer)
     throws IOException {
-    // Only pass in limit if predicates are null, or else we may return fewer than limit items
+    // Only pass in limit if predicate is null, or else we may return fewer than limit items
     try (CloseableIterator<StructuredRow> iterator =
-           getRunRecordsTable().scan(range, predicate == null && keyPredicate == null ? limit : Integer.MAX_VALUE)) {
+           getRunRecordsTable().scan(range, predicate == null ? limit : Integer.MAX_VALUE, keyFilter, null)) {
       while (iterator.hasNext() && limit > 0) {
         StructuredRow row = iterator.next();
-        if (keyPredicate != null && !keyPredicate.test(row)) {
-          continue;
-        }
         RunRecordMeta meta = deserializeRunRecordMeta(row);
         if (predicate == null || predicate.test(meta)) {
           consumer.accept(meta);
@@ -1138,7 +1257,7 @@ public class AppMetadataStore {
 
   private Map<ProgramRunId, RunRecordMeta> getProgramRunIdMap(
     Range range, @Nullable  Predicate<RunRecordMeta> predicate) throws IOException {
-    return getProgramRunIdMap(range, predicate, null, Integer.MAX_VALUE);
+    return getProgramRunIdMap(range, predicate, FieldFilter.all(), Integer.MAX_VALUE);
   }
 
   private Map<ProgramRunId, RunRecordMeta> getHistoricalRuns(@Nullable ProgramId programId, ProgramRunStatus status,
@@ -1171,7 +1290,7 @@ public class AppMetadataStore {
       result.putAll(getProgramRunIdMap(Range.singleton(
         getRunRecordNamespacePrefix(TYPE_RUN_RECORD_COMPLETED, namespaceId)),
                                        meta -> meta.getStopTs() != null && meta.getStopTs() >= earliestStopTime
-                                         && meta.getStartTs() < latestStartTime, null, limit));
+                                         && meta.getStartTs() < latestStartTime, FieldFilter.all(), limit));
     }
     return result;
   }
@@ -1182,11 +1301,10 @@ public class AppMetadataStore {
     throws IOException {
     long lowerBound = getInvertedTsScanKeyPart(endTime);
     long upperBound = getInvertedTsScanKeyPart(startTime);
-    Predicate<StructuredRow> keyFiter = row -> {
-      long time = row.getLong(StoreDefinition.AppMetadataStore.RUN_START_TIME);
-      return time >= lowerBound && time <= upperBound;
-
-    };
+    FieldFilter keyFiter =
+      FieldFilter.greaterThanOrEqualTo(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME, lowerBound))
+        .and(FieldFilter.lessThanOrEqualTo(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME,
+                                                            upperBound)));
     if (status.equals(ProgramRunStatus.ALL)) {
       //return all records (successful and failed)
       return getProgramRunIdMap(Range.singleton(historyKey), valueFilter, keyFiter, limit);
@@ -1207,6 +1325,79 @@ public class AppMetadataStore {
                               keyFiter, limit);
   }
 
+  /**
+   * Fetches the run records of the given status through the run record indexes. If the program is provided,
+   * the program index is scanned within the start time range. Otherwise the status index is scanned, which only
+   * contains runs of the given status across all programs.
+   */
+  private Map<ProgramRunId, RunRecordMeta> getIndexedRuns(@Nullable ProgramId programId, ProgramRunStatus status,
+                                                          long startTime, long endTime, int limit,
+                                                          @Nullable Predicate<RunRecordMeta> filter)
+    throws IOException {
+    long lowerBound = getInvertedTsScanKeyPart(endTime);
+    long upperBound = getInvertedTsScanKeyPart(startTime);
+
+    StructuredTable indexTable;
+    Range range;
+    FieldFilter keyFilter;
+    if (programId == null) {
+      indexTable = getRunRecordsStatusIndexTable();
+      range = Range.singleton(ImmutableList.of(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_STATUS,
+                                                                  status.name())));
+      keyFilter =
+        FieldFilter.greaterThanOrEqualTo(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME, lowerBound))
+          .and(FieldFilter.lessThanOrEqualTo(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME,
+                                                              upperBound)));
+    } else {
+      indexTable = getRunRecordsProgramIndexTable();
+      List<Field<?>> begin = getRunRecordProgramIndexPrefix(programId, status);
+      List<Field<?>> end = new ArrayList<>(begin);
+      begin.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME, lowerBound));
+      end.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME, upperBound));
+      range = Range.create(begin, Range.Bound.INCLUSIVE, end, Range.Bound.INCLUSIVE);
+      keyFilter = FieldFilter.all();
+    }
+
+    Map<ProgramRunId, RunRecordMeta> result = new LinkedHashMap<>();
+    List<List<Field<?>>> batch = new ArrayList<>();
+    try (CloseableIterator<StructuredRow> iterator = indexTable.scan(range, Integer.MAX_VALUE, keyFilter, null)) {
+      while (iterator.hasNext() && result.size() < limit) {
+        batch.add(getRunRecordKeyFromIndex(iterator.next()));
+        if (batch.size() >= Math.min(INDEX_READ_BATCH_SIZE, limit - result.size()) || !iterator.hasNext()) {
+          readIndexedRuns(batch, status, limit, filter, result);
+          batch.clear();
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reads the run records of the given keys from the run records table and adds them to the result in the order of
+   * the keys. Run records that no longer have the given status, which can only happen if the indexes were not
+   * maintained, are skipped.
+   */
+  private void readIndexedRuns(List<List<Field<?>>> keys, ProgramRunStatus status, int limit,
+                               @Nullable Predicate<RunRecordMeta> filter,
+                               Map<ProgramRunId, RunRecordMeta> result) throws IOException {
+    // multiRead doesn't guarantee the order of the result, hence reorder with the run ids of the keys
+    Map<String, RunRecordMeta> runs = new HashMap<>();
+    for (StructuredRow row : getRunRecordsTable().multiRead(keys)) {
+      RunRecordMeta meta = deserializeRunRecordMeta(row);
+      runs.put(meta.getPid(), meta);
+    }
+    for (List<Field<?>> key : keys) {
+      RunRecordMeta meta = runs.get(getStringFromField(key.get(7)));
+      if (meta == null || meta.getStatus() != status || (filter != null && !filter.test(meta))) {
+        continue;
+      }
+      result.put(meta.getProgramRunId(), meta);
+      if (result.size() >= limit) {
+        return;
+      }
+    }
+  }
+
   private Predicate<RunRecordMeta> getPredicate(final ProgramController.State state) {
     return (record) -> record.getStatus().equals(state.getRunStatus());
   }
@@ -1244,6 +1435,19 @@ public class AppMetadataStore {
       .deleteAll(Range.singleton(getRunRecordApplicationPrefix(TYPE_RUN_RECORD_ACTIVE, applicationId)));
     getRunRecordsTable()
       .deleteAll(Range.singleton(getRunRecordApplicationPrefix(TYPE_RUN_RECORD_COMPLETED, applicationId)));
+    // Remove the status index entries by the program index entries of the application, which share the same keys
+    Range programIndexRange = Range.singleton(getApplicationPrimaryKeys(namespaceId, appId, versionId));
+    try (CloseableIterator<StructuredRow> iterator =
+           getRunRecordsProgramIndexTable().scan(programIndexRange, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        getRunRecordsStatusIndexTable().delete(
+          getRunRecordStatusIndexKey(getRunRecordKeyFromIndex(row),
+                                     ProgramRunStatus.valueOf(row.getString(
+                                       StoreDefinition.AppMetadataStore.RUN_STATUS))));
+      }
+    }
+    getRunRecordsProgramIndexTable().deleteAll(programIndexRange);
     getProgramCountsTable().deleteAll(Range.singleton(getCountApplicationPrefix(TYPE_COUNT, applicationId)));
     getProgramCountsTable().deleteAll(
       Range.singleton(getCountApplicationPrefix(TYPE_RUN_RECORD_UPGRADE_COUNT, applicationId)));
@@ -1254,11 +1458,115 @@ public class AppMetadataStore {
       Range.singleton(getRunRecordNamespacePrefixWithString(TYPE_RUN_RECORD_ACTIVE, namespaceId)));
     getRunRecordsTable().deleteAll(Range.singleton(
       getRunRecordNamespacePrefixWithString(TYPE_RUN_RECORD_COMPLETED, namespaceId)));
+    getRunRecordsProgramIndexTable().deleteAll(getNamespaceRange(namespaceId));
+    for (ProgramRunStatus status : STATUS_TYPE_MAP.keySet()) {
+      getRunRecordsStatusIndexTable().deleteAll(
+        Range.singleton(getRunRecordNamespacePrefixWithString(status.name(), namespaceId)));
+    }
     getProgramCountsTable().deleteAll(Range.singleton(getCountNamespacePrefix(TYPE_COUNT, namespaceId)));
     getProgramCountsTable().deleteAll(Range.singleton(
       getCountNamespacePrefix(TYPE_RUN_RECORD_UPGRADE_COUNT, namespaceId)));
   }
 
+  /**
+   * Returns whether every run record has been indexed by the run record indexes. Until the indexes are built by
+   * {@link #rebuildRunRecordIndexes(List, int)} and {@link #pruneRunRecordIndexes(List, int)}, followed by
+   * {@link #markRunRecordIndexesBuilt()}, queries by completed statuses scan the run records instead.
+   */
+  public boolean isRunRecordIndexesBuilt() throws IOException {
+    return getProgramCountsTable().read(getRunRecordIndexesBuiltKey()).isPresent();
+  }
+
+  /**
+   * Marks the run record indexes as built, so that queries by completed statuses use the indexes.
+   */
+  public void markRunRecordIndexesBuilt() throws IOException {
+    List<Field<?>> fields = getRunRecordIndexesBuiltKey();
+    fields.add(Fields.longField(StoreDefinition.AppMetadataStore.COUNTS, 1L));
+    getProgramCountsTable().upsert(fields);
+  }
+
+  private List<Field<?>> getRunRecordIndexesBuiltKey() {
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.COUNT_TYPE, TYPE_RUN_RECORD_INDEXES_BUILT));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD, SMALLEST_POSSIBLE_STRING));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.APPLICATION_FIELD, SMALLEST_POSSIBLE_STRING));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.VERSION_FIELD, SMALLEST_POSSIBLE_STRING));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_TYPE_FIELD, SMALLEST_POSSIBLE_STRING));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_FIELD, SMALLEST_POSSIBLE_STRING));
+    return fields;
+  }
+
+  /**
+   * Writes the run record index entries for a batch of run records in the run records table. This is for building
+   * the run record indexes of run records that were written before the indexes were introduced.
+   *
+   * @param afterKey the last key returned by the previous call of this method, or {@code null} to start from the
+   *                 first run record
+   * @param limit the maximum number of run records to process
+   * @return the {@link IndexBatch} of the run records processed
+   */
+  public IndexBatch rebuildRunRecordIndexes(@Nullable List<Field<?>> afterKey, int limit) throws IOException {
+    Range range = afterKey == null ? Range.all() : Range.from(afterKey, Range.Bound.EXCLUSIVE);
+    List<Field<?>> lastKey = null;
+    int count = 0;
+    try (CloseableIterator<StructuredRow> iterator = getRunRecordsTable().scan(range, limit)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        List<Field<?>> key = new ArrayList<>(row.getPrimaryKeys());
+        ProgramRunStatus status = deserializeRunRecordMeta(row).getStatus();
+        writeRunRecordIndexes(getRunRecordStatusIndexKey(key, status), getRunRecordProgramIndexKey(key, status),
+                              getStringFromField(key.get(0)));
+        lastKey = key;
+        count++;
+      }
+    }
+    return new IndexBatch(count, lastKey);
+  }
+
+  /**
+   * Removes the run record index entries of a batch of program index entries that no longer refer to a run record
+   * of the same status in the run records table.
+   *
+   * @param afterKey the last key returned by the previous call of this method, or {@code null} to start from the
+   *                 first entry
+   * @param limit the maximum number of index entries to process
+   * @return the {@link IndexBatch} of the program index entries processed
+   */
+  public IndexBatch pruneRunRecordIndexes(@Nullable List<Field<?>> afterKey, int limit) throws IOException {
+    Range range = afterKey == null ? Range.all() : Range.from(afterKey, Range.Bound.EXCLUSIVE);
+    List<StructuredRow> indexRows = new ArrayList<>();
+    List<List<Field<?>>> runRecordKeys = new ArrayList<>();
+    List<Field<?>> lastKey = null;
+    try (CloseableIterator<StructuredRow> iterator = getRunRecordsProgramIndexTable().scan(range, limit)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        indexRows.add(row);
+        runRecordKeys.add(getRunRecordKeyFromIndex(row));
+        lastKey = new ArrayList<>(row.getPrimaryKeys());
+      }
+    }
+    if (runRecordKeys.isEmpty()) {
+      return new IndexBatch(0, null);
+    }
+
+    Map<String, ProgramRunStatus> runStatus = new HashMap<>();
+    for (StructuredRow row : getRunRecordsTable().multiRead(runRecordKeys)) {
+      RunRecordMeta meta = deserializeRunRecordMeta(row);
+      runStatus.put(meta.getPid(), meta.getStatus());
+    }
+    for (StructuredRow row : indexRows) {
+      ProgramRunStatus status = ProgramRunStatus.valueOf(row.getString(StoreDefinition.AppMetadataStore.RUN_STATUS));
+      if (status == runStatus.get(row.getString(StoreDefinition.AppMetadataStore.RUN_FIELD))) {
+        continue;
+      }
+      List<Field<?>> runRecordKey = getRunRecordKeyFromIndex(row);
+      getRunRecordsStatusIndexTable().delete(getRunRecordStatusIndexKey(runRecordKey, status));
+      getRunRecordsProgramIndexTable().delete(getRunRecordProgramIndexKey(runRecordKey, status));
+    }
+    return new IndexBatch(indexRows.size(), lastKey);
+  }
+
   /**
    * Sets the {@link WorkflowToken} for the given workflow run.
    *
@@ -1400,7 +1708,7 @@ public class AppMetadataStore {
 
     List<Field<?>> prefix = getRunRecordStatusPrefix(statusKey);
     return
-      getProgramRunIdMap(Range.singleton(prefix), timeFilter, null, Integer.MAX_VALUE).entrySet()
+      getProgramRunIdMap(Range.singleton(prefix), timeFilter, FieldFilter.all(), Integer.MAX_VALUE).entrySet()
         .stream()
         .map(entry -> RunIds.fromString(entry.getValue().getPid()))
         .collect(Collectors.toSet());
@@ -1412,6 +1720,8 @@ public class AppMetadataStore {
     deleteTable(getApplicationSpecificationTable(), StoreDefinition.AppMetadataStore.NAMESPACE_FIELD);
     deleteTable(getWorkflowNodeStateTable(), StoreDefinition.AppMetadataStore.NAMESPACE_FIELD);
     deleteTable(getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_STATUS);
+    deleteTable(getRunRecordsStatusIndexTable(), StoreDefinition.AppMetadataStore.RUN_STATUS);
+    deleteTable(getRunRecordsProgramIndexTable(), StoreDefinition.AppMetadataStore.NAMESPACE_FIELD);
     deleteTable(getWorkflowsTable(), StoreDefinition.AppMetadataStore.NAMESPACE_FIELD);
     deleteTable(getProgramCountsTable(), StoreDefinition.AppMetadataStore.COUNT_TYPE);
     deleteTable(getSubscriberStateTable(), StoreDefinition.AppMetadataStore.SUBSCRIBER_TOPIC);
@@ -1569,6 +1879,15 @@ public class AppMetadataStore {
     return fields;
   }
 
+  private List<Field<?>> getRunRecordProgramIndexPrefix(ProgramId programId, ProgramRunStatus status) {
+    List<Field<?>> fields = getApplicationPrimaryKeys(programId.getNamespace(), programId.getApplication(),
+                                                      programId.getVersion());
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_TYPE_FIELD, programId.getType().name()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_FIELD, programId.getProgram()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_STATUS, status.name()));
+    return fields;
+  }
+
   @Nullable
   private RunRecordMeta getRunRecordMeta(List<Field<?>> primaryKeys) throws IOException {
     Optional<StructuredRow> row = getRunRecordsTable().read(primaryKeys);
@@ -1609,4 +1928,32 @@ public class AppMetadataStore {
     fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_FIELD, programId.getProgram()));
     return fields;
   }
+
+  /**
+   * The result of processing a batch of rows for rebuilding the run record indexes.
+   */
+  public static final class IndexBatch {
+    private final int count;
+    private final List<Field<?>> lastKey;
+
+    IndexBatch(int count, @Nullable List<Field<?>> lastKey) {
+      this.count = count;
+      this.lastKey = lastKey;
+    }
+
+    /**
+     * Returns the number of rows processed in the batch.
+     */
+    public int getCount() {
+      return count;
+    }
+
+    /**
+     * Returns the primary keys of the last row processed, or {@code null} if there is no more row to process.
+     */
+    @Nullable
+    public List<Field<?>> getLastKey() {
+      return lastKey;
+    }
+  }
 }
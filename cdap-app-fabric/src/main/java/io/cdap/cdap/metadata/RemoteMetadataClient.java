@@ -17,6 +17,7 @@
 package io.cdap.cdap.metadata;
 
 import com.google.inject.Inject;
+import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.http.DefaultHttpRequestConfig;
 import io.cdap.cdap.common.internal.remote.RemoteClient;
@@ -44,9 +45,9 @@ public class RemoteMetadataClient extends AbstractMetadataClient {
   private final AuthenticationContext authenticationContext;
 
   @Inject
-  RemoteMetadataClient(final DiscoveryServiceClient discoveryClient,
+  RemoteMetadataClient(CConfiguration cConf, DiscoveryServiceClient discoveryClient,
                        AuthenticationContext authenticationContext) {
-    this.remoteClient = new RemoteClient(discoveryClient, Constants.Service.METADATA_SERVICE,
+    this.remoteClient = new RemoteClient(cConf, discoveryClient, Constants.Service.METADATA_SERVICE,
                                          new DefaultHttpRequestConfig(false), Constants.Gateway.API_VERSION_3);
     this.authenticationContext = authenticationContext;
   }
@@ -34,12 +34,14 @@ import io.cdap.cdap.internal.app.runtime.schedule.constraint.CheckableConstraint
 import io.cdap.cdap.internal.app.runtime.schedule.constraint.ConstraintContext;
 import io.cdap.cdap.internal.app.runtime.schedule.constraint.ConstraintResult;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.Job;
+import io.cdap.cdap.internal.app.runtime.schedule.queue.JobKey;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.JobQueue;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.JobQueueTable;
 import io.cdap.cdap.internal.app.runtime.schedule.store.Schedulers;
 import io.cdap.cdap.internal.app.services.ProgramLifecycleService;
 import io.cdap.cdap.internal.app.services.PropertiesResolver;
 import io.cdap.cdap.internal.schedule.constraint.Constraint;
+import io.cdap.cdap.proto.id.ScheduleId;
 import io.cdap.cdap.spi.data.transaction.TransactionException;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
 import io.cdap.cdap.spi.data.transaction.TransactionRunners;
@@ -48,13 +50,22 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Polls the JobQueue, checks the jobs for constraint satisfaction, and launches them.
+ * Checks jobs in the JobQueue for constraint satisfaction, and launches them. Jobs are checked when they are
+ * notified through the {@link JobQueueNotifier} and when their constraints are due for a recheck, with a periodic
+ * scan of the JobQueue to clean up deleted and timed out jobs.
  */
 class ConstraintCheckerService extends AbstractIdleService {
   private static final Logger LOG = LoggerFactory.getLogger(ConstraintCheckerService.class);
@@ -65,6 +76,8 @@ class ConstraintCheckerService extends AbstractIdleService {
   private final NamespaceQueryAdmin namespaceQueryAdmin;
   private final CConfiguration cConf;
   private final TransactionRunner transactionRunner;
+  private final JobQueueNotifier jobQueueNotifier;
+  private final long scanIntervalMillis;
   private ScheduleTaskRunner taskRunner;
   private ListeningExecutorService taskExecutorService;
   private volatile boolean stopping = false;
@@ -74,13 +87,16 @@ class ConstraintCheckerService extends AbstractIdleService {
                            ProgramLifecycleService lifecycleService, PropertiesResolver propertiesResolver,
                            NamespaceQueryAdmin namespaceQueryAdmin,
                            CConfiguration cConf,
-                           TransactionRunner transactionRunner) {
+                           TransactionRunner transactionRunner,
+                           JobQueueNotifier jobQueueNotifier) {
     this.store = store;
     this.lifecycleService = lifecycleService;
     this.propertiesResolver = propertiesResolver;
     this.namespaceQueryAdmin = namespaceQueryAdmin;
     this.cConf = cConf;
     this.transactionRunner = transactionRunner;
+    this.jobQueueNotifier = jobQueueNotifier;
+    this.scanIntervalMillis = cConf.getLong(Constants.Scheduler.JOB_QUEUE_SCAN_INTERVAL_MILLIS);
   }
 
   @Override
@@ -101,6 +117,7 @@ class ConstraintCheckerService extends AbstractIdleService {
   protected void shutDown() throws Exception {
     stopping = true;
     LOG.info("Stopping ConstraintCheckerService.");
+    jobQueueNotifier.wakeupAll();
     try {
       // Shutdown the executor and wait for all pending task to be completed for max of 5 seconds
       taskExecutorService.shutdown();
@@ -119,7 +136,15 @@ class ConstraintCheckerService extends AbstractIdleService {
     private final RetryStrategy scheduleStrategy;
     private final int partition;
     private final Deque<Job> readyJobs = new ArrayDeque<>();
+    // Schedules that have jobs became ready for constraint checking, as notified by the JobQueueNotifier
+    private final Set<ScheduleId> notifiedSchedules = new HashSet<>();
+    // Jobs that have constraints not yet satisfied, ordered by the time to check them again
+    private final PriorityQueue<JobRecheck> rechecks = new PriorityQueue<>();
+    private final Map<JobKey, Long> recheckTimes = new HashMap<>();
     private Job lastConsumed;
+    // Always scan the partition on start to pick up existing jobs
+    private boolean scanning = true;
+    private long nextScanTime;
     private int failureCount;
 
     ConstraintCheckerThread(int partition) {
@@ -136,9 +161,12 @@ class ConstraintCheckerService extends AbstractIdleService {
       while (!stopping) {
         try {
           long sleepTime = checkJobQueue();
-          // Don't sleep if sleepTime returned is 0
-          if (sleepTime > 0) {
+          if (failureCount > 0) {
+            // Don't let notifications shortcut the retry delay
             TimeUnit.MILLISECONDS.sleep(sleepTime);
+          } else {
+            // Wait until there are new jobs ready for constraint checking or the sleep time has passed
+            notifiedSchedules.addAll(jobQueueNotifier.await(partition, sleepTime, TimeUnit.MILLISECONDS));
           }
         } catch (InterruptedException e) {
           // sleep is interrupted, just exit without doing anything
@@ -147,16 +175,40 @@ class ConstraintCheckerService extends AbstractIdleService {
     }
 
     /**
-     * Check jobs in job queue for constraint satisfaction.
+     * Check jobs in job queue for constraint satisfaction. Jobs of notified schedules and jobs that are due for
+     * recheck are always checked. The whole partition is scanned periodically to clean up jobs that are deleted
+     * or timed out, as well as after failure, since the notifications and rechecks could have been lost.
      *
-     * @return sleep time in milliseconds before next fetch
+     * @return sleep time in milliseconds before next check
      */
     private long checkJobQueue() {
-      boolean emptyFetch = false;
+      long now = System.currentTimeMillis();
+      if (!scanning && now >= nextScanTime) {
+        scanning = true;
+      }
+
+      Set<ScheduleId> scheduleIds = new HashSet<>(notifiedSchedules);
+      List<JobKey> dueJobs = new ArrayList<>();
+      while (!rechecks.isEmpty() && rechecks.peek().time <= now) {
+        JobRecheck recheck = rechecks.poll();
+        // Skip it if the job was rescheduled to an earlier time, which is already polled
+        if (recheckTimes.remove(recheck.jobKey, recheck.time)) {
+          dueJobs.add(recheck.jobKey);
+        }
+      }
+
       try {
-        emptyFetch = TransactionRunners.run(transactionRunner, context -> {
-          return checkJobConstraints(JobQueueTable.getJobQueue(context, cConf));
+        TransactionRunners.run(transactionRunner, context -> {
+          JobQueue jobQueue = JobQueueTable.getJobQueue(context, cConf);
+          Set<JobKey> checked = new HashSet<>();
+          checkNotifiedJobs(jobQueue, scheduleIds, checked);
+          checkDueJobs(jobQueue, dueJobs, checked);
+          if (scanning && checkJobConstraints(jobQueue, checked)) {
+            scanning = false;
+            nextScanTime = System.currentTimeMillis() + scanIntervalMillis;
+          }
         });
+        notifiedSchedules.removeAll(scheduleIds);
 
         // run any ready jobs
         runReadyJobs();
@@ -164,6 +216,7 @@ class ConstraintCheckerService extends AbstractIdleService {
       } catch (Exception e) {
         LOG.warn("Failed to check Job constraints. Will retry in next run", e);
         failureCount++;
+        scanning = true;
       }
 
       // If there is any failure, delay the next fetch based on the strategy
@@ -172,28 +225,68 @@ class ConstraintCheckerService extends AbstractIdleService {
         return scheduleStrategy.nextRetry(failureCount, 0);
       }
 
-      // Sleep for 2 seconds if there's no jobs in the queue
-      return emptyFetch && readyJobs.isEmpty() ? 2000L : 0L;
+      // Keep scanning until it reaches the end of the partition
+      if (scanning || !notifiedSchedules.isEmpty()) {
+        return 0L;
+      }
+      long wakeupTime = nextScanTime;
+      if (!rechecks.isEmpty()) {
+        wakeupTime = Math.min(wakeupTime, rechecks.peek().time);
+      }
+      return Math.max(0L, wakeupTime - System.currentTimeMillis());
     }
 
-    private boolean checkJobConstraints(JobQueue jobQueue) throws IOException {
-      boolean emptyScan = true;
+    private void checkNotifiedJobs(JobQueue jobQueue, Set<ScheduleId> scheduleIds,
+                                   Set<JobKey> checked) throws IOException {
+      for (ScheduleId scheduleId : scheduleIds) {
+        try (CloseableIterator<Job> jobs = jobQueue.getJobsForSchedule(scheduleId)) {
+          while (!stopping && jobs.hasNext()) {
+            Job job = jobs.next();
+            if (checked.add(job.getJobKey())) {
+              checkAndUpdateJob(jobQueue, job);
+            }
+          }
+        }
+      }
+    }
+
+    private void checkDueJobs(JobQueue jobQueue, List<JobKey> jobKeys, Set<JobKey> checked) throws IOException {
+      for (JobKey jobKey : jobKeys) {
+        if (stopping) {
+          return;
+        }
+        if (!checked.add(jobKey)) {
+          continue;
+        }
+        Job job = jobQueue.getJob(jobKey);
+        if (job != null) {
+          checkAndUpdateJob(jobQueue, job);
+        }
+      }
+    }
 
+    /**
+     * Scans the partition for a limited time, starting from the last consumed job.
+     *
+     * @return {@code true} if the scan reached the end of the partition
+     */
+    private boolean checkJobConstraints(JobQueue jobQueue, Set<JobKey> checked) throws IOException {
       try (CloseableIterator<Job> jobQueueIter = jobQueue.getJobs(partition, lastConsumed)) {
         Stopwatch stopWatch = new Stopwatch().start();
         // limit the batches of the scan to 1000ms
         while (!stopping && stopWatch.elapsedMillis() < 1000) {
           if (!jobQueueIter.hasNext()) {
             lastConsumed = null;
-            return emptyScan;
+            return true;
           }
           Job job = jobQueueIter.next();
           lastConsumed = job;
-          emptyScan = false;
-          checkAndUpdateJob(jobQueue, job);
+          if (checked.add(job.getJobKey())) {
+            checkAndUpdateJob(jobQueue, job);
+          }
         }
       }
-      return emptyScan;
+      return false;
     }
 
     private void checkAndUpdateJob(JobQueue jobQueue, Job job) throws IOException {
@@ -209,11 +302,14 @@ class ConstraintCheckerService extends AbstractIdleService {
           (job.getState() == Job.State.PENDING_TRIGGER &&
             now - job.getDeleteTimeMillis() > 2 * Schedulers.SUBSCRIBER_TX_TIMEOUT_MILLIS))) {
           jobQueue.deleteJob(job);
+        } else if (job.getState() == Job.State.PENDING_TRIGGER) {
+          scheduleRecheck(job, job.getDeleteTimeMillis() + 2 * Schedulers.SUBSCRIBER_TX_TIMEOUT_MILLIS + 1);
         }
         return;
       }
-      if (now - job.getCreationTime() >= job.getSchedule().getTimeoutMillis() +
-        2 * Schedulers.SUBSCRIBER_TX_TIMEOUT_MILLIS) {
+      long timeoutTime = job.getCreationTime() + job.getSchedule().getTimeoutMillis() +
+        2 * Schedulers.SUBSCRIBER_TX_TIMEOUT_MILLIS;
+      if (now >= timeoutTime) {
         LOG.info("Deleted job {}, due to timeout value of {}.", job.getJobKey(), job.getSchedule().getTimeoutMillis());
         jobQueue.deleteJob(job);
         return;
@@ -221,8 +317,11 @@ class ConstraintCheckerService extends AbstractIdleService {
       if (job.getState() != Job.State.PENDING_CONSTRAINT) {
         return;
       }
-      ConstraintResult.SatisfiedState satisfiedState = constraintsSatisfied(job, now);
+      ConstraintResult result = constraintsSatisfied(job, now);
+      ConstraintResult.SatisfiedState satisfiedState = result.getSatisfiedState();
       if (satisfiedState == ConstraintResult.SatisfiedState.NOT_SATISFIED) {
+        Long nextCheckTime = result.getNextCheckTime();
+        scheduleRecheck(job, nextCheckTime == null ? timeoutTime : Math.min(nextCheckTime, timeoutTime));
         return;
       }
       if (satisfiedState == ConstraintResult.SatisfiedState.NEVER_SATISFIED) {
@@ -233,6 +332,19 @@ class ConstraintCheckerService extends AbstractIdleService {
       readyJobs.add(job);
     }
 
+    /**
+     * Schedules the given job to be checked again at the given time, unless it is already scheduled to be checked
+     * no later than that.
+     */
+    private void scheduleRecheck(Job job, long time) {
+      JobKey jobKey = job.getJobKey();
+      Long existingTime = recheckTimes.get(jobKey);
+      if (existingTime == null || time < existingTime) {
+        recheckTimes.put(jobKey, time);
+        rechecks.add(new JobRecheck(jobKey, time));
+      }
+    }
+
     private void runReadyJobs() {
       final Iterator<Job> readyJobsIter = readyJobs.iterator();
       while (readyJobsIter.hasNext() && !stopping) {
@@ -283,8 +395,15 @@ class ConstraintCheckerService extends AbstractIdleService {
       return true;
     }
 
-    private ConstraintResult.SatisfiedState constraintsSatisfied(Job job, long now) {
-      ConstraintResult.SatisfiedState satisfiedState = ConstraintResult.SatisfiedState.SATISFIED;
+    /**
+     * Checks the constraints of the given job.
+     *
+     * @return {@link ConstraintResult#NEVER_SATISFIED} if any of the constraints is never satisfied,
+     *         {@link ConstraintResult#SATISFIED} if all constraints are satisfied, otherwise the not satisfied
+     *         result with the latest next check time, since the job cannot run before all constraints are satisfied
+     */
+    private ConstraintResult constraintsSatisfied(Job job, long now) {
+      ConstraintResult notSatisfied = null;
 
       ConstraintContext constraintContext = new ConstraintContext(job, now, store);
       for (Constraint constraint : job.getSchedule().getConstraints()) {
@@ -299,14 +418,37 @@ class ConstraintCheckerService extends AbstractIdleService {
         ConstraintResult result = abstractConstraint.check(job.getSchedule(), constraintContext);
         if (result.getSatisfiedState() == ConstraintResult.NEVER_SATISFIED.getSatisfiedState()) {
           // if any of the constraints are NEVER_SATISFIED, return NEVER_SATISFIED
-          return ConstraintResult.NEVER_SATISFIED.getSatisfiedState();
+          return ConstraintResult.NEVER_SATISFIED;
         }
-        if (result.getSatisfiedState() == ConstraintResult.SatisfiedState.NOT_SATISFIED) {
-          satisfiedState = ConstraintResult.SatisfiedState.NOT_SATISFIED;
+        if (result.getSatisfiedState() == ConstraintResult.SatisfiedState.NOT_SATISFIED
+          && (notSatisfied == null || getNextCheckTime(result) > getNextCheckTime(notSatisfied))) {
+          notSatisfied = result;
         }
       }
-      return satisfiedState;
+      return notSatisfied == null ? ConstraintResult.SATISFIED : notSatisfied;
+    }
+
+    private long getNextCheckTime(ConstraintResult result) {
+      Long nextCheckTime = result.getNextCheckTime();
+      return nextCheckTime == null ? 0L : nextCheckTime;
+    }
+  }
+
+  /**
+   * A job to be checked again at a given time.
+   */
+  private static final class JobRecheck implements Comparable<JobRecheck> {
+    private final JobKey jobKey;
+    private final long time;
+
+    JobRecheck(JobKey jobKey, long time) {
+      this.jobKey = jobKey;
+      this.time = time;
     }
 
+    @Override
+    public int compareTo(JobRecheck other) {
+      return Long.compare(time, other.time);
+    }
   }
 }
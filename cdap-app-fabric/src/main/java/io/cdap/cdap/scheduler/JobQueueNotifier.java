@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.scheduler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.internal.app.runtime.schedule.queue.JobQueueTable;
+import io.cdap.cdap.proto.id.ScheduleId;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process signal between the {@link ScheduleNotificationSubscriberService}, which moves jobs in the job queue
+ * to the {@link io.cdap.cdap.internal.app.runtime.schedule.queue.Job.State#PENDING_CONSTRAINT} state, and the
+ * {@link ConstraintCheckerService}, which checks constraints of those jobs. Each job queue partition has its own
+ * signal, so that only the constraint checker thread of the partition of a schedule is woken up.
+ */
+@Singleton
+class JobQueueNotifier {
+
+  private final PartitionSignal[] signals;
+
+  @Inject
+  JobQueueNotifier(CConfiguration cConf) {
+    this(cConf.getInt(Constants.Scheduler.JOB_QUEUE_NUM_PARTITIONS));
+  }
+
+  @VisibleForTesting
+  JobQueueNotifier(int numPartitions) {
+    this.signals = new PartitionSignal[numPartitions];
+    for (int i = 0; i < numPartitions; i++) {
+      signals[i] = new PartitionSignal();
+    }
+  }
+
+  /**
+   * Notifies that the job of the given schedule is ready for constraint checking. The notification should only be
+   * made after the transaction that updated the job is committed.
+   */
+  void notifyPendingConstraint(ScheduleId scheduleId) {
+    PartitionSignal signal = signals[JobQueueTable.getPartition(scheduleId, signals.length)];
+    synchronized (signal) {
+      signal.scheduleIds.add(scheduleId);
+      signal.notifyAll();
+    }
+  }
+
+  /**
+   * Wakes up all threads that are waiting in the {@link #await(int, long, TimeUnit)} method.
+   */
+  void wakeupAll() {
+    for (PartitionSignal signal : signals) {
+      synchronized (signal) {
+        signal.wakeup = true;
+        signal.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Waits until there is notification for the given partition or the timeout has passed, whichever comes first.
+   *
+   * @param partition the job queue partition to wait for
+   * @param timeout the maximum time to wait. If it is not positive, this method returns without waiting
+   * @param unit the unit of the timeout
+   * @return the set of schedules notified since the last call to this method for the given partition
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  Set<ScheduleId> await(int partition, long timeout, TimeUnit unit) throws InterruptedException {
+    PartitionSignal signal = signals[partition];
+    synchronized (signal) {
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      long remaining = unit.toNanos(timeout);
+      while (signal.scheduleIds.isEmpty() && !signal.wakeup && remaining > 0) {
+        TimeUnit.NANOSECONDS.timedWait(signal, remaining);
+        remaining = deadline - System.nanoTime();
+      }
+      signal.wakeup = false;
+      if (signal.scheduleIds.isEmpty()) {
+        return Collections.emptySet();
+      }
+      Set<ScheduleId> result = signal.scheduleIds;
+      signal.scheduleIds = new HashSet<>();
+      return result;
+    }
+  }
+
+  /**
+   * The pending notifications of a job queue partition, which is also used as the monitor for waiting.
+   */
+  private static final class PartitionSignal {
+    private Set<ScheduleId> scheduleIds = new HashSet<>();
+    private boolean wakeup;
+  }
+}
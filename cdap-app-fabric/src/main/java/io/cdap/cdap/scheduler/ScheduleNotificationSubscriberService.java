@@ -49,9 +49,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -68,16 +70,18 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
   private final CConfiguration cConf;
   private final MessagingService messagingService;
   private final MetricsCollectionService metricsCollectionService;
+  private final JobQueueNotifier jobQueueNotifier;
   private final List<Service> subscriberServices;
   private ScheduledExecutorService subscriberExecutor;
 
   @Inject
   ScheduleNotificationSubscriberService(CConfiguration cConf, MessagingService messagingService,
                                         MetricsCollectionService metricsCollectionService,
-                                        TransactionRunner transactionRunner) {
+                                        TransactionRunner transactionRunner, JobQueueNotifier jobQueueNotifier) {
     this.cConf = cConf;
     this.messagingService = messagingService;
     this.metricsCollectionService = metricsCollectionService;
+    this.jobQueueNotifier = jobQueueNotifier;
     this.subscriberServices = Arrays.asList(new SchedulerEventSubscriberService(transactionRunner),
                                             new DataEventSubscriberService(transactionRunner),
                                             new ProgramStatusEventSubscriberService(transactionRunner));
@@ -120,6 +124,8 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
    */
   private abstract class AbstractSchedulerSubscriberService extends AbstractNotificationSubscriberService {
 
+    private final Set<ScheduleId> pendingConstraintSchedules = new HashSet<>();
+
     AbstractSchedulerSubscriberService(String name, String topic, int fetchSize,
                                        TransactionRunner transactionRunner) {
       super(name, cConf, topic, fetchSize, cConf.getLong(Constants.Scheduler.EVENT_POLL_DELAY_MILLIS),
@@ -143,11 +149,23 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
       ProgramScheduleStoreDataset scheduleStore = getScheduleStore(structuredTableContext);
       JobQueueTable jobQueue = getJobQueue(structuredTableContext);
 
+      // Clear the schedules collected from a previous attempt in case the transaction is being retried
+      pendingConstraintSchedules.clear();
       while (messages.hasNext()) {
         processNotification(scheduleStore, jobQueue, messages.next().getSecond());
       }
     }
 
+    @Override
+    protected void postProcess() {
+      // Wake up the constraint checker for jobs that became ready for constraint checking. This happens after
+      // the transaction, so that the constraint checker can see the job changes.
+      for (ScheduleId scheduleId : pendingConstraintSchedules) {
+        jobQueueNotifier.notifyPendingConstraint(scheduleId);
+      }
+      pendingConstraintSchedules.clear();
+    }
+
     @Override
     protected ScheduledExecutorService executor() {
       return subscriberExecutor;
@@ -159,6 +177,17 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
     protected abstract void processNotification(ProgramScheduleStoreDataset scheduleStore,
                                                 JobQueueTable jobQueue, Notification notification) throws IOException;
 
+    /**
+     * Adds the given {@link Notification} to the job queue for the given schedule, and remembers the schedule
+     * if its job is ready for constraint checking.
+     */
+    protected void addNotification(JobQueueTable jobQueue, ProgramScheduleRecord record,
+                                   Notification notification) throws IOException {
+      if (jobQueue.addNotification(record, notification)) {
+        pendingConstraintSchedules.add(record.getSchedule().getScheduleId());
+      }
+    }
+
     private JobQueueTable getJobQueue(StructuredTableContext context) {
       return JobQueueTable.getJobQueue(context, cConf);
     }
@@ -206,7 +235,7 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
         LOG.warn("Ignore notification that doesn't have a schedule {} associated with, {}", scheduleId, notification);
         return;
       }
-      jobQueue.addNotification(record, notification);
+      addNotification(jobQueue, record, notification);
     }
   }
 
@@ -231,7 +260,7 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
       DatasetId datasetId = DatasetId.fromString(datasetIdString);
       for (ProgramScheduleRecord schedule :
         scheduleStore.findSchedules(Schedulers.triggerKeyForPartition(datasetId))) {
-        jobQueue.addNotification(schedule, notification);
+        addNotification(jobQueue, schedule, notification);
       }
     }
   }
@@ -271,7 +300,7 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
       String triggerKeyForProgramStatus = Schedulers.triggerKeyForProgramStatus(programId, programStatus);
 
       for (ProgramScheduleRecord schedule : scheduleStore.findSchedules(triggerKeyForProgramStatus)) {
-        jobQueue.addNotification(schedule, notification);
+        addNotification(jobQueue, schedule, notification);
       }
     }
   }
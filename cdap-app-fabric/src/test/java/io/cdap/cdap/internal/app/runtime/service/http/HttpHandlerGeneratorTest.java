@@ -90,6 +90,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
@@ -317,6 +324,90 @@ public class HttpHandlerGeneratorTest {
     }
   }
 
+  /**
+   * A testing handler for testing handler methods that return {@link CompletionStage}.
+   */
+  public static final class AsyncHandler extends AbstractHttpServiceHandler {
+
+    private final ExecutorService executor;
+    private final CountDownLatch latch;
+
+    public AsyncHandler(ExecutorService executor, CountDownLatch latch) {
+      this.executor = executor;
+      this.latch = latch;
+    }
+
+    @Path("/async/{name}")
+    @GET
+    public CompletableFuture<Void> echo(HttpServiceRequest request, HttpServiceResponder responder,
+                                        @PathParam("name") String name) {
+      Assert.assertNotNull(System.getProperty(IN_TX));
+      latch.countDown();
+      // Only respond when all the concurrent requests arrived at the handler
+      return CompletableFuture.runAsync(() -> {
+        try {
+          if (latch.await(10, TimeUnit.SECONDS)) {
+            responder.sendString("Hello " + name);
+          } else {
+            responder.sendError(503, "Requests were not served concurrently");
+          }
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }, executor);
+    }
+
+    @Path("/async-producer")
+    @GET
+    @TransactionPolicy(TransactionControl.EXPLICIT)
+    public CompletionStage<String> producer(HttpServiceRequest request, HttpServiceResponder responder) {
+      Assert.assertNull(System.getProperty(IN_TX));
+      return CompletableFuture.supplyAsync(() -> {
+        responder.send(200, new HttpContentProducer() {
+          private int count;
+
+          @Override
+          public ByteBuffer nextChunk(Transactional transactional) {
+            return count++ < 10 ? Charsets.UTF_8.encode("0123456789") : ByteBuffer.allocate(0);
+          }
+
+          @Override
+          public void onFinish() {
+            // no-op
+          }
+
+          @Override
+          public void onError(Throwable failureCause) {
+            // no-op
+          }
+        }, "text/plain");
+        return "produced";
+      }, executor);
+    }
+
+    @Path("/async-failure")
+    @GET
+    public CompletionStage<Void> failure(HttpServiceRequest request, HttpServiceResponder responder) {
+      CompletableFuture<Void> future = new CompletableFuture<>();
+      executor.execute(() -> future.completeExceptionally(new IllegalStateException("async-failure")));
+      return future;
+    }
+
+    @Path("/async-no-response")
+    @GET
+    public CompletionStage<Void> noResponse(HttpServiceRequest request, HttpServiceResponder responder) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    @Path("/async-sync-response")
+    @GET
+    public CompletionStage<Void> syncResponse(HttpServiceRequest request, HttpServiceResponder responder) {
+      // Returning null means the response is sent synchronously
+      responder.sendString("sync");
+      return null;
+    }
+  }
+
   @Test
   public void testHttpHeaders() throws Exception {
     HttpHandlerFactory factory = new HttpHandlerFactory("/prefix", TransactionControl.IMPLICIT);
@@ -590,6 +681,88 @@ public class HttpHandlerGeneratorTest {
     }
   }
 
+  @Test
+  public void testAsyncHandler() throws Exception {
+    HttpHandlerFactory factory = new HttpHandlerFactory("/prefix", TransactionControl.IMPLICIT);
+
+    int concurrency = 10;
+    ExecutorService executor = Executors.newCachedThreadPool();
+    CountDownLatch latch = new CountDownLatch(concurrency);
+    HttpHandler httpHandler = factory.createHttpHandler(
+      TypeToken.of(AsyncHandler.class), new AbstractDelegatorContext<AsyncHandler>() {
+        @Override
+        protected AsyncHandler createHandler() {
+          return new AsyncHandler(executor, latch);
+        }
+      }, new NoopMetricsContext());
+
+    // Use a single thread to serve all requests, hence concurrent requests can only be served asynchronously
+    NettyHttpService service = NettyHttpService.builder("test-async-handler")
+      .setHttpHandlers(httpHandler)
+      .setWorkerThreadPoolSize(1)
+      .setExecThreadPoolSize(0)
+      .build();
+
+    service.start();
+    try {
+      InetSocketAddress bindAddress = service.getBindAddress();
+      String baseURL = String.format("http://%s:%d/prefix", bindAddress.getHostName(), bindAddress.getPort());
+
+      List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < concurrency; i++) {
+        URL url = new URL(baseURL + "/async/" + i);
+        futures.add(executor.submit(() -> {
+          HttpURLConnection urlConn = (HttpURLConnection) url.openConnection();
+          try {
+            Assert.assertEquals(200, urlConn.getResponseCode());
+            return new String(ByteStreams.toByteArray(urlConn.getInputStream()), Charsets.UTF_8);
+          } finally {
+            urlConn.disconnect();
+          }
+        }));
+      }
+      for (int i = 0; i < concurrency; i++) {
+        Assert.assertEquals("Hello " + i, futures.get(i).get(20, TimeUnit.SECONDS));
+      }
+
+      HttpURLConnection urlConn = (HttpURLConnection) new URL(baseURL + "/async-producer").openConnection();
+      try {
+        Assert.assertEquals(200, urlConn.getResponseCode());
+        Assert.assertEquals(Strings.repeat("0123456789", 10),
+                            new String(ByteStreams.toByteArray(urlConn.getInputStream()), Charsets.UTF_8));
+      } finally {
+        urlConn.disconnect();
+      }
+
+      urlConn = (HttpURLConnection) new URL(baseURL + "/async-failure").openConnection();
+      try {
+        Assert.assertEquals(500, urlConn.getResponseCode());
+        Assert.assertEquals("Exception occurred while handling request: async-failure",
+                            new String(ByteStreams.toByteArray(urlConn.getErrorStream()), Charsets.UTF_8));
+      } finally {
+        urlConn.disconnect();
+      }
+
+      urlConn = (HttpURLConnection) new URL(baseURL + "/async-no-response").openConnection();
+      try {
+        Assert.assertEquals(500, urlConn.getResponseCode());
+      } finally {
+        urlConn.disconnect();
+      }
+
+      urlConn = (HttpURLConnection) new URL(baseURL + "/async-sync-response").openConnection();
+      try {
+        Assert.assertEquals(200, urlConn.getResponseCode());
+        Assert.assertEquals("sync", new String(ByteStreams.toByteArray(urlConn.getInputStream()), Charsets.UTF_8));
+      } finally {
+        urlConn.disconnect();
+      }
+    } finally {
+      service.stop();
+      executor.shutdownNow();
+    }
+  }
+
   private abstract static class AbstractDelegatorContext<T extends HttpServiceHandler> implements DelegatorContext<T> {
 
     private final ThreadLocal<T> threadLocal = new ThreadLocal<T>() {
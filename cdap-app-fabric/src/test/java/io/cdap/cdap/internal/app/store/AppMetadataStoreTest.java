@@ -24,6 +24,7 @@ import io.cdap.cdap.api.artifact.ArtifactId;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.internal.AppFabricTestHelper;
 import io.cdap.cdap.internal.app.runtime.SystemArguments;
+import io.cdap.cdap.internal.app.services.RunRecordIndexService;
 import io.cdap.cdap.proto.ProgramRunStatus;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.proto.id.ApplicationId;
@@ -31,8 +32,12 @@ import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.ProfileId;
 import io.cdap.cdap.proto.id.ProgramId;
 import io.cdap.cdap.proto.id.ProgramRunId;
+import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.Fields;
+import io.cdap.cdap.spi.data.table.field.Range;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
 import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.store.StoreDefinition;
 import org.apache.twill.api.RunId;
 import org.junit.Assert;
 import org.junit.Before;
@@ -392,6 +397,135 @@ public abstract class AppMetadataStoreTest {
     });
   }
 
+  @Test
+  public void testGetRunsByStatus() throws Exception {
+    ProgramId program1 = NamespaceId.DEFAULT.app("app1").workflow("program1");
+    ProgramId program2 = NamespaceId.DEFAULT.app("app2").workflow("program2");
+
+    // Runs of program1 started at 100 - 109 seconds alternate between completed and failed,
+    // and runs of program2 started at 100 - 102 seconds are killed
+    List<ProgramRunId> completed = new ArrayList<>();
+    List<ProgramRunId> failed = new ArrayList<>();
+    List<ProgramRunId> killed = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      ProgramRunId run = program1.run(RunIds.generate(TimeUnit.SECONDS.toMillis(100 + i)));
+      ProgramRunStatus status = i % 2 == 0 ? ProgramRunStatus.COMPLETED : ProgramRunStatus.FAILED;
+      (i % 2 == 0 ? completed : failed).add(0, run);
+      recordRunStop(run, status);
+    }
+    for (int i = 0; i < 3; i++) {
+      ProgramRunId run = program2.run(RunIds.generate(TimeUnit.SECONDS.toMillis(100 + i)));
+      killed.add(0, run);
+      recordRunStop(run, ProgramRunStatus.KILLED);
+    }
+    // An active run of program1 shouldn't be returned for any of the completed statuses
+    ProgramRunId running = program1.run(RunIds.generate(TimeUnit.SECONDS.toMillis(110)));
+    TransactionRunners.run(transactionRunner, context -> {
+      recordProvisionAndStart(running, AppMetadataStore.create(context));
+    });
+
+    assertRunsByStatus(completed, failed, killed, program1, program2);
+
+    // Runs without index entries, as written before the indexes were introduced, are found by scanning the run
+    // records until the indexes are built
+    TransactionRunners.run(transactionRunner, context -> {
+      context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS_STATUS_INDEX).deleteAll(Range.from(
+        ImmutableList.of(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_STATUS, "")), Range.Bound.INCLUSIVE));
+      context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS_PROGRAM_INDEX).deleteAll(Range.from(
+        ImmutableList.of(Fields.stringField(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD, "")),
+        Range.Bound.INCLUSIVE));
+      Assert.assertFalse(AppMetadataStore.create(context).isRunRecordIndexesBuilt());
+    });
+    assertRunsByStatus(completed, failed, killed, program1, program2);
+
+    // Rebuilding the indexes should index all the runs, after which the indexes are used
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      int count = 0;
+      List<Field<?>> lastKey = null;
+      do {
+        AppMetadataStore.IndexBatch batch = store.rebuildRunRecordIndexes(lastKey, 3);
+        count += batch.getCount();
+        lastKey = batch.getLastKey();
+      } while (lastKey != null);
+      Assert.assertEquals(completed.size() + failed.size() + killed.size() + 1, count);
+    });
+    Assert.assertTrue(new RunRecordIndexService(transactionRunner).rebuild(3));
+    TransactionRunners.run(transactionRunner, context -> {
+      Assert.assertTrue(AppMetadataStore.create(context).isRunRecordIndexesBuilt());
+    });
+    assertRunsByStatus(completed, failed, killed, program1, program2);
+
+    // Deleting the history of app1 should only remove runs of program1
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore.create(context).deleteProgramHistory(program1.getNamespace(), program1.getApplication(),
+                                                            program1.getVersion());
+    });
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      Assert.assertTrue(store.getRuns(program1, ProgramRunStatus.COMPLETED, 0, Long.MAX_VALUE,
+                                      Integer.MAX_VALUE, null).isEmpty());
+      Assert.assertTrue(store.getRuns(null, ProgramRunStatus.FAILED, 0, Long.MAX_VALUE,
+                                      Integer.MAX_VALUE, null).isEmpty());
+      Assert.assertEquals(killed, new ArrayList<>(store.getRuns(null, ProgramRunStatus.KILLED, 0, Long.MAX_VALUE,
+                                                                Integer.MAX_VALUE, null).keySet()));
+    });
+
+    // Deleting the history of the namespace should remove all runs
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore.create(context).deleteProgramHistory(NamespaceId.DEFAULT.getNamespace());
+    });
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      Assert.assertTrue(store.getRuns(null, ProgramRunStatus.KILLED, 0, Long.MAX_VALUE,
+                                      Integer.MAX_VALUE, null).isEmpty());
+    });
+  }
+
+  private void recordRunStop(ProgramRunId run, ProgramRunStatus status) {
+    long startTime = RunIds.getTime(run.getRun(), TimeUnit.SECONDS);
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      recordProvisionAndStart(run, store);
+      store.recordProgramRunning(run, startTime, null, AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+      store.recordProgramStop(run, startTime + 1, status, null,
+                              AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+    });
+  }
+
+  private void assertRunsByStatus(List<ProgramRunId> completed, List<ProgramRunId> failed,
+                                  List<ProgramRunId> killed, ProgramId program1, ProgramId program2) {
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+
+      // Runs are returned in reverse start time order
+      Assert.assertEquals(completed, new ArrayList<>(
+        store.getRuns(program1, ProgramRunStatus.COMPLETED, 0, Long.MAX_VALUE, Integer.MAX_VALUE, null).keySet()));
+      Assert.assertEquals(failed, new ArrayList<>(
+        store.getRuns(program1, ProgramRunStatus.FAILED, 0, Long.MAX_VALUE, Integer.MAX_VALUE, null).keySet()));
+      Assert.assertEquals(failed, new ArrayList<>(
+        store.getRuns(null, ProgramRunStatus.FAILED, 0, Long.MAX_VALUE, Integer.MAX_VALUE, null).keySet()));
+      Assert.assertEquals(killed, new ArrayList<>(
+        store.getRuns(null, ProgramRunStatus.KILLED, 0, Long.MAX_VALUE, Integer.MAX_VALUE, null).keySet()));
+      Assert.assertTrue(
+        store.getRuns(program1, ProgramRunStatus.KILLED, 0, Long.MAX_VALUE, Integer.MAX_VALUE, null).isEmpty());
+      Assert.assertTrue(
+        store.getRuns(program2, ProgramRunStatus.COMPLETED, 0, Long.MAX_VALUE, Integer.MAX_VALUE, null).isEmpty());
+
+      // Query with limit, time range and filter
+      Assert.assertEquals(completed.subList(0, 2), new ArrayList<>(
+        store.getRuns(program1, ProgramRunStatus.COMPLETED, 0, Long.MAX_VALUE, 2, null).keySet()));
+      // The end time is exclusive, hence should get runs started at 102 and 104 seconds
+      Assert.assertEquals(completed.subList(2, 4), new ArrayList<>(
+        store.getRuns(program1, ProgramRunStatus.COMPLETED, 102, 106, Integer.MAX_VALUE, null).keySet()));
+      Assert.assertEquals(completed.subList(2, 4), new ArrayList<>(
+        store.getRuns(null, ProgramRunStatus.COMPLETED, 102, 106, Integer.MAX_VALUE, null).keySet()));
+      Assert.assertEquals(Collections.singletonList(completed.get(1)), new ArrayList<>(
+        store.getRuns(program1, ProgramRunStatus.COMPLETED, 0, Long.MAX_VALUE, Integer.MAX_VALUE,
+                      meta -> meta.getProgramRunId().equals(completed.get(1))).keySet()));
+    });
+  }
+
   @Test
   public void testGetActiveRuns() throws Exception {
     // write a run record for each state for two programs in two apps in two namespaces
@@ -16,11 +16,16 @@
 package io.cdap.cdap.internal.app.store.preview;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
 import com.google.inject.Injector;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.internal.AppFabricTestHelper;
+import io.cdap.cdap.internal.io.SchemaTypeAdapter;
 import io.cdap.cdap.proto.NamespaceMeta;
 import io.cdap.cdap.proto.id.ApplicationId;
 import org.junit.AfterClass;
@@ -88,6 +93,17 @@ public class DefaultPreviewStoreTest {
     Assert.assertEquals(propertyMap, GSON.fromJson(firstApplicationData.get("key2").get(1),
                                                    new TypeToken<HashMap<Object, Object>>() { }.getType()));
 
+    // put and get a record
+    Schema schema = Schema.recordOf("record", Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("name", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    StructuredRecord record = StructuredRecord.builder(schema).set("id", 1).set("name", "test").build();
+    store.put(firstApplicationId, "recordtracer", "record", record);
+    JsonObject recordData = store.get(firstApplicationId, "recordtracer").get("record").get(0).getAsJsonObject();
+    Assert.assertEquals(schema, new GsonBuilder().registerTypeAdapter(Schema.class, new SchemaTypeAdapter()).create()
+      .fromJson(recordData.get("schema"), Schema.class));
+    Assert.assertEquals(1, recordData.getAsJsonObject("fields").get("id").getAsInt());
+    Assert.assertEquals("test", recordData.getAsJsonObject("fields").get("name").getAsString());
+
     // get the data for second application and logger name "mytracer"
     Map<String, List<JsonElement>> secondApplicationData = store.get(secondApplicationId, "mytracer");
     Assert.assertEquals(1, secondApplicationData.size());
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.scheduler;
+
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.internal.app.runtime.schedule.queue.JobQueueTable;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ScheduleId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link JobQueueNotifier}.
+ */
+public class JobQueueNotifierTest {
+
+  private static final int NUM_PARTITIONS = 4;
+
+  @Test
+  public void testNotify() throws Exception {
+    JobQueueNotifier notifier = new JobQueueNotifier(NUM_PARTITIONS);
+    ScheduleId scheduleId = NamespaceId.DEFAULT.app("app").schedule("schedule");
+    int partition = JobQueueTable.getPartition(scheduleId, NUM_PARTITIONS);
+
+    // Nothing is notified, hence should return empty after the timeout
+    Assert.assertTrue(notifier.await(partition, 0, TimeUnit.MILLISECONDS).isEmpty());
+    Assert.assertTrue(notifier.await(partition, 10, TimeUnit.MILLISECONDS).isEmpty());
+
+    // Notified schedules are returned without waiting, and only to the partition of the schedule
+    notifier.notifyPendingConstraint(scheduleId);
+    notifier.notifyPendingConstraint(scheduleId);
+    for (int i = 0; i < NUM_PARTITIONS; i++) {
+      if (i != partition) {
+        Assert.assertTrue(notifier.await(i, 0, TimeUnit.MILLISECONDS).isEmpty());
+      }
+    }
+    Assert.assertEquals(ImmutableSet.of(scheduleId), notifier.await(partition, 1, TimeUnit.HOURS));
+    Assert.assertTrue(notifier.await(partition, 0, TimeUnit.MILLISECONDS).isEmpty());
+
+    // A waiting thread should be woken up by the notification
+    CompletableFuture<Set<ScheduleId>> future = new CompletableFuture<>();
+    Thread t = new Thread(() -> {
+      try {
+        future.complete(notifier.await(partition, 1, TimeUnit.HOURS));
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      }
+    });
+    t.start();
+    notifier.notifyPendingConstraint(scheduleId);
+    Assert.assertEquals(ImmutableSet.of(scheduleId), future.get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testWakeup() throws Exception {
+    JobQueueNotifier notifier = new JobQueueNotifier(NUM_PARTITIONS);
+
+    CompletableFuture<Set<ScheduleId>> future = new CompletableFuture<>();
+    Thread t = new Thread(() -> {
+      try {
+        future.complete(notifier.await(0, 1, TimeUnit.HOURS));
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      }
+    });
+    t.start();
+    notifier.wakeupAll();
+    Assert.assertTrue(future.get(10, TimeUnit.SECONDS).isEmpty());
+  }
+}
@@ -62,8 +62,9 @@ import io.cdap.cdap.etl.batch.WorkflowBackedActionContext;
 import io.cdap.cdap.etl.batch.condition.PipelineCondition;
 import io.cdap.cdap.etl.batch.connector.AlertPublisherSink;
 import io.cdap.cdap.etl.batch.connector.AlertReader;
+import io.cdap.cdap.etl.batch.connector.ConnectorFormat;
 import io.cdap.cdap.etl.batch.connector.ConnectorSource;
-import io.cdap.cdap.etl.batch.connector.MultiConnectorSource;
+import io.cdap.cdap.etl.batch.connector.MultiConnectorFactory;
 import io.cdap.cdap.etl.batch.customaction.PipelineAction;
 import io.cdap.cdap.etl.batch.mapreduce.ETLMapReduce;
 import io.cdap.cdap.etl.common.BasicArguments;
@@ -738,7 +739,8 @@ public class SmartWorkflow extends AbstractWorkflow {
         connectorDatasets.put(connectorName, datasetName);
         phaseConnectorDatasets.put(connectorName, datasetName);
         // add the local dataset
-        ConnectorSource connectorSource = new MultiConnectorSource(datasetName, null);
+        ConnectorSource connectorSource =
+          new MultiConnectorFactory().createSource(datasetName, ConnectorFormat.fromStageSpec(connectorInfo));
         connectorSource.configure(getConfigurer());
       } else {
         phaseConnectorDatasets.put(connectorName, connectorDatasets.get(connectorName));
@@ -17,9 +17,12 @@
 package io.cdap.cdap.etl.batch;
 
 import io.cdap.cdap.etl.api.Destroyable;
+import io.cdap.cdap.etl.common.BufferedStageMetrics;
 import io.cdap.cdap.etl.common.RecordInfo;
 import io.cdap.cdap.etl.common.RecordType;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
@@ -31,10 +34,24 @@ import java.util.Set;
 public class PipeTransformExecutor<IN> implements Destroyable {
   private final Set<String> startingPoints;
   private final Map<String, PipeStage> pipeStages;
+  private final Collection<BufferedStageMetrics> stageMetrics;
 
   public PipeTransformExecutor(Map<String, PipeStage> pipeStages, Set<String> startingPoints) {
+    this(pipeStages, startingPoints, Collections.emptyList());
+  }
+
+  /**
+   * Creates an executor that flushes the given stage metrics when it is destroyed.
+   *
+   * @param pipeStages the stages of the pipe
+   * @param startingPoints the stages that receive the input records
+   * @param stageMetrics the {@link BufferedStageMetrics} used by the stages
+   */
+  public PipeTransformExecutor(Map<String, PipeStage> pipeStages, Set<String> startingPoints,
+                               Collection<BufferedStageMetrics> stageMetrics) {
     this.pipeStages = pipeStages;
     this.startingPoints = startingPoints;
+    this.stageMetrics = stageMetrics;
   }
 
   public void runOneIteration(IN input) {
@@ -49,5 +66,15 @@ public class PipeTransformExecutor<IN> implements Destroyable {
     for (PipeStage stage : pipeStages.values()) {
       stage.destroy();
     }
+    flushMetrics();
+  }
+
+  /**
+   * Writes the counts accumulated by the stage metrics.
+   */
+  public void flushMetrics() {
+    for (BufferedStageMetrics metrics : stageMetrics) {
+      metrics.flush();
+    }
   }
 }
@@ -0,0 +1,275 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.batch;
+
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.SchemaHash;
+import io.cdap.cdap.etl.common.record.SchemaComparator;
+import org.apache.hadoop.io.WritableComparator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link WritableComparator} for comparing serialized {@link StructuredRecordWritable} without deserializing them.
+ * Records are compared field by field directly on the binary encoding, using the same ordering as
+ * {@link io.cdap.cdap.etl.common.record.StructuredRecordComparator}.
+ *
+ * Records with different schemas, records in the legacy json format, and records containing maps,
+ * whose entries are not serialized in any particular order, are compared by deserializing them.
+ */
+public class StructuredRecordRawComparator extends WritableComparator {
+
+  private static final Comparator<Schema> SCHEMA_COMPARATOR = new SchemaComparator();
+  // offset of the schema hash, which is right after the format int
+  private static final int HASH_OFFSET = Integer.BYTES;
+  // offset of the schema length, which is right after the schema hash
+  private static final int SCHEMA_LENGTH_OFFSET = HASH_OFFSET + StructuredRecordWritable.SCHEMA_HASH_SIZE;
+
+  // cache of whether a schema can be compared in the binary format
+  private final Map<Schema, Boolean> rawComparable = new ConcurrentHashMap<>();
+
+  public StructuredRecordRawComparator() {
+    super(StructuredRecordWritable.class, true);
+  }
+
+  @Override
+  public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+    if (readInt(b1, s1) != StructuredRecordWritable.BINARY_FORMAT
+      || readInt(b2, s2) != StructuredRecordWritable.BINARY_FORMAT
+      || compareBytes(b1, s1 + HASH_OFFSET, StructuredRecordWritable.SCHEMA_HASH_SIZE,
+                      b2, s2 + HASH_OFFSET, StructuredRecordWritable.SCHEMA_HASH_SIZE) != 0) {
+      return super.compare(b1, s1, l1, b2, s2, l2);
+    }
+
+    int schemaLen = readInt(b1, s1 + SCHEMA_LENGTH_OFFSET);
+    int schemaOffset = s1 + SCHEMA_LENGTH_OFFSET + Integer.BYTES;
+    SchemaHash hash = new SchemaHash(ByteBuffer.wrap(b1, s1 + HASH_OFFSET, StructuredRecordWritable.SCHEMA_HASH_SIZE));
+    Schema schema;
+    try {
+      schema = StructuredRecordWritable.getSchema(hash, b1, schemaOffset, schemaLen);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to parse schema of the serialized StructuredRecord", e);
+    }
+    if (!rawComparable.computeIfAbsent(schema, StructuredRecordRawComparator::isRawComparable)) {
+      return super.compare(b1, s1, l1, b2, s2, l2);
+    }
+
+    int dataOffset1 = schemaOffset + schemaLen;
+    int dataOffset2 = s2 + SCHEMA_LENGTH_OFFSET + Integer.BYTES + readInt(b2, s2 + SCHEMA_LENGTH_OFFSET);
+    return compareRecord(schema, new Cursor(b1, dataOffset1), new Cursor(b2, dataOffset2));
+  }
+
+  private int compareRecord(Schema schema, Cursor c1, Cursor c2) {
+    //noinspection ConstantConditions
+    for (Schema.Field field : schema.getFields()) {
+      int comp = compareValue(field.getSchema(), c1, c2);
+      if (comp != 0) {
+        return comp;
+      }
+    }
+    return 0;
+  }
+
+  private int compareValue(Schema schema, Cursor c1, Cursor c2) {
+    switch (schema.getType()) {
+      case NULL:
+        return 0;
+      case BOOLEAN:
+        return Boolean.compare(c1.readBool(), c2.readBool());
+      case INT:
+      case ENUM:
+        return Integer.compare(c1.readInt(), c2.readInt());
+      case LONG:
+        return Long.compare(c1.readLong(), c2.readLong());
+      case FLOAT:
+        return Float.compare(Float.intBitsToFloat(c1.readLittleEndian()),
+                             Float.intBitsToFloat(c2.readLittleEndian()));
+      case DOUBLE:
+        return Double.compare(c1.readDouble(), c2.readDouble());
+      case BYTES:
+        return compareBytesValue(c1, c2, false);
+      case STRING:
+        return compareBytesValue(c1, c2, true);
+      case RECORD:
+        return compareRecord(schema, c1, c2);
+      case ARRAY:
+        return compareArray(schema.getComponentSchema(), c1, c2);
+      case UNION:
+        return compareUnion(schema.getUnionSchemas(), c1, c2);
+    }
+    // should never happen since schemas with maps are not compared in binary format
+    throw new IllegalStateException("Cannot compare serialized value of type " + schema.getType());
+  }
+
+  private int compareArray(Schema componentSchema, Cursor c1, Cursor c2) {
+    // StructuredRecordDatumWriter writes the array in one block, followed by an empty block unless the array is empty
+    int size1 = c1.readInt();
+    int size2 = c2.readInt();
+    int comp = Integer.compare(size1, size2);
+    if (comp != 0) {
+      return comp;
+    }
+    for (int i = 0; i < size1; i++) {
+      comp = compareValue(componentSchema, c1, c2);
+      if (comp != 0) {
+        return comp;
+      }
+    }
+    if (size1 != 0) {
+      c1.readInt();
+      c2.readInt();
+    }
+    return 0;
+  }
+
+  private int compareUnion(List<Schema> schemas, Cursor c1, Cursor c2) {
+    Schema schema1 = schemas.get(c1.readInt());
+    Schema schema2 = schemas.get(c2.readInt());
+    int comp = SCHEMA_COMPARATOR.compare(schema1, schema2);
+    if (comp != 0) {
+      return comp;
+    }
+    return compareValue(schema1, c1, c2);
+  }
+
+  /**
+   * Compares length prefixed bytes. If the bytes are UTF-8 encoded strings, the result follows the ordering
+   * of {@link String#compareTo(String)}, which compares UTF-16 characters.
+   */
+  private int compareBytesValue(Cursor c1, Cursor c2, boolean isString) {
+    int len1 = c1.readInt();
+    int len2 = c2.readInt();
+    int off1 = c1.skip(len1);
+    int off2 = c2.skip(len2);
+
+    int len = Math.min(len1, len2);
+    for (int i = 0; i < len; i++) {
+      int a = c1.bytes[off1 + i] & 0xff;
+      int b = c2.bytes[off2 + i] & 0xff;
+      if (a != b) {
+        // In UTF-16, supplementary characters (UTF-8 lead byte 0xF0 and above) are encoded as surrogates,
+        // which are smaller than characters in the range U+E000 to U+FFFF (UTF-8 lead byte 0xEE and 0xEF).
+        if (isString && a >= 0xEE && b >= 0xEE && (a >= 0xF0) != (b >= 0xF0)) {
+          return a >= 0xF0 ? -1 : 1;
+        }
+        return a - b;
+      }
+    }
+    return len1 - len2;
+  }
+
+  /**
+   * Returns whether values of the given schema can be compared in the binary format.
+   */
+  private static boolean isRawComparable(Schema schema) {
+    switch (schema.getType()) {
+      case MAP:
+        return false;
+      case ARRAY:
+        return isRawComparable(schema.getComponentSchema());
+      case RECORD:
+        //noinspection ConstantConditions
+        for (Schema.Field field : schema.getFields()) {
+          if (!isRawComparable(field.getSchema())) {
+            return false;
+          }
+        }
+        return true;
+      case UNION:
+        //noinspection ConstantConditions
+        for (Schema unionSchema : schema.getUnionSchemas()) {
+          if (!isRawComparable(unionSchema)) {
+            return false;
+          }
+        }
+        return true;
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * Reads binary encoded values from a byte array, following the encoding of
+   * {@link io.cdap.cdap.format.io.DataOutputEncoder}.
+   */
+  private static final class Cursor {
+    private final byte[] bytes;
+    private int pos;
+
+    Cursor(byte[] bytes, int pos) {
+      this.bytes = bytes;
+      this.pos = pos;
+    }
+
+    boolean readBool() {
+      return bytes[pos++] == 1;
+    }
+
+    int readInt() {
+      int val = 0;
+      int shift = 0;
+      int b = bytes[pos++] & 0xff;
+      while (b > 0x7f) {
+        val ^= (b & 0x7f) << shift;
+        shift += 7;
+        b = bytes[pos++] & 0xff;
+      }
+      val ^= b << shift;
+      return (val >>> 1) ^ -(val & 1);
+    }
+
+    long readLong() {
+      long val = 0;
+      int shift = 0;
+      int b = bytes[pos++] & 0xff;
+      while (b > 0x7f) {
+        val ^= (long) (b & 0x7f) << shift;
+        shift += 7;
+        b = bytes[pos++] & 0xff;
+      }
+      val ^= (long) b << shift;
+      return (val >>> 1) ^ -(val & 1);
+    }
+
+    int readLittleEndian() {
+      int bits = (bytes[pos] & 0xff) ^ ((bytes[pos + 1] & 0xff) << 8)
+        ^ ((bytes[pos + 2] & 0xff) << 16) ^ ((bytes[pos + 3] & 0xff) << 24);
+      pos += 4;
+      return bits;
+    }
+
+    double readDouble() {
+      int low = readLittleEndian();
+      int high = readLittleEndian();
+      return Double.longBitsToDouble(((long) high << 32) | (low & 0xffffffffL));
+    }
+
+    /**
+     * Skips the given number of bytes and returns the position before skipping.
+     */
+    int skip(int len) {
+      int offset = pos;
+      pos += len;
+      return offset;
+    }
+  }
+}
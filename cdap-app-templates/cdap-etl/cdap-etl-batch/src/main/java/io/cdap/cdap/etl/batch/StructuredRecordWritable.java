@@ -16,16 +16,25 @@
 
 package io.cdap.cdap.etl.batch;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.SchemaHash;
 import io.cdap.cdap.etl.common.record.StructuredRecordComparator;
 import io.cdap.cdap.format.StructuredRecordStringConverter;
+import io.cdap.cdap.format.io.DataInputDecoder;
+import io.cdap.cdap.format.io.DataOutputEncoder;
+import io.cdap.cdap.format.io.StructuredRecordDatumReader;
+import io.cdap.cdap.format.io.StructuredRecordDatumWriter;
 import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
 
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Comparator;
 import java.util.Map;
 import java.util.Objects;
@@ -33,12 +42,45 @@ import java.util.TreeMap;
 
 /**
  * Wrapper around a {@link StructuredRecord} so that it can be used as the output key and/or value of a mapper.
- * This is not very performant and must be improved soon (CDAP-5347).
+ *
+ * The record is serialized in binary format as:
+ *
+ * <pre>
+ *   int(-1) | schema hash (16 bytes) | int(schema length) | schema json | binary encoded record
+ * </pre>
+ *
+ * The schema json is still carried by every record because MapReduce sorts and merges serialized records
+ * individually. However, when deserializing or comparing, the schema is looked up by the schema hash so that the
+ * schema json only needs to be parsed once per schema. Serialized records are compared using the
+ * {@link StructuredRecordRawComparator} without deserialization.
+ *
+ * For compatibility, the legacy json format, which starts with the length of the schema json, is still readable.
  */
 public class StructuredRecordWritable implements WritableComparable<StructuredRecordWritable> {
-  // schema cache so that we do not parse schema string for each incoming record
+
+  static final int BINARY_FORMAT = -1;
+  static final int SCHEMA_HASH_SIZE = 16;
+  // maximum number of schemas kept in each of the schema caches
+  private static final int MAX_CACHED_SCHEMAS = 1000;
+
+  // schema cache so that we do not parse schema string for each incoming record in the legacy json format
   private static final Map<byte[], Schema> schemaCache = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+  // schema cache keyed by the schema hash for the binary format
+  private static final Cache<SchemaHash, Schema> SCHEMAS = CacheBuilder.newBuilder()
+    .maximumSize(MAX_CACHED_SCHEMAS)
+    .build();
+  // cache of the serialized schema json, so that it is not encoded for each outgoing record
+  private static final Cache<Schema, byte[]> SCHEMA_BYTES = CacheBuilder.newBuilder()
+    .maximumSize(MAX_CACHED_SCHEMAS)
+    .build();
   private static final Comparator<StructuredRecord> COMPARATOR = new StructuredRecordComparator();
+  private static final StructuredRecordDatumWriter DATUM_WRITER = new StructuredRecordDatumWriter();
+  private static final StructuredRecordDatumReader DATUM_READER = new StructuredRecordDatumReader();
+
+  static {
+    WritableComparator.define(StructuredRecordWritable.class, new StructuredRecordRawComparator());
+  }
+
   private StructuredRecord record;
 
   // required by Hadoop
@@ -58,21 +100,59 @@ public class StructuredRecordWritable implements WritableComparable<StructuredRe
     return record;
   }
 
-  @SuppressWarnings("ConstantConditions")
   @Override
   public void write(DataOutput out) throws IOException {
-    byte[] schemaBytes = Bytes.toBytes(record.getSchema().toString());
+    Schema schema = record.getSchema();
+    byte[] schemaBytes = SCHEMA_BYTES.getIfPresent(schema);
+    if (schemaBytes == null) {
+      schemaBytes = Bytes.toBytes(schema.toString());
+      SCHEMA_BYTES.put(schema, schemaBytes);
+    }
+
+    out.writeInt(BINARY_FORMAT);
+    out.write(schema.getSchemaHash().toByteArray());
     out.writeInt(schemaBytes.length);
     out.write(schemaBytes);
-
-    byte[] recordBytes = Bytes.toBytes(StructuredRecordStringConverter.toJsonString(record));
-    out.writeInt(recordBytes.length);
-    out.write(recordBytes);
+    DATUM_WRITER.encode(record, new DataOutputEncoder(out));
   }
 
   @Override
   public void readFields(DataInput in) throws IOException {
+    int format = in.readInt();
+    if (format >= 0) {
+      readLegacyFields(format, in);
+      return;
+    }
+    if (format != BINARY_FORMAT) {
+      throw new IOException("Unsupported serialization format " + format + " for StructuredRecord");
+    }
+
+    byte[] hash = new byte[SCHEMA_HASH_SIZE];
+    in.readFully(hash);
     int schemaLen = in.readInt();
+    byte[] schemaBytes = new byte[schemaLen];
+    in.readFully(schemaBytes);
+
+    Schema schema = getSchema(new SchemaHash(ByteBuffer.wrap(hash)), schemaBytes, 0, schemaLen);
+    this.record = DATUM_READER.read(new DataInputDecoder(in), schema);
+  }
+
+  /**
+   * Returns the {@link Schema} of the given hash, parsing it from the given json bytes if it is not yet cached.
+   */
+  static Schema getSchema(SchemaHash hash, byte[] schemaBytes, int offset, int length) throws IOException {
+    Schema schema = SCHEMAS.getIfPresent(hash);
+    if (schema == null) {
+      schema = Schema.parseJson(Bytes.toString(schemaBytes, offset, length));
+      SCHEMAS.put(hash, schema);
+    }
+    return schema;
+  }
+
+  /**
+   * Reads the record written in the legacy json format.
+   */
+  private void readLegacyFields(int schemaLen, DataInput in) throws IOException {
     byte[] schemaBytes = new byte[schemaLen];
     in.readFully(schemaBytes, 0, schemaLen);
 
@@ -52,9 +52,9 @@ import io.cdap.cdap.etl.batch.conversion.WritableConversion;
 import io.cdap.cdap.etl.batch.conversion.WritableConversions;
 import io.cdap.cdap.etl.batch.join.Join;
 import io.cdap.cdap.etl.common.BasicArguments;
+import io.cdap.cdap.etl.common.BufferedStageMetrics;
 import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.common.DefaultMacroEvaluator;
-import io.cdap.cdap.etl.common.DefaultStageMetrics;
 import io.cdap.cdap.etl.common.NoErrorEmitter;
 import io.cdap.cdap.etl.common.NoopStageStatisticsCollector;
 import io.cdap.cdap.etl.common.PipelinePhase;
@@ -73,6 +73,7 @@ import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -97,6 +98,7 @@ public class MapReduceTransformExecutorFactory<T> {
   private final int numberOfRecordsPreview;
   private final BasicArguments arguments;
   private final boolean isPipelineContainsCondition;
+  private final List<BufferedStageMetrics> stageMetrics;
   private boolean isMapPhase;
 
   public MapReduceTransformExecutorFactory(MapReduceTaskContext taskContext,
@@ -120,6 +122,7 @@ public class MapReduceTransformExecutorFactory<T> {
     this.isMapPhase = hadoopContext instanceof Mapper.Context;
     this.arguments = arguments;
     this.isPipelineContainsCondition = isPipelineContainsCondition;
+    this.stageMetrics = new ArrayList<>();
   }
 
   private MapReduceRuntimeContext createRuntimeContext(StageSpec stageInfo) {
@@ -137,7 +140,7 @@ public class MapReduceTransformExecutorFactory<T> {
     TransformContext transformContext = createRuntimeContext(stageSpec);
     splitterTransform.initialize(transformContext);
 
-    StageMetrics stageMetrics = new DefaultStageMetrics(metrics, stageName);
+    StageMetrics stageMetrics = createStageMetrics(stageName);
     TaskAttemptContext taskAttemptContext = (TaskAttemptContext) taskContext.getHadoopContext();
     StageStatisticsCollector collector = isPipelineContainsCondition
       ? new MapReduceStageStatisticsCollector(stageName, taskAttemptContext) : new NoopStageStatisticsCollector();
@@ -152,7 +155,7 @@ public class MapReduceTransformExecutorFactory<T> {
       new DefaultMacroEvaluator(arguments, taskContext.getLogicalStartTime(), taskContext, taskContext.getNamespace());
     String stageName = stageSpec.getName();
     String pluginType = stageSpec.getPluginType();
-    StageMetrics stageMetrics = new DefaultStageMetrics(metrics, stageName);
+    StageMetrics stageMetrics = createStageMetrics(stageName);
     TaskAttemptContext taskAttemptContext = (TaskAttemptContext) taskContext.getHadoopContext();
     StageStatisticsCollector collector = isPipelineContainsCondition ?
       new MapReduceStageStatisticsCollector(stageName, taskAttemptContext) : new NoopStageStatisticsCollector();
@@ -222,7 +225,17 @@ public class MapReduceTransformExecutorFactory<T> {
 
     // sourceStageName will be null in reducers, so need to handle that case
     Set<String> startingPoints = (sourceStageName == null) ? pipeline.getSources() : Sets.newHashSet(sourceStageName);
-    return new PipeTransformExecutor<>(pipeStages, startingPoints);
+    return new PipeTransformExecutor<>(pipeStages, startingPoints, new ArrayList<>(stageMetrics));
+  }
+
+  /**
+   * Creates the {@link StageMetrics} for counting the records of a stage. The counts are accumulated locally
+   * since a task processes records in a single thread, and are flushed when the executor is destroyed.
+   */
+  private StageMetrics createStageMetrics(String stageName) {
+    BufferedStageMetrics bufferedStageMetrics = new BufferedStageMetrics(metrics, stageName);
+    stageMetrics.add(bufferedStageMetrics);
+    return bufferedStageMetrics;
   }
 
   private PipeStage getPipeStage(PipelinePhase pipeline, String stageName, Map<String, PipeStage> pipeStages,
@@ -0,0 +1,173 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.batch;
+
+import io.cdap.cdap.api.metrics.Metrics;
+import io.cdap.cdap.api.preview.DataTracer;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.InvalidEntry;
+import io.cdap.cdap.etl.api.StageMetrics;
+import io.cdap.cdap.etl.common.BufferedStageMetrics;
+import io.cdap.cdap.etl.common.DefaultStageMetrics;
+import io.cdap.cdap.etl.common.TrackedTransform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for the throughput of records going through a {@link PipeTransformExecutor} with a chain of
+ * 10 pass through transforms, comparing the per record cost of {@link DefaultStageMetrics} and
+ * {@link BufferedStageMetrics}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipeTransformExecutorBenchmark {
+
+  private static final int STAGES = 10;
+
+  @Param({"default", "buffered"})
+  public String stageMetrics;
+
+  private PipeTransformExecutor<Object> executor;
+  private CountingEmitter sink;
+  private long record;
+
+  @Setup
+  public void setup() {
+    Metrics metrics = new CountingMetrics();
+    List<BufferedStageMetrics> bufferedMetrics = new ArrayList<>();
+    Map<String, PipeStage> pipeStages = new HashMap<>();
+
+    // create the stages from the end of the chain, such that the output of each stage is already created
+    sink = new CountingEmitter();
+    Emitter<Object> emitter = sink;
+    for (int i = STAGES - 1; i >= 0; i--) {
+      String stageName = "stage" + i;
+      StageMetrics metricsForStage;
+      if ("buffered".equals(stageMetrics)) {
+        BufferedStageMetrics buffered = new BufferedStageMetrics(metrics, stageName);
+        bufferedMetrics.add(buffered);
+        metricsForStage = buffered;
+      } else {
+        metricsForStage = new DefaultStageMetrics(metrics, stageName);
+      }
+      TrackedTransform<Object, Object> transform =
+        new TrackedTransform<>((input, output) -> output.emit(input), metricsForStage, new NoopDataTracer());
+      PipeStage stage = new UnwrapPipeStage<>(stageName, transform, emitter);
+      pipeStages.put(stageName, stage);
+      emitter = PipeEmitter.builder(stageName).addOutputConsumer(stage).build();
+    }
+    executor = new PipeTransformExecutor<>(pipeStages, Collections.singleton("stage0"), bufferedMetrics);
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.destroy();
+  }
+
+  @Benchmark
+  public long process() {
+    executor.runOneIteration(record++);
+    return sink.count;
+  }
+
+  /**
+   * Emitter at the end of the chain that counts the records it received.
+   */
+  private static final class CountingEmitter implements Emitter<Object> {
+    private long count;
+
+    @Override
+    public void emit(Object value) {
+      count++;
+    }
+
+    @Override
+    public void emitAlert(Map<String, String> payload) {
+      // no-op
+    }
+
+    @Override
+    public void emitError(InvalidEntry<Object> invalidEntry) {
+      // no-op
+    }
+  }
+
+  /**
+   * {@link Metrics} that sums up all the counts.
+   */
+  private static final class CountingMetrics implements Metrics {
+    private long total;
+
+    @Override
+    public void count(String metricName, int delta) {
+      total += delta;
+    }
+
+    @Override
+    public void gauge(String metricName, long value) {
+      // no-op
+    }
+  }
+
+  /**
+   * {@link DataTracer} that is always disabled.
+   */
+  private static final class NoopDataTracer implements DataTracer {
+    @Override
+    public void info(String propertyName, Object propertyValue) {
+      // no-op
+    }
+
+    @Override
+    public String getName() {
+      return "noop";
+    }
+
+    @Override
+    public boolean isEnabled() {
+      return false;
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(PipeTransformExecutorBenchmark.class.getSimpleName()).build()).run();
+  }
+}
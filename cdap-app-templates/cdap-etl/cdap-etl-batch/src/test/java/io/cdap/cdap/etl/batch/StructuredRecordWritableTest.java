@@ -16,8 +16,12 @@
 
 package io.cdap.cdap.etl.batch;
 
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.format.StructuredRecordStringConverter;
+import org.apache.hadoop.io.WritableComparator;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -28,6 +32,10 @@ import java.io.DataInputStream;
 import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  */
@@ -52,6 +60,42 @@ public class StructuredRecordWritableTest {
     Assert.assertEquals(writableIn.get(), record);
   }
 
+  @Test
+  public void testEmptyCollectionsRoundTrip() throws IOException {
+    Schema schema = Schema.recordOf(
+      "rec",
+      Schema.Field.of("arr", Schema.arrayOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of("m", Schema.mapOf(Schema.of(Schema.Type.STRING), Schema.of(Schema.Type.INT))),
+      Schema.Field.of("nested", Schema.arrayOf(Schema.arrayOf(Schema.of(Schema.Type.INT)))),
+      Schema.Field.of("x", Schema.of(Schema.Type.INT)),
+      Schema.Field.of("s", Schema.of(Schema.Type.STRING)));
+
+    List<StructuredRecord> records = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      records.add(StructuredRecord.builder(schema)
+                    .set("arr", i % 2 == 0 ? Collections.emptyList() : Collections.singletonList("a" + i))
+                    .set("m", i % 3 == 0 ? Collections.emptyMap() : ImmutableMap.of("k" + i, i))
+                    .set("nested", Arrays.asList(Collections.emptyList(), Collections.singletonList(i)))
+                    .set("x", i + 5)
+                    .set("s", "s" + i)
+                    .build());
+    }
+
+    // Write all records to the same stream, so that misaligned reads would also corrupt the records after
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    DataOutput output = new DataOutputStream(os);
+    for (StructuredRecord record : records) {
+      new StructuredRecordWritable(record).write(output);
+    }
+
+    DataInput input = new DataInputStream(new ByteArrayInputStream(os.toByteArray()));
+    for (StructuredRecord record : records) {
+      StructuredRecordWritable writableIn = new StructuredRecordWritable();
+      writableIn.readFields(input);
+      Assert.assertEquals(record, writableIn.get());
+    }
+  }
+
   @Test
   public void testComparison() {
     Schema schema = Schema.recordOf("l", Schema.Field.of("l", Schema.of(Schema.Type.LONG)));
@@ -62,4 +106,127 @@ public class StructuredRecordWritableTest {
     Assert.assertNotEquals(0, writable1.compareTo(writable2));
     Assert.assertNotEquals(writable1, writable2);
   }
+
+  @Test
+  public void testReadLegacyFormat() throws IOException {
+    Schema schema = Schema.recordOf("rec", Schema.Field.of("x", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("y", Schema.of(Schema.Type.INT)));
+    StructuredRecord record = StructuredRecord.builder(schema).set("x", "abc").set("y", 5).build();
+
+    // Serialize in the legacy json format
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    DataOutput output = new DataOutputStream(os);
+    byte[] schemaBytes = Bytes.toBytes(schema.toString());
+    output.writeInt(schemaBytes.length);
+    output.write(schemaBytes);
+    byte[] recordBytes = Bytes.toBytes(StructuredRecordStringConverter.toJsonString(record));
+    output.writeInt(recordBytes.length);
+    output.write(recordBytes);
+
+    StructuredRecordWritable writableIn = new StructuredRecordWritable();
+    writableIn.readFields(new DataInputStream(new ByteArrayInputStream(os.toByteArray())));
+    Assert.assertEquals(record, writableIn.get());
+  }
+
+  @Test
+  public void testRawComparator() throws IOException {
+    Schema innerSchema = Schema.recordOf("inner", Schema.Field.of("d", Schema.of(Schema.Type.DOUBLE)));
+    Schema schema = Schema.recordOf(
+      "rec",
+      Schema.Field.of("s", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of("l", Schema.of(Schema.Type.LONG)),
+      Schema.Field.of("f", Schema.of(Schema.Type.FLOAT)),
+      Schema.Field.of("b", Schema.of(Schema.Type.BOOLEAN)),
+      Schema.Field.of("bytes", Schema.of(Schema.Type.BYTES)),
+      Schema.Field.of("arr", Schema.arrayOf(Schema.of(Schema.Type.INT))),
+      Schema.Field.of("inner", innerSchema));
+
+    List<StructuredRecord> records = new ArrayList<>();
+    for (String str : Arrays.asList(null, "", "a", "ab", "b", "\uffff", "\ud83d\ude00")) {
+      for (long l : new long[] { Long.MIN_VALUE, -1L, 0L, 300L }) {
+        for (int[] arr : new int[][] { {}, {1}, {1, 2}, {-1, 2} }) {
+          records.add(StructuredRecord.builder(schema)
+                        .set("s", str)
+                        .set("l", l)
+                        .set("f", l < 0 ? -1.5f : 2.5f)
+                        .set("b", l == 0L)
+                        .set("bytes", new byte[] { (byte) l })
+                        .set("arr", arr)
+                        .set("inner", StructuredRecord.builder(innerSchema).set("d", (double) arr.length).build())
+                        .build());
+        }
+      }
+    }
+    // Add records with a different schema and records with map, which needs to be compared by deserialization
+    Schema mapSchema = Schema.recordOf("rec", Schema.Field.of("m", Schema.mapOf(Schema.of(Schema.Type.STRING),
+                                                                                 Schema.of(Schema.Type.INT))));
+    records.add(StructuredRecord.builder(mapSchema).set("m", ImmutableMap.of("a", 1, "b", 2)).build());
+    records.add(StructuredRecord.builder(mapSchema).set("m", ImmutableMap.of("b", 2, "a", 1)).build());
+    records.add(StructuredRecord.builder(mapSchema).set("m", ImmutableMap.of("a", 2)).build());
+
+    WritableComparator comparator = WritableComparator.get(StructuredRecordWritable.class);
+    Assert.assertTrue(comparator instanceof StructuredRecordRawComparator);
+
+    List<byte[]> serialized = new ArrayList<>();
+    for (StructuredRecord record : records) {
+      serialized.add(serialize(new StructuredRecordWritable(record)));
+    }
+
+    for (int i = 0; i < records.size(); i++) {
+      for (int j = 0; j < records.size(); j++) {
+        StructuredRecordWritable w1 = new StructuredRecordWritable(records.get(i));
+        StructuredRecordWritable w2 = new StructuredRecordWritable(records.get(j));
+        byte[] b1 = serialized.get(i);
+        byte[] b2 = serialized.get(j);
+        Assert.assertEquals("Comparison mismatch for " + records.get(i) + " and " + records.get(j),
+                            Integer.signum(w1.compareTo(w2)),
+                            Integer.signum(comparator.compare(b1, 0, b1.length, b2, 0, b2.length)));
+      }
+    }
+  }
+
+  @Test
+  public void testRawComparatorEmptyArrays() throws IOException {
+    Schema schema = Schema.recordOf(
+      "rec",
+      Schema.Field.of("arr", Schema.arrayOf(Schema.of(Schema.Type.INT))),
+      Schema.Field.of("x", Schema.of(Schema.Type.INT)),
+      Schema.Field.of("nested", Schema.arrayOf(Schema.arrayOf(Schema.of(Schema.Type.STRING)))),
+      Schema.Field.of("s", Schema.of(Schema.Type.STRING)));
+
+    List<StructuredRecord> records = new ArrayList<>();
+    for (int[] arr : new int[][] { {}, {0} }) {
+      for (int x : new int[] { -1, 0, 5 }) {
+        for (List<List<String>> nested : Arrays.asList(Collections.<List<String>>emptyList(),
+                                                       Collections.singletonList(Collections.<String>emptyList()))) {
+          for (String str : Arrays.asList("", "a", "b")) {
+            records.add(StructuredRecord.builder(schema)
+                          .set("arr", arr)
+                          .set("x", x)
+                          .set("nested", nested)
+                          .set("s", str)
+                          .build());
+          }
+        }
+      }
+    }
+
+    WritableComparator comparator = WritableComparator.get(StructuredRecordWritable.class);
+    for (StructuredRecord record1 : records) {
+      for (StructuredRecord record2 : records) {
+        byte[] b1 = serialize(new StructuredRecordWritable(record1));
+        byte[] b2 = serialize(new StructuredRecordWritable(record2));
+        Assert.assertEquals("Comparison mismatch for " + record1 + " and " + record2,
+                            Integer.signum(new StructuredRecordWritable(record1)
+                                             .compareTo(new StructuredRecordWritable(record2))),
+                            Integer.signum(comparator.compare(b1, 0, b1.length, b2, 0, b2.length)));
+      }
+    }
+  }
+
+  private byte[] serialize(StructuredRecordWritable writable) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    writable.write(new DataOutputStream(os));
+    return os.toByteArray();
+  }
 }
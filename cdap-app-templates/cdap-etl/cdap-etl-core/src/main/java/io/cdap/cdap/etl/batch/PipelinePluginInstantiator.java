@@ -24,6 +24,7 @@ import io.cdap.cdap.api.plugin.PluginProperties;
 import io.cdap.cdap.etl.api.AlertPublisher;
 import io.cdap.cdap.etl.batch.connector.AlertPublisherSink;
 import io.cdap.cdap.etl.batch.connector.ConnectorFactory;
+import io.cdap.cdap.etl.batch.connector.ConnectorFormat;
 import io.cdap.cdap.etl.batch.connector.ConnectorSink;
 import io.cdap.cdap.etl.batch.connector.ConnectorSource;
 import io.cdap.cdap.etl.common.Constants;
@@ -103,14 +104,15 @@ public class PipelinePluginInstantiator implements PluginContext {
 
   @Nullable
   private <T> T getBuiltIn(String stageName) {
+    StageSpec stageSpec = phaseSpec.getPhase().getStage(stageName);
     if (connectorSources.contains(stageName)) {
       String datasetName = phaseSpec.getConnectorDatasets().get(stageName);
-      return (T) connectorFactory.createSource(datasetName);
+      return (T) connectorFactory.createSource(datasetName, ConnectorFormat.fromStageSpec(stageSpec));
     } else if (connectorSinks.contains(stageName)) {
       String datasetName = phaseSpec.getConnectorDatasets().get(stageName);
-      return (T) connectorFactory.createSink(datasetName, phaseSpec.getPhaseName());
+      return (T) connectorFactory.createSink(datasetName, phaseSpec.getPhaseName(),
+                                             ConnectorFormat.fromStageSpec(stageSpec));
     }
-    StageSpec stageSpec = phaseSpec.getPhase().getStage(stageName);
     if (stageSpec.getPluginType().equals(AlertPublisher.PLUGIN_TYPE)) {
       String datasetName = phaseSpec.getConnectorDatasets().get(stageName);
       return (T) new AlertPublisherSink(datasetName, phaseSpec.getPhaseName());
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.batch.connector;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.etl.common.RecordInfo;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileRecordReader;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileRecordReaderWrapper;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileSplit;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileRecordReader;
+
+import java.io.IOException;
+
+/**
+ * Input format for files written by {@link BinaryConnectorOutputFormat}. Like the
+ * {@link org.apache.hadoop.mapreduce.lib.input.CombineTextInputFormat} used by the json format,
+ * multiple files are combined into a single split.
+ */
+public class BinaryConnectorInputFormat extends CombineFileInputFormat<NullWritable, RecordInfo<StructuredRecord>> {
+
+  @Override
+  public RecordReader<NullWritable, RecordInfo<StructuredRecord>> createRecordReader(InputSplit split,
+                                                                                    TaskAttemptContext context)
+    throws IOException {
+    return new CombineFileRecordReader<>((CombineFileSplit) split, context, BlockRecordReaderWrapper.class);
+  }
+
+  /**
+   * Reads a single file of a {@link CombineFileSplit}. Needs to be public for {@link CombineFileRecordReader}
+   * to instantiate it.
+   */
+  public static class BlockRecordReaderWrapper
+    extends CombineFileRecordReaderWrapper<NullWritable, RecordInfo<StructuredRecord>> {
+
+    public BlockRecordReaderWrapper(CombineFileSplit split, TaskAttemptContext context, Integer idx)
+      throws IOException, InterruptedException {
+      super(new BlockFileInputFormat(), split, context, idx);
+    }
+  }
+
+  /**
+   * File input format that reads the blocks of a single file.
+   */
+  private static final class BlockFileInputFormat extends FileInputFormat<NullWritable, RecordInfo<StructuredRecord>> {
+
+    @Override
+    public RecordReader<NullWritable, RecordInfo<StructuredRecord>> createRecordReader(InputSplit split,
+                                                                                      TaskAttemptContext context) {
+      return new BlockRecordReader();
+    }
+  }
+
+  /**
+   * Reads the blocks of a {@link org.apache.hadoop.io.SequenceFile} and returns the records in them.
+   */
+  private static final class BlockRecordReader extends RecordReader<NullWritable, RecordInfo<StructuredRecord>> {
+
+    private final SequenceFileRecordReader<NullWritable, BytesWritable> delegate = new SequenceFileRecordReader<>();
+    private final RecordBlockReader blockReader = new RecordBlockReader();
+    private RecordInfo<StructuredRecord> current;
+
+    @Override
+    public void initialize(InputSplit split, TaskAttemptContext context) throws IOException, InterruptedException {
+      delegate.initialize(split, context);
+    }
+
+    @Override
+    public boolean nextKeyValue() throws IOException, InterruptedException {
+      while (!blockReader.hasNext()) {
+        if (!delegate.nextKeyValue()) {
+          current = null;
+          return false;
+        }
+        blockReader.reset(delegate.getCurrentValue());
+      }
+      current = blockReader.next();
+      return true;
+    }
+
+    @Override
+    public NullWritable getCurrentKey() {
+      return NullWritable.get();
+    }
+
+    @Override
+    public RecordInfo<StructuredRecord> getCurrentValue() {
+      return current;
+    }
+
+    @Override
+    public float getProgress() throws IOException {
+      return delegate.getProgress();
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+  }
+}
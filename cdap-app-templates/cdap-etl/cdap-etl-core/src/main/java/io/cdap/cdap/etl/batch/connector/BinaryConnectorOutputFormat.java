@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.batch.connector;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.etl.common.RecordInfo;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.IOException;
+
+/**
+ * Output format for the binary connector format. Records are buffered into blocks of about
+ * {@link #BLOCK_SIZE} bytes, which are written as values of a {@link SequenceFile}. Each block carries the schemas
+ * and stage names used by its records, so that they are only written once per block rather than once per record,
+ * while files remain splittable at block boundaries.
+ *
+ * Blocks are compressed if output compression is enabled through {@link FileOutputFormat#COMPRESS}, using the codec
+ * set in {@link FileOutputFormat#COMPRESS_CODEC}.
+ */
+public class BinaryConnectorOutputFormat extends FileOutputFormat<NullWritable, RecordInfo<StructuredRecord>> {
+
+  public static final String BLOCK_SIZE = "cdap.etl.connector.block.size";
+  private static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+  @Override
+  public RecordWriter<NullWritable, RecordInfo<StructuredRecord>> getRecordWriter(TaskAttemptContext context)
+    throws IOException {
+    Configuration conf = context.getConfiguration();
+
+    SequenceFile.CompressionType compressionType = SequenceFile.CompressionType.NONE;
+    CompressionCodec codec = null;
+    if (getCompressOutput(context)) {
+      // each value is a full block, hence record compression compresses the whole block
+      compressionType = SequenceFile.CompressionType.RECORD;
+      codec = ReflectionUtils.newInstance(getOutputCompressorClass(context, DefaultCodec.class), conf);
+    }
+
+    Path file = getDefaultWorkFile(context, "");
+    SequenceFile.Writer writer = SequenceFile.createWriter(conf, SequenceFile.Writer.file(file),
+                                                           SequenceFile.Writer.keyClass(NullWritable.class),
+                                                           SequenceFile.Writer.valueClass(BytesWritable.class),
+                                                           SequenceFile.Writer.compression(compressionType, codec));
+    return new BlockRecordWriter(writer, conf.getInt(BLOCK_SIZE, DEFAULT_BLOCK_SIZE));
+  }
+
+  /**
+   * Writes records in blocks to a {@link SequenceFile}.
+   */
+  private static final class BlockRecordWriter extends RecordWriter<NullWritable, RecordInfo<StructuredRecord>> {
+
+    private final SequenceFile.Writer writer;
+    private final int blockSize;
+    private final RecordBlockWriter blockWriter;
+    private final BytesWritable value;
+
+    BlockRecordWriter(SequenceFile.Writer writer, int blockSize) {
+      this.writer = writer;
+      this.blockSize = blockSize;
+      this.blockWriter = new RecordBlockWriter();
+      this.value = new BytesWritable();
+    }
+
+    @Override
+    public void write(NullWritable key, RecordInfo<StructuredRecord> recordInfo) throws IOException {
+      blockWriter.add(recordInfo);
+      if (blockWriter.getSize() >= blockSize) {
+        flush();
+      }
+    }
+
+    @Override
+    public void close(TaskAttemptContext context) throws IOException {
+      try {
+        flush();
+      } finally {
+        writer.close();
+      }
+    }
+
+    private void flush() throws IOException {
+      if (blockWriter.getRecordCount() == 0) {
+        return;
+      }
+      blockWriter.writeTo(value);
+      writer.append(NullWritable.get(), value);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.batch.connector;
+
+import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.OutputFormat;
+import org.apache.hadoop.mapreduce.lib.input.CombineTextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+/**
+ * Storage format of the data written to connector datasets.
+ */
+public enum ConnectorFormat {
+  /**
+   * Each record is written as a line of json, together with its schema.
+   */
+  JSON(CombineTextInputFormat.class, TextOutputFormat.class),
+
+  /**
+   * Records are binary encoded in blocks, with each schema and stage name only written once per block.
+   * See {@link BinaryConnectorOutputFormat}.
+   */
+  BINARY(BinaryConnectorInputFormat.class, BinaryConnectorOutputFormat.class);
+
+  private final Class<? extends InputFormat> inputFormatClass;
+  private final Class<? extends OutputFormat> outputFormatClass;
+
+  ConnectorFormat(Class<? extends InputFormat> inputFormatClass, Class<? extends OutputFormat> outputFormatClass) {
+    this.inputFormatClass = inputFormatClass;
+    this.outputFormatClass = outputFormatClass;
+  }
+
+  public Class<? extends InputFormat> getInputFormatClass() {
+    return inputFormatClass;
+  }
+
+  public Class<? extends OutputFormat> getOutputFormatClass() {
+    return outputFormatClass;
+  }
+
+  /**
+   * Returns the format of the given connector stage. Connectors planned by older versions do not have the
+   * format property and always use the json format.
+   *
+   * @param stageSpec the spec of a connector stage
+   * @return the format of the connector
+   */
+  public static ConnectorFormat fromStageSpec(StageSpec stageSpec) {
+    String format = stageSpec.getPlugin().getProperties().get(Constants.Connector.FORMAT);
+    return format == null ? JSON : ConnectorFormat.valueOf(format);
+  }
+}
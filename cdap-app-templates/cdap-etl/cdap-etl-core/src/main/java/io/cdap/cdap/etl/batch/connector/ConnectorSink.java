@@ -22,7 +22,6 @@ import io.cdap.cdap.etl.api.batch.BatchSink;
 import io.cdap.cdap.etl.api.batch.BatchSinkContext;
 import io.cdap.cdap.etl.common.Constants;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.Text;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -39,11 +38,12 @@ import java.util.Map;
  * This is because we don't want this to show up as a plugin that users can select and use, and also because
  * it uses features not exposed in the etl api (local workflow datasets).
  *
- * TODO: improve storage format. It is currently a json of the record but that is obviously not ideal
+ * How records are stored depends on the {@link ConnectorFormat} of the connector dataset.
  *
  * @param <T> type of input object
+ * @param <V> type of output value
  */
-public abstract class ConnectorSink<T> extends BatchSink<T, NullWritable, Text> {
+public abstract class ConnectorSink<T, V> extends BatchSink<T, NullWritable, V> {
   private final String datasetName;
   private final String phaseName;
 
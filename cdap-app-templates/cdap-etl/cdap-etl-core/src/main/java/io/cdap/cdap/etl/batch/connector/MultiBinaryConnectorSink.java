@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.batch.connector;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.dataset.lib.KeyValue;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.common.RecordInfo;
+import org.apache.hadoop.io.NullWritable;
+
+/**
+ * Connector sink that preserves which stage each record came from and the record type,
+ * using the {@link ConnectorFormat#BINARY} format.
+ * This is used in the MapReduce engine, where connectors can store output from multiple stages.
+ */
+public class MultiBinaryConnectorSink
+  extends ConnectorSink<RecordInfo<StructuredRecord>, RecordInfo<StructuredRecord>> {
+
+  public MultiBinaryConnectorSink(String datasetName, String phaseName) {
+    super(datasetName, phaseName);
+  }
+
+  @Override
+  public void transform(RecordInfo<StructuredRecord> input,
+                        Emitter<KeyValue<NullWritable, RecordInfo<StructuredRecord>>> emitter) {
+    emitter.emit(new KeyValue<>(NullWritable.get(), input));
+  }
+}
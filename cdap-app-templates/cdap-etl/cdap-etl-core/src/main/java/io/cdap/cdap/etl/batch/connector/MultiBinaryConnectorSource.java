@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.batch.connector;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.dataset.lib.KeyValue;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.common.RecordInfo;
+import org.apache.hadoop.io.NullWritable;
+
+/**
+ * Used to read data written by {@link MultiBinaryConnectorSink}.
+ */
+public class MultiBinaryConnectorSource
+  extends ConnectorSource<NullWritable, RecordInfo<StructuredRecord>, RecordInfo<StructuredRecord>> {
+
+  public MultiBinaryConnectorSource(String datasetName) {
+    super(datasetName, ConnectorFormat.BINARY);
+  }
+
+  @Override
+  public void transform(KeyValue<NullWritable, RecordInfo<StructuredRecord>> input,
+                        Emitter<RecordInfo<StructuredRecord>> emitter) {
+    emitter.emit(input.getValue());
+  }
+}
@@ -22,12 +22,18 @@ package io.cdap.cdap.etl.batch.connector;
 public class MultiConnectorFactory implements ConnectorFactory {
 
   @Override
-  public ConnectorSource createSource(String datasetName) {
+  public ConnectorSource createSource(String datasetName, ConnectorFormat format) {
+    if (format == ConnectorFormat.BINARY) {
+      return new MultiBinaryConnectorSource(datasetName);
+    }
     return new MultiConnectorSource(datasetName, null);
   }
 
   @Override
-  public ConnectorSink createSink(String datasetName, String phaseName) {
+  public ConnectorSink createSink(String datasetName, String phaseName, ConnectorFormat format) {
+    if (format == ConnectorFormat.BINARY) {
+      return new MultiBinaryConnectorSink(datasetName, phaseName);
+    }
     return new MultiConnectorSink(datasetName, phaseName);
   }
 }
@@ -32,7 +32,7 @@ import java.io.IOException;
  * This is used in the MapReduce engine, where connectors can store output from multiple stages.
  * Connectors store the stage name each record came from in case they are placed in front of a joiner.
  */
-public class MultiConnectorSink extends ConnectorSink<RecordInfo<StructuredRecord>> {
+public class MultiConnectorSink extends ConnectorSink<RecordInfo<StructuredRecord>, Text> {
 
   public MultiConnectorSink(String datasetName, String phaseName) {
     super(datasetName, phaseName);
@@ -31,7 +31,7 @@ import javax.annotation.Nullable;
 /**
  * Used to read data written by {@link MultiConnectorSink}.
  */
-public class MultiConnectorSource extends ConnectorSource<RecordInfo<StructuredRecord>> {
+public class MultiConnectorSource extends ConnectorSource<LongWritable, Text, RecordInfo<StructuredRecord>> {
   static final Schema RECORD_WITH_SCHEMA = Schema.recordOf(
     "record",
     Schema.Field.of("stageName", Schema.of(Schema.Type.STRING)),
@@ -42,7 +42,7 @@ public class MultiConnectorSource extends ConnectorSource<RecordInfo<StructuredR
   private final Schema schema;
 
   public MultiConnectorSource(String datasetName, @Nullable Schema schema) {
-    super(datasetName);
+    super(datasetName, ConnectorFormat.JSON);
     this.schema = schema;
   }
 
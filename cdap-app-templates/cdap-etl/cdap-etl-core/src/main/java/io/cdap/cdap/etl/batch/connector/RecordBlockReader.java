@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.batch.connector;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.common.io.Decoder;
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.common.RecordType;
+import io.cdap.cdap.format.io.DataInputDecoder;
+import io.cdap.cdap.format.io.StructuredRecordDatumReader;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.DataInputBuffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads {@link RecordInfo} from blocks written by {@link RecordBlockWriter}.
+ */
+final class RecordBlockReader {
+
+  private static final RecordType[] RECORD_TYPES = RecordType.values();
+
+  private final StructuredRecordDatumReader datumReader = new StructuredRecordDatumReader();
+  // schemas are usually the same across blocks, cache them so that they are only parsed once
+  private final Map<String, Schema> schemaCache = new HashMap<>();
+  private final List<Schema> schemas = new ArrayList<>();
+  private final List<String> stages = new ArrayList<>();
+  private final DataInputBuffer input = new DataInputBuffer();
+  private final Decoder decoder = new DataInputDecoder(input);
+  private int remaining;
+
+  /**
+   * Starts reading from the given block.
+   */
+  void reset(BytesWritable block) throws IOException {
+    input.reset(block.getBytes(), block.getLength());
+
+    schemas.clear();
+    int schemaCount = decoder.readInt();
+    for (int i = 0; i < schemaCount; i++) {
+      String schemaStr = decoder.readString();
+      Schema schema = schemaCache.get(schemaStr);
+      if (schema == null) {
+        schema = Schema.parseJson(schemaStr);
+        schemaCache.put(schemaStr, schema);
+      }
+      schemas.add(schema);
+    }
+
+    stages.clear();
+    int stageCount = decoder.readInt();
+    for (int i = 0; i < stageCount; i++) {
+      stages.add(decoder.readString());
+    }
+
+    remaining = decoder.readInt();
+  }
+
+  /**
+   * Returns whether there are more records in the current block.
+   */
+  boolean hasNext() {
+    return remaining > 0;
+  }
+
+  /**
+   * Reads the next record from the current block.
+   */
+  RecordInfo<StructuredRecord> next() throws IOException {
+    int stageIndex = decoder.readInt();
+    RecordType type = RECORD_TYPES[decoder.readInt()];
+    Schema schema = schemas.get(decoder.readInt());
+    StructuredRecord record = datumReader.read(decoder, schema);
+    remaining--;
+    return RecordInfo.builder(record, stageIndex == 0 ? null : stages.get(stageIndex - 1), type).build();
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.batch.connector;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.common.io.Encoder;
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.format.io.DataOutputEncoder;
+import io.cdap.cdap.format.io.StructuredRecordDatumWriter;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.DataOutputBuffer;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Buffers {@link RecordInfo} in the binary block format read by {@link RecordBlockReader}. A block is laid out as:
+ *
+ * <pre>
+ *   schema count | schema json ... | stage count | stage name ... | record count | record ...
+ * </pre>
+ *
+ * where each record is the stage index (0 for no stage, otherwise index + 1), the record type ordinal,
+ * the schema index and the binary encoded record. All counts and indices are written as variable length ints.
+ */
+final class RecordBlockWriter {
+
+  private final StructuredRecordDatumWriter datumWriter = new StructuredRecordDatumWriter();
+  private final Map<Schema, Integer> schemas = new LinkedHashMap<>();
+  private final Map<String, Integer> stages = new LinkedHashMap<>();
+  private final DataOutputBuffer records = new DataOutputBuffer();
+  private final Encoder recordEncoder = new DataOutputEncoder(records);
+  private final DataOutputBuffer block = new DataOutputBuffer();
+  private final Encoder blockEncoder = new DataOutputEncoder(block);
+  private int recordCount;
+
+  /**
+   * Adds a record to the current block.
+   */
+  void add(RecordInfo<StructuredRecord> recordInfo) throws IOException {
+    StructuredRecord record = recordInfo.getValue();
+    String stage = recordInfo.getFromStage();
+
+    recordEncoder.writeInt(stage == null ? 0 : getIndex(stages, stage) + 1);
+    recordEncoder.writeInt(recordInfo.getType().ordinal());
+    recordEncoder.writeInt(getIndex(schemas, record.getSchema()));
+    datumWriter.encode(record, recordEncoder);
+    recordCount++;
+  }
+
+  /**
+   * Returns the number of bytes used by records in the current block.
+   */
+  int getSize() {
+    return records.getLength();
+  }
+
+  /**
+   * Returns the number of records in the current block.
+   */
+  int getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * Writes the current block to the given {@link BytesWritable} and starts a new block.
+   */
+  void writeTo(BytesWritable value) throws IOException {
+    block.reset();
+    blockEncoder.writeInt(schemas.size());
+    for (Schema schema : schemas.keySet()) {
+      blockEncoder.writeString(schema.toString());
+    }
+    blockEncoder.writeInt(stages.size());
+    for (String stage : stages.keySet()) {
+      blockEncoder.writeString(stage);
+    }
+    blockEncoder.writeInt(recordCount);
+    block.write(records.getData(), 0, records.getLength());
+    value.set(block.getData(), 0, block.getLength());
+
+    schemas.clear();
+    stages.clear();
+    records.reset();
+    recordCount = 0;
+  }
+
+  private static <T> int getIndex(Map<T, Integer> indices, T key) {
+    Integer index = indices.get(key);
+    if (index == null) {
+      index = indices.size();
+      indices.put(key, index);
+    }
+    return index;
+  }
+}
@@ -22,12 +22,18 @@ package io.cdap.cdap.etl.batch.connector;
 public class SingleConnectorFactory implements ConnectorFactory {
 
   @Override
-  public ConnectorSource createSource(String datasetName) {
+  public ConnectorSource createSource(String datasetName, ConnectorFormat format) {
+    if (format == ConnectorFormat.BINARY) {
+      return new SingleBinaryConnectorSource(datasetName);
+    }
     return new SingleConnectorSource(datasetName, null);
   }
 
   @Override
-  public ConnectorSink createSink(String datasetName, String phaseName) {
+  public ConnectorSink createSink(String datasetName, String phaseName, ConnectorFormat format) {
+    if (format == ConnectorFormat.BINARY) {
+      return new SingleBinaryConnectorSink(datasetName, phaseName);
+    }
     return new SingleConnectorSink(datasetName, phaseName);
   }
 }
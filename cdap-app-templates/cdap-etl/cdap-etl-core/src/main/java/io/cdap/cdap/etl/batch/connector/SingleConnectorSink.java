@@ -30,7 +30,7 @@ import java.io.IOException;
  * Connector sink that only writes a single type of record.
  * This is used in the Spark engine, where connectors are only used for conditions.
  */
-public class SingleConnectorSink extends ConnectorSink<StructuredRecord> {
+public class SingleConnectorSink extends ConnectorSink<StructuredRecord, Text> {
 
   public SingleConnectorSink(String datasetName, String phaseName) {
     super(datasetName, phaseName);
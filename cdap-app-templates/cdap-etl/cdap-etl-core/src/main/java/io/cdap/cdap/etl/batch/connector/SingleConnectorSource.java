@@ -29,7 +29,7 @@ import javax.annotation.Nullable;
 /**
  * Used to read data written by {@link SingleConnectorSink}.
  */
-public class SingleConnectorSource extends ConnectorSource<StructuredRecord> {
+public class SingleConnectorSource extends ConnectorSource<LongWritable, Text, StructuredRecord> {
   static final Schema RECORD_WITH_SCHEMA = Schema.recordOf(
     "record",
     Schema.Field.of("schema", Schema.of(Schema.Type.STRING)),
@@ -38,7 +38,7 @@ public class SingleConnectorSource extends ConnectorSource<StructuredRecord> {
   private final Schema schema;
 
   public SingleConnectorSource(String datasetName, @Nullable Schema schema) {
-    super(datasetName);
+    super(datasetName, ConnectorFormat.JSON);
     this.schema = schema;
   }
 
@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.common;
+
+import io.cdap.cdap.api.metrics.Metrics;
+import io.cdap.cdap.etl.api.StageMetrics;
+import io.cdap.cdap.etl.common.plugin.Caller;
+import io.cdap.cdap.etl.common.plugin.NoStageLoggingCaller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link StageMetrics} that accumulates counts in stage local counters, and only writes them to the
+ * {@link Metrics} once a counter reaches the flush threshold or when {@link #flush()} is called.
+ * Metric names are prefixed once when a counter is created, so that counting a record neither allocates
+ * nor calls into the {@link Metrics}. Gauges are written directly.
+ *
+ * This class is not thread safe. It is meant to be used by a task that processes records sequentially,
+ * which must call {@link #flush()} at the end of its processing.
+ */
+public class BufferedStageMetrics implements StageMetrics {
+
+  public static final int DEFAULT_FLUSH_THRESHOLD = 1000;
+
+  private final Metrics metrics;
+  private final String prefix;
+  private final int flushThreshold;
+  private final Caller caller;
+  private final Map<String, Counter> stageCounters;
+  private final Map<String, Counter> pipelineCounters;
+
+  public BufferedStageMetrics(Metrics metrics, String stageName) {
+    this(metrics, stageName, DEFAULT_FLUSH_THRESHOLD);
+  }
+
+  public BufferedStageMetrics(Metrics metrics, String stageName, int flushThreshold) {
+    if (flushThreshold <= 0) {
+      throw new IllegalArgumentException("Flush threshold must be positive, but got " + flushThreshold);
+    }
+    this.metrics = metrics;
+    this.prefix = stageName + ".";
+    this.flushThreshold = flushThreshold;
+    this.caller = NoStageLoggingCaller.wrap(Caller.DEFAULT);
+    this.stageCounters = new HashMap<>();
+    this.pipelineCounters = new HashMap<>();
+  }
+
+  @Override
+  public void count(String metricName, int delta) {
+    Counter counter = stageCounters.get(metricName);
+    if (counter == null) {
+      counter = new Counter(prefix + metricName);
+      stageCounters.put(metricName, counter);
+    }
+    counter.add(delta);
+  }
+
+  @Override
+  public void gauge(String metricName, long value) {
+    caller.callUnchecked(() -> {
+      metrics.gauge(prefix + metricName, value);
+      return null;
+    });
+  }
+
+  @Override
+  public void pipelineCount(String metricName, int delta) {
+    Counter counter = pipelineCounters.get(metricName);
+    if (counter == null) {
+      counter = new Counter(metricName);
+      pipelineCounters.put(metricName, counter);
+    }
+    counter.add(delta);
+  }
+
+  @Override
+  public void pipelineGauge(String metricName, long value) {
+    caller.callUnchecked(() -> {
+      metrics.gauge(metricName, value);
+      return null;
+    });
+  }
+
+  /**
+   * Writes all the accumulated counts to the {@link Metrics}.
+   */
+  public void flush() {
+    for (Counter counter : stageCounters.values()) {
+      counter.flush();
+    }
+    for (Counter counter : pipelineCounters.values()) {
+      counter.flush();
+    }
+  }
+
+  /**
+   * A counter of a metric with the fully qualified metric name.
+   */
+  private final class Counter {
+    private final String metricName;
+    private int count;
+
+    Counter(String metricName) {
+      this.metricName = metricName;
+    }
+
+    void add(int delta) {
+      long total = (long) count + delta;
+      if (total > Integer.MAX_VALUE || total < Integer.MIN_VALUE) {
+        flush();
+        total = delta;
+      }
+      count = (int) total;
+      if (count >= flushThreshold || count <= -flushThreshold) {
+        flush();
+      }
+    }
+
+    void flush() {
+      if (count == 0) {
+        return;
+      }
+      int delta = count;
+      count = 0;
+      caller.callUnchecked(() -> {
+        metrics.count(metricName, delta);
+        return null;
+      });
+    }
+  }
+}
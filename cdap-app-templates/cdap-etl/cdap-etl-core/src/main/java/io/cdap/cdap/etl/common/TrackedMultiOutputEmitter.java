@@ -21,6 +21,7 @@ import io.cdap.cdap.etl.api.InvalidEntry;
 import io.cdap.cdap.etl.api.MultiOutputEmitter;
 import io.cdap.cdap.etl.api.StageMetrics;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -33,18 +34,30 @@ public class TrackedMultiOutputEmitter<E> implements MultiOutputEmitter<E> {
   private final StageMetrics stageMetrics;
   private final DataTracer dataTracer;
   private final StageStatisticsCollector collector;
+  // port -> metric name, which can be shared across emitters of the same stage to avoid creating the names per record
+  private final Map<String, String> portMetricNames;
 
   public TrackedMultiOutputEmitter(MultiOutputEmitter<E> delegate, StageMetrics stageMetrics, DataTracer dataTracer,
                                    StageStatisticsCollector collector) {
+    this(delegate, stageMetrics, dataTracer, collector, new HashMap<>());
+  }
+
+  public TrackedMultiOutputEmitter(MultiOutputEmitter<E> delegate, StageMetrics stageMetrics, DataTracer dataTracer,
+                                   StageStatisticsCollector collector, Map<String, String> portMetricNames) {
     this.delegate = delegate;
     this.stageMetrics = stageMetrics;
     this.dataTracer = dataTracer;
     this.collector = collector;
+    this.portMetricNames = portMetricNames;
   }
 
   @Override
   public void emit(String port, Object value) {
-    String metricName = Constants.Metrics.RECORDS_OUT + "." + port;
+    String metricName = portMetricNames.get(port);
+    if (metricName == null) {
+      metricName = Constants.Metrics.RECORDS_OUT + "." + port;
+      portMetricNames.put(port, metricName);
+    }
     stageMetrics.count(metricName, 1);
     collector.incrementOutputRecordCount();
     if (dataTracer.isEnabled()) {
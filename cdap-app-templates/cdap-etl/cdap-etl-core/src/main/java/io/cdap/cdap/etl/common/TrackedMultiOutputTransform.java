@@ -23,6 +23,8 @@ import io.cdap.cdap.etl.api.MultiOutputTransformation;
 import io.cdap.cdap.etl.api.StageMetrics;
 import io.cdap.cdap.etl.api.Transformation;
 
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * A {@link Transformation} that delegates transform operations while emitting metrics
@@ -36,6 +38,7 @@ public class TrackedMultiOutputTransform<IN, ERROR> implements MultiOutputTransf
   private final StageMetrics metrics;
   private final DataTracer dataTracer;
   private final StageStatisticsCollector collector;
+  private final Map<String, String> portMetricNames;
 
   public TrackedMultiOutputTransform(MultiOutputTransformation<IN, ERROR> transform, StageMetrics metrics,
                                      DataTracer dataTracer) {
@@ -48,13 +51,15 @@ public class TrackedMultiOutputTransform<IN, ERROR> implements MultiOutputTransf
     this.metrics = metrics;
     this.dataTracer = dataTracer;
     this.collector = collector;
+    this.portMetricNames = new HashMap<>();
   }
 
   @Override
   public void transform(IN input, MultiOutputEmitter<ERROR> emitter) throws Exception {
     metrics.count(Constants.Metrics.RECORDS_IN, 1);
     collector.incrementInputRecordCount();
-    transform.transform(input, new TrackedMultiOutputEmitter<>(emitter, metrics, dataTracer, collector));
+    transform.transform(input, new TrackedMultiOutputEmitter<>(emitter, metrics, dataTracer, collector,
+                                                                   portMetricNames));
   }
 
   @Override
@@ -22,6 +22,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import io.cdap.cdap.etl.api.condition.Condition;
+import io.cdap.cdap.etl.batch.connector.ConnectorFormat;
 import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.common.PipelinePhase;
 import io.cdap.cdap.etl.proto.Connection;
@@ -363,7 +364,8 @@ public class PipelinePlanner {
           new PluginSpec(Constants.Connector.PLUGIN_TYPE, "connector",
                          ImmutableMap.of(Constants.Connector.ORIGINAL_NAME, originalName != null
                                            ? originalName : stageName,
-                                         Constants.Connector.TYPE, connectorType), null);
+                                         Constants.Connector.TYPE, connectorType,
+                                         Constants.Connector.FORMAT, ConnectorFormat.BINARY.name()), null);
         phaseBuilder.addStage(StageSpec.builder(stageName, connectorSpec).build());
         continue;
       }
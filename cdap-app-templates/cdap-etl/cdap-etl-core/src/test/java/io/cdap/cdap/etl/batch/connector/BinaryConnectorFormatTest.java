@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.batch.connector;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.common.RecordType;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for {@link BinaryConnectorOutputFormat} and {@link BinaryConnectorInputFormat}.
+ */
+public class BinaryConnectorFormatTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static final Schema SCHEMA1 = Schema.recordOf(
+    "r1",
+    Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("name", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+  private static final Schema SCHEMA2 = Schema.recordOf(
+    "r2",
+    Schema.Field.of("price", Schema.of(Schema.Type.DOUBLE)),
+    Schema.Field.of("tags", Schema.arrayOf(Schema.of(Schema.Type.STRING))));
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    testRoundTrip(false);
+  }
+
+  @Test
+  public void testRoundTripCompressed() throws Exception {
+    testRoundTrip(true);
+  }
+
+  private void testRoundTrip(boolean compress) throws Exception {
+    List<RecordInfo<StructuredRecord>> expected = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      StructuredRecord record;
+      if (i % 3 == 0) {
+        record = StructuredRecord.builder(SCHEMA2)
+          .set("price", i / 10d)
+          .set("tags", Collections.singletonList("t" + i))
+          .build();
+      } else {
+        record = StructuredRecord.builder(SCHEMA1).set("id", i).set("name", i % 2 == 0 ? null : "n" + i).build();
+      }
+      String stage = i % 5 == 0 ? null : "stage" + (i % 4);
+      RecordType type = i % 7 == 0 ? RecordType.ERROR : RecordType.OUTPUT;
+      expected.add(RecordInfo.builder(record, stage, type).build());
+    }
+
+    File dir = new File(TMP_FOLDER.newFolder(), "output");
+    Job job = Job.getInstance(new Configuration());
+    // use a small block size so that the records span multiple blocks
+    job.getConfiguration().setInt(BinaryConnectorOutputFormat.BLOCK_SIZE, 1024);
+    FileOutputFormat.setOutputPath(job, new Path(dir.toURI()));
+    FileOutputFormat.setCompressOutput(job, compress);
+    FileInputFormat.addInputPath(job, new Path(dir.toURI()));
+
+    TaskAttemptContext context = new TaskAttemptContextImpl(job.getConfiguration(),
+                                                         new TaskAttemptID("test", 1, TaskType.MAP, 0, 0));
+    BinaryConnectorOutputFormat outputFormat = new BinaryConnectorOutputFormat();
+    RecordWriter<NullWritable, RecordInfo<StructuredRecord>> writer = outputFormat.getRecordWriter(context);
+    for (RecordInfo<StructuredRecord> recordInfo : expected) {
+      writer.write(NullWritable.get(), recordInfo);
+    }
+    writer.close(context);
+    outputFormat.getOutputCommitter(context).commitTask(context);
+    outputFormat.getOutputCommitter(context).commitJob(context);
+
+    List<RecordInfo<StructuredRecord>> actual = new ArrayList<>();
+    BinaryConnectorInputFormat inputFormat = new BinaryConnectorInputFormat();
+    for (InputSplit split : inputFormat.getSplits(job)) {
+      try (RecordReader<NullWritable, RecordInfo<StructuredRecord>> reader =
+             inputFormat.createRecordReader(split, context)) {
+        reader.initialize(split, context);
+        while (reader.nextKeyValue()) {
+          actual.add(reader.getCurrentValue());
+        }
+      }
+    }
+
+    Assert.assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Assert.assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+      Assert.assertEquals(expected.get(i).getFromStage(), actual.get(i).getFromStage());
+      Assert.assertEquals(expected.get(i).getType(), actual.get(i).getType());
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.batch.connector;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.common.RecordType;
+import org.apache.hadoop.io.BytesWritable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for {@link RecordBlockWriter} and {@link RecordBlockReader}.
+ */
+public class RecordBlockTest {
+
+  private static final Schema SCHEMA = Schema.recordOf(
+    "r",
+    Schema.Field.of("tags", Schema.arrayOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("props", Schema.mapOf(Schema.of(Schema.Type.STRING), Schema.of(Schema.Type.INT))),
+    Schema.Field.of("nested", Schema.arrayOf(Schema.arrayOf(Schema.of(Schema.Type.INT)))),
+    Schema.Field.of("x", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("name", Schema.of(Schema.Type.STRING)));
+
+  @Test
+  public void testEmptyCollections() throws Exception {
+    List<StructuredRecord> expected = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      expected.add(StructuredRecord.builder(SCHEMA)
+                     .set("tags", i % 2 == 0 ? Collections.emptyList() : Arrays.asList("a" + i, "b" + i))
+                     .set("props", i % 3 == 0 ? Collections.emptyMap() : ImmutableMap.of("k" + i, i))
+                     .set("nested", i % 4 == 0 ? Collections.emptyList()
+                       : Arrays.asList(Collections.emptyList(), Collections.singletonList(i)))
+                     .set("x", i + 5)
+                     .set("name", "n" + i)
+                     .build());
+    }
+
+    RecordBlockWriter writer = new RecordBlockWriter();
+    for (StructuredRecord record : expected) {
+      writer.add(RecordInfo.builder(record, "stage", RecordType.OUTPUT).build());
+    }
+    BytesWritable block = new BytesWritable();
+    writer.writeTo(block);
+
+    RecordBlockReader reader = new RecordBlockReader();
+    reader.reset(block);
+    List<StructuredRecord> actual = new ArrayList<>();
+    while (reader.hasNext()) {
+      RecordInfo<StructuredRecord> recordInfo = reader.next();
+      Assert.assertEquals("stage", recordInfo.getFromStage());
+      actual.add(recordInfo.getValue());
+    }
+    Assert.assertEquals(expected, actual);
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link BufferedStageMetrics}.
+ */
+public class BufferedStageMetricsTest {
+
+  @Test
+  public void testFlush() {
+    MockMetrics mockMetrics = new MockMetrics();
+    BufferedStageMetrics stageMetrics = new BufferedStageMetrics(mockMetrics, "stage", 10);
+
+    for (int i = 0; i < 25; i++) {
+      stageMetrics.count(Constants.Metrics.RECORDS_IN, 1);
+    }
+    stageMetrics.pipelineCount("pipeline.count", 3);
+    stageMetrics.gauge("gauge", 5L);
+
+    // counts are only written once they reach the threshold, gauges are written directly
+    Assert.assertEquals(20, mockMetrics.getCount("stage." + Constants.Metrics.RECORDS_IN));
+    Assert.assertEquals(0, mockMetrics.getCount("pipeline.count"));
+    Assert.assertEquals(5L, mockMetrics.getGauge("stage.gauge"));
+
+    stageMetrics.flush();
+    Assert.assertEquals(25, mockMetrics.getCount("stage." + Constants.Metrics.RECORDS_IN));
+    Assert.assertEquals(3, mockMetrics.getCount("pipeline.count"));
+
+    // flushing again doesn't write anything
+    stageMetrics.flush();
+    Assert.assertEquals(25, mockMetrics.getCount("stage." + Constants.Metrics.RECORDS_IN));
+    Assert.assertEquals(3, mockMetrics.getCount("pipeline.count"));
+  }
+
+  @Test
+  public void testLargeDelta() {
+    MockMetrics mockMetrics = new MockMetrics();
+    BufferedStageMetrics stageMetrics = new BufferedStageMetrics(mockMetrics, "stage", Integer.MAX_VALUE);
+
+    stageMetrics.count("count", Integer.MAX_VALUE - 1);
+    Assert.assertEquals(0, mockMetrics.getCount("stage.count"));
+    // adding to the counter would overflow, hence the current count is written first
+    stageMetrics.count("count", 2);
+    Assert.assertEquals(Integer.MAX_VALUE - 1, mockMetrics.getCount("stage.count"));
+    mockMetrics.clearMetrics();
+    stageMetrics.flush();
+    Assert.assertEquals(2, mockMetrics.getCount("stage.count"));
+  }
+}
@@ -23,6 +23,7 @@ import io.cdap.cdap.api.artifact.ArtifactId;
 import io.cdap.cdap.api.artifact.ArtifactScope;
 import io.cdap.cdap.api.artifact.ArtifactVersion;
 import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.etl.batch.connector.ConnectorFormat;
 import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.common.Constants.Connector;
 import io.cdap.cdap.etl.common.PipelinePhase;
@@ -1099,6 +1100,7 @@ public class PipelinePlannerTest {
   private static PluginSpec connectorSpec(String originalName, String type) {
     return new PluginSpec(Constants.Connector.PLUGIN_TYPE, "connector",
                           ImmutableMap.of(Constants.Connector.TYPE, type,
-                                          Constants.Connector.ORIGINAL_NAME, originalName), null);
+                                          Constants.Connector.ORIGINAL_NAME, originalName,
+                                          Constants.Connector.FORMAT, ConnectorFormat.BINARY.name()), null);
   }
 }
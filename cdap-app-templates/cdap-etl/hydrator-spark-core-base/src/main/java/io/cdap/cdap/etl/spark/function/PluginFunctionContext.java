@@ -24,8 +24,8 @@ import io.cdap.cdap.api.preview.DataTracer;
 import io.cdap.cdap.api.security.store.SecureStore;
 import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
 import io.cdap.cdap.etl.api.StageMetrics;
-import io.cdap.cdap.etl.batch.connector.SingleConnectorSink;
-import io.cdap.cdap.etl.batch.connector.SingleConnectorSource;
+import io.cdap.cdap.etl.batch.connector.ConnectorFormat;
+import io.cdap.cdap.etl.batch.connector.SingleConnectorFactory;
 import io.cdap.cdap.etl.common.BasicArguments;
 import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.common.DefaultMacroEvaluator;
@@ -83,11 +83,12 @@ public class PluginFunctionContext implements Serializable {
   public <T> T createPlugin() throws Exception {
     if (Constants.Connector.PLUGIN_TYPE.equals(stageSpec.getPluginType())) {
       String connectorType = stageSpec.getPlugin().getProperties().get(Constants.Connector.TYPE);
+      ConnectorFormat format = ConnectorFormat.fromStageSpec(stageSpec);
       // ok to pass in null to constructors here since we are only going to use the transform method
       if (connectorType.equals(Constants.Connector.SOURCE_TYPE)) {
-        return (T) new SingleConnectorSource(null, null);
+        return (T) new SingleConnectorFactory().createSource(null, format);
       } else {
-        return (T) new SingleConnectorSink(null, null);
+        return (T) new SingleConnectorFactory().createSink(null, null, format);
       }
     }
     MacroEvaluator macroEvaluator = new DefaultMacroEvaluator(arguments, logicalStartTime, secureStore, namespace);
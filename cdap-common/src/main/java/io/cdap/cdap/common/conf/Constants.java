@@ -360,6 +360,7 @@ public final class Constants {
     public static final String PROGRAM_STATUS_EVENT_FETCH_SIZE = "scheduler.program.status.event.fetch.size";
 
     public static final String JOB_QUEUE_NUM_PARTITIONS = "scheduler.job.queue.num.partitions";
+    public static final String JOB_QUEUE_SCAN_INTERVAL_MILLIS = "scheduler.job.queue.scan.interval.millis";
   }
 
   /**
@@ -446,6 +447,12 @@ public final class Constants {
     public static final String DATASET_UNCHECKED_UPGRADE = "dataset.unchecked.upgrade";
 
     public static final String DATA_EVENT_TOPIC = "data.event.topic";
+    public static final String DATASET_CHANGE_TOPIC = "dataset.change.topic";
+
+    // Configurations for caching dataset instance and type metadata in the remote dataset framework
+    public static final String META_CACHE_SIZE = "dataset.meta.cache.size";
+    public static final String META_CACHE_EXPIRATION_SECONDS = "dataset.meta.cache.expiration.seconds";
+    public static final String META_CACHE_POLL_INTERVAL_MILLIS = "dataset.meta.cache.poll.interval.millis";
 
     public static final String DATA_STORAGE_IMPLEMENTATION = "data.storage.implementation";
     public static final String DATA_STORAGE_NOSQL = "nosql";
@@ -634,6 +641,20 @@ public final class Constants {
       Tag.COMPONENT, "system.storage",
       Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace());
 
+    // metrics context for the startup time of system services
+    public static final Map<String, String> SERVICE_STARTUP_METRICS_TAGS = ImmutableMap.of(
+      Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace());
+
+    // metrics context for the dataset metadata cache in the remote dataset framework
+    public static final Map<String, String> DATASET_META_CACHE_METRICS_TAGS = ImmutableMap.of(
+      Tag.COMPONENT, "dataset.meta.cache",
+      Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace());
+
+    // metrics context for the endpoints of the dataset service picked by the remote dataset framework
+    public static final Map<String, String> DATASET_SERVICE_CLIENT_METRICS_TAGS = ImmutableMap.of(
+      Tag.COMPONENT, "dataset.service.client",
+      Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace());
+
     public static final String PROGRAM_METRICS_ENABLED = "app.program.metrics.enabled";
     public static final String STRUCTURED_TABLE_TIME_METRICS_ENABLED = "structured.table.time.metrics.enabled";
 
@@ -713,6 +734,15 @@ public final class Constants {
         public static final String SERVICE_INPUT = "system.requests.count";
         public static final String SERVICE_PROCESSED = "system.response.successful.count";
         public static final String SERVICE_EXCEPTIONS = "system.response.server.error.count";
+        public static final String STARTUP_TIME = "system.service.startup.ms";
+      }
+
+      /**
+       * Metrics of the endpoints picked by the latency aware endpoint strategy
+       */
+      public static final class Endpoint {
+        public static final String LATENCY = "system.endpoint.latency.ms";
+        public static final String IN_FLIGHT = "system.endpoint.requests.inflight";
       }
 
       /**
@@ -723,6 +753,8 @@ public final class Constants {
         public static final String OP_COUNT = "dataset.store.ops";
         public static final String WRITE_COUNT = "dataset.store.writes";
         public static final String WRITE_BYTES = "dataset.store.bytes";
+        public static final String META_CACHE_HIT = "dataset.meta.cache.hit";
+        public static final String META_CACHE_MISS = "dataset.meta.cache.miss";
       }
 
       /**
@@ -1310,8 +1342,12 @@ public final class Constants {
   public static final class MessagingSystem {
     public static final String LOCAL_DATA_DIR = "messaging.local.data.dir";
     public static final String LOCAL_DATA_CLEANUP_FREQUENCY = "messaging.local.data.cleanup.frequency.secs";
+    public static final String LOCAL_TABLE_STORE = "messaging.local.table.store";
+    public static final String LOCAL_SEGMENT_SIZE_BYTES = "messaging.local.segment.size.bytes";
+    public static final String LOCAL_SEGMENT_INDEX_INTERVAL_BYTES = "messaging.local.segment.index.interval.bytes";
 
     public static final String CACHE_SIZE_MB = "messaging.cache.size.mb";
+    public static final String CACHE_REBALANCE_INTERVAL_SECONDS = "messaging.cache.rebalance.interval.seconds";
 
     public static final String HBASE_MAX_SCAN_THREADS = "messaging.hbase.max.scan.threads";
     public static final String HBASE_SCAN_CACHE_ROWS = "messaging.hbase.scan.cache.rows";
@@ -1331,6 +1367,8 @@ public final class Constants {
     public static final String HTTP_SERVER_EXECUTOR_THREADS = "messaging.http.server.executor.threads";
     public static final String HTTP_SERVER_MAX_REQUEST_SIZE_MB = "messaging.http.server.max.request.size.mb";
     public static final String HTTP_SERVER_CONSUME_CHUNK_SIZE = "messaging.http.server.consume.chunk.size";
+    public static final String HTTP_SERVER_CONSUME_MAX_WAIT_MS = "messaging.http.server.consume.max.wait.ms";
+    public static final String FETCH_WAIT_THREADS = "messaging.fetch.wait.threads";
 
     // Distributed mode related configurations
     public static final String HA_FENCING_DELAY_SECONDS = "messaging.ha.fencing.delay.seconds";
@@ -1387,6 +1425,18 @@ public final class Constants {
     public static final String CDAP_SHUTDOWN_TIME_FILENAME = "cdap_shutdown_time";
   }
 
+  /**
+   * Constants for picking endpoints of discovered services.
+   */
+  public static final class Discovery {
+    public static final String ENDPOINT_STRATEGY_RANDOM = "random";
+    public static final String ENDPOINT_STRATEGY_LATENCY = "latency";
+
+    /** The endpoint strategy to use. It can be overridden per service by suffixing the key with the service name */
+    public static final String ENDPOINT_STRATEGY = "discovery.endpoint.strategy";
+    public static final String ENDPOINT_LATENCY_DECAY_MS = "discovery.endpoint.latency.decay.ms";
+  }
+
   /**
    * Constants for retry policies.
    */
@@ -0,0 +1,231 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.discovery;
+
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.Constants;
+import org.apache.twill.discovery.Discoverable;
+import org.apache.twill.discovery.ServiceDiscovered;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * An {@link EndpointStrategy} that picks the less loaded one out of two randomly chosen endpoints (power of two
+ * choices). The load of an endpoint is its exponentially weighted moving average (EWMA) latency multiplied by the
+ * number of in-flight requests to it. The EWMA is peak sensitive, meaning a latency higher than the average replaces
+ * the average immediately, while lower latencies bring it down gradually over the configured decay time. The
+ * average also decays while the endpoint is not picked, such that a previously slow endpoint gets picked again
+ * eventually.
+ *
+ * Latencies and in-flight requests are fed by the caller that executes the requests, by calling
+ * {@link #startCall(String, int)} before executing a request and {@link Call#end(boolean)} after it completes.
+ * Endpoints without any feedback are preferred, so that new instances of a service start taking requests quickly.
+ *
+ * If a {@link MetricsContext} is provided, the latency and the number of in-flight requests of each endpoint are
+ * emitted as gauges, tagged with the endpoint address as the {@link Constants.Metrics.Tag#HANDLER}.
+ */
+public final class LatencyAwareEndpointStrategy extends AbstractEndpointStrategy {
+
+  // Cost of an endpoint that has in-flight requests but no latency feedback yet, which makes it less preferable
+  // than any endpoint with latency feedback
+  private static final double PENDING_PENALTY = Long.MAX_VALUE >> 16;
+
+  private final long decayNanos;
+  private final MetricsContext metricsContext;
+  private final ConcurrentMap<String, EndpointStats> stats;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param serviceDiscoveredSupplier the {@link Supplier} of the {@link ServiceDiscovered} to pick endpoints from
+   * @param decayMillis the time window in milliseconds over which the latency of an endpoint decays
+   * @param metricsContext the {@link MetricsContext} for emitting per endpoint metrics or {@code null} to not emit
+   *                       any metrics
+   */
+  public LatencyAwareEndpointStrategy(Supplier<ServiceDiscovered> serviceDiscoveredSupplier, long decayMillis,
+                                      @Nullable MetricsContext metricsContext) {
+    super(serviceDiscoveredSupplier);
+    if (decayMillis <= 0) {
+      throw new IllegalArgumentException("Latency decay time must be positive: " + decayMillis);
+    }
+    this.decayNanos = TimeUnit.MILLISECONDS.toNanos(decayMillis);
+    this.metricsContext = metricsContext;
+    this.stats = new ConcurrentHashMap<>();
+  }
+
+  @Nullable
+  @Override
+  protected Discoverable pick(ServiceDiscovered serviceDiscovered) {
+    List<Discoverable> candidates = new ArrayList<>();
+    serviceDiscovered.forEach(candidates::add);
+
+    int size = candidates.size();
+    if (stats.size() > size) {
+      removeStaleStats(candidates);
+    }
+    if (size <= 1) {
+      return size == 0 ? null : candidates.get(0);
+    }
+
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int first = random.nextInt(size);
+    int second = random.nextInt(size - 1);
+    if (second >= first) {
+      second++;
+    }
+    Discoverable firstCandidate = candidates.get(first);
+    Discoverable secondCandidate = candidates.get(second);
+    return getCost(firstCandidate) <= getCost(secondCandidate) ? firstCandidate : secondCandidate;
+  }
+
+  /**
+   * Marks the start of a request to the given endpoint.
+   *
+   * @param host the host name of the endpoint, which is the host name of the picked {@link Discoverable}
+   * @param port the port of the endpoint
+   * @return a {@link Call} that must be ended when the request completes
+   */
+  public Call startCall(String host, int port) {
+    EndpointStats endpointStats = stats.computeIfAbsent(getEndpoint(host, port), EndpointStats::new);
+    endpointStats.inFlight.incrementAndGet();
+    return new Call(endpointStats, System.nanoTime());
+  }
+
+  /**
+   * Returns the current EWMA latency in milliseconds of each endpoint that had requests, keyed by the endpoint
+   * address in the form of {@code host:port}.
+   */
+  public Map<String, Double> getLatencies() {
+    Map<String, Double> latencies = new HashMap<>();
+    stats.forEach((endpoint, endpointStats) -> latencies.put(endpoint, endpointStats.getLatencyNanos() / 1000000d));
+    return Collections.unmodifiableMap(latencies);
+  }
+
+  private double getCost(Discoverable discoverable) {
+    EndpointStats endpointStats = stats.get(getEndpoint(discoverable.getSocketAddress()));
+    return endpointStats == null ? 0d : endpointStats.getCost();
+  }
+
+  private void removeStaleStats(List<Discoverable> candidates) {
+    Set<String> endpoints = new HashSet<>();
+    for (Discoverable discoverable : candidates) {
+      endpoints.add(getEndpoint(discoverable.getSocketAddress()));
+    }
+    stats.keySet().retainAll(endpoints);
+  }
+
+  private static String getEndpoint(InetSocketAddress address) {
+    return getEndpoint(address.getHostName(), address.getPort());
+  }
+
+  private static String getEndpoint(String host, int port) {
+    return host + ":" + port;
+  }
+
+  /**
+   * Represents an in-flight request to an endpoint.
+   */
+  public final class Call {
+
+    private final EndpointStats endpointStats;
+    private final long startTime;
+    private boolean ended;
+
+    private Call(EndpointStats endpointStats, long startTime) {
+      this.endpointStats = endpointStats;
+      this.startTime = startTime;
+    }
+
+    /**
+     * Marks the end of the request. Calling this method more than once has no effect.
+     *
+     * @param success {@code true} if the endpoint served the request, or {@code false} if the endpoint failed to
+     *                serve it, in which case the endpoint is penalized as if the request took the full decay time
+     */
+    public void end(boolean success) {
+      if (ended) {
+        return;
+      }
+      ended = true;
+      long latency = System.nanoTime() - startTime;
+      endpointStats.end(success ? latency : Math.max(latency, decayNanos));
+    }
+  }
+
+  /**
+   * Latency and in-flight request statistics of an endpoint.
+   */
+  private final class EndpointStats {
+
+    private final AtomicInteger inFlight;
+    private final MetricsContext endpointMetricsContext;
+    private double latencyNanos;
+    private long lastUpdateTime;
+
+    EndpointStats(String endpoint) {
+      this.inFlight = new AtomicInteger();
+      this.endpointMetricsContext = metricsContext == null
+        ? null : metricsContext.childContext(Constants.Metrics.Tag.HANDLER, endpoint);
+      this.lastUpdateTime = System.nanoTime();
+    }
+
+    double getCost() {
+      double latency = getLatencyNanos();
+      int pending = inFlight.get();
+      return latency == 0d && pending > 0 ? PENDING_PENALTY + pending : latency * (pending + 1);
+    }
+
+    double getLatencyNanos() {
+      return update(0L);
+    }
+
+    void end(long latency) {
+      int pending = inFlight.decrementAndGet();
+      double average = update(latency);
+      if (endpointMetricsContext != null) {
+        endpointMetricsContext.gauge(Constants.Metrics.Name.Endpoint.LATENCY,
+                                     TimeUnit.NANOSECONDS.toMillis((long) average));
+        endpointMetricsContext.gauge(Constants.Metrics.Name.Endpoint.IN_FLIGHT, pending);
+      }
+    }
+
+    /**
+     * Updates the peak EWMA latency with the given latency and returns the updated value.
+     */
+    private synchronized double update(long latency) {
+      long now = System.nanoTime();
+      double weight = Math.exp(-Math.max(0L, now - lastUpdateTime) / (double) decayNanos);
+      latencyNanos = latency > latencyNanos ? latency : latencyNanos * weight + latency * (1d - weight);
+      lastUpdateTime = now;
+      return latencyNanos;
+    }
+  }
+}
@@ -17,11 +17,13 @@
 package io.cdap.cdap.common.internal.remote;
 
 import com.google.common.base.Joiner;
-import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.common.ServiceUnavailableException;
+import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.discovery.EndpointStrategy;
+import io.cdap.cdap.common.discovery.LatencyAwareEndpointStrategy;
 import io.cdap.cdap.common.discovery.RandomEndpointStrategy;
 import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
 import io.cdap.common.http.HttpMethod;
@@ -31,6 +33,7 @@ import io.cdap.common.http.HttpRequests;
 import io.cdap.common.http.HttpResponse;
 import org.apache.twill.discovery.Discoverable;
 import org.apache.twill.discovery.DiscoveryServiceClient;
+import org.apache.twill.discovery.ServiceDiscovered;
 
 import java.io.IOException;
 import java.net.ConnectException;
@@ -40,6 +43,8 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 
 /**
@@ -53,11 +58,42 @@ public class RemoteClient {
 
   public RemoteClient(final DiscoveryServiceClient discoveryClient, final String discoverableServiceName,
                       HttpRequestConfig httpRequestConfig, String basePath) {
+    this(discoveryClient, discoverableServiceName, httpRequestConfig, basePath, RandomEndpointStrategy::new);
+  }
+
+  /**
+   * Creates a client that picks the endpoints of the service according to the endpoint strategy configured
+   * for the service.
+   *
+   * @see Constants.Discovery#ENDPOINT_STRATEGY
+   */
+  public RemoteClient(CConfiguration cConf, DiscoveryServiceClient discoveryClient, String discoverableServiceName,
+                      HttpRequestConfig httpRequestConfig, String basePath) {
+    this(cConf, discoveryClient, discoverableServiceName, httpRequestConfig, basePath, null);
+  }
+
+  /**
+   * Creates a client that picks the endpoints of the service according to the endpoint strategy configured
+   * for the service.
+   *
+   * @param metricsContext the {@link MetricsContext} for emitting per endpoint metrics or {@code null} to not emit
+   *                       any metrics
+   * @see Constants.Discovery#ENDPOINT_STRATEGY
+   */
+  public RemoteClient(CConfiguration cConf, DiscoveryServiceClient discoveryClient, String discoverableServiceName,
+                      HttpRequestConfig httpRequestConfig, String basePath, @Nullable MetricsContext metricsContext) {
+    this(discoveryClient, discoverableServiceName, httpRequestConfig, basePath,
+         getEndpointStrategyFactory(cConf, discoverableServiceName, metricsContext));
+  }
+
+  private RemoteClient(DiscoveryServiceClient discoveryClient, String discoverableServiceName,
+                       HttpRequestConfig httpRequestConfig, String basePath,
+                       Function<Supplier<ServiceDiscovered>, EndpointStrategy> strategyFactory) {
     this.discoverableServiceName = discoverableServiceName;
     this.httpRequestConfig = httpRequestConfig;
     // Use a supplier to delay the discovery until the first time it is being used.
     this.endpointStrategySupplier = Suppliers.memoize(
-      () -> new RandomEndpointStrategy(() -> discoveryClient.discover(discoverableServiceName)));
+      () -> strategyFactory.apply(() -> discoveryClient.discover(discoverableServiceName)))::get;
     String cleanBasePath = basePath.startsWith("/") ? basePath : "/" + basePath;
     this.basePath = cleanBasePath.endsWith("/") ? cleanBasePath : cleanBasePath + "/";
   }
@@ -85,8 +121,11 @@ public class RemoteClient {
    *                                     was a 503
    */
   public HttpResponse execute(HttpRequest request) throws IOException {
+    LatencyAwareEndpointStrategy.Call call = startCall(request.getURL());
+    boolean success = false;
     try {
       HttpResponse response = HttpRequests.execute(request, httpRequestConfig);
+      success = response.getResponseCode() != HttpURLConnection.HTTP_UNAVAILABLE;
       switch (response.getResponseCode()) {
         case HttpURLConnection.HTTP_UNAVAILABLE:
           throw new ServiceUnavailableException(discoverableServiceName, response.getResponseBodyAsString());
@@ -97,6 +136,10 @@ public class RemoteClient {
       }
     } catch (ConnectException e) {
       throw new ServiceUnavailableException(discoverableServiceName, e);
+    } finally {
+      if (call != null) {
+        call.end(success);
+      }
     }
   }
 
@@ -125,6 +168,38 @@ public class RemoteClient {
     }
   }
 
+  /**
+   * Starts tracking a request to the given URL if the endpoint strategy needs feedback about the requests.
+   */
+  @Nullable
+  private LatencyAwareEndpointStrategy.Call startCall(URL url) {
+    EndpointStrategy endpointStrategy = endpointStrategySupplier.get();
+    if (!(endpointStrategy instanceof LatencyAwareEndpointStrategy)) {
+      return null;
+    }
+    return ((LatencyAwareEndpointStrategy) endpointStrategy).startCall(url.getHost(), url.getPort());
+  }
+
+  /**
+   * Returns a factory for creating the {@link EndpointStrategy} configured for the given service.
+   */
+  private static Function<Supplier<ServiceDiscovered>, EndpointStrategy> getEndpointStrategyFactory(
+    CConfiguration cConf, String serviceName, @Nullable MetricsContext metricsContext) {
+
+    String strategy = cConf.get(Constants.Discovery.ENDPOINT_STRATEGY + "." + serviceName,
+                                cConf.get(Constants.Discovery.ENDPOINT_STRATEGY,
+                                          Constants.Discovery.ENDPOINT_STRATEGY_RANDOM));
+    if (Constants.Discovery.ENDPOINT_STRATEGY_RANDOM.equalsIgnoreCase(strategy)) {
+      return RandomEndpointStrategy::new;
+    }
+    if (Constants.Discovery.ENDPOINT_STRATEGY_LATENCY.equalsIgnoreCase(strategy)) {
+      long decayMillis = cConf.getLong(Constants.Discovery.ENDPOINT_LATENCY_DECAY_MS);
+      return supplier -> new LatencyAwareEndpointStrategy(supplier, decayMillis, metricsContext);
+    }
+    throw new IllegalArgumentException(String.format("Unsupported endpoint strategy '%s' for service %s",
+                                                     strategy, serviceName));
+  }
+
   /**
    * Create a generic error message about a failure to make a specified request.
    *
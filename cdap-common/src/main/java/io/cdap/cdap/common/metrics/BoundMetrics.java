@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.metrics;
+
+import io.cdap.cdap.api.metrics.MetricsCollector;
+import io.cdap.cdap.api.metrics.MetricsContext;
+
+/**
+ * Provides ways to obtain bound metrics from a {@link MetricsCollector}.
+ */
+public final class BoundMetrics {
+
+  private BoundMetrics() {
+  }
+
+  /**
+   * Returns a {@link MetricsContext.Counter} for the given metric. If the collector is a {@link MetricsContext},
+   * the counter is bound by the context, otherwise the counter calls {@link MetricsCollector#increment(String, long)}.
+   */
+  public static MetricsContext.Counter counter(MetricsCollector collector, String metricName) {
+    if (collector instanceof MetricsContext) {
+      return ((MetricsContext) collector).getCounter(metricName);
+    }
+    return delta -> collector.increment(metricName, delta);
+  }
+
+  /**
+   * Returns a {@link MetricsContext.Gauge} for the given metric. If the collector is a {@link MetricsContext},
+   * the gauge is bound by the context, otherwise the gauge calls {@link MetricsCollector#gauge(String, long)}.
+   */
+  public static MetricsContext.Gauge gauge(MetricsCollector collector, String metricName) {
+    if (collector instanceof MetricsContext) {
+      return ((MetricsContext) collector).getGauge(metricName);
+    }
+    return value -> collector.gauge(metricName, value);
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.service;
+
+import com.google.common.util.concurrent.Service;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.Constants;
+import org.apache.twill.common.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+
+/**
+ * Starts a set of {@link Service Services} and startup tasks according to their declared dependencies. Each node
+ * in the graph is started as soon as all of its dependencies are started, hence independent nodes are started
+ * concurrently. If any node fails to start, no new node will be started and the failure is rethrown from
+ * {@link #startAndWait(MetricsContext)} after the nodes that are already starting are completed.
+ *
+ * <pre>
+ *   ServiceGraph.builder()
+ *     .addService("messaging", messagingService)
+ *     .addTask("tables", () -&gt; createTables(), "messaging")
+ *     .addService("dataset", datasetService, "tables")
+ *     .build()
+ *     .startAndWait(metricsContext);
+ * </pre>
+ *
+ * Stopping the services is left to the caller, since the shutdown sequence usually has extra steps.
+ */
+public final class ServiceGraph {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ServiceGraph.class);
+
+  private final List<Node> nodes;
+  private final Map<String, Long> startupTimes;
+
+  /**
+   * Returns a new {@link Builder} for building a {@link ServiceGraph}.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private ServiceGraph(List<Node> nodes) {
+    this.nodes = nodes;
+    this.startupTimes = Collections.synchronizedMap(new LinkedHashMap<>());
+  }
+
+  /**
+   * Starts all nodes in the graph and blocks until all of them are started. The startup time of each node is logged
+   * and also emitted as the {@link Constants.Metrics.Name.Service#STARTUP_TIME} gauge, tagged with the node name as
+   * the component, if a {@link MetricsContext} is provided.
+   *
+   * @param metricsContext the {@link MetricsContext} for emitting the startup time metrics or {@code null} to not
+   *                       emit any metrics
+   * @throws Exception if any of the nodes failed to start
+   */
+  public void startAndWait(@Nullable MetricsContext metricsContext) throws Exception {
+    long startTime = System.nanoTime();
+    ExecutorService executor = Executors.newCachedThreadPool(Threads.createDaemonThreadFactory("service-graph-%d"));
+    AtomicReference<StartupException> failure = new AtomicReference<>();
+    try {
+      // Nodes are in topological order, hence futures of the dependencies are always created before the dependents
+      Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+      for (Node node : nodes) {
+        CompletableFuture<?>[] dependencies = node.dependencies.stream()
+          .map(futures::get)
+          .toArray(CompletableFuture[]::new);
+        futures.put(node.name, CompletableFuture.allOf(dependencies).thenRunAsync(() -> start(node, failure),
+                                                                                    executor));
+      }
+
+      try {
+        // This waits for all nodes to complete, including the ones that failed or were skipped
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).get();
+      } catch (ExecutionException e) {
+        // The actual failure is recorded in the failure reference
+      } catch (InterruptedException e) {
+        failure.compareAndSet(null, new StartupException("Interrupted while starting services", e));
+        throw e;
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    StartupException startupException = failure.get();
+    if (startupException != null) {
+      throw startupException;
+    }
+
+    long totalTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    Map<String, Long> times = getStartupTimes();
+    LOG.info("Started {} services in {} ms. Startup time in ms of each service in completion order: {}",
+             times.size(), totalTime, times);
+    if (metricsContext != null) {
+      times.forEach((name, time) -> metricsContext.childContext(Constants.Metrics.Tag.COMPONENT, name)
+        .gauge(Constants.Metrics.Name.Service.STARTUP_TIME, time));
+    }
+  }
+
+  /**
+   * Returns the startup time in milliseconds of each started node, in the order of startup completion.
+   */
+  public Map<String, Long> getStartupTimes() {
+    synchronized (startupTimes) {
+      return new LinkedHashMap<>(startupTimes);
+    }
+  }
+
+  private void start(Node node, AtomicReference<StartupException> failure) {
+    if (failure.get() != null) {
+      // Fail fast by not starting anything new after a failure
+      throw new CancellationException("Not starting " + node.name + " due to failure in starting other services");
+    }
+    LOG.debug("Starting {}", node.name);
+    long startTime = System.nanoTime();
+    try {
+      node.task.run();
+    } catch (Throwable t) {
+      StartupException exception = new StartupException("Failed to start " + node.name, t);
+      if (!failure.compareAndSet(null, exception)) {
+        failure.get().addSuppressed(exception);
+      }
+      throw new CompletionException(t);
+    }
+    long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    startupTimes.put(node.name, time);
+    LOG.debug("Started {} in {} ms", node.name, time);
+  }
+
+  /**
+   * A task to run as a node in the graph.
+   */
+  @FunctionalInterface
+  public interface StartupTask {
+
+    /**
+     * Runs the task and only returns when the task is completed.
+     *
+     * @throws Exception if the task failed
+     */
+    void run() throws Exception;
+  }
+
+  /**
+   * Exception thrown when failed to start a {@link ServiceGraph}.
+   */
+  public static final class StartupException extends Exception {
+
+    StartupException(String message, Throwable cause) {
+      super(message, cause);
+    }
+  }
+
+  /**
+   * Builder for {@link ServiceGraph}.
+   */
+  public static final class Builder {
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+    private Builder() {
+    }
+
+    /**
+     * Adds a {@link Service} to the graph. The service is started with {@link Service#startAndWait()} and is
+     * considered failed if it is not running afterwards. It is skipped if it is already running.
+     *
+     * @param name the unique name of the node
+     * @param service the service to start or {@code null} to add a no-op node, so that other nodes can depend on
+     *                an optional service unconditionally
+     * @param dependencies names of the nodes that need to be started before this one
+     * @return this builder
+     */
+    public Builder addService(String name, @Nullable Service service, String... dependencies) {
+      if (service == null) {
+        return addTask(name, () -> { }, dependencies);
+      }
+      return addTask(name, () -> {
+        if (service.isRunning()) {
+          return;
+        }
+        Service.State state = service.startAndWait();
+        if (state != Service.State.RUNNING) {
+          throw new IllegalStateException("Service " + name + " is in state " + state + " after start");
+        }
+      }, dependencies);
+    }
+
+    /**
+     * Adds a {@link StartupTask} to the graph.
+     *
+     * @param name the unique name of the node
+     * @param task the task to run
+     * @param dependencies names of the nodes that need to be started before this one
+     * @return this builder
+     */
+    public Builder addTask(String name, StartupTask task, String... dependencies) {
+      if (nodes.containsKey(name)) {
+        throw new IllegalArgumentException("Duplicate node name " + name);
+      }
+      nodes.put(name, new Node(name, task, new LinkedHashSet<>(Arrays.asList(dependencies))));
+      return this;
+    }
+
+    /**
+     * Builds the {@link ServiceGraph}.
+     *
+     * @throws IllegalArgumentException if there is dependency to an unknown node or there is a dependency cycle
+     */
+    public ServiceGraph build() {
+      Map<String, Integer> inDegrees = new HashMap<>();
+      Map<String, List<Node>> dependents = new HashMap<>();
+      for (Node node : nodes.values()) {
+        for (String dependency : node.dependencies) {
+          if (!nodes.containsKey(dependency)) {
+            throw new IllegalArgumentException("Node " + node.name + " depends on unknown node " + dependency);
+          }
+          dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(node);
+        }
+        inDegrees.put(node.name, node.dependencies.size());
+      }
+
+      // Sort the nodes topologically, which also detects cycles
+      List<Node> sorted = new ArrayList<>();
+      Deque<Node> ready = new ArrayDeque<>();
+      nodes.values().stream().filter(node -> node.dependencies.isEmpty()).forEach(ready::add);
+      while (!ready.isEmpty()) {
+        Node node = ready.poll();
+        sorted.add(node);
+        for (Node dependent : dependents.getOrDefault(node.name, Collections.emptyList())) {
+          if (inDegrees.merge(dependent.name, -1, Integer::sum) == 0) {
+            ready.add(dependent);
+          }
+        }
+      }
+      if (sorted.size() != nodes.size()) {
+        Set<String> cyclic = new LinkedHashSet<>(nodes.keySet());
+        sorted.forEach(node -> cyclic.remove(node.name));
+        throw new IllegalArgumentException("Dependency cycle detected among nodes " + cyclic);
+      }
+      return new ServiceGraph(sorted);
+    }
+  }
+
+  /**
+   * A node in the graph.
+   */
+  private static final class Node {
+    private final String name;
+    private final StartupTask task;
+    private final Set<String> dependencies;
+
+    Node(String name, StartupTask task, Set<String> dependencies) {
+      this.name = name;
+      this.task = task;
+      this.dependencies = dependencies;
+    }
+  }
+}
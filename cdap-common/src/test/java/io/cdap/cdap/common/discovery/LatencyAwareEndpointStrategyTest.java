@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.discovery;
+
+import org.apache.twill.discovery.Discoverable;
+import org.apache.twill.discovery.InMemoryDiscoveryService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link LatencyAwareEndpointStrategy}.
+ */
+public class LatencyAwareEndpointStrategyTest {
+
+  @Test
+  public void testPick() throws Exception {
+    InMemoryDiscoveryService discoveryService = new InMemoryDiscoveryService();
+    LatencyAwareEndpointStrategy strategy =
+      new LatencyAwareEndpointStrategy(() -> discoveryService.discover("test"), 60000L, null);
+    Assert.assertNull(strategy.pick());
+
+    InetSocketAddress slow = new InetSocketAddress("localhost", 10000);
+    InetSocketAddress fast = new InetSocketAddress("localhost", 10001);
+    discoveryService.register(new Discoverable("test", slow));
+    Assert.assertEquals(slow, strategy.pick(5, TimeUnit.SECONDS).getSocketAddress());
+    discoveryService.register(new Discoverable("test", fast));
+
+    // The slow endpoint has an in-flight request without latency feedback yet, hence the other one is preferred
+    LatencyAwareEndpointStrategy.Call slowCall = strategy.startCall(slow.getHostName(), slow.getPort());
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals(fast, strategy.pick().getSocketAddress());
+    }
+
+    // Complete requests with different latencies. The endpoint with lower latency should always be picked.
+    TimeUnit.MILLISECONDS.sleep(100);
+    slowCall.end(true);
+    strategy.startCall(fast.getHostName(), fast.getPort()).end(true);
+    Assert.assertTrue(strategy.getLatencies().get("localhost:10000") >= 100d);
+    Assert.assertTrue(strategy.getLatencies().get("localhost:10001") < 100d);
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals(fast, strategy.pick().getSocketAddress());
+    }
+
+    // A failure penalizes the endpoint
+    strategy.startCall(fast.getHostName(), fast.getPort()).end(false);
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals(slow, strategy.pick().getSocketAddress());
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.service;
+
+import com.google.common.util.concurrent.AbstractIdleService;
+import com.google.common.util.concurrent.Service;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link ServiceGraph}.
+ */
+public class ServiceGraphTest {
+
+  @Test
+  public void testConcurrentStart() throws Exception {
+    // Two independent nodes can only complete if they are started concurrently
+    CountDownLatch latch = new CountDownLatch(2);
+    List<String> started = Collections.synchronizedList(new ArrayList<>());
+    ServiceGraph.StartupTask concurrentTask = () -> {
+      latch.countDown();
+      if (!latch.await(10, TimeUnit.SECONDS)) {
+        throw new IllegalStateException("Independent nodes were not started concurrently");
+      }
+    };
+
+    Service service = new RecordingService("service", started);
+    ServiceGraph graph = ServiceGraph.builder()
+      .addService("service", service, "a", "b")
+      .addTask("a", concurrentTask)
+      .addTask("b", concurrentTask)
+      .addService("optional", null, "service")
+      .addTask("last", () -> started.add("last"), "optional")
+      .build();
+    graph.startAndWait(null);
+
+    Assert.assertTrue(service.isRunning());
+    Assert.assertEquals(Arrays.asList("service", "last"), started);
+    Assert.assertEquals(5, graph.getStartupTimes().size());
+    Assert.assertEquals("last", new ArrayList<>(graph.getStartupTimes().keySet()).get(4));
+  }
+
+  @Test
+  public void testFailFast() throws Exception {
+    List<String> started = Collections.synchronizedList(new ArrayList<>());
+    Service dependent = new RecordingService("dependent", started);
+    ServiceGraph graph = ServiceGraph.builder()
+      .addTask("failure", () -> {
+        throw new IllegalArgumentException("Startup failure");
+      })
+      .addService("dependent", dependent, "failure")
+      .build();
+
+    try {
+      graph.startAndWait(null);
+      Assert.fail("Expected startup failure");
+    } catch (ServiceGraph.StartupException e) {
+      Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+    Assert.assertTrue(started.isEmpty());
+    Assert.assertEquals(Service.State.NEW, dependent.state());
+  }
+
+  @Test
+  public void testInvalidGraph() {
+    try {
+      ServiceGraph.builder().addTask("a", () -> { }, "b").build();
+      Assert.fail("Expected failure due to unknown dependency");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    try {
+      ServiceGraph.builder()
+        .addTask("a", () -> { }, "c")
+        .addTask("b", () -> { }, "a")
+        .addTask("c", () -> { }, "b")
+        .addTask("d", () -> { })
+        .build();
+      Assert.fail("Expected failure due to dependency cycle");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    try {
+      ServiceGraph.builder().addTask("a", () -> { }).addTask("a", () -> { });
+      Assert.fail("Expected failure due to duplicate name");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /**
+   * A {@link Service} that records its name when started.
+   */
+  private static final class RecordingService extends AbstractIdleService {
+
+    private final String name;
+    private final List<String> started;
+
+    RecordingService(String name, List<String> started) {
+      this.name = name;
+      this.started = started;
+    }
+
+    @Override
+    protected void startUp() {
+      started.add(name);
+    }
+
+    @Override
+    protected void shutDown() {
+      // no-op
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.datafabric.dataset;
+
+import io.cdap.cdap.proto.id.DatasetId;
+import io.cdap.cdap.proto.id.NamespaceId;
+
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * Message published to the dataset change topic by the dataset service whenever a dataset instance or the dataset
+ * modules of a namespace are changed. It is used by the {@link RemoteDatasetFramework} to invalidate its cached
+ * dataset metadata.
+ */
+public final class DatasetChangeMessage {
+
+  private final String namespace;
+  private final String dataset;
+
+  /**
+   * Creates a message for the change of a single dataset instance.
+   */
+  public static DatasetChangeMessage of(DatasetId datasetId) {
+    return new DatasetChangeMessage(datasetId.getNamespace(), datasetId.getEntityName());
+  }
+
+  /**
+   * Creates a message for the change of dataset modules in the given namespace, which can affect all dataset types
+   * and instances in the namespace.
+   */
+  public static DatasetChangeMessage of(NamespaceId namespaceId) {
+    return new DatasetChangeMessage(namespaceId.getNamespace(), null);
+  }
+
+  private DatasetChangeMessage(String namespace, @Nullable String dataset) {
+    this.namespace = namespace;
+    this.dataset = dataset;
+  }
+
+  public NamespaceId getNamespaceId() {
+    return new NamespaceId(namespace);
+  }
+
+  /**
+   * Returns the {@link DatasetId} of the changed dataset instance, or {@code null} if the change is for the
+   * whole namespace.
+   */
+  @Nullable
+  public DatasetId getDatasetId() {
+    return dataset == null ? null : new DatasetId(namespace, dataset);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    DatasetChangeMessage that = (DatasetChangeMessage) o;
+    return Objects.equals(namespace, that.namespace) && Objects.equals(dataset, that.dataset);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(namespace, dataset);
+  }
+
+  @Override
+  public String toString() {
+    return "DatasetChangeMessage{" +
+      "namespace='" + namespace + '\'' +
+      ", dataset='" + dataset + '\'' +
+      '}';
+  }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.datafabric.dataset;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import io.cdap.cdap.api.dataset.DatasetManagementException;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.logging.LogSamplers;
+import io.cdap.cdap.common.logging.Loggers;
+import io.cdap.cdap.messaging.MessageFetcher;
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.data.RawMessage;
+import io.cdap.cdap.proto.id.DatasetId;
+import io.cdap.cdap.proto.id.EntityId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.NamespacedEntityId;
+import io.cdap.cdap.proto.id.TopicId;
+import io.cdap.cdap.security.spi.authentication.AuthenticationContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * A bounded cache of dataset instance and type metadata for the {@link RemoteDatasetFramework}. Cached entries are
+ * invalidated by {@link DatasetChangeMessage} published by the dataset service to TMS, and also expire after a
+ * configured time in case a change message is missed. The change topic is polled by the thread accessing the cache,
+ * at most once per configured interval, hence there is no background thread to manage.
+ */
+final class DatasetMetaCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DatasetMetaCache.class);
+  private static final Logger SAMPLING_LOG = Loggers.sampling(LOG, LogSamplers.limitRate(60000));
+  private static final Gson GSON = new Gson();
+  private static final int FETCH_LIMIT = 1000;
+  // Start fetching change messages from slightly before the cache creation to tolerate clock skew with the publisher
+  private static final long START_TIME_MARGIN_MS = TimeUnit.MINUTES.toMillis(1);
+
+  private final MessagingService messagingService;
+  private final AuthenticationContext authenticationContext;
+  private final TopicId topic;
+  private final boolean principalAware;
+  private final long pollIntervalMillis;
+  private final long startTime;
+  private final Cache<CacheKey, Object> cache;
+  private final Lock pollLock;
+  private final Object invalidationLock;
+
+  private volatile MetricsContext metricsContext;
+  private volatile long nextPollTime;
+  private byte[] lastMessageId;
+  private long invalidationCount;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param cConf the configuration for the cache size, expiration and poll interval
+   * @param messagingService the {@link MessagingService} for fetching dataset change messages
+   * @param authenticationContext the {@link AuthenticationContext} for getting the principal of the current caller
+   * @return a new {@link DatasetMetaCache} or {@code null} if caching is disabled
+   */
+  @Nullable
+  static DatasetMetaCache create(CConfiguration cConf, MessagingService messagingService,
+                                 AuthenticationContext authenticationContext) {
+    int size = cConf.getInt(Constants.Dataset.META_CACHE_SIZE);
+    if (size <= 0) {
+      return null;
+    }
+    return new DatasetMetaCache(cConf, messagingService, authenticationContext, size);
+  }
+
+  private DatasetMetaCache(CConfiguration cConf, MessagingService messagingService,
+                           AuthenticationContext authenticationContext, int size) {
+    this.messagingService = messagingService;
+    this.authenticationContext = authenticationContext;
+    this.topic = NamespaceId.SYSTEM.topic(cConf.get(Constants.Dataset.DATASET_CHANGE_TOPIC));
+    // The dataset service authorizes metadata requests with the caller principal if authorization is enabled,
+    // hence the cached result can only be shared by the same principal
+    this.principalAware = cConf.getBoolean(Constants.Security.ENABLED)
+      && cConf.getBoolean(Constants.Security.Authorization.ENABLED);
+    this.pollIntervalMillis = cConf.getLong(Constants.Dataset.META_CACHE_POLL_INTERVAL_MILLIS);
+    this.startTime = System.currentTimeMillis() - START_TIME_MARGIN_MS;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumSize(size)
+      .expireAfterWrite(cConf.getLong(Constants.Dataset.META_CACHE_EXPIRATION_SECONDS), TimeUnit.SECONDS)
+      .build();
+    this.pollLock = new ReentrantLock();
+    this.invalidationLock = new Object();
+  }
+
+  /**
+   * Sets the {@link MetricsContext} for emitting cache hit and miss metrics.
+   */
+  void setMetricsContext(@Nullable MetricsContext metricsContext) {
+    this.metricsContext = metricsContext;
+  }
+
+  /**
+   * Returns the cached metadata of the given entity, or loads it with the given loader if it is not in the cache.
+   * A {@code null} result from the loader is not cached.
+   *
+   * @param entityId the dataset instance or type id
+   * @param loader the {@link Loader} to load the metadata from the dataset service
+   * @param <T> type of the metadata
+   * @return the metadata or {@code null} if the entity does not exist
+   * @throws DatasetManagementException if failed to load the metadata
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  <T> T get(NamespacedEntityId entityId, Loader<T> loader) throws DatasetManagementException {
+    pollChanges();
+
+    CacheKey key = new CacheKey(principalAware ? authenticationContext.getPrincipal().getName() : "", entityId);
+    T value = (T) cache.getIfPresent(key);
+    if (value != null) {
+      emitMetric(Constants.Metrics.Name.Dataset.META_CACHE_HIT);
+      return value;
+    }
+    emitMetric(Constants.Metrics.Name.Dataset.META_CACHE_MISS);
+
+    long count;
+    synchronized (invalidationLock) {
+      count = invalidationCount;
+    }
+    value = loader.load();
+    if (value != null) {
+      // Only cache the result if there was no invalidation while loading, otherwise it can be stale
+      synchronized (invalidationLock) {
+        if (count == invalidationCount) {
+          cache.put(key, value);
+        }
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Invalidates the cached metadata of the given dataset instance.
+   */
+  void invalidate(DatasetId datasetId) {
+    invalidate(key -> key.entityId.equals(datasetId));
+  }
+
+  /**
+   * Invalidates all cached metadata in the given namespace. Since dataset types in every namespace can depend on
+   * dataset modules in the system namespace, invalidating the system namespace invalidates everything.
+   */
+  void invalidate(NamespaceId namespaceId) {
+    if (NamespaceId.SYSTEM.equals(namespaceId)) {
+      invalidate(key -> true);
+    } else {
+      invalidate(key -> key.namespace.equals(namespaceId.getNamespace()));
+    }
+  }
+
+  private void invalidate(Predicate<CacheKey> predicate) {
+    synchronized (invalidationLock) {
+      invalidationCount++;
+      cache.asMap().keySet().removeIf(predicate);
+    }
+  }
+
+  /**
+   * Fetches new dataset change messages and invalidates the cache accordingly, if the poll interval has passed and
+   * there is no other thread polling.
+   */
+  private void pollChanges() {
+    long now = System.currentTimeMillis();
+    if (now < nextPollTime || !pollLock.tryLock()) {
+      return;
+    }
+    try {
+      if (now < nextPollTime) {
+        return;
+      }
+      int count;
+      do {
+        count = 0;
+        MessageFetcher fetcher = messagingService.prepareFetch(topic).setLimit(FETCH_LIMIT);
+        if (lastMessageId == null) {
+          fetcher.setStartTime(startTime);
+        } else {
+          fetcher.setStartMessage(lastMessageId, false);
+        }
+        try (CloseableIterator<RawMessage> iterator = fetcher.fetch()) {
+          while (iterator.hasNext()) {
+            RawMessage message = iterator.next();
+            processMessage(message);
+            lastMessageId = message.getId();
+            count++;
+          }
+        }
+      } while (count == FETCH_LIMIT);
+      nextPollTime = now + pollIntervalMillis;
+    } catch (Exception e) {
+      // Cached entries will still expire, hence just log and retry on next access
+      SAMPLING_LOG.warn("Failed to fetch dataset change messages from topic {}", topic, e);
+      nextPollTime = now + pollIntervalMillis;
+    } finally {
+      pollLock.unlock();
+    }
+  }
+
+  private void processMessage(RawMessage message) {
+    DatasetChangeMessage changeMessage;
+    try {
+      changeMessage = GSON.fromJson(new String(message.getPayload(), StandardCharsets.UTF_8),
+                                    DatasetChangeMessage.class);
+    } catch (JsonSyntaxException e) {
+      LOG.warn("Ignoring invalid dataset change message", e);
+      return;
+    }
+
+    LOG.trace("Received dataset change message {}", changeMessage);
+    DatasetId datasetId = changeMessage.getDatasetId();
+    if (datasetId == null) {
+      invalidate(changeMessage.getNamespaceId());
+    } else {
+      invalidate(datasetId);
+    }
+  }
+
+  private void emitMetric(String name) {
+    MetricsContext context = metricsContext;
+    if (context != null) {
+      context.increment(name, 1L);
+    }
+  }
+
+  /**
+   * Loads metadata from the dataset service.
+   *
+   * @param <T> type of the metadata
+   */
+  interface Loader<T> {
+
+    @Nullable
+    T load() throws DatasetManagementException;
+  }
+
+  /**
+   * Key of the cache, which is the entity id together with the principal that loaded it.
+   */
+  private static final class CacheKey {
+
+    private final String principal;
+    private final EntityId entityId;
+    private final String namespace;
+
+    CacheKey(String principal, NamespacedEntityId entityId) {
+      this.principal = principal;
+      this.entityId = entityId;
+      this.namespace = entityId.getNamespace();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      CacheKey that = (CacheKey) o;
+      return principal.equals(that.principal) && entityId.equals(that.entityId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(principal, entityId);
+    }
+  }
+}
@@ -22,6 +22,7 @@ import io.cdap.cdap.api.dataset.DatasetManagementException;
 import io.cdap.cdap.api.dataset.DatasetProperties;
 import io.cdap.cdap.api.dataset.InstanceConflictException;
 import io.cdap.cdap.api.dataset.InstanceNotFoundException;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.common.ServiceUnavailableException;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
@@ -81,10 +82,12 @@ public class DatasetServiceClient {
   private final String masterShortUserName;
 
   DatasetServiceClient(final DiscoveryServiceClient discoveryClient, NamespaceId namespaceId,
-                       CConfiguration cConf, AuthenticationContext authenticationContext) {
+                       CConfiguration cConf, AuthenticationContext authenticationContext,
+                       @Nullable MetricsContext metricsContext) {
     this.remoteClient = new RemoteClient(
-      discoveryClient, Constants.Service.DATASET_MANAGER, new DefaultHttpRequestConfig(false),
-      String.format("%s/namespaces/%s/data", Constants.Gateway.API_VERSION_3, namespaceId.getNamespace()));
+      cConf, discoveryClient, Constants.Service.DATASET_MANAGER, new DefaultHttpRequestConfig(false),
+      String.format("%s/namespaces/%s/data", Constants.Gateway.API_VERSION_3, namespaceId.getNamespace()),
+      metricsContext);
     this.namespaceId = namespaceId;
     this.securityEnabled = cConf.getBoolean(Constants.Security.ENABLED);
     this.kerberosEnabled = SecurityUtil.isKerberosEnabled(cConf);
@@ -33,6 +33,8 @@ import io.cdap.cdap.api.dataset.DatasetProperties;
 import io.cdap.cdap.api.dataset.DatasetSpecification;
 import io.cdap.cdap.api.dataset.module.DatasetDefinitionRegistry;
 import io.cdap.cdap.api.dataset.module.DatasetModule;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.Locations;
@@ -44,6 +46,7 @@ import io.cdap.cdap.data2.dataset2.DatasetDefinitionRegistryFactory;
 import io.cdap.cdap.data2.dataset2.DatasetFramework;
 import io.cdap.cdap.data2.dataset2.module.lib.DatasetModules;
 import io.cdap.cdap.data2.metadata.lineage.AccessType;
+import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.proto.DatasetMeta;
 import io.cdap.cdap.proto.DatasetModuleMeta;
 import io.cdap.cdap.proto.DatasetSpecificationSummary;
@@ -83,6 +86,11 @@ public class RemoteDatasetFramework implements DatasetFramework {
   private final CConfiguration cConf;
   private final LoadingCache<NamespaceId, DatasetServiceClient> clientCache;
   private final DatasetDefinitionRegistryFactory registryFactory;
+  private final AuthenticationContext authenticationContext;
+
+  private volatile DatasetMetaCache metaCache;
+  private volatile MetricsContext metricsContext;
+  private volatile MetricsContext clientMetricsContext;
 
   @Inject
   public RemoteDatasetFramework(final CConfiguration cConf, final DiscoveryServiceClient discoveryClient,
@@ -92,10 +100,40 @@ public class RemoteDatasetFramework implements DatasetFramework {
     this.clientCache = CacheBuilder.newBuilder().build(new CacheLoader<NamespaceId, DatasetServiceClient>() {
       @Override
       public DatasetServiceClient load(NamespaceId namespace) throws Exception {
-        return new DatasetServiceClient(discoveryClient, namespace, cConf, authenticationContext);
+        return new DatasetServiceClient(discoveryClient, namespace, cConf, authenticationContext,
+                                        clientMetricsContext);
       }
     });
     this.registryFactory = registryFactory;
+    this.authenticationContext = authenticationContext;
+  }
+
+  /**
+   * Sets the {@link MessagingService} for receiving dataset change notifications. Dataset instance and type
+   * metadata are only cached if this is set, otherwise every lookup goes to the dataset service.
+   */
+  @Inject(optional = true)
+  public void setMessagingService(MessagingService messagingService) {
+    DatasetMetaCache cache = DatasetMetaCache.create(cConf, messagingService, authenticationContext);
+    if (cache != null) {
+      cache.setMetricsContext(metricsContext);
+    }
+    this.metaCache = cache;
+  }
+
+  /**
+   * Sets the {@link MetricsCollectionService} for emitting dataset metadata cache metrics and the metrics of the
+   * dataset service endpoints.
+   */
+  @Inject(optional = true)
+  public void setMetricsCollectionService(MetricsCollectionService metricsCollectionService) {
+    this.clientMetricsContext =
+      metricsCollectionService.getContext(Constants.Metrics.DATASET_SERVICE_CLIENT_METRICS_TAGS);
+    this.metricsContext = metricsCollectionService.getContext(Constants.Metrics.DATASET_META_CACHE_METRICS_TAGS);
+    DatasetMetaCache cache = metaCache;
+    if (cache != null) {
+      cache.setMetricsContext(metricsContext);
+    }
   }
 
   @Override
@@ -106,6 +144,7 @@ public class RemoteDatasetFramework implements DatasetFramework {
       try {
         clientCache.getUnchecked(moduleId.getParent())
           .addModule(moduleId.getEntityName(), moduleClass.getName(), deploymentJar);
+        invalidateCache(moduleId.getParent());
       } finally {
         try {
           deploymentJar.delete();
@@ -127,16 +166,19 @@ public class RemoteDatasetFramework implements DatasetFramework {
                         Location jarLocation) throws DatasetManagementException {
     clientCache.getUnchecked(moduleId.getParent())
       .addModule(moduleId.getEntityName(), DatasetModules.getDatasetModuleClass(module).getName(), jarLocation);
+    invalidateCache(moduleId.getParent());
   }
 
   @Override
   public void deleteModule(DatasetModuleId moduleId) throws DatasetManagementException {
     clientCache.getUnchecked(moduleId.getParent()).deleteModule(moduleId.getEntityName());
+    invalidateCache(moduleId.getParent());
   }
 
   @Override
   public void deleteAllModules(NamespaceId namespaceId) throws DatasetManagementException {
     clientCache.getUnchecked(namespaceId).deleteModules();
+    invalidateCache(namespaceId);
   }
 
   @Override
@@ -145,6 +187,7 @@ public class RemoteDatasetFramework implements DatasetFramework {
     throws DatasetManagementException {
     clientCache.getUnchecked(datasetInstanceId.getParent())
       .addInstance(datasetInstanceId.getEntityName(), datasetType, props, ownerPrincipal);
+    invalidateCache(datasetInstanceId);
   }
 
   @Override
@@ -152,6 +195,7 @@ public class RemoteDatasetFramework implements DatasetFramework {
     throws DatasetManagementException {
     clientCache.getUnchecked(datasetInstanceId.getParent())
       .updateInstance(datasetInstanceId.getEntityName(), props);
+    invalidateCache(datasetInstanceId);
   }
 
   @Override
@@ -169,25 +213,26 @@ public class RemoteDatasetFramework implements DatasetFramework {
   @Nullable
   @Override
   public DatasetSpecification getDatasetSpec(DatasetId datasetInstanceId) throws DatasetManagementException {
-    DatasetMeta meta = clientCache.getUnchecked(datasetInstanceId.getParent())
-      .getInstance(datasetInstanceId.getEntityName());
+    DatasetMeta meta = getInstance(datasetInstanceId);
     return meta == null ? null : meta.getSpec();
   }
 
   @Override
   public boolean hasInstance(DatasetId datasetInstanceId) throws DatasetManagementException {
-    return clientCache.getUnchecked(datasetInstanceId.getParent())
-      .getInstance(datasetInstanceId.getEntityName()) != null;
+    return getInstance(datasetInstanceId) != null;
   }
 
   @Override
   public boolean hasType(DatasetTypeId datasetTypeId) throws DatasetManagementException {
-    return clientCache.getUnchecked(datasetTypeId.getParent()).getType(datasetTypeId.getEntityName()) != null;
+    return getTypeInfo(datasetTypeId) != null;
   }
 
   @Override
   public DatasetTypeMeta getTypeInfo(DatasetTypeId datasetTypeId) throws DatasetManagementException {
-    return clientCache.getUnchecked(datasetTypeId.getParent()).getType(datasetTypeId.getEntityName());
+    DatasetMetaCache cache = metaCache;
+    DatasetMetaCache.Loader<DatasetTypeMeta> loader =
+      () -> clientCache.getUnchecked(datasetTypeId.getParent()).getType(datasetTypeId.getEntityName());
+    return cache == null ? loader.load() : cache.get(datasetTypeId, loader);
   }
 
   @Override
@@ -198,11 +243,13 @@ public class RemoteDatasetFramework implements DatasetFramework {
   @Override
   public void deleteInstance(DatasetId datasetInstanceId) throws DatasetManagementException {
     clientCache.getUnchecked(datasetInstanceId.getParent()).deleteInstance(datasetInstanceId.getEntityName());
+    invalidateCache(datasetInstanceId);
   }
 
   @Override
   public void deleteAllInstances(NamespaceId namespaceId) throws DatasetManagementException {
     clientCache.getUnchecked(namespaceId).deleteInstances();
+    invalidateCache(namespaceId);
   }
 
   @Override
@@ -217,8 +264,7 @@ public class RemoteDatasetFramework implements DatasetFramework {
                                              @Nullable ClassLoader parentClassLoader,
                                              DatasetClassLoaderProvider classLoaderProvider)
     throws DatasetManagementException, IOException {
-    DatasetMeta instanceInfo = clientCache.getUnchecked(datasetInstanceId.getParent())
-      .getInstance(datasetInstanceId.getEntityName());
+    DatasetMeta instanceInfo = getInstance(datasetInstanceId);
     if (instanceInfo == null) {
       return null;
     }
@@ -235,7 +281,7 @@ public class RemoteDatasetFramework implements DatasetFramework {
                                           @Nullable Iterable<? extends EntityId> owners, AccessType accessType)
     throws DatasetManagementException, IOException {
 
-    DatasetMeta datasetMeta = clientCache.getUnchecked(id.getParent()).getInstance(id.getEntityName());
+    DatasetMeta datasetMeta = getInstance(id);
     if (datasetMeta == null) {
       return null;
     }
@@ -249,6 +295,31 @@ public class RemoteDatasetFramework implements DatasetFramework {
     // no-op. The RemoteDatasetFramework doesn't need to do anything. The lineage should be recorded before this point.
   }
 
+  /**
+   * Returns the {@link DatasetMeta} of the given dataset instance, from the cache if caching is enabled.
+   */
+  @Nullable
+  private DatasetMeta getInstance(DatasetId datasetInstanceId) throws DatasetManagementException {
+    DatasetMetaCache cache = metaCache;
+    DatasetMetaCache.Loader<DatasetMeta> loader =
+      () -> clientCache.getUnchecked(datasetInstanceId.getParent()).getInstance(datasetInstanceId.getEntityName());
+    return cache == null ? loader.load() : cache.get(datasetInstanceId, loader);
+  }
+
+  private void invalidateCache(DatasetId datasetInstanceId) {
+    DatasetMetaCache cache = metaCache;
+    if (cache != null) {
+      cache.invalidate(datasetInstanceId);
+    }
+  }
+
+  private void invalidateCache(NamespaceId namespaceId) {
+    DatasetMetaCache cache = metaCache;
+    if (cache != null) {
+      cache.invalidate(namespaceId);
+    }
+  }
+
   private Location createDeploymentJar(Class<?> clz) throws IOException {
     File tempDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
                             cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.datafabric.dataset.service;
+
+import com.google.gson.Gson;
+import io.cdap.cdap.api.messaging.TopicNotFoundException;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.service.Retries;
+import io.cdap.cdap.common.service.RetryStrategies;
+import io.cdap.cdap.common.service.RetryStrategy;
+import io.cdap.cdap.data2.datafabric.dataset.DatasetChangeMessage;
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.StoreRequest;
+import io.cdap.cdap.messaging.client.StoreRequestBuilder;
+import io.cdap.cdap.proto.id.DatasetId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.TopicId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes {@link DatasetChangeMessage} to TMS for invalidating the dataset metadata cached by
+ * {@link io.cdap.cdap.data2.datafabric.dataset.RemoteDatasetFramework}. Failure to publish is only logged, since
+ * cached entries also expire after a configured time.
+ */
+final class DatasetChangePublisher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DatasetChangePublisher.class);
+  private static final Gson GSON = new Gson();
+
+  private final MessagingService messagingService;
+  private final TopicId topic;
+  private final RetryStrategy retryStrategy;
+
+  DatasetChangePublisher(CConfiguration cConf, MessagingService messagingService) {
+    this.messagingService = messagingService;
+    this.topic = NamespaceId.SYSTEM.topic(cConf.get(Constants.Dataset.DATASET_CHANGE_TOPIC));
+    this.retryStrategy = RetryStrategies.timeLimit(5, TimeUnit.SECONDS,
+                                                   RetryStrategies.exponentialDelay(10, 200, TimeUnit.MILLISECONDS));
+  }
+
+  /**
+   * Publishes a change of the given dataset instance.
+   */
+  void publish(DatasetId datasetId) {
+    publish(DatasetChangeMessage.of(datasetId));
+  }
+
+  /**
+   * Publishes a change of dataset modules in the given namespace.
+   */
+  void publish(NamespaceId namespaceId) {
+    publish(DatasetChangeMessage.of(namespaceId));
+  }
+
+  private void publish(DatasetChangeMessage message) {
+    StoreRequest storeRequest = StoreRequestBuilder.of(topic).addPayload(GSON.toJson(message)).build();
+    try {
+      Retries.callWithRetries(() -> messagingService.publish(storeRequest), retryStrategy, Retries.ALWAYS_TRUE);
+    } catch (TopicNotFoundException e) {
+      LOG.warn("Missing topic for dataset change publish: {}", topic);
+    } catch (Exception e) {
+      LOG.warn("Failed to publish dataset change message {}", message, e);
+    }
+  }
+}
@@ -31,6 +31,7 @@ import io.cdap.cdap.common.DatasetTypeNotFoundException;
 import io.cdap.cdap.common.HandlerException;
 import io.cdap.cdap.common.NamespaceNotFoundException;
 import io.cdap.cdap.common.NotFoundException;
+import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.namespace.NamespaceQueryAdmin;
 import io.cdap.cdap.data.runtime.DataSetServiceModules;
 import io.cdap.cdap.data2.audit.AuditPublisher;
@@ -45,6 +46,7 @@ import io.cdap.cdap.data2.metadata.system.SystemMetadata;
 import io.cdap.cdap.data2.metadata.system.SystemMetadataWriter;
 import io.cdap.cdap.data2.metadata.writer.MetadataServiceClient;
 import io.cdap.cdap.explore.client.ExploreFacade;
+import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.proto.DatasetInstanceConfiguration;
 import io.cdap.cdap.proto.DatasetMeta;
 import io.cdap.cdap.proto.DatasetTypeMeta;
@@ -96,6 +98,7 @@ public class DatasetInstanceService {
 
   private AuditPublisher auditPublisher;
   private MetadataServiceClient metadataServiceClient;
+  private DatasetChangePublisher changePublisher;
 
   @VisibleForTesting
   @Inject
@@ -134,6 +137,16 @@ public class DatasetInstanceService {
     this.auditPublisher = auditPublisher;
   }
 
+  /**
+   * Sets the {@link MessagingService} for publishing dataset instance changes, which are used by
+   * {@link io.cdap.cdap.data2.datafabric.dataset.RemoteDatasetFramework} to invalidate cached dataset metadata.
+   */
+  @VisibleForTesting
+  @Inject(optional = true)
+  public void setMessagingService(CConfiguration cConf, MessagingService messagingService) {
+    this.changePublisher = new DatasetChangePublisher(cConf, messagingService);
+  }
+
   /**
    * Lists all dataset instances in a namespace. If perimeter security and authorization are enabled, only returns the
    * dataset instances that the current user has access to.
@@ -340,6 +353,7 @@ public class DatasetInstanceService {
       instanceManager.add(namespace, spec);
       LOG.trace("Added instance metadata for dataset {}", name);
       metaCache.invalidate(datasetId);
+      publishChange(datasetId);
 
       LOG.trace("Publishing audit for creation of dataset {}", name);
       publishAudit(datasetId, AuditType.CREATE);
@@ -397,6 +411,7 @@ public class DatasetInstanceService {
     DatasetSpecification spec = response.getSpec();
     instanceManager.add(instance.getParent(), spec);
     metaCache.invalidate(instance);
+    publishChange(instance);
 
     updateExplore(instance, datasetProperties, existing, spec);
     publishAudit(instance, AuditType.UPDATE);
@@ -560,6 +575,7 @@ public class DatasetInstanceService {
       throw new DatasetNotFoundException(instance);
     }
     metaCache.invalidate(instance);
+    publishChange(instance);
 
     // by pass the auth check for dataset type when the operation is not creation
     DatasetTypeMeta typeMeta = getTypeInfo(instance.getParent(), spec.getType(), true);
@@ -633,6 +649,12 @@ public class DatasetInstanceService {
     AuditPublishers.publishAudit(auditPublisher, datasetInstance, auditType, AuditPayload.EMPTY_PAYLOAD);
   }
 
+  private void publishChange(DatasetId datasetInstance) {
+    if (changePublisher != null) {
+      changePublisher.publish(datasetInstance);
+    }
+  }
+
   private void publishMetadata(DatasetId dataset, SystemMetadata metadata) {
     if (metadata != null && !metadata.isEmpty()) {
       SystemMetadataWriter metadataWriter = new DelegateSystemMetadataWriter(metadataServiceClient, dataset, metadata);
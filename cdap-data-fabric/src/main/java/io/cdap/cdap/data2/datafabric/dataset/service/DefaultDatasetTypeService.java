@@ -42,6 +42,7 @@ import io.cdap.cdap.data2.datafabric.dataset.service.mds.DatasetTypeTable;
 import io.cdap.cdap.data2.datafabric.dataset.type.DatasetModuleConflictException;
 import io.cdap.cdap.data2.datafabric.dataset.type.DatasetTypeManager;
 import io.cdap.cdap.data2.transaction.TransactionSystemClientService;
+import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.proto.DatasetModuleMeta;
 import io.cdap.cdap.proto.DatasetTypeMeta;
 import io.cdap.cdap.proto.id.DatasetModuleId;
@@ -84,6 +85,7 @@ public class DefaultDatasetTypeService extends AbstractIdleService implements Da
   private final TransactionSystemClientService txClientService;
   private final Map<String, DatasetModule> defaultModules;
   private final Map<String, DatasetModule> extensionModules;
+  private DatasetChangePublisher changePublisher;
 
   @Inject
   @VisibleForTesting
@@ -105,6 +107,16 @@ public class DefaultDatasetTypeService extends AbstractIdleService implements Da
     this.transactionRunner = transactionRunner;
   }
 
+  /**
+   * Sets the {@link MessagingService} for publishing dataset module changes, which are used by
+   * {@link io.cdap.cdap.data2.datafabric.dataset.RemoteDatasetFramework} to invalidate cached dataset metadata.
+   */
+  @VisibleForTesting
+  @Inject(optional = true)
+  public void setMessagingService(MessagingService messagingService) {
+    this.changePublisher = new DatasetChangePublisher(cConf, messagingService);
+  }
+
   @Override
   protected void startUp() throws Exception {
     txClientService.startAndWait();
@@ -201,6 +213,7 @@ public class DefaultDatasetTypeService extends AbstractIdleService implements Da
     } catch (DatasetModuleConflictException e) {
       throw new DatasetModuleCannotBeDeletedException(datasetModuleId, e.getMessage());
     }
+    publishChange(namespaceId);
   }
 
   /**
@@ -218,6 +231,7 @@ public class DefaultDatasetTypeService extends AbstractIdleService implements Da
     } catch (DatasetModuleConflictException e) {
       throw new ConflictException(e.getMessage(), e);
     }
+    publishChange(namespaceId);
   }
 
   /**
@@ -325,6 +339,7 @@ public class DefaultDatasetTypeService extends AbstractIdleService implements Da
           }
 
           typeManager.addModule(datasetModuleId, className, archive, forceUpdate);
+          publishChange(datasetModuleId.getParent());
           // todo: response with DatasetModuleMeta of just added module (and log this info)
           // Ideally this should have been done before, but we cannot grant privileges on types until they've been
           // added to the type MDS. First revoke any orphaned privileges for types left behind by past failed revokes
@@ -426,4 +441,10 @@ public class DefaultDatasetTypeService extends AbstractIdleService implements Da
       }
     }
   }
+
+  private void publishChange(NamespaceId namespaceId) {
+    if (changePublisher != null) {
+      changePublisher.publish(namespaceId);
+    }
+  }
 }
@@ -24,6 +24,7 @@ import io.cdap.cdap.api.dataset.DatasetProperties;
 import io.cdap.cdap.api.dataset.DatasetSpecification;
 import io.cdap.cdap.common.ConflictException;
 import io.cdap.cdap.common.HandlerException;
+import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.http.DefaultHttpRequestConfig;
 import io.cdap.cdap.common.internal.remote.RemoteClient;
@@ -54,9 +55,10 @@ public class RemoteDatasetOpExecutor implements DatasetOpExecutor {
   private final AuthenticationContext authenticationContext;
 
   @Inject
-  public RemoteDatasetOpExecutor(DiscoveryServiceClient discoveryClient, AuthenticationContext authenticationContext) {
+  public RemoteDatasetOpExecutor(CConfiguration cConf, DiscoveryServiceClient discoveryClient,
+                                 AuthenticationContext authenticationContext) {
     this.authenticationContext = authenticationContext;
-    this.remoteClient = new RemoteClient(discoveryClient, Constants.Service.DATASET_EXECUTOR,
+    this.remoteClient = new RemoteClient(cConf, discoveryClient, Constants.Service.DATASET_EXECUTOR,
                                          new DefaultHttpRequestConfig(false), Constants.Gateway.API_VERSION_3);
   }
 
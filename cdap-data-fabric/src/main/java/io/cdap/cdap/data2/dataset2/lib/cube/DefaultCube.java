@@ -16,7 +16,6 @@
 
 package io.cdap.cdap.data2.dataset2.lib.cube;
 
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
@@ -24,7 +23,6 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.PeekingIterator;
 import com.google.common.collect.Sets;
-import com.google.common.collect.Table;
 import com.google.common.util.concurrent.Uninterruptibles;
 import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
 import io.cdap.cdap.api.dataset.lib.cube.AggregationOption;
@@ -51,7 +49,6 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -255,7 +252,7 @@ public class DefaultCube implements Cube, MeteredDataset {
     // 3) execute scan query
     FactTable table = resolutionToFactTable.get(query.getResolution());
     FactScanner scanner = table.scan(scan);
-    Table<Map<String, String>, String, Map<Long, Long>> resultMap = getTimeSeries(query, scanner);
+    TimeSeriesAggregator resultMap = getTimeSeries(query, scanner);
 
     incrementMetric("cube.query.request.success.count", 1);
     incrementMetric("cube.query.result.size", resultMap.size());
@@ -374,69 +371,30 @@ public class DefaultCube implements Cube, MeteredDataset {
     return currentBest;
   }
 
-  private Table<Map<String, String>, String, Map<Long, Long>> getTimeSeries(CubeQuery query, FactScanner scanner) {
+  private TimeSeriesAggregator getTimeSeries(CubeQuery query, FactScanner scanner) {
     // {dimension values, measure} -> {time -> value}s
-    Table<Map<String, String>, String, Map<Long, Long>> result = HashBasedTable.create();
+    TimeSeriesAggregator result = new TimeSeriesAggregator(query.getGroupByDimensions(), query.getMeasurements());
 
     int count = 0;
     while (scanner.hasNext()) {
       FactScanResult next = scanner.next();
       incrementMetric("cube.query.scan.records.count", 1);
 
-      boolean skip = false;
-      // using tree map, as we are using it as a key for a map
-      Map<String, String> seriesDimensions = Maps.newTreeMap();
-      for (String dimensionName : query.getGroupByDimensions()) {
-        // todo: use Map<String, String> instead of List<DimensionValue> into a String, String, everywhere
-        for (DimensionValue dimensionValue : next.getDimensionValues()) {
-          if (dimensionName.equals(dimensionValue.getName())) {
-            if (dimensionValue.getValue() == null) {
-              // Currently, we do NOT return null as grouped by value.
-              // Depending on whether dimension is required or not the records with null value in it may or may not be
-              // in aggregation. At this moment, the choosing of the aggregation for query doesn't look at this, so
-              // potentially null may or may not be included in results, depending on the aggregation selected
-              // querying. We don't want to produce inconsistent results varying due to different aggregations selected,
-              // so don't return nulls in any of those cases.
-              skip = true;
-              continue;
-            }
-            seriesDimensions.put(dimensionName, dimensionValue.getValue());
-            break;
-          }
-        }
-      }
-
-      if (skip) {
+      // Currently, we do NOT return null as grouped by value.
+      // Depending on whether dimension is required or not the records with null value in it may or may not be
+      // in aggregation. At this moment, the choosing of the aggregation for query doesn't look at this, so
+      // potentially null may or may not be included in results, depending on the aggregation selected
+      // querying. We don't want to produce inconsistent results varying due to different aggregations selected,
+      // so don't return nulls in any of those cases.
+      int groupId = result.getGroupId(next.getDimensionValues());
+      if (groupId < 0) {
         incrementMetric("cube.query.scan.skipped.count", 1);
         continue;
       }
 
+      int measureId = result.getMeasureId(next.getMeasureName());
       for (TimeValue timeValue : next) {
-        Map<Long, Long> timeValues = result.get(seriesDimensions, next.getMeasureName());
-        if (timeValues == null) {
-          result.put(seriesDimensions, next.getMeasureName(), Maps.<Long, Long>newHashMap());
-        }
-
-        AggregationFunction function = query.getMeasurements().get(next.getMeasureName());
-        if (AggregationFunction.SUM == function) {
-          Long value =  result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
-          value = value == null ? 0 : value;
-          value += timeValue.getValue();
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
-        } else if (AggregationFunction.MAX == function) {
-          Long value = result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
-          value = value != null && value > timeValue.getValue() ? value : timeValue.getValue();
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
-        } else if (AggregationFunction.MIN == function) {
-          Long value =  result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
-          value = value != null && value < timeValue.getValue() ? value : timeValue.getValue();
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
-        } else if (AggregationFunction.LATEST == function) {
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), timeValue.getValue());
-        } else {
-          // should never happen: developer error
-          throw new RuntimeException("Unknown MeasureType: " + function);
-        }
+        result.add(groupId, measureId, timeValue.getTimestamp(), timeValue.getValue());
       }
       if (++count >= MAX_RECORDS_TO_SCAN) {
         break;
@@ -445,61 +403,52 @@ public class DefaultCube implements Cube, MeteredDataset {
     return result;
   }
 
-  private Collection<TimeSeries> convertToQueryResult(
-    CubeQuery query, Table<Map<String, String>, String, Map<Long, Long>> resultTable) {
+  private Collection<TimeSeries> convertToQueryResult(CubeQuery query, TimeSeriesAggregator aggregator) {
     List<TimeSeries> result = new ArrayList<>();
-    // iterating each groupValue dimensions
-    for (Map.Entry<Map<String, String>, Map<String, Map<Long, Long>>> row : resultTable.rowMap().entrySet()) {
-      // iterating each measure
-      for (Map.Entry<String, Map<Long, Long>> measureEntry : row.getValue().entrySet()) {
-        // generating time series for a grouping and a measure
-        int count = 0;
-        List<TimeValue> timeValues = new ArrayList<>();
-        for (Map.Entry<Long, Long> timeValue : measureEntry.getValue().entrySet()) {
-          timeValues.add(new TimeValue(timeValue.getKey(), timeValue.getValue()));
-        }
-        Collections.sort(timeValues);
-        List<TimeValue> resultTimeValues = new ArrayList<>();
-
-        AggregationOption aggregationOption = query.getAggregationOption();
-        // this should not happen in production, since the check has been made in the handler
-        if (query.getLimit() <= 0) {
-          throw new IllegalArgumentException("The query limit cannot be less than 0");
-        }
-        // only partition the data points if the data points are larger than the required limit and only do it for
-        // option LATEST and SUM.
-        if (query.getLimit() < timeValues.size() && PARTITION_AGG_OPTIONS.contains(aggregationOption)) {
-          int partitionSize = timeValues.size() / query.getLimit();
-          int remainder = timeValues.size() % query.getLimit();
-          // ignore the first reminderth data points
-          for (List<TimeValue> interval : Iterables.partition(timeValues.subList(remainder,
-                                                                                 timeValues.size()), partitionSize)) {
-            // for LATEST we only need to get the last data point in the interval
-            if (aggregationOption.equals(AggregationOption.LATEST)) {
-              resultTimeValues.add(interval.get(interval.size() - 1));
-              continue;
-            }
-            // for SUM we want to sum up all the values in the interval
-            if (aggregationOption.equals(AggregationOption.SUM)) {
-              long sum = interval.stream().mapToLong(TimeValue::getValue).sum();
-              resultTimeValues.add(new TimeValue(interval.get(interval.size() - 1).getTimestamp(), sum));
-            }
+    // iterating each groupValue dimensions and measure
+    aggregator.forEachSeries((dimensions, measureName, timeValues) -> {
+      // generating time series for a grouping and a measure
+      int count = 0;
+      List<TimeValue> resultTimeValues = new ArrayList<>();
+
+      AggregationOption aggregationOption = query.getAggregationOption();
+      // this should not happen in production, since the check has been made in the handler
+      if (query.getLimit() <= 0) {
+        throw new IllegalArgumentException("The query limit cannot be less than 0");
+      }
+      // only partition the data points if the data points are larger than the required limit and only do it for
+      // option LATEST and SUM.
+      if (query.getLimit() < timeValues.size() && PARTITION_AGG_OPTIONS.contains(aggregationOption)) {
+        int partitionSize = timeValues.size() / query.getLimit();
+        int remainder = timeValues.size() % query.getLimit();
+        // ignore the first reminderth data points
+        for (List<TimeValue> interval : Iterables.partition(timeValues.subList(remainder,
+                                                                               timeValues.size()), partitionSize)) {
+          // for LATEST we only need to get the last data point in the interval
+          if (aggregationOption.equals(AggregationOption.LATEST)) {
+            resultTimeValues.add(interval.get(interval.size() - 1));
+            continue;
           }
-        } else {
-          // TODO: CDAP-15565 remove the interpolation logic since it is never maintained and adds huge complexity
-          PeekingIterator<TimeValue> timeValueItor = Iterators.peekingIterator(
-            new TimeSeriesInterpolator(timeValues, query.getInterpolator(), query.getResolution()).iterator());
-          while (timeValueItor.hasNext()) {
-            TimeValue timeValue = timeValueItor.next();
-            resultTimeValues.add(new TimeValue(timeValue.getTimestamp(), timeValue.getValue()));
-            if (++count >= query.getLimit()) {
-              break;
-            }
+          // for SUM we want to sum up all the values in the interval
+          if (aggregationOption.equals(AggregationOption.SUM)) {
+            long sum = interval.stream().mapToLong(TimeValue::getValue).sum();
+            resultTimeValues.add(new TimeValue(interval.get(interval.size() - 1).getTimestamp(), sum));
+          }
+        }
+      } else {
+        // TODO: CDAP-15565 remove the interpolation logic since it is never maintained and adds huge complexity
+        PeekingIterator<TimeValue> timeValueItor = Iterators.peekingIterator(
+          new TimeSeriesInterpolator(timeValues, query.getInterpolator(), query.getResolution()).iterator());
+        while (timeValueItor.hasNext()) {
+          TimeValue timeValue = timeValueItor.next();
+          resultTimeValues.add(new TimeValue(timeValue.getTimestamp(), timeValue.getValue()));
+          if (++count >= query.getLimit()) {
+            break;
           }
         }
-        result.add(new TimeSeries(measureEntry.getKey(), row.getKey(), resultTimeValues));
       }
-    }
+      result.add(new TimeSeries(measureName, dimensions, resultTimeValues));
+    });
     return result;
   }
 
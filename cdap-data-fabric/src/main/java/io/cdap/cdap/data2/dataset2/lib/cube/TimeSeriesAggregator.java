@@ -0,0 +1,257 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.cube;
+
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.DimensionValue;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregates scanned {@link TimeValue}s into time series, grouped by the values of a set of dimensions and by
+ * measure.
+ *
+ * Dimension groups and measures are interned into int ids, and each series is kept in a primitive long to long map,
+ * so that aggregating a {@link TimeValue} does not allocate any objects once its series exists.
+ */
+final class TimeSeriesAggregator {
+
+  private final List<String> groupByDimensions;
+  private final Map<String, Integer> measureIds;
+  private final AggregationFunction[] functions;
+  private final Map<GroupKey, Integer> groupIds;
+  private final List<String[]> groups;
+  // series of a group and measure is at index (groupId * number of measures + measureId)
+  private final List<Long2LongOpenHashMap> series;
+  // reusable key for looking up the group id without allocating a new key
+  private final GroupKey lookupKey;
+
+  TimeSeriesAggregator(Collection<String> groupByDimensions, Map<String, AggregationFunction> measurements) {
+    this.groupByDimensions = new ArrayList<>(groupByDimensions);
+    this.measureIds = new HashMap<>();
+    this.functions = new AggregationFunction[measurements.size()];
+    for (Map.Entry<String, AggregationFunction> entry : measurements.entrySet()) {
+      functions[measureIds.size()] = entry.getValue();
+      measureIds.put(entry.getKey(), measureIds.size());
+    }
+    this.groupIds = new HashMap<>();
+    this.groups = new ArrayList<>();
+    this.series = new ArrayList<>();
+    this.lookupKey = new GroupKey(new String[this.groupByDimensions.size()]);
+  }
+
+  /**
+   * Returns the id of the group that the given dimension values belong to, or {@code -1} if any of the group by
+   * dimensions has a {@code null} value.
+   */
+  int getGroupId(List<DimensionValue> dimensionValues) {
+    String[] values = lookupKey.values;
+    Arrays.fill(values, null);
+    for (int i = 0; i < values.length; i++) {
+      String dimensionName = groupByDimensions.get(i);
+      for (DimensionValue dimensionValue : dimensionValues) {
+        if (dimensionName.equals(dimensionValue.getName())) {
+          if (dimensionValue.getValue() == null) {
+            return -1;
+          }
+          values[i] = dimensionValue.getValue();
+          break;
+        }
+      }
+    }
+
+    lookupKey.rehash();
+    Integer groupId = groupIds.get(lookupKey);
+    if (groupId == null) {
+      groupId = groups.size();
+      String[] groupValues = values.clone();
+      groupIds.put(new GroupKey(groupValues), groupId);
+      groups.add(groupValues);
+      for (int i = 0; i < functions.length; i++) {
+        series.add(null);
+      }
+    }
+    return groupId;
+  }
+
+  /**
+   * Returns the id of the given measure.
+   *
+   * @throws IllegalArgumentException if the measure is not part of the query
+   */
+  int getMeasureId(String measureName) {
+    Integer measureId = measureIds.get(measureName);
+    if (measureId == null) {
+      // should never happen: developer error
+      throw new IllegalArgumentException("Unknown measure: " + measureName);
+    }
+    return measureId;
+  }
+
+  /**
+   * Aggregates the given value into the series of the given group and measure.
+   */
+  void add(int groupId, int measureId, long timestamp, long value) {
+    int index = groupId * functions.length + measureId;
+    AggregationFunction function = functions[measureId];
+    Long2LongOpenHashMap values = series.get(index);
+    if (values == null) {
+      values = new Long2LongOpenHashMap();
+      // value returned for absent timestamps, chosen such that it doesn't affect the aggregation
+      if (AggregationFunction.MAX == function) {
+        values.defaultReturnValue(Long.MIN_VALUE);
+      } else if (AggregationFunction.MIN == function) {
+        values.defaultReturnValue(Long.MAX_VALUE);
+      }
+      series.set(index, values);
+    }
+
+    if (AggregationFunction.SUM == function) {
+      values.addTo(timestamp, value);
+    } else if (AggregationFunction.MAX == function) {
+      values.put(timestamp, Math.max(values.get(timestamp), value));
+    } else if (AggregationFunction.MIN == function) {
+      values.put(timestamp, Math.min(values.get(timestamp), value));
+    } else if (AggregationFunction.LATEST == function) {
+      values.put(timestamp, value);
+    } else {
+      // should never happen: developer error
+      throw new RuntimeException("Unknown MeasureType: " + function);
+    }
+  }
+
+  /**
+   * Returns the number of non-empty series.
+   */
+  int size() {
+    int size = 0;
+    for (Long2LongOpenHashMap values : series) {
+      if (values != null) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Calls the given consumer for each non-empty series, with the time values sorted by timestamp.
+   * Series are visited in the same order as the hash table of dimension values to measure that was used before
+   * this class was introduced, so that the order of query results does not change.
+   */
+  void forEachSeries(SeriesConsumer consumer) {
+    Map<Map<String, String>, Integer> dimensionGroups = new HashMap<>();
+    for (int groupId = 0; groupId < groups.size(); groupId++) {
+      if (hasSeries(groupId)) {
+        dimensionGroups.put(toDimensionMap(groups.get(groupId)), groupId);
+      }
+    }
+
+    for (Map.Entry<Map<String, String>, Integer> group : dimensionGroups.entrySet()) {
+      for (Map.Entry<String, Integer> measure : measureIds.entrySet()) {
+        Long2LongOpenHashMap values = series.get(group.getValue() * functions.length + measure.getValue());
+        if (values != null) {
+          consumer.accept(group.getKey(), measure.getKey(), toTimeValues(values));
+        }
+      }
+    }
+  }
+
+  private boolean hasSeries(int groupId) {
+    for (int measureId = 0; measureId < functions.length; measureId++) {
+      if (series.get(groupId * functions.length + measureId) != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Map<String, String> toDimensionMap(String[] values) {
+    Map<String, String> dimensions = new TreeMap<>();
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        dimensions.put(groupByDimensions.get(i), values[i]);
+      }
+    }
+    return dimensions;
+  }
+
+  private static List<TimeValue> toTimeValues(Long2LongOpenHashMap values) {
+    long[] timestamps = values.keySet().toLongArray();
+    Arrays.sort(timestamps);
+    List<TimeValue> timeValues = new ArrayList<>(timestamps.length);
+    for (long timestamp : timestamps) {
+      timeValues.add(new TimeValue(timestamp, values.get(timestamp)));
+    }
+    return timeValues;
+  }
+
+  /**
+   * Consumer of aggregated time series.
+   */
+  interface SeriesConsumer {
+
+    /**
+     * Accepts a time series.
+     *
+     * @param dimensions the group by dimension values of the series
+     * @param measureName the name of the measure
+     * @param timeValues the time values of the series, sorted by timestamp
+     */
+    void accept(Map<String, String> dimensions, String measureName, List<TimeValue> timeValues);
+  }
+
+  /**
+   * Key for looking up groups by dimension values.
+   */
+  private static final class GroupKey {
+    private final String[] values;
+    private int hashCode;
+
+    GroupKey(String[] values) {
+      this.values = values;
+      rehash();
+    }
+
+    void rehash() {
+      hashCode = Arrays.hashCode(values);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      return Arrays.equals(values, ((GroupKey) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -38,7 +38,9 @@ import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.api.dataset.table.TableProperties;
 import io.cdap.cdap.api.dataset.table.TableSplit;
 import io.cdap.cdap.api.metrics.MetricsCollector;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.metrics.BoundMetrics;
 import org.apache.tephra.Transaction;
 import org.apache.tephra.TransactionAware;
 import org.slf4j.Logger;
@@ -102,8 +104,11 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   // Keeps track of what was persisted so far
   private NavigableMap<byte[], NavigableMap<byte[], Update>> toUndo;
 
-  // Report data ops metrics to
-  private MetricsCollector metricsCollector;
+  // Report data ops metrics to, bound to the metrics collector to avoid looking up the metrics on every operation
+  private MetricsContext.Counter readCountMetric;
+  private MetricsContext.Counter writeCountMetric;
+  private MetricsContext.Counter writeBytesMetric;
+  private MetricsContext.Counter opCountMetric;
 
   // the current transaction
   protected Transaction tx;
@@ -254,7 +259,17 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   @Override
   public void setMetricsCollector(MetricsCollector metricsCollector) {
-    this.metricsCollector = metricsCollector;
+    if (metricsCollector == null) {
+      this.readCountMetric = null;
+      this.writeCountMetric = null;
+      this.writeBytesMetric = null;
+      this.opCountMetric = null;
+      return;
+    }
+    this.readCountMetric = BoundMetrics.counter(metricsCollector, Constants.Metrics.Name.Dataset.READ_COUNT);
+    this.writeCountMetric = BoundMetrics.counter(metricsCollector, Constants.Metrics.Name.Dataset.WRITE_COUNT);
+    this.writeBytesMetric = BoundMetrics.counter(metricsCollector, Constants.Metrics.Name.Dataset.WRITE_BYTES);
+    this.opCountMetric = BoundMetrics.counter(metricsCollector, Constants.Metrics.Name.Dataset.OP_COUNT);
   }
 
   @Override
@@ -922,18 +937,18 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   }
 
   private void reportWrite(int numOps, int dataSize) {
-    if (metricsCollector != null) {
-      metricsCollector.increment(Constants.Metrics.Name.Dataset.WRITE_COUNT, numOps);
-      metricsCollector.increment(Constants.Metrics.Name.Dataset.WRITE_BYTES, dataSize);
-      metricsCollector.increment(Constants.Metrics.Name.Dataset.OP_COUNT, numOps);
+    if (opCountMetric != null) {
+      writeCountMetric.increment(numOps);
+      writeBytesMetric.increment(dataSize);
+      opCountMetric.increment(numOps);
     }
   }
 
   private void reportRead(int numOps) {
-    if (metricsCollector != null) {
+    if (opCountMetric != null) {
       // todo: report amount of data being read
-      metricsCollector.increment(Constants.Metrics.Name.Dataset.READ_COUNT, numOps);
-      metricsCollector.increment(Constants.Metrics.Name.Dataset.OP_COUNT, numOps);
+      readCountMetric.increment(numOps);
+      opCountMetric.increment(numOps);
     }
   }
 
@@ -47,7 +47,7 @@ public class InMemoryMetricsTableDefinition extends AbstractTableDefinition<Metr
   @Override
   public InMemoryTableAdmin getAdmin(DatasetContext datasetContext, DatasetSpecification spec,
                                      ClassLoader classLoader) throws IOException {
-    // the table management is the same as in ordered table
-    return new InMemoryTableAdmin(datasetContext, spec.getName(), cConf);
+    // the table management is the same as in ordered table, except that only the latest version is ever read
+    return new InMemoryTableAdmin(datasetContext, spec.getName(), cConf, 1);
   }
 }
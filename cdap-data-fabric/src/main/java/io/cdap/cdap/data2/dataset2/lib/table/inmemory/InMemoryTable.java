@@ -92,6 +92,32 @@ public class InMemoryTable extends BufferingTable {
     internalIncrementAndGet(row, columns, amounts);
   }
 
+  @Override
+  public void startTx(Transaction tx) {
+    super.startTx(tx);
+    // the versions visible to the transaction are kept until it finishes
+    InMemoryTableService.startTx(tx);
+  }
+
+  @Override
+  public void postTxCommit() {
+    Transaction committed = tx;
+    super.postTxCommit();
+    if (committed != null) {
+      InMemoryTableService.finishTx(committed);
+    }
+  }
+
+  @Override
+  public boolean rollbackTx() throws Exception {
+    Transaction rolledBack = tx;
+    boolean result = super.rollbackTx();
+    if (rolledBack != null) {
+      InMemoryTableService.finishTx(rolledBack);
+    }
+    return result;
+  }
+
   @Override
   protected void persist(NavigableMap<byte[], NavigableMap<byte[], Update>> updates) {
     if (updates.isEmpty()) {
@@ -102,7 +128,7 @@ public class InMemoryTable extends BufferingTable {
 
   @WriteOnly
   private void persistUpdates(NavigableMap<byte[], NavigableMap<byte[], Update>> updates) {
-    InMemoryTableService.merge(getTableName(), updates, tx.getWritePointer());
+    InMemoryTableService.merge(getTableName(), updates, tx);
   }
 
   @Override
@@ -27,9 +27,18 @@ import java.io.IOException;
  */
 public class InMemoryTableAdmin implements DatasetAdmin {
   private final String name;
+  private final int maxVersions;
 
   public InMemoryTableAdmin(DatasetContext datasetContext, String name, CConfiguration cConf) {
+    this(datasetContext, name, cConf, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates an admin for a table that keeps at most the given number of versions per column.
+   */
+  public InMemoryTableAdmin(DatasetContext datasetContext, String name, CConfiguration cConf, int maxVersions) {
     this.name = PrefixedNamespaces.namespace(cConf, datasetContext.getNamespaceId(), name);
+    this.maxVersions = maxVersions;
   }
 
   @Override
@@ -39,7 +48,7 @@ public class InMemoryTableAdmin implements DatasetAdmin {
 
   @Override
   public void create() {
-    InMemoryTableService.create(name);
+    InMemoryTableService.create(name, maxVersions);
   }
 
   @Override
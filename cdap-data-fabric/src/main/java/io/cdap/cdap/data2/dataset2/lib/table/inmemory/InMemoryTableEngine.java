@@ -0,0 +1,387 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.table.inmemory;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.data2.dataset2.lib.table.IncrementValue;
+import io.cdap.cdap.data2.dataset2.lib.table.PutValue;
+import io.cdap.cdap.data2.dataset2.lib.table.Update;
+import io.cdap.cdap.data2.dataset2.lib.table.Updates;
+import org.apache.tephra.Transaction;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * Storage of a single in-memory table. Rows are kept in a {@link ConcurrentSkipListMap}, so that lookups and scans
+ * never block, and each row is guarded by its own monitor, so that writes to different rows proceed concurrently.
+ * Operations are atomic per row only, which matches the guarantees of the persistent table implementations.
+ * Reads copy the versions visible to the given transaction while holding the row monitor, hence the returned
+ * maps are never modified afterwards.
+ *
+ * Older versions of a column are expired on write once the column has more than the configured maximum number
+ * of versions. Transactional writes also expire the versions that no transaction can read anymore: every
+ * transaction that can still read the table sees all committed versions up to a visibility upper bound, hence only
+ * reads the latest of those versions, or a newer one.
+ */
+final class InMemoryTableEngine {
+
+  /**
+   * Visibility upper bound for writes that don't expire versions based on the visibility of the versions.
+   */
+  static final long NO_VISIBILITY_UPPER_BOUND = -1L;
+
+  private final ConcurrentNavigableMap<byte[], Row> rows;
+  private final int maxVersions;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param maxVersions maximum number of versions to keep per column
+   */
+  InMemoryTableEngine(int maxVersions) {
+    if (maxVersions <= 0) {
+      throw new IllegalArgumentException("Maximum number of versions must be positive: " + maxVersions);
+    }
+    this.rows = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    this.maxVersions = maxVersions;
+  }
+
+  /**
+   * Merges the given changes into the table with the given version. The changes must not be modified by the caller
+   * afterwards.
+   */
+  void merge(SortedMap<byte[], ? extends SortedMap<byte[], Update>> changes, long version) {
+    merge(changes, version, NO_VISIBILITY_UPPER_BOUND, null);
+  }
+
+  /**
+   * Merges the given changes into the table with the given version, and expires the versions of the changed columns
+   * that are older than the latest committed version up to the given visibility upper bound. The changes must not be
+   * modified by the caller afterwards.
+   *
+   * @param visibilityUpperBound the version up to which all committed versions are visible to every transaction that
+   *                             can still read the table, or {@link #NO_VISIBILITY_UPPER_BOUND} if it is unknown
+   * @param invalids sorted ids of the invalid transactions, whose versions are never visible
+   */
+  void merge(SortedMap<byte[], ? extends SortedMap<byte[], Update>> changes, long version,
+             long visibilityUpperBound, @Nullable long[] invalids) {
+    for (Map.Entry<byte[], ? extends SortedMap<byte[], Update>> change : changes.entrySet()) {
+      updateRow(change.getKey(), row -> {
+        for (Map.Entry<byte[], Update> keyVal : change.getValue().entrySet()) {
+          NavigableMap<Long, Update> colMap = row.getColumn(keyVal.getKey());
+          colMap.put(version, Updates.mergeUpdates(colMap.get(version), keyVal.getValue()));
+          expireVersions(colMap);
+          expireInvisibleVersions(colMap, visibilityUpperBound, invalids);
+        }
+        return null;
+      });
+    }
+  }
+
+  /**
+   * Increments the latest value of the given columns and writes the results with the current time as the version.
+   *
+   * @return the new value of each column
+   */
+  Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) {
+    return updateRow(row, rowData -> {
+      // The version must be taken while holding the row monitor, otherwise a concurrent write can get an older
+      // version and its result won't be the latest
+      long version = System.currentTimeMillis();
+      Map<byte[], Long> resultMap = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      for (Map.Entry<byte[], Long> inc : increments.entrySet()) {
+        NavigableMap<Long, Update> colMap = rowData.getColumn(inc.getKey());
+        Update last = colMap.isEmpty() ? null : colMap.lastEntry().getValue();
+        Update merged = Updates.mergeUpdates(last, new IncrementValue(inc.getValue()));
+        resultMap.put(inc.getKey(), Bytes.toLong(merged.getBytes()));
+        colMap.put(version, merged);
+        expireVersions(colMap);
+      }
+      return resultMap;
+    });
+  }
+
+  /**
+   * Replaces the latest value of a column with a new value if the latest value matches the expected one. The new
+   * value is written with the current time as the version.
+   *
+   * @param oldValue the expected value or {@code null} if the column is expected to be absent
+   * @param newValue the new value or {@code null} to remove the column
+   * @return {@code true} if the value was replaced
+   */
+  boolean swap(byte[] row, byte[] column, @Nullable byte[] oldValue, @Nullable byte[] newValue) {
+    if (newValue == null) {
+      // Avoid creating a row just to remove a column from it
+      Row rowData = rows.get(row);
+      if (rowData == null) {
+        return oldValue == null;
+      }
+      synchronized (rowData) {
+        if (rowData.removed) {
+          return oldValue == null;
+        }
+        if (!latestMatches(rowData, column, oldValue)) {
+          return false;
+        }
+        rowData.columns.remove(column);
+        return true;
+      }
+    }
+
+    return updateRow(row, rowData -> {
+      if (!latestMatches(rowData, column, oldValue)) {
+        return false;
+      }
+      NavigableMap<Long, Update> colMap = rowData.getColumn(column);
+      colMap.put(System.currentTimeMillis(), new PutValue(newValue));
+      expireVersions(colMap);
+      return true;
+    });
+  }
+
+  /**
+   * Removes the values of the given version from the given cells.
+   */
+  void undo(NavigableMap<byte[], NavigableMap<byte[], Update>> changes, long version) {
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> change : changes.entrySet()) {
+      Row rowData = rows.get(change.getKey());
+      if (rowData == null) {
+        continue;
+      }
+      synchronized (rowData) {
+        for (byte[] column : change.getValue().keySet()) {
+          NavigableMap<Long, Update> values = rowData.columns.get(column);
+          if (values != null) {
+            values.remove(version);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes the given rows.
+   */
+  void delete(Iterable<byte[]> rowKeys) {
+    for (byte[] row : rowKeys) {
+      Row rowData = rows.get(row);
+      if (rowData != null) {
+        removeRow(row, rowData);
+      }
+    }
+  }
+
+  /**
+   * Deletes all versions of a column.
+   */
+  void deleteColumn(byte[] row, byte[] column) {
+    Row rowData = rows.get(row);
+    if (rowData == null) {
+      return;
+    }
+    synchronized (rowData) {
+      rowData.columns.remove(column);
+    }
+  }
+
+  /**
+   * Deletes all rows that start with the given prefix.
+   */
+  void deletePrefix(byte[] rowPrefix) {
+    if (rowPrefix.length == 0) {
+      clear();
+      return;
+    }
+    byte[] rowAfter = InMemoryTableService.rowAfterPrefix(rowPrefix);
+    removeRows(rowAfter == null ? rows.tailMap(rowPrefix) : rows.subMap(rowPrefix, rowAfter));
+  }
+
+  /**
+   * Deletes all rows.
+   */
+  void clear() {
+    removeRows(rows);
+  }
+
+  /**
+   * Returns a copy of the versions of a row that are visible to the given transaction.
+   *
+   * @param tx the transaction to read with or {@code null} to return all versions
+   * @return a copy of the row or {@code null} if the row does not exist
+   */
+  @Nullable
+  NavigableMap<byte[], NavigableMap<Long, byte[]>> get(byte[] row, @Nullable Transaction tx) {
+    Row rowData = rows.get(row);
+    if (rowData == null) {
+      return null;
+    }
+    synchronized (rowData) {
+      return rowData.removed ? null : copyVisible(rowData, tx);
+    }
+  }
+
+  /**
+   * Returns a copy of the versions of a range of rows that are visible to the given transaction.
+   *
+   * @param startRow the start row, inclusive, or {@code null} to start from the first row
+   * @param stopRow the stop row, exclusive, or {@code null} to end at the last row
+   * @param tx the transaction to read with or {@code null} to return all versions
+   */
+  NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> getRowRange(@Nullable byte[] startRow,
+                                                                                     @Nullable byte[] stopRow,
+                                                                                     @Nullable Transaction tx) {
+    NavigableMap<byte[], Row> range;
+    if (startRow == null && stopRow == null) {
+      range = rows;
+    } else if (startRow == null) {
+      range = rows.headMap(stopRow, false);
+    } else if (stopRow == null) {
+      range = rows.tailMap(startRow, true);
+    } else {
+      range = rows.subMap(startRow, true, stopRow, false);
+    }
+
+    NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> result =
+      new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (Map.Entry<byte[], Row> entry : range.entrySet()) {
+      Row rowData = entry.getValue();
+      synchronized (rowData) {
+        if (!rowData.removed) {
+          result.put(copy(entry.getKey()), copyVisible(rowData, tx));
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Applies the given function to a row while holding the row monitor. The row is created if it doesn't exist.
+   */
+  private <T> T updateRow(byte[] row, Function<Row, T> function) {
+    while (true) {
+      Row rowData = rows.get(row);
+      if (rowData == null) {
+        Row newRow = new Row();
+        rowData = rows.putIfAbsent(copy(row), newRow);
+        if (rowData == null) {
+          rowData = newRow;
+        }
+      }
+      synchronized (rowData) {
+        // A removed row can still be obtained from the map before the removal completes. Retry to get a new row,
+        // otherwise the write would be lost.
+        if (!rowData.removed) {
+          return function.apply(rowData);
+        }
+      }
+      rows.remove(row, rowData);
+    }
+  }
+
+  private void removeRows(NavigableMap<byte[], Row> range) {
+    for (Map.Entry<byte[], Row> entry : range.entrySet()) {
+      removeRow(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private void removeRow(byte[] row, Row rowData) {
+    synchronized (rowData) {
+      rowData.removed = true;
+    }
+    rows.remove(row, rowData);
+  }
+
+  private void expireVersions(NavigableMap<Long, Update> colMap) {
+    while (colMap.size() > maxVersions) {
+      colMap.pollFirstEntry();
+    }
+  }
+
+  private static void expireInvisibleVersions(NavigableMap<Long, Update> colMap, long visibilityUpperBound,
+                                              @Nullable long[] invalids) {
+    if (visibilityUpperBound == NO_VISIBILITY_UPPER_BOUND) {
+      return;
+    }
+    for (long version : colMap.headMap(visibilityUpperBound, true).descendingKeySet()) {
+      if (invalids == null || Arrays.binarySearch(invalids, version) < 0) {
+        colMap.headMap(version, false).clear();
+        return;
+      }
+    }
+  }
+
+  private static boolean latestMatches(Row rowData, byte[] column, @Nullable byte[] expected) {
+    NavigableMap<Long, Update> colMap = rowData.columns.get(column);
+    Update existing = colMap == null || colMap.isEmpty() ? null : colMap.lastEntry().getValue();
+    if (expected == null) {
+      return existing == null;
+    }
+    return existing != null && Bytes.equals(expected, existing.getBytes());
+  }
+
+  /**
+   * Copies the versions visible to the given transaction. Must be called while holding the row monitor.
+   */
+  private static NavigableMap<byte[], NavigableMap<Long, byte[]>> copyVisible(Row rowData, @Nullable Transaction tx) {
+    NavigableMap<byte[], NavigableMap<Long, byte[]>> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (Map.Entry<byte[], NavigableMap<Long, Update>> column : rowData.columns.entrySet()) {
+      NavigableMap<Long, byte[]> values = null;
+      for (Map.Entry<Long, Update> cell : column.getValue().entrySet()) {
+        if (tx != null && !tx.isVisible(cell.getKey())) {
+          continue;
+        }
+        if (values == null) {
+          values = new TreeMap<>(InMemoryTableService.VERSIONED_VALUE_MAP_COMPARATOR);
+          result.put(copy(column.getKey()), values);
+        }
+        Update update = cell.getValue();
+        values.put(cell.getKey(), update == null ? null : copy(update.getBytes()));
+      }
+    }
+    return result;
+  }
+
+  @Nullable
+  private static byte[] copy(@Nullable byte[] src) {
+    return src == null ? null : Arrays.copyOf(src, src.length);
+  }
+
+  /**
+   * A row of the table. All fields must only be accessed while holding the monitor of the row.
+   */
+  private static final class Row {
+    private final NavigableMap<byte[], NavigableMap<Long, Update>> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    private boolean removed;
+
+    NavigableMap<Long, Update> getColumn(byte[] column) {
+      NavigableMap<Long, Update> colMap = columns.get(column);
+      if (colMap == null) {
+        colMap = new TreeMap<>();
+        columns.put(copy(column), colMap);
+      }
+      return colMap;
+    }
+  }
+}
@@ -17,16 +17,12 @@
 package io.cdap.cdap.data2.dataset2.lib.table.inmemory;
 
 import com.google.common.base.Preconditions;
-import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
 import com.google.common.primitives.Longs;
 import io.cdap.cdap.api.common.Bytes;
-import io.cdap.cdap.data2.dataset2.lib.table.IncrementValue;
-import io.cdap.cdap.data2.dataset2.lib.table.PutValue;
 import io.cdap.cdap.data2.dataset2.lib.table.Update;
-import io.cdap.cdap.data2.dataset2.lib.table.Updates;
 import org.apache.tephra.Transaction;
 
 import java.util.Arrays;
@@ -35,190 +31,136 @@ import java.util.Comparator;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import javax.annotation.Nullable;
 
 /**
- * Holds all in-memory tables for {@link InMemoryTable}.
+ * Holds all in-memory tables for {@link InMemoryTable}. Each table is stored in its own {@link InMemoryTableEngine},
+ * hence operations on different tables, as well as on different rows of the same table, don't block each other.
  */
-// todo: use locks instead of synchronize
 // todo: consider using SortedMap instead of NavigableMap in APIs
 public class InMemoryTableService {
-  private static Map<String, ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>>> tables =
-    Maps.newHashMap();
+  private static final ConcurrentMap<String, InMemoryTableEngine> TABLES = new ConcurrentHashMap<>();
+  // visibility upper bounds of the transactions that use in-memory tables by transaction id, or FINISHED_TX once
+  // a transaction is committed or rolled back
+  private static final ConcurrentNavigableMap<Long, Long> TRANSACTIONS = new ConcurrentSkipListMap<>();
+  private static final long FINISHED_TX = Long.MIN_VALUE;
 
-  public static synchronized boolean exists(String tableName) {
-    return tables.containsKey(tableName);
+  public static boolean exists(String tableName) {
+    return TABLES.containsKey(tableName);
   }
 
-  public static synchronized void create(String tableName) {
-    if (!tables.containsKey(tableName)) {
-      tables.put(tableName, new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR));
-    }
+  public static void create(String tableName) {
+    create(tableName, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a table if it doesn't exist.
+   *
+   * @param tableName name of the table
+   * @param maxVersions maximum number of versions to keep per column. Older versions are expired on write.
+   */
+  public static void create(String tableName, int maxVersions) {
+    TABLES.computeIfAbsent(tableName, name -> new InMemoryTableEngine(maxVersions));
   }
 
-  public static synchronized void truncate(String tableName) {
-    tables.get(tableName).clear();
+  public static void truncate(String tableName) {
+    getTable(tableName).clear();
   }
 
-  public static synchronized void drop(String tableName) {
-    tables.remove(tableName);
+  public static void drop(String tableName) {
+    TABLES.remove(tableName);
   }
 
-  public static synchronized void reset() {
-    tables.clear();
+  public static void reset() {
+    TABLES.clear();
+    TRANSACTIONS.clear();
   }
 
   // no nulls
-  public static synchronized void merge(String tableName,
-                                        SortedMap<byte[], ? extends SortedMap<byte[], ? extends Update>> changes,
-                                        long version) {
+  public static void merge(String tableName, SortedMap<byte[], ? extends SortedMap<byte[], ? extends Update>> changes,
+                           long version) {
     // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    SortedMap<byte[], ? extends SortedMap<byte[], Update>> changesCopy = deepCopyUpdates(changes);
-    for (Map.Entry<byte[], ? extends SortedMap<byte[], Update>> change : changesCopy.entrySet()) {
-      merge(table, change.getKey(), change.getValue(), version);
-    }
+    getTable(tableName).merge(deepCopyUpdates(changes), version);
   }
 
-  private static void merge(ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table,
-                            byte[] row, Map<byte[], Update> changes, long version) {
-    // get the correct row from the table, create it if it doesn't exist
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-    if (rowMap == null) {
-      rowMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      table.put(row, rowMap);
-    }
-    // now merge the changes into the row, one by one
-    for (Map.Entry<byte[], Update> keyVal : changes.entrySet()) {
-      // create the column in the row if it does not exist
-      NavigableMap<Long, Update> colMap = rowMap.get(keyVal.getKey());
-      if (colMap == null) {
-        colMap = Maps.newTreeMap();
-        rowMap.put(keyVal.getKey(), colMap);
+  /**
+   * Merges the changes of the given transaction, written with its write pointer. Versions of the changed columns that
+   * no transaction can read anymore are expired.
+   */
+  public static void merge(String tableName, SortedMap<byte[], ? extends SortedMap<byte[], ? extends Update>> changes,
+                           Transaction tx) {
+    getTable(tableName).merge(deepCopyUpdates(changes), tx.getWritePointer(), getVisibilityUpperBound(tx),
+                              tx.getInvalids());
+  }
+
+  /**
+   * Registers a transaction that uses in-memory tables, so that the versions it can read are not expired until
+   * {@link #finishTx(Transaction)} is called.
+   */
+  public static void startTx(Transaction tx) {
+    TRANSACTIONS.put(tx.getTransactionId(), tx.getVisibilityUpperBound());
+  }
+
+  /**
+   * Marks a transaction registered by {@link #startTx(Transaction)} as committed or rolled back.
+   */
+  public static void finishTx(Transaction tx) {
+    TRANSACTIONS.put(tx.getTransactionId(), FINISHED_TX);
+  }
+
+  /**
+   * Returns the version up to which all committed versions are visible to every transaction that can still read an
+   * in-memory table, which is the visibility upper bound of the oldest transaction in progress. Transactions that
+   * started after the given one cannot have a smaller bound.
+   *
+   * @return the visibility upper bound, or {@link InMemoryTableEngine#NO_VISIBILITY_UPPER_BOUND} if it is unknown,
+   *         because an older transaction in progress has not been registered
+   */
+  static long getVisibilityUpperBound(Transaction tx) {
+    long[] inProgress = tx.getInProgress();
+    // Transactions older than the oldest one in progress have all finished
+    TRANSACTIONS.headMap(inProgress.length == 0 ? tx.getTransactionId() : inProgress[0]).clear();
+    for (long txId : inProgress) {
+      Long bound = TRANSACTIONS.get(txId);
+      if (bound == null) {
+        return InMemoryTableEngine.NO_VISIBILITY_UPPER_BOUND;
+      }
+      if (bound != FINISHED_TX) {
+        return bound;
       }
-      // put into the column with given version
-      Update merged = Updates.mergeUpdates(colMap.get(version), keyVal.getValue());
-      colMap.put(version, merged);
     }
+    return tx.getVisibilityUpperBound();
   }
 
   // todo: remove it from here: only used by "system" metrics table, which should be revised
   @Deprecated
-  public static synchronized Map<byte[], Long> increment(String tableName, byte[] row, Map<byte[], Long> increments) {
-    Map<byte[], Long> resultMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    // get the correct row from the table, create it if it doesn't exist
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-    if (rowMap == null) {
-      rowMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      table.put(row, rowMap);
-    }
-    // now increment each column, one by one
-    long versionForWrite = System.currentTimeMillis();
-    for (Map.Entry<byte[], Long> inc : increments.entrySet()) {
-      IncrementValue increment = new IncrementValue(inc.getValue());
-      // create the column in the row if it does not exist
-      NavigableMap<Long, Update> colMap = rowMap.get(inc.getKey());
-      Update last = null;
-      if (colMap == null) {
-        colMap = Maps.newTreeMap();
-        rowMap.put(inc.getKey(), colMap);
-      } else {
-        last = colMap.lastEntry().getValue();
-      }
-      Update merged = Updates.mergeUpdates(last, increment);
-      // put into the column with given version
-      long newValue = Bytes.toLong(merged.getBytes());
-      resultMap.put(inc.getKey(), newValue);
-      colMap.put(versionForWrite, merged);
-    }
-    return resultMap;
+  public static Map<byte[], Long> increment(String tableName, byte[] row, Map<byte[], Long> increments) {
+    return getTable(tableName).increment(row, increments);
   }
 
-  public static synchronized boolean swap(String tableName, byte[] row, byte[] column,
-                                          byte[] oldValue, byte[] newValue) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    // get the correct row from the table, create it if it doesn't exist
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-    Update existingValue = null;
-    if (rowMap != null) {
-      NavigableMap<Long, Update> columnMap = rowMap.get(column);
-      if (columnMap != null) {
-        existingValue = columnMap.lastEntry().getValue();
-      }
-    }
-    // verify existing value matches
-    if (oldValue == null && existingValue != null) {
-      return false;
-    }
-    if (oldValue != null && (existingValue == null || !Bytes.equals(oldValue, existingValue.getBytes()))) {
-      return false;
-    }
-    // write new value
-    if (newValue == null) {
-      if (rowMap != null) {
-        rowMap.remove(column);
-      }
-    } else {
-      if (rowMap == null) {
-        rowMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-        table.put(row, rowMap);
-      }
-      NavigableMap<Long, Update> columnMap = rowMap.get(column);
-      if (columnMap == null) {
-        columnMap = Maps.newTreeMap();
-        rowMap.put(column, columnMap);
-      }
-      PutValue newPut = new PutValue(newValue);
-      columnMap.put(System.currentTimeMillis(), newPut);
-    }
-    return true;
+  public static boolean swap(String tableName, byte[] row, byte[] column, byte[] oldValue, byte[] newValue) {
+    return getTable(tableName).swap(row, column, oldValue, newValue);
   }
 
-  public static synchronized void undo(String tableName,
-                                       NavigableMap<byte[], NavigableMap<byte[], Update>> changes,
-                                       long version) {
+  public static void undo(String tableName, NavigableMap<byte[], NavigableMap<byte[], Update>> changes, long version) {
     // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    for (Map.Entry<byte[], NavigableMap<byte[], Update>> change : changes.entrySet()) {
-      byte[] row = change.getKey();
-      NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-      if (rowMap != null) {
-        for (byte[] column : change.getValue().keySet()) {
-          NavigableMap<Long, Update> values = rowMap.get(column);
-          values.remove(version);
-        }
-      }
-    }
+    getTable(tableName).undo(changes, version);
   }
 
-  public static synchronized void delete(String tableName, Iterable<byte[]> rows) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    for (byte[] row : rows) {
-      table.remove(row);
-    }
+  public static void delete(String tableName, Iterable<byte[]> rows) {
+    getTable(tableName).delete(rows);
   }
 
-  public static synchronized void deleteColumns(String tableName, byte[] row, byte[] column) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    NavigableMap<byte[], NavigableMap<Long, Update>> columnValues = table.get(row);
-    columnValues.remove(column);
+  public static void deleteColumns(String tableName, byte[] row, byte[] column) {
+    getTable(tableName).deleteColumn(row, column);
   }
 
-  public static synchronized void delete(String tableName, byte[] rowPrefix) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    if (rowPrefix.length == 0) {
-      table.clear();
-    } else {
-      byte[] rowAfter = rowAfterPrefix(rowPrefix);
-      if (rowAfter == null) {
-        table.tailMap(rowPrefix).clear();
-      } else {
-        table.subMap(rowPrefix, rowAfter).clear();
-      }
-    }
+  public static void delete(String tableName, byte[] rowPrefix) {
+    getTable(tableName).deletePrefix(rowPrefix);
   }
 
   /**
@@ -238,78 +180,26 @@ public class InMemoryTableService {
     return null;
   }
 
-  public static synchronized NavigableMap<byte[], NavigableMap<Long, byte[]>> get(String tableName,
-                                                                                  byte[] row,
-                                                                                  @Nullable Transaction tx) {
+  public static NavigableMap<byte[], NavigableMap<Long, byte[]>> get(String tableName, byte[] row,
+                                                                     @Nullable Transaction tx) {
     // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    Preconditions.checkArgument(table != null, "table not found: " + tableName);
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-    return deepCopy(Updates.rowToBytes(getVisible(rowMap, tx)));
+    return getTable(tableName).get(row, tx);
   }
 
-  public static synchronized NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>>
-                             getRowRange(String tableName,
-                                         byte[] startRow,
-                                         byte[] stopRow,
-                                         @Nullable Transaction tx) {
+  public static NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> getRowRange(
+    String tableName, byte[] startRow, byte[] stopRow, @Nullable Transaction tx) {
     // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> tableData = tables.get(tableName);
-    NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> rows;
-    if (startRow == null && stopRow == null) {
-      rows = tableData;
-    } else if (startRow == null) {
-      rows = tableData.headMap(stopRow, false);
-    } else if (stopRow == null) {
-      rows = tableData.tailMap(startRow, true);
-    } else {
-      rows = tableData.subMap(startRow, true, stopRow, false);
-    }
-
-    NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> result =
-      Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    for (Map.Entry<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> rowMap : rows.entrySet()) {
-      NavigableMap<byte[], NavigableMap<Long, Update>> columns =
-        tx == null ? rowMap.getValue() : getVisible(rowMap.getValue(), tx);
-      result.put(copy(rowMap.getKey()), deepCopy(Updates.rowToBytes(columns)));
-    }
-
-    return result;
+    return getTable(tableName).getRowRange(startRow, stopRow, tx);
   }
 
-  public static synchronized Collection<String> list() {
-    return ImmutableList.copyOf(tables.keySet());
+  public static Collection<String> list() {
+    return ImmutableList.copyOf(TABLES.keySet());
   }
 
-  private static NavigableMap<byte[], NavigableMap<Long, Update>> getVisible(
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap, final Transaction tx) {
-
-    if (rowMap == null) {
-      return null;
-    }
-    NavigableMap<byte[], NavigableMap<Long, Update>> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    for (Map.Entry<byte[], NavigableMap<Long, Update>> column : rowMap.entrySet()) {
-      SortedMap<Long, Update> visbleValues = column.getValue();
-      if (tx != null) {
-        visbleValues = Maps.filterKeys(visbleValues, new Predicate<Long>() {
-          @Override
-          public boolean apply(Long version) {
-            return tx.isVisible(version);
-          }
-        });
-      }
-      if (visbleValues.size() > 0) {
-        NavigableMap<Long, Update> colMap = createVersionedValuesMap(visbleValues);
-        result.put(column.getKey(), colMap);
-      }
-    }
-    return result;
-  }
-
-  private static NavigableMap<Long, Update> createVersionedValuesMap(SortedMap<Long, Update> copy) {
-    NavigableMap<Long, Update> map = Maps.newTreeMap(VERSIONED_VALUE_MAP_COMPARATOR);
-    map.putAll(copy);
-    return map;
+  private static InMemoryTableEngine getTable(String tableName) {
+    InMemoryTableEngine table = TABLES.get(tableName);
+    Preconditions.checkArgument(table != null, "table not found: " + tableName);
+    return table;
   }
 
   private static SortedMap<byte[], SortedMap<byte[], Update>> deepCopyUpdates(
@@ -329,27 +219,6 @@ public class InMemoryTableService {
     return copy;
   }
 
-  @Nullable
-  private static NavigableMap<byte[], NavigableMap<Long, byte[]>> deepCopy(
-    @Nullable NavigableMap<byte[], NavigableMap<Long, byte[]>> src) {
-
-    if (src == null) {
-      return null;
-    }
-
-    NavigableMap<byte[], NavigableMap<Long, byte[]>> copy = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    for (Map.Entry<byte[], NavigableMap<Long, byte[]>> entry : src.entrySet()) {
-      byte[] key = copy(entry.getKey());
-      NavigableMap<Long, byte[]> columnValues = Maps.newTreeMap(VERSIONED_VALUE_MAP_COMPARATOR);
-      copy.put(key, columnValues);
-      for (Map.Entry<Long, byte[]> valueEntry : entry.getValue().entrySet()) {
-        columnValues.put(valueEntry.getKey(), copy(valueEntry.getValue()));
-      }
-    }
-
-    return copy;
-  }
-
   @Nullable
   private static byte[] copy(@Nullable byte[] src) {
     return src == null ? null : Arrays.copyOf(src, src.length);
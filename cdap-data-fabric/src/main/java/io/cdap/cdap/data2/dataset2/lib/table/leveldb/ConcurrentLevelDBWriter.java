@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Striped;
+import io.cdap.cdap.api.common.Bytes;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Performs writes to a LevelDB table, shared by all {@link LevelDBTableCore} instances of the same table.
+ *
+ * It provides row-striped locks for read-modify-write operations such as increment and compare-and-swap, and
+ * batches writes from concurrent threads into a single {@link WriteBatch} using the same non-blocking algorithm
+ * as the {@code ConcurrentMessageWriter} in TMS:
+ *
+ * <pre>
+ * 1. Constructs a PendingWrite locally and enqueue it to a ConcurrentLinkedQueue.
+ * 2. Use CAS to set an AtomicBoolean flag to true.
+ * 3. If successfully set the flag to true, this thread becomes the writer and proceed to run step 4-6.
+ * 4. Drains the queue and adds the changes of all PendingWrite to one WriteBatch, which is written to the table.
+ * 5. Set the state of each PendingWrite that are written to COMPLETED (succeed/failure).
+ * 6. Set the AtomicBoolean flag back to false.
+ * 7. If the PendingWrite enqueued by this thread is NOT COMPLETED, go back to step 2.
+ * </pre>
+ *
+ * Since {@link #write(Consumer)} only returns after the changes are written, a thread holding the row locks
+ * while writing is guaranteed that the next thread acquiring the same locks reads the new values.
+ */
+@ThreadSafe
+final class ConcurrentLevelDBWriter {
+
+  private static final int ROW_LOCK_STRIPES = 1024;
+
+  private final String tableName;
+  private final LevelDBTableService service;
+  private final Striped<Lock> rowLocks;
+  private final Queue<PendingWrite> writeQueue;
+  private final List<PendingWrite> inflightWrites;
+  private final AtomicBoolean writerFlag;
+
+  ConcurrentLevelDBWriter(String tableName, LevelDBTableService service) {
+    this.tableName = tableName;
+    this.service = service;
+    this.rowLocks = Striped.lock(ROW_LOCK_STRIPES);
+    this.writeQueue = new ConcurrentLinkedQueue<>();
+    this.inflightWrites = new ArrayList<>(100);
+    this.writerFlag = new AtomicBoolean();
+  }
+
+  /**
+   * Acquires the locks of the given rows. The locks are always acquired in the same order, hence it is safe to
+   * lock multiple rows from concurrent threads.
+   *
+   * @param rows the rows to lock
+   * @return the locks acquired, which must be released by calling {@link #unlock(Iterable)}
+   */
+  Iterable<Lock> lock(Collection<byte[]> rows) {
+    List<Integer> keys = new ArrayList<>(rows.size());
+    for (byte[] row : rows) {
+      keys.add(Bytes.hashCode(row));
+    }
+    Iterable<Lock> locks = rowLocks.bulkGet(keys);
+    List<Lock> acquired = new ArrayList<>(keys.size());
+    try {
+      for (Lock lock : locks) {
+        lock.lock();
+        acquired.add(lock);
+      }
+    } catch (Throwable t) {
+      unlock(acquired);
+      throw t;
+    }
+    return acquired;
+  }
+
+  /**
+   * Releases the locks returned by {@link #lock(Collection)}.
+   */
+  void unlock(Iterable<Lock> locks) {
+    for (Lock lock : locks) {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Writes changes to the table, together with the changes submitted concurrently by other threads.
+   * This method returns after the changes are written.
+   *
+   * @param changes a {@link Consumer} to add the changes to a {@link WriteBatch}. It may be called from
+   *                another thread, hence it must only add the changes to the given batch.
+   * @throws IOException if failed to write the changes
+   */
+  void write(Consumer<WriteBatch> changes) throws IOException {
+    PendingWrite pendingWrite = new PendingWrite(changes);
+    writeQueue.add(pendingWrite);
+
+    while (!pendingWrite.isCompleted()) {
+      if (!tryWrite()) {
+        Thread.yield();
+      }
+    }
+
+    Throwable failureCause = pendingWrite.getFailureCause();
+    if (failureCause != null) {
+      Throwables.propagateIfInstanceOf(failureCause, IOException.class);
+      throw new IOException("Unable to write to LevelDB table " + tableName, failureCause);
+    }
+  }
+
+  /**
+   * Tries to acquire the writer flag and write the pending changes.
+   *
+   * @return {@code true} if acquired the writer flag and written the pending changes;
+   *         otherwise {@code false} will be returned.
+   */
+  private boolean tryWrite() {
+    if (!writerFlag.compareAndSet(false, true)) {
+      return false;
+    }
+    try {
+      // Capture all current writes instead of using a live iterator to avoid the possible case of infinite write
+      // time. The number of writes in the queue is bounded by the number of threads writing to the table.
+      PendingWrite pendingWrite = writeQueue.poll();
+      while (pendingWrite != null) {
+        inflightWrites.add(pendingWrite);
+        pendingWrite = writeQueue.poll();
+      }
+      if (inflightWrites.isEmpty()) {
+        return true;
+      }
+
+      Throwable failureCause = null;
+      try {
+        DB db = service.getTable(tableName);
+        WriteOptions writeOptions = service.getWriteOptions();
+        try (WriteBatch batch = db.createWriteBatch()) {
+          for (PendingWrite write : inflightWrites) {
+            write.addTo(batch);
+          }
+          db.write(batch, writeOptions);
+        }
+      } catch (Throwable t) {
+        failureCause = t;
+      }
+      for (PendingWrite write : inflightWrites) {
+        write.completed(failureCause);
+      }
+      inflightWrites.clear();
+    } finally {
+      writerFlag.set(false);
+    }
+    return true;
+  }
+
+  /**
+   * Changes submitted by a thread that are waiting to be written.
+   */
+  private static final class PendingWrite {
+
+    private final Consumer<WriteBatch> changes;
+    private volatile boolean completed;
+    private Throwable failureCause;
+
+    PendingWrite(Consumer<WriteBatch> changes) {
+      this.changes = changes;
+    }
+
+    void addTo(WriteBatch batch) {
+      changes.accept(batch);
+    }
+
+    boolean isCompleted() {
+      return completed;
+    }
+
+    @Nullable
+    Throwable getFailureCause() {
+      return failureCause;
+    }
+
+    void completed(@Nullable Throwable failureCause) {
+      // The failureCause is published by the volatile write to completed
+      this.failureCause = failureCause;
+      this.completed = true;
+    }
+  }
+}
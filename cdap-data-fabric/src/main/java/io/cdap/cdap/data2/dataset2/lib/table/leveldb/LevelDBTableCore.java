@@ -26,21 +26,23 @@ import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import org.apache.tephra.Transaction;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBIterator;
-import org.iq80.leveldb.ReadOptions;
-import org.iq80.leveldb.Snapshot;
 import org.iq80.leveldb.WriteBatch;
 import org.iq80.leveldb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 import javax.annotation.Nullable;
 
 /**
@@ -84,70 +86,94 @@ public class LevelDBTableCore {
     return service.getWriteOptions();
   }
 
+  private ConcurrentLevelDBWriter getWriter() {
+    return service.getWriter(tableName);
+  }
 
-  public synchronized boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
-    byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
-    // verify
-    if (oldValue == null && existing != null) {
-      return false;
-    }
-    if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
-      return false;
-    }
-    // write
-    if (newValue == null) {
-      // to-do
-      deleteColumn(row, column);
-    } else {
-      persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)), Long.MAX_VALUE);
+  public boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
+    ConcurrentLevelDBWriter writer = getWriter();
+    Iterable<Lock> locks = writer.lock(Collections.singleton(row));
+    try {
+      byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
+      // verify
+      if (oldValue == null && existing != null) {
+        return false;
+      }
+      if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
+        return false;
+      }
+      // write
+      if (newValue == null) {
+        // to-do
+        deleteColumn(row, column);
+      } else {
+        persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)), Long.MAX_VALUE);
+      }
+      return true;
+    } finally {
+      writer.unlock(locks);
     }
-    return true;
   }
 
-  public synchronized Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
+  public Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
     Map<byte[], Long> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    List<ImmutablePair<byte[], byte[]>> puts = new ArrayList<>(increments.size());
 
-    DB db = getDB();
-    WriteBatch writeBatch = db.createWriteBatch();
-    try (Snapshot snapshot = db.getSnapshot()) {
-      ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
-
+    // the row lock is held until the new values are written, hence reading the latest values is consistent
+    ConcurrentLevelDBWriter writer = getWriter();
+    Iterable<Lock> locks = writer.lock(Collections.singleton(row));
+    try {
+      DB db = getDB();
       for (Map.Entry<byte[], Long> entry : increments.entrySet()) {
         byte[] rowKey = createPutKey(row, entry.getKey(), Long.MAX_VALUE);
-        byte[] existingValue = db.get(rowKey, readOptions);
+        byte[] existingValue = db.get(rowKey);
         long newValue = incrementValue(entry.getValue(), existingValue, row, entry.getKey());
         result.put(entry.getKey(), newValue);
-        writeBatch.put(rowKey, Bytes.toBytes(newValue));
+        puts.add(ImmutablePair.of(rowKey, Bytes.toBytes(newValue)));
       }
-      db.write(writeBatch, service.getWriteOptions());
+      writePuts(writer, puts);
+    } finally {
+      writer.unlock(locks);
     }
 
     return result;
   }
 
-
-  public synchronized void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
+  public void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
     if (updates.isEmpty()) {
       return;
     }
 
-    DB db = getDB();
-    WriteBatch writeBatch = db.createWriteBatch();
-    try (Snapshot snapshot = db.getSnapshot()) {
-      ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
-
+    List<ImmutablePair<byte[], byte[]>> puts = new ArrayList<>();
+    ConcurrentLevelDBWriter writer = getWriter();
+    Iterable<Lock> locks = writer.lock(updates.keySet());
+    try {
+      DB db = getDB();
       for (Map.Entry<byte[], NavigableMap<byte[], Long>> updateEntry : updates.entrySet()) {
         for (Map.Entry<byte[], Long> entry : updateEntry.getValue().entrySet()) {
           byte[] rowKey = createPutKey(updateEntry.getKey(), entry.getKey(), Long.MAX_VALUE);
-          byte[] existingValue = db.get(rowKey, readOptions);
+          byte[] existingValue = db.get(rowKey);
           long newValue = incrementValue(entry.getValue(), existingValue, updateEntry.getKey(), entry.getKey());
-          writeBatch.put(rowKey, Bytes.toBytes(newValue));
+          puts.add(ImmutablePair.of(rowKey, Bytes.toBytes(newValue)));
         }
       }
-      db.write(writeBatch, service.getWriteOptions());
+      writePuts(writer, puts);
+    } finally {
+      writer.unlock(locks);
     }
   }
 
+  private void writePuts(ConcurrentLevelDBWriter writer, List<ImmutablePair<byte[], byte[]>> puts) throws IOException {
+    if (puts.isEmpty()) {
+      return;
+    }
+    writer.write(batch -> {
+      for (ImmutablePair<byte[], byte[]> put : puts) {
+        batch.put(put.getFirst(), put.getSecond());
+      }
+    });
+  }
+
   private long incrementValue(long value, @Nullable byte[] existingValue, byte[] row, byte[] col) {
     if (existingValue == null) {
       return value;
@@ -161,16 +187,16 @@ public class LevelDBTableCore {
   }
 
   public void persist(Map<byte[], ? extends Map<byte[], byte[]>> changes, long version) throws IOException {
-    DB db = getDB();
     // todo support writing null when no transaction
-    WriteBatch batch = db.createWriteBatch();
-    for (Map.Entry<byte[], ? extends Map<byte[], byte[]>> row : changes.entrySet()) {
-      for (Map.Entry<byte[], byte[]> column : row.getValue().entrySet()) {
-        byte[] key = createPutKey(row.getKey(), column.getKey(), version);
-        batch.put(key, column.getValue() == null ? DELETE_MARKER : column.getValue());
+    // changes are written together with the ones persisted concurrently by other threads
+    getWriter().write(batch -> {
+      for (Map.Entry<byte[], ? extends Map<byte[], byte[]>> row : changes.entrySet()) {
+        for (Map.Entry<byte[], byte[]> column : row.getValue().entrySet()) {
+          byte[] key = createPutKey(row.getKey(), column.getKey(), version);
+          batch.put(key, column.getValue() == null ? DELETE_MARKER : column.getValue());
+        }
       }
-    }
-    db.write(batch, service.getWriteOptions());
+    });
   }
 
   public void put(byte[] row, byte[] column, byte[] value, long version) throws IOException {
@@ -181,15 +207,14 @@ public class LevelDBTableCore {
     if (persisted.isEmpty()) {
       return;
     }
-    DB db = getDB();
-    WriteBatch batch = db.createWriteBatch();
-    for (Map.Entry<byte[], ? extends Map<byte[], ?>> row : persisted.entrySet()) {
-      for (Map.Entry<byte[], ?> column : row.getValue().entrySet()) {
-        byte[] key = createPutKey(row.getKey(), column.getKey(), version);
-        batch.delete(key);
+    getWriter().write(batch -> {
+      for (Map.Entry<byte[], ? extends Map<byte[], ?>> row : persisted.entrySet()) {
+        for (Map.Entry<byte[], ?> column : row.getValue().entrySet()) {
+          byte[] key = createPutKey(row.getKey(), column.getKey(), version);
+          batch.delete(key);
+        }
       }
-    }
-    db.write(batch, service.getWriteOptions());
+    });
   }
 
   public Scanner scan(byte[] startRow, byte[] stopRow,
@@ -423,11 +448,12 @@ public class LevelDBTableCore {
   }
 
   public void deleteColumn(byte[] row, byte[] column) throws IOException {
-    DB db = getDB();
-    WriteBatch batch = db.createWriteBatch();
-    try (DBIterator iterator = db.iterator()) {
-      addToDeleteBatch(batch, iterator, row, column);
-      db.write(batch);
+    List<byte[]> keys = new ArrayList<>();
+    try (DBIterator iterator = getDB().iterator()) {
+      addColumnKeys(iterator, row, column, keys::add);
+    }
+    if (!keys.isEmpty()) {
+      getWriter().write(batch -> keys.forEach(batch::delete));
     }
   }
 
@@ -436,6 +462,13 @@ public class LevelDBTableCore {
    * through leveldb keys in sorted order, collecting key values to delete in batch.
    */
   private void addToDeleteBatch(WriteBatch batch, DBIterator iterator, byte[] row, byte[] column) {
+    addColumnKeys(iterator, row, column, batch::delete);
+  }
+
+  /**
+   * Helper to collect all the keys of a column in a row.
+   */
+  private void addColumnKeys(DBIterator iterator, byte[] row, byte[] column, Consumer<byte[]> keys) {
     byte[] endKey = createStartKey(row, Bytes.add(column, new byte[] { 0 }));
     iterator.seek(createStartKey(row, column));
     while (iterator.hasNext()) {
@@ -444,7 +477,7 @@ public class LevelDBTableCore {
         // iterator is past column
         break;
       }
-      batch.delete(entry.getKey());
+      keys.accept(entry.getKey());
     }
   }
 
@@ -61,6 +61,7 @@ public class LevelDBTableService implements AutoCloseable {
   private boolean isClosed;
 
   private final ConcurrentMap<String, DB> tables = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, ConcurrentLevelDBWriter> writers = Maps.newConcurrentMap();
 
   /**
    * To avoid database locking issues make sure that the single LevelDBTableService instance
@@ -100,6 +101,7 @@ public class LevelDBTableService implements AutoCloseable {
       Closeables.closeQuietly(entries);
     }
     tables.clear();
+    writers.clear();
   }
 
   private void ensureOpen() {
@@ -186,6 +188,15 @@ public class LevelDBTableService implements AutoCloseable {
     return db;
   }
 
+  /**
+   * Returns the {@link ConcurrentLevelDBWriter} for writing to the given table. The same instance is shared by
+   * all the {@link LevelDBTableCore} of the table, so that locking and write batching span across them.
+   */
+  ConcurrentLevelDBWriter getWriter(String tableName) {
+    ensureOpen();
+    return writers.computeIfAbsent(tableName, name -> new ConcurrentLevelDBWriter(name, this));
+  }
+
   public void ensureTableExists(String tableName) throws IOException {
     ensureOpen();
     DB db = tables.get(tableName);
@@ -239,6 +250,7 @@ public class LevelDBTableService implements AutoCloseable {
   public void dropTable(String name) throws IOException {
     ensureOpen();
     DB db = tables.remove(name);
+    writers.remove(name);
     if (db != null) {
       db.close();
     }
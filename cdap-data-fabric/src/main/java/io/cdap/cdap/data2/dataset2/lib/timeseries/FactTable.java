@@ -51,6 +51,8 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nullable;
 
 /**
@@ -75,7 +77,9 @@ public final class FactTable implements Closeable {
 
   private final String putCountMetric;
   private final String incrementCountMetric;
-  private final Cache<FactCacheKey, Long> factCounterCache;
+  private final String combineReductionMetric;
+  @Nullable
+  private final CounterCache counterCache;
 
   @Nullable
   private MetricsCollector metrics;
@@ -93,6 +97,25 @@ public final class FactTable implements Closeable {
    */
   public FactTable(MetricsTable timeSeriesTable,
                    EntityTable entityTable, int resolution, int rollTime) {
+    this(timeSeriesTable, entityTable, resolution, rollTime,
+         // only use the cache if the resolution is not the total resolution
+         resolution == Integer.MAX_VALUE ? null : new CounterCache());
+  }
+
+  /**
+   * Creates an instance of {@link FactTable} that uses the given {@link CounterCache}. Multiple {@link FactTable}s
+   * of the same resolution that write to the same underlying table concurrently must share the same
+   * {@link CounterCache}.
+   *
+   * @param timeSeriesTable A table for storing facts information.
+   * @param entityTable The table for storing dimension encoding mappings.
+   * @param resolution Resolution in seconds
+   * @param rollTime Number of resolution for writing to a new row with a new timebase.
+   * @param counterCache The cache of the latest timestamps of counters written, or {@code null} to always write
+   *                     counters as increments.
+   */
+  public FactTable(MetricsTable timeSeriesTable, EntityTable entityTable, int resolution, int rollTime,
+                   @Nullable CounterCache counterCache) {
     // Two bytes for column name, which is a delta timestamp
     Preconditions.checkArgument(rollTime <= MAX_ROLL_TIME, "Rolltime should be <= " + MAX_ROLL_TIME);
 
@@ -103,10 +126,8 @@ public final class FactTable implements Closeable {
     this.rollTime = rollTime;
     this.putCountMetric = "factTable." + resolution + ".put.count";
     this.incrementCountMetric = "factTable." + resolution + ".increment.count";
-
-    // only use the cache if the resolution is not the total resolution
-    this.factCounterCache = resolution == Integer.MAX_VALUE ? null :
-      CacheBuilder.newBuilder().expireAfterAccess(1L, TimeUnit.MINUTES).maximumSize(100000).build();
+    this.combineReductionMetric = "factTable." + resolution + ".combine.reduction.percent";
+    this.counterCache = counterCache;
   }
 
   public void setMetricsCollector(MetricsCollector metrics) {
@@ -117,57 +138,44 @@ public final class FactTable implements Closeable {
     // Simply collecting all rows/cols/values that need to be put to the underlying table.
     NavigableMap<byte[], NavigableMap<byte[], Long>> gaugesTable = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
     NavigableMap<byte[], NavigableMap<byte[], Long>> incrementsTable = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-
-    // this map is used to store metrics which was COUNTER type, but can be considered as GAUGE, which means it is
-    // guaranteed to be a new row key in the underlying table.
-    NavigableMap<byte[], NavigableMap<byte[], Long>> incGaugeTable = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    // this map is used to store the updated timestamp for the cache
-    Map<FactCacheKey, Long> cacheUpdates = new HashMap<>();
-    for (Fact fact : facts) {
-      for (Measurement measurement : fact.getMeasurements()) {
-        byte[] rowKey = codec.createRowKey(fact.getDimensionValues(), measurement.getName(), fact.getTimestamp());
-        byte[] column = codec.createColumn(fact.getTimestamp());
-
-        if (MeasureType.COUNTER == measurement.getType()) {
-          if (factCounterCache != null) {
-            // round to the resolution timestamp
-            long tsToResolution = fact.getTimestamp() / resolution * resolution;
-            FactCacheKey cacheKey = new FactCacheKey(fact.getDimensionValues(), measurement.getName());
-            Long existingTs = factCounterCache.getIfPresent(cacheKey);
-
-            // if there is no existing ts or existing ts is greater than or equal to the current ts, this metric value
-            // cannot be considered as a gauge, and we should update the incrementsTable
-            if (existingTs == null || existingTs >= tsToResolution) {
-              inc(incrementsTable, rowKey, column, measurement.getValue());
-              // if the current ts is greater than existing ts, then we can consider this metric as a newly seen metric
-              // and perform gauge on this metric
-            } else {
-              inc(incGaugeTable, rowKey, column, measurement.getValue());
-            }
-
-            // if there is no existing value or the current ts is greater than the existing ts, the value in the cache
-            // should be updated
-            if (existingTs == null || existingTs < tsToResolution) {
-              cacheUpdates.compute(
-                cacheKey, (key, oldValue) -> oldValue == null || tsToResolution > oldValue ? tsToResolution : oldValue);
-            }
-          } else {
-            inc(incrementsTable, rowKey, column, measurement.getValue());
-          }
+    // counters that may be written as gauges, decided with the counter cache
+    List<CounterFact> counters = new ArrayList<>();
+
+    // Row keys are only encoded once for all the measurements that are combined
+    Map<CombinedFactKey, Long> combined = combine(facts);
+    for (Map.Entry<CombinedFactKey, Long> entry : combined.entrySet()) {
+      CombinedFactKey key = entry.getKey();
+      byte[] rowKey = codec.createRowKey(key.dimensionValues, key.measureName, key.timestamp);
+      byte[] column = codec.createColumn(key.timestamp);
+
+      if (MeasureType.COUNTER == key.type) {
+        if (counterCache != null) {
+          counters.add(new CounterFact(new FactCacheKey(key.dimensionValues, key.measureName),
+                                       key.timestamp, rowKey, column, entry.getValue()));
         } else {
-          gaugesTable
-            .computeIfAbsent(rowKey, k -> Maps.newTreeMap(Bytes.BYTES_COMPARATOR))
-            .put(column, measurement.getValue());
+          inc(incrementsTable, rowKey, column, entry.getValue());
         }
+      } else {
+        gaugesTable
+          .computeIfAbsent(rowKey, k -> Maps.newTreeMap(Bytes.BYTES_COMPARATOR))
+          .put(column, entry.getValue());
       }
     }
 
-    if (factCounterCache != null) {
-      gaugesTable.putAll(incGaugeTable);
-      factCounterCache.putAll(cacheUpdates);
-    }
     // todo: replace with single call, to be able to optimize rpcs in underlying table
-    timeSeriesTable.put(gaugesTable);
+    if (counterCache == null) {
+      timeSeriesTable.put(gaugesTable);
+    } else {
+      // The counters are classified and the puts are written while holding the lock, such that increments to a
+      // counter by other writers sharing the cache are always written after the put that created the counter.
+      counterCache.lock.lock();
+      try {
+        gaugesTable.putAll(classifyCounters(counters, incrementsTable));
+        timeSeriesTable.put(gaugesTable);
+      } finally {
+        counterCache.lock.unlock();
+      }
+    }
     timeSeriesTable.increment(incrementsTable);
     if (metrics != null) {
       metrics.increment(putCountMetric, gaugesTable.size());
@@ -175,6 +183,72 @@ public final class FactTable implements Closeable {
     }
   }
 
+  /**
+   * Combines the measurements of the given facts that are written to the same cell, which are the ones with the
+   * same dimension values, measure name and type, and timestamp rounded to the resolution. Counters are summed up,
+   * while the last value of a gauge wins, as if they were written one by one.
+   */
+  private Map<CombinedFactKey, Long> combine(List<Fact> facts) {
+    Map<CombinedFactKey, Long> combined = new HashMap<>();
+    int measurements = 0;
+    for (Fact fact : facts) {
+      // round to the resolution timestamp
+      long tsToResolution = fact.getTimestamp() / resolution * resolution;
+      for (Measurement measurement : fact.getMeasurements()) {
+        measurements++;
+        CombinedFactKey key = new CombinedFactKey(fact.getDimensionValues(), measurement.getName(),
+                                                  measurement.getType(), tsToResolution);
+        if (MeasureType.COUNTER == measurement.getType()) {
+          combined.merge(key, measurement.getValue(), Long::sum);
+        } else {
+          combined.put(key, measurement.getValue());
+        }
+      }
+    }
+    if (metrics != null && measurements > 0) {
+      metrics.gauge(combineReductionMetric, (measurements - combined.size()) * 100L / measurements);
+    }
+    return combined;
+  }
+
+  /**
+   * Classifies the given counters into the ones that need to be incremented, which are added to the given increments
+   * table, and the ones that can be considered as gauges, which are returned.
+   */
+  private NavigableMap<byte[], NavigableMap<byte[], Long>> classifyCounters(
+    List<CounterFact> counters, NavigableMap<byte[], NavigableMap<byte[], Long>> incrementsTable) {
+
+    Cache<FactCacheKey, Long> factCounterCache = counterCache.cache;
+    // this map is used to store metrics which was COUNTER type, but can be considered as GAUGE, which means it is
+    // guaranteed to be a new row key in the underlying table.
+    NavigableMap<byte[], NavigableMap<byte[], Long>> incGaugeTable = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    // this map is used to store the updated timestamp for the cache
+    Map<FactCacheKey, Long> cacheUpdates = new HashMap<>();
+    for (CounterFact counter : counters) {
+      long tsToResolution = counter.tsToResolution;
+      Long existingTs = factCounterCache.getIfPresent(counter.cacheKey);
+
+      // if there is no existing ts or existing ts is greater than or equal to the current ts, this metric value
+      // cannot be considered as a gauge, and we should update the incrementsTable
+      if (existingTs == null || existingTs >= tsToResolution) {
+        inc(incrementsTable, counter.rowKey, counter.column, counter.value);
+        // if the current ts is greater than existing ts, then we can consider this metric as a newly seen metric
+        // and perform gauge on this metric
+      } else {
+        inc(incGaugeTable, counter.rowKey, counter.column, counter.value);
+      }
+
+      // if there is no existing value or the current ts is greater than the existing ts, the value in the cache
+      // should be updated
+      if (existingTs == null || existingTs < tsToResolution) {
+        cacheUpdates.compute(counter.cacheKey, (key, oldValue) ->
+          oldValue == null || tsToResolution > oldValue ? tsToResolution : oldValue);
+      }
+    }
+    factCounterCache.putAll(cacheUpdates);
+    return incGaugeTable;
+  }
+
   private class MeasureNameComparator implements Comparator<String> {
     private final Map<String, Long> measureNameToEntityIdMap;
 
@@ -450,8 +524,9 @@ public final class FactTable implements Closeable {
   }
 
   @VisibleForTesting
+  @Nullable
   Cache<FactCacheKey, Long> getFactCounterCache() {
-    return factCounterCache;
+    return counterCache == null ? null : counterCache.cache;
   }
 
   private FuzzyRowFilter createFuzzyRowFilter(FactScan scan, List<String> measureNames) {
@@ -492,7 +567,78 @@ public final class FactTable implements Closeable {
     values.put(column, newValue);
   }
 
-  class FactCacheKey {
+  /**
+   * Cache of the latest timestamp written for each counter, which allows writing a counter of a newer timestamp with
+   * a put instead of an increment. It can be shared by {@link FactTable}s of the same resolution.
+   */
+  public static final class CounterCache {
+    private final Cache<FactCacheKey, Long> cache;
+    private final Lock lock;
+
+    public CounterCache() {
+      this.cache = CacheBuilder.newBuilder().expireAfterAccess(1L, TimeUnit.MINUTES).maximumSize(100000).build();
+      this.lock = new ReentrantLock();
+    }
+  }
+
+  /**
+   * Identifies the cell that a measurement of a {@link Fact} is written to.
+   */
+  private static final class CombinedFactKey {
+    private final List<DimensionValue> dimensionValues;
+    private final String measureName;
+    private final MeasureType type;
+    private final long timestamp;
+    private final int hashCode;
+
+    private CombinedFactKey(List<DimensionValue> dimensionValues, String measureName,
+                            MeasureType type, long timestamp) {
+      this.dimensionValues = dimensionValues;
+      this.measureName = measureName;
+      this.type = type;
+      this.timestamp = timestamp;
+      this.hashCode = Objects.hash(dimensionValues, measureName, type, timestamp);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      CombinedFactKey that = (CombinedFactKey) o;
+      return timestamp == that.timestamp && type == that.type && measureName.equals(that.measureName)
+        && dimensionValues.equals(that.dimensionValues);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * A counter measurement to be written.
+   */
+  private static final class CounterFact {
+    private final FactCacheKey cacheKey;
+    private final long tsToResolution;
+    private final byte[] rowKey;
+    private final byte[] column;
+    private final long value;
+
+    private CounterFact(FactCacheKey cacheKey, long tsToResolution, byte[] rowKey, byte[] column, long value) {
+      this.cacheKey = cacheKey;
+      this.tsToResolution = tsToResolution;
+      this.rowKey = rowKey;
+      this.column = column;
+      this.value = value;
+    }
+  }
+
+  static final class FactCacheKey {
     private final List<DimensionValue> dimensionValues;
     private final String metricName;
 
@@ -18,6 +18,7 @@ package io.cdap.cdap.data2.metadata.writer;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.http.DefaultHttpRequestConfig;
 import io.cdap.cdap.common.internal.remote.RemoteClient;
@@ -54,8 +55,8 @@ public class DefaultMetadataServiceClient implements MetadataServiceClient {
   private final RemoteClient remoteClient;
 
   @Inject
-  public DefaultMetadataServiceClient(final DiscoveryServiceClient discoveryClient) {
-    this.remoteClient = new RemoteClient(discoveryClient, Constants.Service.METADATA_SERVICE,
+  public DefaultMetadataServiceClient(CConfiguration cConf, DiscoveryServiceClient discoveryClient) {
+    this.remoteClient = new RemoteClient(cConf, discoveryClient, Constants.Service.METADATA_SERVICE,
                                          new DefaultHttpRequestConfig(false),
                                          Constants.Gateway.API_VERSION_3);
   }
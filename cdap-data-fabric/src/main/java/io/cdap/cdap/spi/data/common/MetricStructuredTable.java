@@ -24,11 +24,13 @@ import io.cdap.cdap.spi.data.StructuredRow;
 import io.cdap.cdap.spi.data.StructuredTable;
 import io.cdap.cdap.spi.data.table.StructuredTableId;
 import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.FieldFilter;
 import io.cdap.cdap.spi.data.table.field.Range;
 
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Optional;
+import javax.annotation.Nullable;
 
 /**
  * Structured table that takes a delegation and emit metrics on each operation.
@@ -66,6 +68,24 @@ public class MetricStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public void upsertAll(Collection<? extends Collection<Field<?>>> rows) throws InvalidFieldException, IOException {
+    try {
+      if (!emitTimeMetrics) {
+        structuredTable.upsertAll(rows);
+      } else {
+        long curTime = System.nanoTime();
+        structuredTable.upsertAll(rows);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "upsertAll.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "upsertAll.count", 1L);
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "upsertAll.error", 1L);
+      throw e;
+    }
+  }
+
   @Override
   public Optional<StructuredRow> read(Collection<Field<?>> keys) throws InvalidFieldException, IOException {
     try {
@@ -107,6 +127,27 @@ public class MetricStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public Collection<StructuredRow> multiRead(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    try {
+      Collection<StructuredRow> result;
+      if (!emitTimeMetrics) {
+        result = structuredTable.multiRead(multiKeys);
+      } else {
+        long curTime = System.nanoTime();
+        result = structuredTable.multiRead(multiKeys);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "multiRead.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "multiRead.count", 1L);
+      return result;
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "multiRead.error", 1L);
+      throw e;
+    }
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Range keyRange, int limit) throws InvalidFieldException, IOException {
     try {
@@ -127,6 +168,69 @@ public class MetricStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public CloseableIterator<StructuredRow> scan(Range keyRange, int limit, FieldFilter filter,
+                                               @Nullable Collection<String> columns)
+    throws InvalidFieldException, IOException {
+    try {
+      CloseableIterator<StructuredRow> result;
+      if (!emitTimeMetrics) {
+        result = structuredTable.scan(keyRange, limit, filter, columns);
+      } else {
+        long curTime = System.nanoTime();
+        result = structuredTable.scan(keyRange, limit, filter, columns);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "filter.scan.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "filter.scan.count", 1L);
+      return result;
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "filter.scan.error", 1L);
+      throw e;
+    }
+  }
+
+  @Override
+  public long count(Range keyRange, FieldFilter filter) throws InvalidFieldException, IOException {
+    try {
+      long result;
+      if (!emitTimeMetrics) {
+        result = structuredTable.count(keyRange, filter);
+      } else {
+        long curTime = System.nanoTime();
+        result = structuredTable.count(keyRange, filter);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "count.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "count.count", 1L);
+      return result;
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "count.error", 1L);
+      throw e;
+    }
+  }
+
+  @Override
+  public CloseableIterator<StructuredRow> multiScan(Collection<Range> keyRanges,
+                                                    int limit) throws InvalidFieldException, IOException {
+    try {
+      CloseableIterator<StructuredRow> result;
+      if (!emitTimeMetrics) {
+        result = structuredTable.multiScan(keyRanges, limit);
+      } else {
+        long curTime = System.nanoTime();
+        result = structuredTable.multiScan(keyRanges, limit);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "multiScan.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "multiScan.count", 1L);
+      return result;
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "multiScan.error", 1L);
+      throw e;
+    }
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Field<?> index) throws InvalidFieldException, IOException {
     try {
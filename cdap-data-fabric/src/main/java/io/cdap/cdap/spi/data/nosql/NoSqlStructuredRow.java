@@ -91,7 +91,7 @@ public final class NoSqlStructuredRow implements StructuredRow {
 
   @Nullable
   @SuppressWarnings("unchecked")
-  private <T> T get(String fieldName) throws InvalidFieldException {
+  <T> T get(String fieldName) throws InvalidFieldException {
     FieldType.Type expectedType = tableSchema.getType(fieldName);
     if (expectedType == null) {
       // Field is not present in the schema
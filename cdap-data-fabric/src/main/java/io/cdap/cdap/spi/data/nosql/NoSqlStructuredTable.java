@@ -21,7 +21,9 @@ import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.dataset.lib.IndexedTable;
+import io.cdap.cdap.api.dataset.table.Get;
 import io.cdap.cdap.api.dataset.table.Put;
+import io.cdap.cdap.api.dataset.table.Result;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.data2.dataset2.lib.table.MDSKey;
@@ -30,6 +32,7 @@ import io.cdap.cdap.spi.data.StructuredRow;
 import io.cdap.cdap.spi.data.StructuredTable;
 import io.cdap.cdap.spi.data.table.StructuredTableSchema;
 import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.FieldFilter;
 import io.cdap.cdap.spi.data.table.field.FieldType;
 import io.cdap.cdap.spi.data.table.field.FieldValidator;
 import io.cdap.cdap.spi.data.table.field.Range;
@@ -37,11 +40,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * Nosql structured table implementation. This table will prepend the table name as the prefix for each row key.
@@ -67,6 +79,19 @@ public final class NoSqlStructuredTable implements StructuredTable {
     table.put(convertFieldsToBytes(fields));
   }
 
+  @Override
+  public void upsertAll(Collection<? extends Collection<Field<?>>> rows) throws InvalidFieldException {
+    LOG.trace("Table {}: Write {} rows", schema.getTableId(), rows.size());
+    // convert all rows first so that nothing is written if any of the rows is invalid
+    List<Put> puts = new ArrayList<>(rows.size());
+    for (Collection<Field<?>> fields : rows) {
+      puts.add(convertFieldsToBytes(fields));
+    }
+    for (Put put : puts) {
+      table.put(put);
+    }
+  }
+
   @Override
   public Optional<StructuredRow> read(Collection<Field<?>> keys) throws InvalidFieldException {
     LOG.trace("Table {}: Read with keys {}", schema.getTableId(), keys);
@@ -86,12 +111,78 @@ public final class NoSqlStructuredTable implements StructuredTable {
     return row.isEmpty() ? Optional.empty() : Optional.of(new NoSqlStructuredRow(row, schema));
   }
 
+  @Override
+  public Collection<StructuredRow> multiRead(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException {
+    LOG.trace("Table {}: MultiRead with keys {}", schema.getTableId(), multiKeys);
+    // sort and remove duplicate keys so that each row is only fetched once
+    Set<byte[]> rowKeys = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    for (Collection<Field<?>> keys : multiKeys) {
+      rowKeys.add(convertKeyToBytes(keys, false));
+    }
+    if (rowKeys.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<Get> gets = rowKeys.stream().map(Get::new).collect(Collectors.toList());
+    List<StructuredRow> result = new ArrayList<>(gets.size());
+    for (Row row : table.get(gets)) {
+      if (!row.isEmpty()) {
+        result.add(new NoSqlStructuredRow(row, schema));
+      }
+    }
+    return result;
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Range keyRange, int limit) throws InvalidFieldException {
     LOG.trace("Table {}: Scan range {} with limit {}", schema.getTableId(), keyRange, limit);
     return new LimitIterator(new ScannerIterator(getScanner(keyRange), schema), limit);
   }
 
+  @Override
+  public CloseableIterator<StructuredRow> scan(Range keyRange, int limit, FieldFilter filter,
+                                               @Nullable Collection<String> columns) throws InvalidFieldException {
+    LOG.trace("Table {}: Scan range {} with limit {}, filter {} and columns {}",
+              schema.getTableId(), keyRange, limit, filter, columns);
+    validateFilter(filter);
+    byte[][] columnBytes = columns == null ? null : convertColumnsToBytes(columns);
+    return new LimitIterator(new ScannerIterator(getScanner(keyRange), schema, filter, columnBytes), limit);
+  }
+
+  @Override
+  public long count(Range keyRange, FieldFilter filter) throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Count range {} with filter {}", schema.getTableId(), keyRange, filter);
+    validateFilter(filter);
+    long count = 0;
+    try (Scanner scanner = getScanner(keyRange)) {
+      Row row;
+      while ((row = scanner.next()) != null) {
+        // only decode the row if there is a filter to apply
+        if (filter.getConditions().isEmpty() || matches(new NoSqlStructuredRow(row, schema), filter)) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public CloseableIterator<StructuredRow> multiScan(Collection<Range> keyRanges,
+                                                    int limit) throws InvalidFieldException {
+    LOG.trace("Table {}: MultiScan ranges {} with limit {}", schema.getTableId(), keyRanges, limit);
+    // validate all ranges before opening any scanner
+    for (Range keyRange : keyRanges) {
+      fieldValidator.validatePrimaryKeys(keyRange.getBegin(), true);
+      fieldValidator.validatePrimaryKeys(keyRange.getEnd(), true);
+    }
+    List<Scanner> scanners = new ArrayList<>(keyRanges.size());
+    for (Range keyRange : keyRanges) {
+      scanners.add(getScanner(keyRange));
+    }
+    return new LimitIterator(new ScannerIterator(new MergeScanner(scanners), schema), limit);
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Field<?> index) throws InvalidFieldException {
     LOG.trace("Table {}: Scan index {}", schema.getTableId(), index);
@@ -296,6 +387,71 @@ public final class NoSqlStructuredTable implements StructuredTable {
     }
   }
 
+  private void validateFilter(FieldFilter filter) throws InvalidFieldException {
+    for (FieldFilter.Condition condition : filter.getConditions()) {
+      fieldValidator.validateField(condition.getField());
+    }
+  }
+
+  /**
+   * Returns whether the given row satisfies all the conditions of the given filter.
+   */
+  private static boolean matches(NoSqlStructuredRow row, FieldFilter filter) {
+    for (FieldFilter.Condition condition : filter.getConditions()) {
+      Object value = row.get(condition.getField().getName());
+      Object expected = condition.getField().getValue();
+      switch (condition.getOperator()) {
+        case EQUAL:
+          if (!valueEquals(value, expected)) {
+            return false;
+          }
+          break;
+        case NOT_EQUAL:
+          if (valueEquals(value, expected)) {
+            return false;
+          }
+          break;
+        default:
+          // null never satisfies a comparison
+          if (value == null || !compareMatches(compare(value, expected), condition.getOperator())) {
+            return false;
+          }
+      }
+    }
+    return true;
+  }
+
+  private static boolean valueEquals(@Nullable Object value, @Nullable Object expected) {
+    if (value instanceof byte[] && expected instanceof byte[]) {
+      return Bytes.equals((byte[]) value, (byte[]) expected);
+    }
+    return Objects.equals(value, expected);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compare(Object value, Object expected) {
+    if (value instanceof byte[]) {
+      return Bytes.compareTo((byte[]) value, (byte[]) expected);
+    }
+    return ((Comparable<Object>) value).compareTo(expected);
+  }
+
+  private static boolean compareMatches(int comparison, FieldFilter.Operator operator) {
+    switch (operator) {
+      case LESS:
+        return comparison < 0;
+      case LESS_OR_EQUAL:
+        return comparison <= 0;
+      case GREATER:
+        return comparison > 0;
+      case GREATER_OR_EQUAL:
+        return comparison >= 0;
+      default:
+        // should never happen: equality operators are handled by the caller
+        throw new IllegalArgumentException("Unsupported comparison operator " + operator);
+    }
+  }
+
   private Scanner getScanner(Range keyRange) {
     // the method will always prepend the table name as prefix
     byte[] begin = convertKeyToBytes(keyRange.getBegin(), true);
@@ -316,6 +472,55 @@ public final class NoSqlStructuredTable implements StructuredTable {
     return table.scan(begin, end);
   }
 
+  /**
+   * A {@link Scanner} that merges the rows of multiple scanners in row key order. Rows with the same key that are
+   * returned by more than one scanner are only returned once.
+   */
+  private static final class MergeScanner implements Scanner {
+    private final List<Scanner> scanners;
+    // scanners with their current row, ordered by the row key
+    private final PriorityQueue<Map.Entry<Row, Scanner>> heads;
+
+    MergeScanner(List<Scanner> scanners) {
+      this.scanners = scanners;
+      this.heads = new PriorityQueue<>(Math.max(1, scanners.size()),
+                                       (e1, e2) -> Bytes.compareTo(e1.getKey().getRow(), e2.getKey().getRow()));
+      for (Scanner scanner : scanners) {
+        advance(scanner);
+      }
+    }
+
+    @Nullable
+    @Override
+    public Row next() {
+      Map.Entry<Row, Scanner> head = heads.poll();
+      if (head == null) {
+        return null;
+      }
+      Row row = head.getKey();
+      advance(head.getValue());
+      // skip the same row from overlapping ranges
+      while (!heads.isEmpty() && Bytes.equals(heads.peek().getKey().getRow(), row.getRow())) {
+        advance(heads.poll().getValue());
+      }
+      return row;
+    }
+
+    @Override
+    public void close() {
+      for (Scanner scanner : scanners) {
+        scanner.close();
+      }
+    }
+
+    private void advance(Scanner scanner) {
+      Row row = scanner.next();
+      if (row != null) {
+        heads.add(new AbstractMap.SimpleImmutableEntry<>(row, scanner));
+      }
+    }
+  }
+
   /**
    * Limit the number of elements returned by a {@link ScannerIterator}.
    */
@@ -356,24 +561,52 @@ public final class NoSqlStructuredTable implements StructuredTable {
   static final class ScannerIterator extends AbstractCloseableIterator<StructuredRow> {
     private final Scanner scanner;
     private final StructuredTableSchema schema;
+    private final FieldFilter filter;
+    @Nullable
+    private final byte[][] columns;
 
     ScannerIterator(Scanner scanner, StructuredTableSchema schema) {
+      this(scanner, schema, FieldFilter.all(), null);
+    }
+
+    /**
+     * Creates an iterator that only returns the rows matching the given filter, with only the given columns.
+     * If the columns is {@code null}, all the columns are returned.
+     */
+    ScannerIterator(Scanner scanner, StructuredTableSchema schema, FieldFilter filter, @Nullable byte[][] columns) {
       this.scanner = scanner;
       this.schema = schema;
+      this.filter = filter;
+      this.columns = columns;
     }
 
     @Override
     protected StructuredRow computeNext() {
-      Row row = scanner.next();
-      if (row == null) {
-        return endOfData();
+      Row row;
+      while ((row = scanner.next()) != null) {
+        // the filter is applied before the projection since it can be on columns that are not projected
+        NoSqlStructuredRow structuredRow = new NoSqlStructuredRow(row, schema);
+        if (matches(structuredRow, filter)) {
+          return columns == null ? structuredRow : new NoSqlStructuredRow(project(row), schema);
+        }
       }
-      return new NoSqlStructuredRow(row, schema);
+      return endOfData();
     }
 
     @Override
     public void close() {
       scanner.close();
     }
+
+    private Row project(Row row) {
+      Map<byte[], byte[]> projected = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      for (byte[] column : columns) {
+        byte[] value = row.get(column);
+        if (value != null) {
+          projected.put(column, value);
+        }
+      }
+      return new Result(row.getRow(), projected);
+    }
   }
 }
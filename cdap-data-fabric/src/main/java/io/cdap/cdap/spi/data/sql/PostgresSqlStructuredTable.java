@@ -24,6 +24,7 @@ import io.cdap.cdap.spi.data.StructuredRow;
 import io.cdap.cdap.spi.data.StructuredTable;
 import io.cdap.cdap.spi.data.table.StructuredTableSchema;
 import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.FieldFilter;
 import io.cdap.cdap.spi.data.table.field.FieldType;
 import io.cdap.cdap.spi.data.table.field.FieldValidator;
 import io.cdap.cdap.spi.data.table.field.Fields;
@@ -44,6 +45,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -80,6 +83,40 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     upsertInternal(fields);
   }
 
+  @Override
+  public void upsertAll(Collection<? extends Collection<Field<?>>> rows) throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Write {} rows", tableSchema.getTableId(), rows.size());
+    // rows with the same set of fields share the same sql query, hence can be written in the same batch
+    Map<String, List<Collection<Field<?>>>> batches = new LinkedHashMap<>();
+    for (Collection<Field<?>> fields : rows) {
+      Set<String> fieldNames = fields.stream().map(Field::getName).collect(Collectors.toSet());
+      if (!fieldNames.containsAll(tableSchema.getPrimaryKeys())) {
+        throw new InvalidFieldException(tableSchema.getTableId(), fields,
+                                        String.format("Given fields %s do not contain all the " +
+                                                        "primary keys %s", fieldNames, tableSchema.getPrimaryKeys()));
+      }
+      batches.computeIfAbsent(getWriteSqlQuery(fields, null), k -> new ArrayList<>()).add(fields);
+    }
+
+    for (Map.Entry<String, List<Collection<Field<?>>>> batch : batches.entrySet()) {
+      try (PreparedStatement statement = connection.prepareStatement(batch.getKey())) {
+        for (Collection<Field<?>> fields : batch.getValue()) {
+          int index = 1;
+          for (Field<?> field : fields) {
+            setField(statement, field, index);
+            index++;
+          }
+          statement.addBatch();
+        }
+        LOG.trace("SQL statement: {} with batch size {}", batch.getKey(), batch.getValue().size());
+        statement.executeBatch();
+      } catch (SQLException e) {
+        throw new IOException(String.format("Failed to write %d rows to table %s",
+                                            batch.getValue().size(), tableSchema.getTableId().getName()), e);
+      }
+    }
+  }
+
   @Override
   public Optional<StructuredRow> read(Collection<Field<?>> keys) throws InvalidFieldException, IOException {
     return readRow(keys, null);
@@ -98,6 +135,39 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     return readRow(keys, columnFields);
   }
 
+  @Override
+  public Collection<StructuredRow> multiRead(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: MultiRead with keys {}", tableSchema.getTableId(), multiKeys);
+    if (multiKeys.isEmpty()) {
+      return Collections.emptyList();
+    }
+    for (Collection<Field<?>> keys : multiKeys) {
+      fieldValidator.validatePrimaryKeys(keys, false);
+    }
+
+    String readQuery = getMultiReadQuery(multiKeys);
+    try (PreparedStatement statement = connection.prepareStatement(readQuery)) {
+      int index = 1;
+      for (Collection<Field<?>> keys : multiKeys) {
+        for (Field<?> key : keys) {
+          setField(statement, key, index);
+          index++;
+        }
+      }
+      LOG.trace("SQL statement: {}", statement);
+      List<StructuredRow> result = new ArrayList<>();
+      try (CloseableIterator<StructuredRow> iterator =
+             new ResultSetIterator(statement, statement.executeQuery(), tableSchema)) {
+        iterator.forEachRemaining(result::add);
+      }
+      return result;
+    } catch (SQLException e) {
+      throw new IOException(String.format("Failed to read from table %s with keys %s",
+                                          tableSchema.getTableId().getName(), multiKeys), e);
+    }
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Range keyRange, int limit) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: Scan range {} with limit {}", tableSchema.getTableId(), keyRange, limit);
@@ -130,6 +200,105 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public CloseableIterator<StructuredRow> scan(Range keyRange, int limit, FieldFilter filter,
+                                               @Nullable Collection<String> columns)
+    throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Scan range {} with limit {}, filter {} and columns {}",
+              tableSchema.getTableId(), keyRange, limit, filter, columns);
+    fieldValidator.validatePrimaryKeys(keyRange.getBegin(), true);
+    fieldValidator.validatePrimaryKeys(keyRange.getEnd(), true);
+    validateFilter(filter);
+    Collection<String> columnFields = null;
+    if (columns != null) {
+      // always have the primary key fields included in the columns
+      columnFields = new LinkedHashSet<>(tableSchema.getPrimaryKeys());
+      for (String column : columns) {
+        if (tableSchema.getType(column) == null) {
+          throw new InvalidFieldException(tableSchema.getTableId(), column);
+        }
+        columnFields.add(column);
+      }
+    }
+
+    StringBuilder scanQuery = new StringBuilder("SELECT ")
+      .append(columnFields == null ? "*" : Joiner.on(",").join(columnFields))
+      .append(" FROM ").append(tableSchema.getTableId().getName());
+    appendWhereClause(scanQuery, keyRange, filter);
+    scanQuery.append(getOrderByClause(tableSchema.getPrimaryKeys()))
+      .append(" LIMIT ").append(limit).append(";");
+
+    // We don't close the statement here because once it is closed, the result set is also closed.
+    try {
+      PreparedStatement statement = connection.prepareStatement(scanQuery.toString());
+      setFilterFields(statement, filter, setRangeFields(statement, keyRange, 1));
+      LOG.trace("SQL statement: {}", statement);
+      ResultSet resultSet = statement.executeQuery();
+      return new ResultSetIterator(statement, resultSet, tableSchema);
+    } catch (SQLException e) {
+      throw new IOException(String.format("Failed to scan from table %s with range %s and filter %s",
+                                          tableSchema.getTableId().getName(), keyRange, filter), e);
+    }
+  }
+
+  @Override
+  public long count(Range keyRange, FieldFilter filter) throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Count range {} with filter {}", tableSchema.getTableId(), keyRange, filter);
+    fieldValidator.validatePrimaryKeys(keyRange.getBegin(), true);
+    fieldValidator.validatePrimaryKeys(keyRange.getEnd(), true);
+    validateFilter(filter);
+    StringBuilder countQuery = new StringBuilder("SELECT COUNT(*) FROM ").append(tableSchema.getTableId().getName());
+    appendWhereClause(countQuery, keyRange, filter);
+    countQuery.append(";");
+
+    try (PreparedStatement statement = connection.prepareStatement(countQuery.toString())) {
+      setFilterFields(statement, filter, setRangeFields(statement, keyRange, 1));
+      LOG.trace("SQL statement: {}", statement);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return resultSet.next() ? resultSet.getLong(1) : 0L;
+      }
+    } catch (SQLException e) {
+      throw new IOException(String.format("Failed to count rows of table %s with range %s and filter %s",
+                                          tableSchema.getTableId().getName(), keyRange, filter), e);
+    }
+  }
+
+  @Override
+  public CloseableIterator<StructuredRow> multiScan(Collection<Range> keyRanges,
+                                                    int limit) throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: MultiScan ranges {} with limit {}", tableSchema.getTableId(), keyRanges, limit);
+    for (Range keyRange : keyRanges) {
+      fieldValidator.validatePrimaryKeys(keyRange.getBegin(), true);
+      fieldValidator.validatePrimaryKeys(keyRange.getEnd(), true);
+    }
+    // an unbounded range matches every row, hence the other ranges are not needed
+    Collection<Range> ranges = keyRanges.stream().anyMatch(PostgresSqlStructuredTable::isUnbounded)
+      ? Collections.singleton(Range.all()) : keyRanges;
+    String scanQuery = getMultiScanQuery(ranges, limit);
+
+    // We don't close the statement here because once it is closed, the result set is also closed.
+    try {
+      PreparedStatement statement = connection.prepareStatement(scanQuery);
+      int index = 1;
+      for (Range keyRange : ranges) {
+        for (Field<?> key : keyRange.getBegin()) {
+          setField(statement, key, index);
+          index++;
+        }
+        for (Field<?> key : keyRange.getEnd()) {
+          setField(statement, key, index);
+          index++;
+        }
+      }
+      LOG.trace("SQL statement: {}", statement);
+      ResultSet resultSet = statement.executeQuery();
+      return new ResultSetIterator(statement, resultSet, tableSchema);
+    } catch (SQLException e) {
+      throw new IOException(String.format("Failed to scan from table %s with ranges %s",
+                                          tableSchema.getTableId().getName(), keyRanges), e);
+    }
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Field<?> index) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: Scan index {}", tableSchema.getTableId(), index);
@@ -481,6 +650,147 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     return queryString.toString();
   }
 
+  /**
+   * Get the read query for multiple rows. For example, if reading two rows with primary keys key1, key2,
+   * it will generate the following query:
+   * SELECT * FROM simpletable WHERE (key1=? AND key2=?) OR (key1=? AND key2=?) ORDER BY key1, key2;
+   *
+   * @param multiKeys the keys of the rows to read
+   * @return the read query
+   */
+  private String getMultiReadQuery(Collection<? extends Collection<Field<?>>> multiKeys) {
+    StringJoiner whereClause = new StringJoiner(" OR ");
+    for (Collection<Field<?>> keys : multiKeys) {
+      whereClause.add("(" + getEqualsClause(keys) + ")");
+    }
+    return "SELECT * FROM " + tableSchema.getTableId().getName() + " WHERE " + whereClause
+      + getOrderByClause(tableSchema.getPrimaryKeys()) + ";";
+  }
+
+  /**
+   * Get the scan query for multiple ranges. For example, if two ranges are provided with key1 as the begin and end
+   * to scan, both inclusive, it will generate the following query:
+   * SELECT * FROM simpletable WHERE ((key1)>=(?) AND (key1)<=(?)) OR ((key1)>=(?) AND (key1)<=(?))
+   * ORDER BY key1, key2 LIMIT 10;
+   *
+   * @param ranges the ranges to scan
+   * @param limit limit number of row
+   * @return the scan query
+   */
+  private String getMultiScanQuery(Collection<Range> ranges, int limit) {
+    StringJoiner whereClause = new StringJoiner(" OR ");
+    // no range matches no row
+    whereClause.setEmptyValue("FALSE");
+    for (Range range : ranges) {
+      if (isUnbounded(range)) {
+        whereClause.add("TRUE");
+        continue;
+      }
+      StringBuilder rangeClause = new StringBuilder("(");
+      appendRange(rangeClause, range);
+      whereClause.add(rangeClause.append(")"));
+    }
+
+    return "SELECT * FROM " + tableSchema.getTableId().getName() + " WHERE " + whereClause
+      + getOrderByClause(tableSchema.getPrimaryKeys()) + " LIMIT " + limit + ";";
+  }
+
+  private void validateFilter(FieldFilter filter) throws InvalidFieldException {
+    for (FieldFilter.Condition condition : filter.getConditions()) {
+      fieldValidator.validateField(condition.getField());
+    }
+  }
+
+  /**
+   * Appends the where clause for the given range and filter. For example, if the range provides key1 as the begin
+   * inclusive, and the filter has an equal condition on col1 and a not equal condition on col2 with a null value,
+   * it will append the following:
+   * WHERE (key1)>=(?) AND col1=? AND col2 IS NOT NULL
+   *
+   * @param sb the query to append to
+   * @param range the range to scan
+   * @param filter the filter to apply
+   */
+  private void appendWhereClause(StringBuilder sb, Range range, FieldFilter filter) {
+    StringJoiner joiner = new StringJoiner(" AND ", " WHERE ", "");
+    joiner.setEmptyValue("");
+    if (!isUnbounded(range)) {
+      StringBuilder rangeClause = new StringBuilder();
+      appendRange(rangeClause, range);
+      joiner.add(rangeClause);
+    }
+    for (FieldFilter.Condition condition : filter.getConditions()) {
+      String name = condition.getField().getName();
+      boolean isNull = condition.getField().getValue() == null;
+      switch (condition.getOperator()) {
+        case EQUAL:
+          joiner.add(name + (isNull ? " IS NULL" : "=?"));
+          break;
+        case NOT_EQUAL:
+          // unlike "<>", "IS DISTINCT FROM" also matches the rows having null value
+          joiner.add(name + (isNull ? " IS NOT NULL" : " IS DISTINCT FROM ?"));
+          break;
+        case LESS:
+          joiner.add(name + "<?");
+          break;
+        case LESS_OR_EQUAL:
+          joiner.add(name + "<=?");
+          break;
+        case GREATER:
+          joiner.add(name + ">?");
+          break;
+        case GREATER_OR_EQUAL:
+          joiner.add(name + ">=?");
+          break;
+        default:
+          // this should not happen since all the operators are handled
+          throw new IllegalArgumentException("Unsupported operator " + condition.getOperator());
+      }
+    }
+    sb.append(joiner.toString());
+  }
+
+  /**
+   * Sets the begin and end fields of the range to the statement, starting from the given parameter index.
+   *
+   * @return the parameter index after the range fields
+   */
+  private int setRangeFields(PreparedStatement statement, Range range,
+                             int parameterIndex) throws SQLException, InvalidFieldException {
+    int index = parameterIndex;
+    for (Field<?> key : range.getBegin()) {
+      setField(statement, key, index);
+      index++;
+    }
+    for (Field<?> key : range.getEnd()) {
+      setField(statement, key, index);
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Sets the non-null fields of the filter to the statement, starting from the given parameter index.
+   * Null values do not have parameters, as they are translated into IS NULL and IS NOT NULL.
+   *
+   * @return the parameter index after the filter fields
+   */
+  private int setFilterFields(PreparedStatement statement, FieldFilter filter,
+                              int parameterIndex) throws SQLException, InvalidFieldException {
+    int index = parameterIndex;
+    for (FieldFilter.Condition condition : filter.getConditions()) {
+      if (condition.getField().getValue() != null) {
+        setField(statement, condition.getField(), index);
+        index++;
+      }
+    }
+    return index;
+  }
+
+  private static boolean isUnbounded(Range range) {
+    return range.getBegin().isEmpty() && range.getEnd().isEmpty();
+  }
+
   private void appendRange(StringBuilder statement, Range range) {
     appendScanBound(statement, range.getBegin(), range.getBeginBound().equals(Range.Bound.INCLUSIVE) ? ">=" : ">");
     if (!range.getBegin().isEmpty() && !range.getEnd().isEmpty()) {
@@ -380,6 +380,9 @@ public final class StoreDefinition {
     public static final StructuredTableId APPLICATION_SPECIFICATIONS = new StructuredTableId("application_specs");
     public static final StructuredTableId WORKFLOW_NODE_STATES = new StructuredTableId("workflow_node_states");
     public static final StructuredTableId RUN_RECORDS = new StructuredTableId("run_records");
+    public static final StructuredTableId RUN_RECORDS_STATUS_INDEX = new StructuredTableId("run_records_status_index");
+    public static final StructuredTableId RUN_RECORDS_PROGRAM_INDEX =
+      new StructuredTableId("run_records_program_index");
     public static final StructuredTableId WORKFLOWS = new StructuredTableId("workflows");
     public static final StructuredTableId PROGRAM_COUNTS = new StructuredTableId("program_counts");
     // TODO: CDAP-14876 Move this table into it's own store, along with associated methods
@@ -397,6 +400,7 @@ public final class StoreDefinition {
     public static final String RUN_STATUS = "run_status";
     public static final String RUN_START_TIME = "run_start_time";
     public static final String RUN_RECORD_DATA = "run_record_data";
+    public static final String RUN_RECORD_TYPE = "run_record_type";
     public static final String WORKFLOW_DATA = "workflow_data";
     public static final String COUNT_TYPE = "count_type";
     public static final String COUNTS = "counts";
@@ -446,6 +450,41 @@ public final class StoreDefinition {
                          PROGRAM_FIELD, RUN_START_TIME, RUN_FIELD)
         .build();
 
+    // Secondary indexes of the run records table by the program run status. The RUN_STATUS field in the indexes
+    // is the ProgramRunStatus of the run, and the RUN_RECORD_TYPE field is the RUN_STATUS field in the primary key
+    // of the run record, which is needed to read the run record from the run records table.
+    public static final StructuredTableSpecification RUN_RECORDS_STATUS_INDEX_SPEC =
+      new StructuredTableSpecification.Builder()
+        .withId(RUN_RECORDS_STATUS_INDEX)
+        .withFields(Fields.stringType(RUN_STATUS),
+                    Fields.stringType(NAMESPACE_FIELD),
+                    Fields.longType(RUN_START_TIME),
+                    Fields.stringType(APPLICATION_FIELD),
+                    Fields.stringType(VERSION_FIELD),
+                    Fields.stringType(PROGRAM_TYPE_FIELD),
+                    Fields.stringType(PROGRAM_FIELD),
+                    Fields.stringType(RUN_FIELD),
+                    Fields.stringType(RUN_RECORD_TYPE))
+        .withPrimaryKeys(RUN_STATUS, NAMESPACE_FIELD, RUN_START_TIME, APPLICATION_FIELD, VERSION_FIELD,
+                         PROGRAM_TYPE_FIELD, PROGRAM_FIELD, RUN_FIELD)
+        .build();
+
+    public static final StructuredTableSpecification RUN_RECORDS_PROGRAM_INDEX_SPEC =
+      new StructuredTableSpecification.Builder()
+        .withId(RUN_RECORDS_PROGRAM_INDEX)
+        .withFields(Fields.stringType(NAMESPACE_FIELD),
+                    Fields.stringType(APPLICATION_FIELD),
+                    Fields.stringType(VERSION_FIELD),
+                    Fields.stringType(PROGRAM_TYPE_FIELD),
+                    Fields.stringType(PROGRAM_FIELD),
+                    Fields.stringType(RUN_STATUS),
+                    Fields.longType(RUN_START_TIME),
+                    Fields.stringType(RUN_FIELD),
+                    Fields.stringType(RUN_RECORD_TYPE))
+        .withPrimaryKeys(NAMESPACE_FIELD, APPLICATION_FIELD, VERSION_FIELD, PROGRAM_TYPE_FIELD, PROGRAM_FIELD,
+                         RUN_STATUS, RUN_START_TIME, RUN_FIELD)
+        .build();
+
     public static final StructuredTableSpecification WORKFLOWS_SPEC =
       new StructuredTableSpecification.Builder()
         .withId(WORKFLOWS)
@@ -494,6 +533,12 @@ public final class StoreDefinition {
       if (overWrite || tableAdmin.getSpecification(RUN_RECORDS) == null) {
         tableAdmin.create(RUN_RECORDS_SPEC);
       }
+      if (overWrite || tableAdmin.getSpecification(RUN_RECORDS_STATUS_INDEX) == null) {
+        tableAdmin.create(RUN_RECORDS_STATUS_INDEX_SPEC);
+      }
+      if (overWrite || tableAdmin.getSpecification(RUN_RECORDS_PROGRAM_INDEX) == null) {
+        tableAdmin.create(RUN_RECORDS_PROGRAM_INDEX_SPEC);
+      }
       if (overWrite || tableAdmin.getSpecification(WORKFLOWS) == null) {
         tableAdmin.create(WORKFLOWS_SPEC);
       }
@@ -19,12 +19,15 @@ package io.cdap.cdap.data2.datafabric.dataset;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.Service;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Scopes;
 import com.google.inject.Singleton;
 import io.cdap.cdap.api.dataset.DatasetManagementException;
+import io.cdap.cdap.api.dataset.DatasetProperties;
+import io.cdap.cdap.api.dataset.DatasetSpecification;
 import io.cdap.cdap.api.metrics.MetricsCollectionService;
 import io.cdap.cdap.common.conf.CConfigurationUtil;
 import io.cdap.cdap.common.conf.Constants;
@@ -57,6 +60,9 @@ import io.cdap.cdap.data2.transaction.DelegatingTransactionSystemClientService;
 import io.cdap.cdap.data2.transaction.TransactionSystemClientService;
 import io.cdap.cdap.explore.client.DiscoveryExploreClient;
 import io.cdap.cdap.explore.client.ExploreFacade;
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.guice.MessagingServerRuntimeModule;
+import io.cdap.cdap.proto.id.DatasetId;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.security.auth.context.AuthenticationContextModules;
 import io.cdap.cdap.security.authorization.AuthorizationEnforcementModule;
@@ -93,12 +99,19 @@ public class RemoteDatasetFrameworkTest extends AbstractDatasetFrameworkTest {
   private TransactionManager txManager;
   private DatasetOpExecutorService opExecutorService;
   private DatasetService service;
+  private DiscoveryServiceClient discoveryServiceClient;
+  private AuthenticationContext authenticationContext;
+  private MessagingService messagingService;
   private RemoteDatasetFramework framework;
 
   @Before
   public void before() throws Exception {
     cConf.set(Constants.Service.MASTER_SERVICES_BIND_ADDRESS, "localhost");
     cConf.setBoolean(Constants.Dangerous.UNRECOVERABLE_RESET, true);
+    // Use a new messaging data directory for each test, since the messaging table store is not released on stop
+    cConf.set(Constants.MessagingSystem.LOCAL_DATA_DIR, TMP_FOLDER.newFolder().getAbsolutePath());
+    // Always poll for dataset changes so that cache invalidation is deterministic in tests
+    cConf.setLong(Constants.Dataset.META_CACHE_POLL_INTERVAL_MILLIS, 0L);
 
     Configuration txConf = HBaseConfiguration.create();
     CConfigurationUtil.copyTxProperties(cConf, txConf);
@@ -116,6 +129,7 @@ public class RemoteDatasetFrameworkTest extends AbstractDatasetFrameworkTest {
       new AuthorizationEnforcementModule().getInMemoryModules(),
       new AuthenticationContextModules().getMasterModule(),
       new TransactionInMemoryModule(),
+      new MessagingServerRuntimeModule().getInMemoryModules(),
       new AbstractModule() {
         @Override
         protected void configure() {
@@ -139,11 +153,16 @@ public class RemoteDatasetFrameworkTest extends AbstractDatasetFrameworkTest {
     TransactionSystemClientService txSystemClientService = new DelegatingTransactionSystemClientService(txSystemClient);
 
     DiscoveryService discoveryService = injector.getInstance(DiscoveryService.class);
-    DiscoveryServiceClient discoveryServiceClient = injector.getInstance(DiscoveryServiceClient.class);
+    discoveryServiceClient = injector.getInstance(DiscoveryServiceClient.class);
     MetricsCollectionService metricsCollectionService = injector.getInstance(MetricsCollectionService.class);
-    AuthenticationContext authenticationContext = injector.getInstance(AuthenticationContext.class);
+    authenticationContext = injector.getInstance(AuthenticationContext.class);
 
-    framework = new RemoteDatasetFramework(cConf, discoveryServiceClient, registryFactory, authenticationContext);
+    messagingService = injector.getInstance(MessagingService.class);
+    if (messagingService instanceof Service) {
+      ((Service) messagingService).startAndWait();
+    }
+
+    framework = createFramework();
     SystemDatasetInstantiatorFactory datasetInstantiatorFactory =
       new SystemDatasetInstantiatorFactory(locationFactory, framework, cConf);
 
@@ -160,21 +179,23 @@ public class RemoteDatasetFrameworkTest extends AbstractDatasetFrameworkTest {
 
     DatasetTypeManager typeManager = new DatasetTypeManager(cConf, locationFactory, impersonator, transactionRunner);
     DatasetInstanceManager instanceManager = new DatasetInstanceManager(transactionRunner);
-    DatasetTypeService noAuthTypeService = new DefaultDatasetTypeService(typeManager, namespaceQueryAdmin,
-                                                                         namespacePathLocator, cConf, impersonator,
-                                                                         txSystemClientService, transactionRunner,
-                                                                         DEFAULT_MODULES);
+    DefaultDatasetTypeService noAuthTypeService = new DefaultDatasetTypeService(typeManager, namespaceQueryAdmin,
+                                                                                namespacePathLocator, cConf,
+                                                                                impersonator, txSystemClientService,
+                                                                                transactionRunner, DEFAULT_MODULES);
+    noAuthTypeService.setMessagingService(messagingService);
     DatasetTypeService typeService = new AuthorizationDatasetTypeService(noAuthTypeService, authorizationEnforcer,
                                                                          authenticationContext);
 
 
-    DatasetOpExecutor opExecutor = new RemoteDatasetOpExecutor(discoveryServiceClient, authenticationContext);
+    DatasetOpExecutor opExecutor = new RemoteDatasetOpExecutor(cConf, discoveryServiceClient, authenticationContext);
     DatasetInstanceService instanceService = new DatasetInstanceService(typeService, noAuthTypeService,
                                                                         instanceManager, opExecutor,
                                                                         exploreFacade, namespaceQueryAdmin, ownerAdmin,
                                                                         authorizationEnforcer, authenticationContext,
                                                                         new NoOpMetadataServiceClient());
     instanceService.setAuditPublisher(inMemoryAuditPublisher);
+    instanceService.setMessagingService(cConf, messagingService);
 
     service = new DatasetService(cConf, discoveryService, discoveryServiceClient, metricsCollectionService,
                                  new HashSet<>(),
@@ -207,9 +228,52 @@ public class RemoteDatasetFrameworkTest extends AbstractDatasetFrameworkTest {
     }
   }
 
+  @Test
+  public void testMetaCacheInvalidation() throws Exception {
+    DatasetId datasetId = NAMESPACE_ID.dataset("cached");
+
+    // Use another framework for reading, which only learns about changes through the dataset change messages
+    RemoteDatasetFramework reader = createFramework();
+    Assert.assertNull(reader.getDatasetSpec(datasetId));
+
+    // Absence of a dataset is not cached
+    framework.addInstance("table", datasetId, DatasetProperties.builder().add("key", "v1").build());
+    DatasetSpecification spec = reader.getDatasetSpec(datasetId);
+    Assert.assertNotNull(spec);
+    Assert.assertEquals("v1", spec.getProperty("key"));
+
+    // Update should invalidate the cached spec
+    framework.updateInstance(datasetId, DatasetProperties.builder().add("key", "v2").build());
+    spec = reader.getDatasetSpec(datasetId);
+    Assert.assertNotNull(spec);
+    Assert.assertEquals("v2", spec.getProperty("key"));
+
+    // Delete should invalidate the cached spec
+    framework.deleteInstance(datasetId);
+    Assert.assertFalse(reader.hasInstance(datasetId));
+
+    // Cached spec and type should be served without going to the dataset service
+    framework.addInstance("table", datasetId, DatasetProperties.EMPTY);
+    Assert.assertTrue(reader.hasInstance(datasetId));
+    Assert.assertTrue(reader.hasType(NamespaceId.SYSTEM.datasetType("table")));
+    service.stopAndWait();
+    Assert.assertTrue(reader.hasInstance(datasetId));
+    Assert.assertTrue(reader.hasType(NamespaceId.SYSTEM.datasetType("table")));
+  }
+
   @After
   public void after() {
     Futures.getUnchecked(Services.chainStop(service, opExecutorService, txManager));
+    if (messagingService instanceof Service) {
+      ((Service) messagingService).stopAndWait();
+    }
+  }
+
+  private RemoteDatasetFramework createFramework() {
+    RemoteDatasetFramework framework = new RemoteDatasetFramework(cConf, discoveryServiceClient,
+                                                                  registryFactory, authenticationContext);
+    framework.setMessagingService(messagingService);
+    return framework;
   }
 
   @Override
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.cube;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.CubeFact;
+import io.cdap.cdap.api.dataset.lib.cube.CubeQuery;
+import io.cdap.cdap.api.dataset.lib.cube.MeasureType;
+import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import io.cdap.cdap.data2.dataset2.lib.timeseries.EntityTable;
+import io.cdap.cdap.data2.dataset2.lib.timeseries.FactTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for the latency of a {@link DefaultCube} query that scans 100k facts and groups them by dimensions.
+ * The facts are spread over a configurable number of dimension groups, with the same number of facts per group.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DefaultCubeBenchmark {
+
+  private static final int FACTS = 100 * 1000;
+  private static final int RESOLUTION = 1;
+  private static final String AGGREGATION = "agg";
+
+  @Param({"100", "10000"})
+  public int groups;
+
+  @Param({"SUM", "MAX"})
+  public AggregationFunction function;
+
+  private String name;
+  private DefaultCube cube;
+  private CubeQuery query;
+
+  @Setup
+  public void setup() {
+    name = "bench-" + groups + "-" + function;
+    String entityTableName = "EntityTable-" + name;
+    String dataTableName = "DataTable-" + name;
+    InMemoryTableService.create(entityTableName);
+    InMemoryTableService.create(dataTableName);
+    FactTableSupplier supplier = (resolution, rollTime) ->
+      new FactTable(new InMemoryMetricsTable(dataTableName),
+                    new EntityTable(new InMemoryMetricsTable(entityTableName)), resolution, rollTime);
+    cube = new DefaultCube(new int[] { RESOLUTION }, supplier,
+                           ImmutableMap.of(AGGREGATION, new DefaultAggregation(ImmutableList.of("app", "program"))),
+                           ImmutableMap.of());
+
+    int timestamps = FACTS / groups;
+    List<CubeFact> facts = new ArrayList<>(FACTS);
+    for (int group = 0; group < groups; group++) {
+      for (int ts = 0; ts < timestamps; ts++) {
+        facts.add(new CubeFact(ts)
+                    .addDimensionValue("app", "app" + (group % 10))
+                    .addDimensionValue("program", "program" + group)
+                    .addMeasurement("count", MeasureType.COUNTER, ts));
+      }
+    }
+    cube.add(facts);
+
+    query = CubeQuery.builder()
+      .select()
+        .measurement("count", function)
+      .from(AGGREGATION).resolution(RESOLUTION, TimeUnit.SECONDS)
+      .where()
+        .timeRange(0, timestamps)
+      .groupBy()
+        .dimension("app")
+        .dimension("program")
+      .limit(Integer.MAX_VALUE)
+      .build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    InMemoryTableService.drop("EntityTable-" + name);
+    InMemoryTableService.drop("DataTable-" + name);
+  }
+
+  @Benchmark
+  public Collection<TimeSeries> query() {
+    return cube.query(query);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(DefaultCubeBenchmark.class.getSimpleName()).build()).run();
+  }
+}
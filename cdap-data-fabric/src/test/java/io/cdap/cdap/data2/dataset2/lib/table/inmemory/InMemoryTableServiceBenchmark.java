@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.table.inmemory;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.data2.dataset2.lib.table.PutValue;
+import io.cdap.cdap.data2.dataset2.lib.table.Update;
+import org.apache.tephra.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multi-threaded JMH benchmark for the throughput of {@link InMemoryTableService}. Each thread reads and writes
+ * a random row out of a configurable number of rows, such that the contention on the rows varies. Running the
+ * {@link #main(String[])} method runs the benchmark with an increasing number of threads to show how the
+ * throughput scales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryTableServiceBenchmark {
+
+  private static final String TABLE_NAME = "bench";
+  private static final byte[] COLUMN = Bytes.toBytes("c");
+  private static final Transaction TX = new Transaction(Long.MAX_VALUE - 1, Long.MAX_VALUE, new long[0],
+                                                        new long[0], Long.MAX_VALUE);
+
+  private final AtomicLong writePointer = new AtomicLong();
+
+  @Param({"1", "1000"})
+  public int rows;
+
+  // 1 as for metrics tables, and unbounded as for transactional tables
+  @Param({"1", "2147483647"})
+  public int maxVersions;
+
+  @Setup
+  public void setup() {
+    InMemoryTableService.create(TABLE_NAME, maxVersions);
+  }
+
+  @TearDown
+  public void tearDown() {
+    InMemoryTableService.drop(TABLE_NAME);
+  }
+
+  @Benchmark
+  public Map<byte[], Long> increment() {
+    return InMemoryTableService.increment(TABLE_NAME, randomRow(), Collections.singletonMap(COLUMN, 1L));
+  }
+
+  @Benchmark
+  public void merge() {
+    byte[] row = randomRow();
+    SortedMap<byte[], SortedMap<byte[], Update>> changes = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    SortedMap<byte[], Update> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    columns.put(COLUMN, new PutValue(row));
+    changes.put(row, columns);
+    InMemoryTableService.merge(TABLE_NAME, changes, System.currentTimeMillis());
+  }
+
+  @Benchmark
+  public void transactionalMerge() {
+    byte[] row = randomRow();
+    SortedMap<byte[], SortedMap<byte[], Update>> changes = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    SortedMap<byte[], Update> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    columns.put(COLUMN, new PutValue(row));
+    changes.put(row, columns);
+    // Without transactions in progress, the versions up to the read pointer are expired as they get hidden
+    long version = writePointer.incrementAndGet();
+    InMemoryTableService.merge(TABLE_NAME, changes, new Transaction(version - 1, version, new long[0], new long[0],
+                                                                    Transaction.NO_TX_IN_PROGRESS));
+  }
+
+  @Benchmark
+  public NavigableMap<byte[], NavigableMap<Long, byte[]>> get() {
+    return InMemoryTableService.get(TABLE_NAME, randomRow(), TX);
+  }
+
+  private byte[] randomRow() {
+    return Bytes.toBytes(ThreadLocalRandom.current().nextInt(rows));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    for (int threads : new int[] { 1, 2, 4, 8 }) {
+      new Runner(new OptionsBuilder()
+                   .include(InMemoryTableServiceBenchmark.class.getSimpleName())
+                   .threads(threads)
+                   .build()).run();
+    }
+  }
+}
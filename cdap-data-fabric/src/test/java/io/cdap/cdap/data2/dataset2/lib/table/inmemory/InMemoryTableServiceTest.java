@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.data2.dataset2.lib.table.inmemory;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.data2.dataset2.lib.table.PutValue;
@@ -24,7 +25,15 @@ import org.apache.tephra.Transaction;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -97,6 +106,128 @@ public class InMemoryTableServiceTest {
     verify123();
   }
 
+  @Test
+  public void testConcurrentIncrements() throws Exception {
+    InMemoryTableService.create("counters");
+    byte[] column = new byte[] {1};
+    int threads = 8;
+    int increments = 1000;
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < increments; j++) {
+            // Half of the increments are on a shared row and half are on a row per thread
+            InMemoryTableService.increment("counters", Bytes.toBytes(j % 2 == 0 ? 0 : Thread.currentThread().getId()),
+                                           Collections.singletonMap(column, 1L));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    long total = 0;
+    for (NavigableMap<byte[], NavigableMap<Long, byte[]>> row
+      : InMemoryTableService.getRowRange("counters", null, null, null).values()) {
+      total += Bytes.toLong(row.get(column).firstEntry().getValue());
+    }
+    Assert.assertEquals(threads * increments, total);
+    Assert.assertEquals(threads * increments / 2,
+                        Bytes.toLong(InMemoryTableService.get("counters", Bytes.toBytes(0L), null)
+                                       .get(column).firstEntry().getValue()));
+    InMemoryTableService.drop("counters");
+  }
+
+  @Test
+  public void testVersionExpiry() {
+    InMemoryTableService.create("versions", 2);
+    byte[] row = new byte[] {1};
+    byte[] column = new byte[] {2};
+    for (long version = 1L; version <= 5L; version++) {
+      NavigableMap<byte[], NavigableMap<byte[], Update>> updates = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      NavigableMap<byte[], Update> rowUpdate = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      rowUpdate.put(column, new PutValue(Bytes.toBytes(version)));
+      updates.put(row, rowUpdate);
+      InMemoryTableService.merge("versions", updates, version);
+    }
+
+    // Only the two latest versions are kept
+    NavigableMap<Long, byte[]> values = InMemoryTableService.get("versions", row, null).get(column);
+    Assert.assertEquals(2, values.size());
+    Assert.assertArrayEquals(Bytes.toBytes(5L), values.get(5L));
+    Assert.assertArrayEquals(Bytes.toBytes(4L), values.get(4L));
+
+    // Reads only return versions visible to the transaction
+    values = InMemoryTableService.get("versions", row, new Transaction(4L, 6L, new long[0], new long[0], 4L))
+      .get(column);
+    Assert.assertEquals(Collections.singleton(4L), values.keySet());
+
+    // Deleted rows are not visible and can be written again
+    InMemoryTableService.delete("versions", Collections.singletonList(row));
+    Assert.assertNull(InMemoryTableService.get("versions", row, null));
+    Assert.assertEquals(Collections.singletonMap(column, 1L),
+                        InMemoryTableService.increment("versions", row, Collections.singletonMap(column, 1L)));
+    InMemoryTableService.drop("versions");
+  }
+
+  @Test
+  public void testInvisibleVersionExpiry() {
+    InMemoryTableService.create("invisible");
+    byte[] row = new byte[] {1};
+    byte[] column = new byte[] {2};
+
+    // Without other transactions in progress, only the versions up to the read pointer are visible to everyone
+    mergeTx("invisible", row, column, newTx(9L, 10L, new long[0], new long[0]));
+    Assert.assertEquals(ImmutableSet.of(10L), getVersions("invisible", row, column));
+
+    // A reader that started before the following writes still reads the version 10
+    Transaction reader = newTx(10L, 15L, new long[0], new long[0]);
+    InMemoryTableService.startTx(reader);
+    mergeTx("invisible", row, column, newTx(10L, 20L, new long[0], new long[] {15L}));
+    mergeTx("invisible", row, column, newTx(20L, 30L, new long[0], new long[] {15L}));
+    Assert.assertEquals(ImmutableSet.of(10L, 20L, 30L), getVersions("invisible", row, column));
+    Assert.assertEquals(Collections.singleton(10L),
+                        InMemoryTableService.get("invisible", row, reader).get(column).keySet());
+
+    // Once the reader finished, the versions older than the latest one visible to the oldest reader are expired
+    InMemoryTableService.finishTx(reader);
+    InMemoryTableService.startTx(newTx(30L, 35L, new long[0], new long[0]));
+    mergeTx("invisible", row, column, newTx(30L, 40L, new long[0], new long[] {15L, 35L}));
+    Assert.assertEquals(ImmutableSet.of(30L, 40L), getVersions("invisible", row, column));
+
+    // Nothing is expired while a transaction that may still read the table is in progress
+    mergeTx("invisible", row, column, newTx(40L, 50L, new long[0], new long[] {45L}));
+    Assert.assertEquals(ImmutableSet.of(30L, 40L, 50L), getVersions("invisible", row, column));
+
+    // Versions of invalid transactions are never visible, hence don't hide older versions
+    mergeTx("invisible", row, column, newTx(50L, 60L, new long[] {50L}, new long[0]));
+    Assert.assertEquals(ImmutableSet.of(40L, 50L, 60L), getVersions("invisible", row, column));
+    InMemoryTableService.drop("invisible");
+  }
+
+  private static Transaction newTx(long readPointer, long writePointer, long[] invalids, long[] inProgress) {
+    return new Transaction(readPointer, writePointer, invalids, inProgress,
+                           inProgress.length == 0 ? Transaction.NO_TX_IN_PROGRESS : inProgress[0]);
+  }
+
+  private static void mergeTx(String table, byte[] row, byte[] column, Transaction tx) {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> updates = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    NavigableMap<byte[], Update> rowUpdate = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    rowUpdate.put(column, new PutValue(Bytes.toBytes(tx.getWritePointer())));
+    updates.put(row, rowUpdate);
+    InMemoryTableService.merge(table, updates, tx);
+  }
+
+  private static Set<Long> getVersions(String table, byte[] row, byte[] column) {
+    return InMemoryTableService.get(table, row, null).get(column).keySet();
+  }
+
   private void verify123() {
     NavigableMap<byte[], NavigableMap<Long, byte[]>> rowFromGet =
       InMemoryTableService.get("table", new byte[]{1}, new Transaction(1L, 2L, new long[0], new long[0], 1L));
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
+
+import com.google.common.io.Files;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.DirUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded JMH benchmark for the throughput of increments and non-transactional writes on a
+ * {@link LevelDBTableCore}. Each thread uses its own {@link LevelDBTableCore} instance of the same table,
+ * updating a random row out of a configurable number of rows, such that the contention on the rows varies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class LevelDBTableCoreBenchmark {
+
+  private static final String TABLE_NAME = "bench";
+  private static final byte[] COLUMN = Bytes.toBytes("c");
+
+  @Param({"1", "1000"})
+  public int rows;
+
+  private File baseDir;
+  private LevelDBTableService service;
+
+  @Setup
+  public void setup() throws IOException {
+    baseDir = Files.createTempDir();
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, baseDir.getAbsolutePath());
+    service = new LevelDBTableService();
+    service.setConfiguration(cConf);
+    service.ensureTableExists(TABLE_NAME);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    service.close();
+    DirUtils.deleteDirectoryContents(baseDir);
+  }
+
+  /**
+   * Per thread state holding the {@link LevelDBTableCore} used by the thread.
+   */
+  @State(Scope.Thread)
+  public static class TableState {
+    private LevelDBTableCore table;
+
+    @Setup
+    public void setup(LevelDBTableCoreBenchmark benchmark) {
+      table = new LevelDBTableCore(TABLE_NAME, benchmark.service);
+    }
+  }
+
+  @Benchmark
+  public Map<byte[], Long> increment(TableState state) throws IOException {
+    return state.table.increment(randomRow(), Collections.singletonMap(COLUMN, 1L));
+  }
+
+  @Benchmark
+  public void persist(TableState state) throws IOException {
+    byte[] row = randomRow();
+    state.table.persist(Collections.singletonMap(row, Collections.singletonMap(COLUMN, row)), Long.MAX_VALUE);
+  }
+
+  private byte[] randomRow() {
+    return Bytes.toBytes(ThreadLocalRandom.current().nextInt(rows));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(LevelDBTableCoreBenchmark.class.getSimpleName()).build()).run();
+  }
+}
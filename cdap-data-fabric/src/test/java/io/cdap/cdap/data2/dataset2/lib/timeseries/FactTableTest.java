@@ -41,6 +41,10 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -631,6 +635,92 @@ public class FactTableTest {
     }
   }
 
+  @Test
+  public void testCombine() throws Exception {
+    String tableName = "testCombineTable";
+    String entityTableName = "testCombineEntityTable";
+    InMemoryTableService.create(tableName);
+    InMemoryTableService.create(entityTableName);
+    int resolution = 10;
+
+    FactTable table = new FactTable(new InMemoryMetricsTable(tableName),
+                                    new EntityTable(new InMemoryMetricsTable(entityTableName)), resolution, 2);
+    FactTableMetricsCollector metricsCollector = new FactTableMetricsCollector(resolution);
+    table.setMetricsCollector(metricsCollector);
+
+    // facts of every second within the same resolution interval are combined into one cell per measure
+    long ts = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) / resolution * resolution;
+    List<DimensionValue> dims = dimValues("dim1", "value1");
+    List<Fact> facts = new ArrayList<>();
+    for (int i = 0; i < resolution; i++) {
+      facts.add(new Fact(ts + i, dims, ImmutableList.of(new Measurement("counter", MeasureType.COUNTER, 1),
+                                                        new Measurement("gauge", MeasureType.GAUGE, i))));
+    }
+    facts.add(new Fact(ts + resolution, dims, ImmutableList.of(new Measurement("counter", MeasureType.COUNTER, 1),
+                                                               new Measurement("gauge", MeasureType.GAUGE, 100))));
+    table.add(facts);
+
+    // 22 measurements are written as 4 cells
+    Assert.assertEquals(18 * 100 / 22, metricsCollector.getLastCombineReduction());
+
+    Table<String, List<DimensionValue>, List<TimeValue>> expected = HashBasedTable.create();
+    expected.put("counter", dims, timeValues(ts, resolution, resolution, 1));
+    // the last value of a gauge in an interval wins
+    expected.put("gauge", dims, timeValues(ts, resolution, resolution - 1, 100));
+    assertScan(table, expected, new FactScan(ts, ts + resolution, dims));
+  }
+
+  @Test
+  public void testSharedCounterCache() throws Exception {
+    String tableName = "testSharedCacheTable";
+    String entityTableName = "testSharedCacheEntityTable";
+    InMemoryTableService.create(tableName);
+    InMemoryTableService.create(entityTableName);
+    int resolution = 10;
+    int writers = 4;
+    int timestamps = 100;
+
+    // FactTables sharing the same counter cache, writing the same counters concurrently
+    EntityTable entityTable = new EntityTable(new InMemoryMetricsTable(entityTableName));
+    FactTable.CounterCache counterCache = new FactTable.CounterCache();
+    List<FactTable> tables = new ArrayList<>();
+    for (int i = 0; i < writers; i++) {
+      tables.add(new FactTable(new InMemoryMetricsTable(tableName), entityTable, resolution, 2, counterCache));
+    }
+
+    long ts = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) / resolution * resolution;
+    List<DimensionValue> dims = dimValues("dim1", "dim2");
+    CyclicBarrier barrier = new CyclicBarrier(writers);
+    ExecutorService executor = Executors.newFixedThreadPool(writers);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (FactTable table : tables) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < timestamps; i++) {
+            barrier.await();
+            table.add(ImmutableList.of(new Fact(ts + i * resolution, dims,
+                                                new Measurement("metric", MeasureType.COUNTER, 1))));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // none of the increments should be overwritten by the puts of new counters
+    Table<String, List<DimensionValue>, List<TimeValue>> expected = HashBasedTable.create();
+    List<TimeValue> timeValues = new ArrayList<>();
+    for (int i = 0; i < timestamps; i++) {
+      timeValues.add(new TimeValue(ts + i * resolution, writers));
+    }
+    expected.put("metric", dims, timeValues);
+    assertScan(tables.get(0), expected, new FactScan(ts, ts + timestamps * resolution, "metric", dims));
+  }
+
   private List<TimeValue> timeValues(long ts, int resolution, long... values) {
     List<TimeValue> timeValues = Lists.newArrayList();
     for (int i = 0; i < values.length; i++) {
@@ -678,12 +768,15 @@ public class FactTableTest {
   private class FactTableMetricsCollector implements MetricsCollector {
     private long lastIncrementSize;
     private long lastGaugeSize;
+    private long lastCombineReduction;
     private String putCountMetric;
     private String incrementCountMetric;
+    private String combineReductionMetric;
 
     FactTableMetricsCollector(int resolution) {
       this.putCountMetric = "factTable." + resolution + ".put.count";
       this.incrementCountMetric = "factTable." + resolution + ".increment.count";
+      this.combineReductionMetric = "factTable." + resolution + ".combine.reduction.percent";
     }
 
     @Override
@@ -697,7 +790,9 @@ public class FactTableTest {
 
     @Override
     public void gauge(String metricName, long value) {
-      // no-op
+      if (combineReductionMetric.equals(metricName)) {
+        lastCombineReduction = value;
+      }
     }
 
     long getLastIncrementSize() {
@@ -707,5 +802,9 @@ public class FactTableTest {
     long getLastGaugeSize() {
       return lastGaugeSize;
     }
+
+    long getLastCombineReduction() {
+      return lastCombineReduction;
+    }
   }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.format.io;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.common.io.Decoder;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Decoder} that reads binary-format data written by {@link DataOutputEncoder} from a {@link DataInput}.
+ */
+public final class DataInputDecoder implements Decoder {
+
+  private final DataInput input;
+
+  public DataInputDecoder(DataInput input) {
+    this.input = input;
+  }
+
+  @Nullable
+  @Override
+  public Object readNull() throws IOException {
+    // No-op
+    return null;
+  }
+
+  @Override
+  public boolean readBool() throws IOException {
+    return input.readByte() == 1;
+  }
+
+  @Override
+  public int readInt() throws IOException {
+    int val = 0;
+    int shift = 0;
+    int b = input.readUnsignedByte();
+    while (b > 0x7f) {
+      val ^= (b & 0x7f) << shift;
+      shift += 7;
+      b = input.readUnsignedByte();
+    }
+    val ^= b << shift;
+    return (val >>> 1) ^ -(val & 1);
+  }
+
+  @Override
+  public long readLong() throws IOException {
+    long val = 0;
+    int shift = 0;
+    int b = input.readUnsignedByte();
+    while (b > 0x7f) {
+      val ^= (long) (b & 0x7f) << shift;
+      shift += 7;
+      b = input.readUnsignedByte();
+    }
+    val ^= (long) b << shift;
+    return (val >>> 1) ^ -(val & 1);
+  }
+
+  @Override
+  public float readFloat() throws IOException {
+    return Float.intBitsToFloat(readLittleEndian());
+  }
+
+  @Override
+  public double readDouble() throws IOException {
+    int low = readLittleEndian();
+    int high = readLittleEndian();
+    return Double.longBitsToDouble(((long) high << 32) | (low & 0xffffffffL));
+  }
+
+  @Override
+  public String readString() throws IOException {
+    return Bytes.toString(rawReadBytes());
+  }
+
+  @Override
+  public ByteBuffer readBytes() throws IOException {
+    return ByteBuffer.wrap(rawReadBytes());
+  }
+
+  @Override
+  public void skipFloat() throws IOException {
+    input.readFully(new byte[4]);
+  }
+
+  @Override
+  public void skipDouble() throws IOException {
+    input.readFully(new byte[8]);
+  }
+
+  @Override
+  public void skipString() throws IOException {
+    skipBytes();
+  }
+
+  @Override
+  public void skipBytes() throws IOException {
+    int len = readInt();
+    while (len > 0) {
+      int skipped = input.skipBytes(len);
+      if (skipped <= 0) {
+        // DataInput.skipBytes doesn't signal EOF, fallback to readFully which throws EOFException
+        input.readFully(new byte[len]);
+        return;
+      }
+      len -= skipped;
+    }
+  }
+
+  private byte[] rawReadBytes() throws IOException {
+    byte[] bytes = new byte[readInt()];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  private int readLittleEndian() throws IOException {
+    return input.readUnsignedByte() ^ (input.readUnsignedByte() << 8)
+      ^ (input.readUnsignedByte() << 16) ^ (input.readUnsignedByte() << 24);
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.format.io;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.common.io.Encoder;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link Encoder} that writes binary-format data to a {@link DataOutput}. Numbers are written as
+ * zig-zag variable length integers, which is the same encoding as Avro and the CDAP binary encoder.
+ */
+public final class DataOutputEncoder implements Encoder {
+
+  private final DataOutput output;
+
+  public DataOutputEncoder(DataOutput output) {
+    this.output = output;
+  }
+
+  @Override
+  public Encoder writeNull() throws IOException {
+    // No-op
+    return this;
+  }
+
+  @Override
+  public Encoder writeBool(boolean b) throws IOException {
+    output.write(b ? 1 : 0);
+    return this;
+  }
+
+  @Override
+  public Encoder writeInt(int i) throws IOException {
+    // Compute the zig-zag value. First double the value and flip the bit if the input is negative.
+    int val = (i << 1) ^ (i >> 31);
+    while ((val & ~0x7f) != 0) {
+      output.write(0x80 | val & 0x7f);
+      val >>>= 7;
+    }
+    output.write(val);
+    return this;
+  }
+
+  @Override
+  public Encoder writeLong(long l) throws IOException {
+    // Compute the zig-zag value. First double the value and flip the bit if the input is negative.
+    long val = (l << 1) ^ (l >> 63);
+    while ((val & ~0x7fL) != 0) {
+      output.write((int) (0x80 | val & 0x7f));
+      val >>>= 7;
+    }
+    output.write((int) val);
+    return this;
+  }
+
+  @Override
+  public Encoder writeFloat(float f) throws IOException {
+    writeLittleEndian(Float.floatToIntBits(f));
+    return this;
+  }
+
+  @Override
+  public Encoder writeDouble(double d) throws IOException {
+    long bits = Double.doubleToLongBits(d);
+    writeLittleEndian((int) bits);
+    writeLittleEndian((int) (bits >> 32));
+    return this;
+  }
+
+  @Override
+  public Encoder writeString(String s) throws IOException {
+    return writeBytes(Bytes.toBytes(s));
+  }
+
+  @Override
+  public Encoder writeBytes(byte[] bytes) throws IOException {
+    return writeBytes(bytes, 0, bytes.length);
+  }
+
+  @Override
+  public Encoder writeBytes(byte[] bytes, int off, int len) throws IOException {
+    writeInt(len);
+    output.write(bytes, off, len);
+    return this;
+  }
+
+  @Override
+  public Encoder writeBytes(ByteBuffer buffer) throws IOException {
+    if (buffer.hasArray()) {
+      return writeBytes(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    }
+    return writeBytes(Bytes.toBytes(buffer));
+  }
+
+  private void writeLittleEndian(int bits) throws IOException {
+    output.write(bits & 0xff);
+    output.write((bits >> 8) & 0xff);
+    output.write((bits >> 16) & 0xff);
+    output.write((bits >> 24) & 0xff);
+  }
+}
@@ -28,6 +28,7 @@ import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 
@@ -153,7 +154,8 @@ public class StructuredRecordDatumWriter implements DatumWriter<StructuredRecord
   }
 
   /**
-   * Encodes the ending of an array. This method writes out {@code 0} to signal the end of the array.
+   * Encodes the ending of an array. This method writes out {@code 0} to signal the end of the array. Nothing is
+   * written for an empty array, since the {@code 0} size written by {@link #encodeArrayBegin} already ends it.
    * Sub-class can override this to have different behavior
    *
    * @param encoder The encoder to use
@@ -162,7 +164,9 @@ public class StructuredRecordDatumWriter implements DatumWriter<StructuredRecord
    * @throws IOException If failed to encode
    */
   protected void encodeArrayEnd(Encoder encoder, Schema elementSchema, int size) throws IOException {
-    encoder.writeInt(0);
+    if (size > 0) {
+      encoder.writeInt(0);
+    }
   }
 
   /**
@@ -197,7 +201,8 @@ public class StructuredRecordDatumWriter implements DatumWriter<StructuredRecord
   }
 
   /**
-   * Encodes the ending of a {@link Map}. This method writes out {@code 0} to signal the end of the map.
+   * Encodes the ending of a {@link Map}. This method writes out {@code 0} to signal the end of the map. Nothing is
+   * written for an empty map, since the {@code 0} size written by {@link #encodeMapBegin} already ends it.
    * Sub-class can override this to have different behavior.
    *
    * @param encoder The encoder to use
@@ -207,7 +212,9 @@ public class StructuredRecordDatumWriter implements DatumWriter<StructuredRecord
    * @throws IOException If failed to encode
    */
   protected void encodeMapEnd(Encoder encoder, Schema keySchema, Schema valueSchema, int size) throws IOException {
-    encoder.writeInt(0);
+    if (size > 0) {
+      encoder.writeInt(0);
+    }
   }
 
   /**
@@ -309,9 +316,15 @@ public class StructuredRecordDatumWriter implements DatumWriter<StructuredRecord
       throw new IOException("Expected StructuredRecord type. Got: " + record.getClass());
     }
 
+    StructuredRecord structuredRecord = (StructuredRecord) record;
+    // Read values by position when the record has the same schema instance, which saves looking up by field name
+    boolean sameSchema = structuredRecord.getSchema() == recordSchema;
+    List<Schema.Field> fields = recordSchema.getFields();
+
     encodeRecordBegin(encoder, recordSchema);
-    for (Schema.Field field : recordSchema.getFields()) {
-      encodeRecordField(encoder, field, ((StructuredRecord) record).get(field.getName()));
+    for (int i = 0; i < fields.size(); i++) {
+      Schema.Field field = fields.get(i);
+      encodeRecordField(encoder, field, sameSchema ? structuredRecord.get(i) : structuredRecord.get(field.getName()));
     }
     encodeRecordEnd(encoder, recordSchema);
   }
@@ -16,12 +16,18 @@
 
 package io.cdap.cdap.format;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.format.UnexpectedFormatException;
 import io.cdap.cdap.api.data.schema.Schema;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.text.SimpleDateFormat;
@@ -223,6 +229,74 @@ public class StructuredRecordBuilderTest {
     Assert.assertNull(StructuredRecord.builder(schema).setDate("x", date).build().getDate("y"));
   }
 
+  @Test
+  public void testIndexAccess() {
+    Schema schema = Schema.recordOf("record", Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("name", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("score", Schema.of(Schema.Type.DOUBLE)));
+    Assert.assertEquals(0, schema.getFieldIndex("id"));
+    Assert.assertEquals(2, schema.getFieldIndex("score"));
+    Assert.assertEquals(-1, schema.getFieldIndex("x"));
+    Assert.assertEquals(-1, Schema.of(Schema.Type.INT).getFieldIndex("id"));
+
+    StructuredRecord record = StructuredRecord.builder(schema).set(0, 1).set("score", 0.5d).build();
+    Assert.assertEquals(1, (int) record.get(0));
+    Assert.assertEquals(1, (int) record.get("id"));
+    Assert.assertNull(record.get(1));
+    Assert.assertNull(record.get("name"));
+    Assert.assertEquals(0.5d, record.get(2), 0.0d);
+    Assert.assertEquals(record, StructuredRecord.builder(schema).set("id", 1).set(2, 0.5d).build());
+  }
+
+  @Test(expected = UnexpectedFormatException.class)
+  public void testSetNullByIndex() {
+    Schema schema = Schema.recordOf("record", Schema.Field.of("id", Schema.of(Schema.Type.INT)));
+    StructuredRecord.builder(schema).set(0, null).build();
+  }
+
+  @Test(expected = UnexpectedFormatException.class)
+  public void testSetNonExistentIndex() {
+    Schema schema = Schema.recordOf("record", Schema.Field.of("id", Schema.of(Schema.Type.INT)));
+    StructuredRecord.builder(schema).set(1, 1).build();
+  }
+
+  @Test
+  public void testJavaSerialization() throws Exception {
+    Schema schema = Schema.recordOf("record", Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("name", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    StructuredRecord record = StructuredRecord.builder(schema).set("id", 1).set("name", "test").build();
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(record);
+    }
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+      StructuredRecord copy = (StructuredRecord) ois.readObject();
+      Assert.assertEquals(record, copy);
+      Assert.assertEquals("test", copy.get(1));
+    }
+  }
+
+  @Test
+  public void testGsonSerialization() {
+    Schema schema = Schema.recordOf("record", Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("name", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    StructuredRecord record = StructuredRecord.builder(schema).set("id", 1).set("name", "test").build();
+
+    // The reflective form is the schema and a map from field name to value
+    Gson gson = new Gson();
+    JsonObject json = gson.toJsonTree(record).getAsJsonObject();
+    Assert.assertEquals(1, json.getAsJsonObject("fields").get("id").getAsInt());
+    Assert.assertEquals("test", json.getAsJsonObject("fields").get("name").getAsString());
+
+    StructuredRecord copy = gson.fromJson(json, StructuredRecord.class);
+    Assert.assertEquals(schema, copy.getSchema());
+    Assert.assertEquals(1, ((Number) copy.get("id")).intValue());
+    Assert.assertEquals("test", copy.get(1));
+    Assert.assertEquals(json.get("fields").getAsJsonObject().get("name"),
+                        gson.toJsonTree(copy).getAsJsonObject().getAsJsonObject("fields").get("name"));
+  }
+
   @Test(expected = UnexpectedFormatException.class)
   public void testSetNonExistentField() {
     Schema schema = Schema.recordOf("record", Schema.Field.of("x", Schema.of(Schema.LogicalType.DATE)));
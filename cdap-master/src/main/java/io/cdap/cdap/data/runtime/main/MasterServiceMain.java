@@ -53,6 +53,7 @@ import io.cdap.cdap.common.logging.LoggerLogHandler;
 import io.cdap.cdap.common.runtime.DaemonMain;
 import io.cdap.cdap.common.service.RetryOnStartFailureService;
 import io.cdap.cdap.common.service.RetryStrategies;
+import io.cdap.cdap.common.service.ServiceGraph;
 import io.cdap.cdap.common.service.Services;
 import io.cdap.cdap.common.twill.HadoopClassExcluder;
 import io.cdap.cdap.common.utils.DirUtils;
@@ -650,12 +651,11 @@ public class MasterServiceMain extends DaemonMain {
       }
 
       authorizerInstantiator = injector.getInstance(AuthorizerInstantiator.class);
-      services.add(injector.getInstance(KafkaClientService.class));
-      services.add(injector.getInstance(MetricsCollectionService.class));
-      services.add(injector.getInstance(OperationalStatsService.class));
+      KafkaClientService kafkaClientService = injector.getInstance(KafkaClientService.class);
+      MetricsCollectionService metricsCollectionService = injector.getInstance(MetricsCollectionService.class);
+      OperationalStatsService operationalStatsService = injector.getInstance(OperationalStatsService.class);
       ServiceStore serviceStore = getAndStart(injector, ServiceStore.class);
-      services.add(serviceStore);
-      services.add(injector.getInstance(SecureStoreService.class));
+      SecureStoreService secureStoreService = injector.getInstance(SecureStoreService.class);
 
       twillRunner = injector.getInstance(TwillRunnerService.class);
       twillRunner.start();
@@ -675,31 +675,43 @@ public class MasterServiceMain extends DaemonMain {
       }
 
       // Create app-fabric and dataset services
-      services.add(new RetryOnStartFailureService(() -> injector.getInstance(DatasetService.class),
-                                                  RetryStrategies.exponentialDelay(200, 5000, TimeUnit.MILLISECONDS)));
-      services.add(injector.getInstance(AppFabricServer.class));
+      Service datasetService = new RetryOnStartFailureService(
+        () -> injector.getInstance(DatasetService.class),
+        RetryStrategies.exponentialDelay(200, 5000, TimeUnit.MILLISECONDS));
+      AppFabricServer appFabricServer = injector.getInstance(AppFabricServer.class);
+
+      // Services are stopped in the reverse order
+      services.add(kafkaClientService);
+      services.add(metricsCollectionService);
+      services.add(operationalStatsService);
+      services.add(serviceStore);
+      services.add(secureStoreService);
+      services.add(datasetService);
+      services.add(appFabricServer);
 
       executor = Executors.newSingleThreadScheduledExecutor(Threads.createDaemonThreadFactory("master-runner"));
 
       // Start monitoring twill application
       monitorTwillApplication(executor, 0, controller, twillRunner, serviceStore, secureStoreRenewer);
 
-      // Starts all services.
-      for (Service service : services) {
-        if (service.isRunning()) {
-          // Some services are already started
-          continue;
-        }
-        LOG.info("Starting service in master: {}", service);
-        try {
-          service.startAndWait();
-        } catch (Throwable t) {
-          // shut down the executor and stop the twill app,
-          // then throw an exception to cause the leader election service to stop
-          // leader election's listener will then shutdown the master
-          stop(true);
-          throw new RuntimeException(String.format("Unable to start service %s: %s", service, t.getMessage()));
-        }
+      // Starts all services concurrently according to their dependencies. Services already started are skipped.
+      try {
+        ServiceGraph.builder()
+          .addService("kafka.client", kafkaClientService)
+          .addService("metrics.collection", metricsCollectionService, "kafka.client")
+          .addService("operational.stats", operationalStatsService)
+          .addService("service.store", serviceStore)
+          .addService("secure.store", secureStoreService)
+          .addService("dataset.service", datasetService)
+          .addService("app.fabric", appFabricServer, "metrics.collection", "service.store", "dataset.service")
+          .build()
+          .startAndWait(metricsCollectionService.getContext(Constants.Metrics.SERVICE_STARTUP_METRICS_TAGS));
+      } catch (Throwable t) {
+        // shut down the executor and stop the twill app,
+        // then throw an exception to cause the leader election service to stop
+        // leader election's listener will then shutdown the master
+        stop(true);
+        throw new RuntimeException(String.format("Unable to start services: %s", t.getMessage()), t);
       }
       LOG.info("CDAP Master started successfully.");
     }
@@ -0,0 +1,199 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data.tools;
+
+import com.google.common.util.concurrent.AbstractIdleService;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+import com.google.inject.name.Names;
+import io.cdap.cdap.app.guice.AppFabricServiceRuntimeModule;
+import io.cdap.cdap.app.guice.AuthorizationModule;
+import io.cdap.cdap.app.guice.ProgramRunnerRuntimeModule;
+import io.cdap.cdap.app.guice.TwillModule;
+import io.cdap.cdap.app.store.Store;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.guice.DFSLocationModule;
+import io.cdap.cdap.common.guice.IOModule;
+import io.cdap.cdap.common.guice.KafkaClientModule;
+import io.cdap.cdap.common.guice.ZKClientModule;
+import io.cdap.cdap.common.guice.ZKDiscoveryModule;
+import io.cdap.cdap.data.runtime.DataFabricModules;
+import io.cdap.cdap.data.runtime.DataSetsModules;
+import io.cdap.cdap.data.runtime.SystemDatasetRuntimeModule;
+import io.cdap.cdap.data2.dataset2.DatasetFramework;
+import io.cdap.cdap.data2.metadata.writer.MetadataServiceClient;
+import io.cdap.cdap.data2.metadata.writer.NoOpMetadataServiceClient;
+import io.cdap.cdap.explore.guice.ExploreClientModule;
+import io.cdap.cdap.internal.app.services.RunRecordIndexService;
+import io.cdap.cdap.internal.app.store.AppMetadataStore;
+import io.cdap.cdap.internal.app.store.DefaultStore;
+import io.cdap.cdap.logging.guice.KafkaLogAppenderModule;
+import io.cdap.cdap.messaging.guice.MessagingClientModule;
+import io.cdap.cdap.metrics.guice.MetricsClientRuntimeModule;
+import io.cdap.cdap.metrics.guice.MetricsStoreModule;
+import io.cdap.cdap.security.authorization.AuthorizationEnforcementModule;
+import io.cdap.cdap.security.guice.SecureStoreServerModule;
+import io.cdap.cdap.security.impersonation.SecurityUtil;
+import io.cdap.cdap.spi.data.StructuredTableAdmin;
+import io.cdap.cdap.spi.data.TableAlreadyExistsException;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.store.StoreDefinition;
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.twill.zookeeper.ZKClientService;
+
+import java.io.IOException;
+
+/**
+ * Tool for rebuilding the run record indexes of the {@link AppMetadataStore}, which index run records by the
+ * program run status. The indexes are maintained whenever a run record is written, hence this tool only needs to be
+ * run once for run records written by a CDAP version before the indexes were introduced, which is done as part of the
+ * {@link UpgradeTool} upgrade. Otherwise, the indexes are built by the {@link RunRecordIndexService} when App Fabric
+ * starts. It is safe to run the tool while CDAP is running.
+ */
+public class RunRecordIndexRebuilder extends AbstractIdleService {
+
+  private final ZKClientService zkClientService;
+  private final StructuredTableAdmin tableAdmin;
+  private final TransactionRunner transactionRunner;
+
+  @Inject
+  public RunRecordIndexRebuilder(ZKClientService zkClientService, StructuredTableAdmin tableAdmin,
+                                 TransactionRunner transactionRunner) {
+    this.zkClientService = zkClientService;
+    this.tableAdmin = tableAdmin;
+    this.transactionRunner = transactionRunner;
+  }
+
+  @Override
+  protected void startUp() {
+    zkClientService.startAndWait();
+  }
+
+  @Override
+  protected void shutDown() {
+    zkClientService.stopAndWait();
+  }
+
+  /**
+   * Rebuilds the run record indexes, processing the given number of rows in each transaction.
+   */
+  void rebuild(int batchSize) throws IOException, TableAlreadyExistsException {
+    // Create the index tables if CDAP has not been started with a version that has the indexes yet
+    StoreDefinition.AppMetadataStore.createTables(tableAdmin, false);
+
+    System.out.println("Rebuilding run record indexes.");
+    new RunRecordIndexService(transactionRunner).rebuild(batchSize);
+    System.out.println("Run record indexes rebuilt.");
+  }
+
+  private static Injector createInjector() throws Exception {
+
+    CConfiguration cConf = CConfiguration.create();
+    if (cConf.getBoolean(Constants.Security.Authorization.ENABLED)) {
+      System.out.println(String.format("Disabling authorization for %s.",
+                                       RunRecordIndexRebuilder.class.getSimpleName()));
+      cConf.setBoolean(Constants.Security.Authorization.ENABLED, false);
+    }
+    // Note: login has to happen before any objects that need Kerberos credentials are instantiated.
+    SecurityUtil.loginForMasterService(cConf);
+
+    return Guice.createInjector(
+      new ConfigModule(cConf, HBaseConfiguration.create()),
+      new IOModule(),
+      new ZKClientModule(),
+      new ZKDiscoveryModule(),
+      new DFSLocationModule(),
+      new TwillModule(),
+      new ExploreClientModule(),
+      new DataFabricModules().getDistributedModules(),
+      new DataSetsModules().getDistributedModules(),
+      new AppFabricServiceRuntimeModule().getDistributedModules(),
+      new ProgramRunnerRuntimeModule().getDistributedModules(),
+      new SystemDatasetRuntimeModule().getDistributedModules(),
+      new KafkaLogAppenderModule(),
+      new MetricsClientRuntimeModule().getDistributedModules(),
+      new MetricsStoreModule(),
+      new KafkaClientModule(),
+      new AuthorizationModule(),
+      new AuthorizationEnforcementModule().getMasterModule(),
+      new SecureStoreServerModule(),
+      new MessagingClientModule(),
+      new AbstractModule() {
+        @Override
+        protected void configure() {
+          bind(Store.class).annotatedWith(Names.named("defaultStore")).to(DefaultStore.class).in(Singleton.class);
+
+          // This is needed because the LocalApplicationManager
+          // expects a dsframework injection named datasetMDS
+          bind(DatasetFramework.class)
+            .annotatedWith(Names.named("datasetMDS"))
+            .to(DatasetFramework.class).in(Singleton.class);
+          // TODO (CDAP-14677): find a better way to inject metadata publisher
+          bind(MetadataServiceClient.class).to(NoOpMetadataServiceClient.class);
+        }
+      });
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options options = new Options()
+      .addOption(new Option("h", "help", false, "Print this usage message."))
+      .addOption(new Option("b", "batch-size", true, "Number of run records to process in each transaction. "
+        + "Defaults to " + RunRecordIndexService.DEFAULT_BATCH_SIZE + "."));
+
+    CommandLineParser parser = new BasicParser();
+    CommandLine commandLine = parser.parse(options, args);
+    String[] commandArgs = commandLine.getArgs();
+
+    // if help is an option, or if there is a command, print usage and exit.
+    if (commandLine.hasOption("h") || commandArgs.length != 0) {
+      HelpFormatter helpFormatter = new HelpFormatter();
+      helpFormatter.printHelp(
+        RunRecordIndexRebuilder.class.getName(),
+        "Rebuilds the indexes of program run records by the run status.",
+        options, "");
+      System.exit(0);
+    }
+
+    int batchSize = RunRecordIndexService.DEFAULT_BATCH_SIZE;
+    if (commandLine.hasOption("b")) {
+      batchSize = Integer.parseInt(commandLine.getOptionValue("b"));
+      if (batchSize <= 0) {
+        System.err.println("Batch size must be positive.");
+        System.exit(1);
+      }
+    }
+
+    RunRecordIndexRebuilder rebuilder = createInjector().getInstance(RunRecordIndexRebuilder.class);
+    rebuilder.startAndWait();
+    try {
+      rebuilder.rebuild(batchSize);
+    } finally {
+      rebuilder.stopAndWait();
+    }
+  }
+}
@@ -66,6 +66,7 @@ import io.cdap.cdap.data2.util.hbase.CoprocessorManager;
 import io.cdap.cdap.data2.util.hbase.HBaseTableUtil;
 import io.cdap.cdap.explore.guice.ExploreClientModule;
 import io.cdap.cdap.internal.app.runtime.schedule.store.ProgramScheduleStoreDataset;
+import io.cdap.cdap.internal.app.services.RunRecordIndexService;
 import io.cdap.cdap.internal.app.store.DefaultStore;
 import io.cdap.cdap.logging.guice.KafkaLogAppenderModule;
 import io.cdap.cdap.messaging.guice.MessagingClientModule;
@@ -110,6 +111,7 @@ public class UpgradeTool {
   private final DatasetUpgrader dsUpgrade;
   private final HBaseTableFactory tmsTableFactory;
   private final CoprocessorManager coprocessorManager;
+  private final RunRecordIndexRebuilder runRecordIndexRebuilder;
 
   /**
    * Set of Action available in this tool.
@@ -119,6 +121,7 @@ public class UpgradeTool {
               "  The upgrade tool upgrades the following: \n" +
               "  1. User and System Datasets (upgrades the coprocessor jars)\n" +
               "  2. Stream State Store\n" +
+              "  3. Run record indexes\n" +
               "  Note: Once you run the upgrade tool you cannot rollback to the previous version."),
     UPGRADE_HBASE("After an HBase upgrade, updates the coprocessor jars of all user and \n" +
                     "system HBase tables to a version that is compatible with the new HBase \n" +
@@ -155,6 +158,7 @@ public class UpgradeTool {
     LocationFactory locationFactory = injector.getInstance(LocationFactory.class);
     HBaseTableUtil tableUtil = injector.getInstance(HBaseTableUtil.class);
     this.coprocessorManager = new CoprocessorManager(cConf, locationFactory, tableUtil);
+    this.runRecordIndexRebuilder = injector.getInstance(RunRecordIndexRebuilder.class);
 
 
     Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -413,6 +417,11 @@ public class UpgradeTool {
 
   private void performUpgrade() throws Exception {
     performCoprocessorUpgrade();
+
+    // Run records written by previous versions are not in the run record indexes, which are used for querying runs
+    // by completed statuses
+    LOG.info("Rebuilding run record indexes...");
+    runRecordIndexRebuilder.rebuild(RunRecordIndexService.DEFAULT_BATCH_SIZE);
   }
 
   private void performHBaseUpgrade() throws Exception {
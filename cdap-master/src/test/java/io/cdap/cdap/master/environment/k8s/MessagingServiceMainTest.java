@@ -18,6 +18,7 @@ package io.cdap.cdap.master.environment.k8s;
 
 import com.google.inject.Injector;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.client.ClientMessagingService;
@@ -50,7 +51,8 @@ public class MessagingServiceMainTest extends MasterServiceMainTestBase {
 
     // Use a separate TMS client to create topic, then publish and then poll some messages
     TopicId topicId = NamespaceId.SYSTEM.topic("test");
-    MessagingService messagingService = new ClientMessagingService(discoveryServiceClient);
+    CConfiguration cConf = injector.getInstance(CConfiguration.class);
+    MessagingService messagingService = new ClientMessagingService(cConf, discoveryServiceClient);
     messagingService.createTopic(new TopicMetadata(topicId));
 
     // Publish 10 messages
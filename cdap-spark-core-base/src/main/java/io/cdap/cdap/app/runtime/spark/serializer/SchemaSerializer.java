@@ -24,12 +24,25 @@ import com.esotericsoftware.kryo.io.Output;
 import io.cdap.cdap.api.data.schema.Schema;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * A Kryo {@link Serializer} for {@link Schema}.
  */
 public class SchemaSerializer extends Serializer<Schema> {
 
+  private static final int MAX_CACHED_SCHEMAS = 128;
+
+  // Cache of parsed schemas keyed by the schema json to avoid parsing the same schema json repeatedly.
+  // No need to be thread safe since each Kryo instance has its own serializer instance and is used by one thread.
+  private final Map<String, Schema> schemaCache = new LinkedHashMap<String, Schema>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Schema> eldest) {
+      return size() > MAX_CACHED_SCHEMAS;
+    }
+  };
+
   @Override
   public void write(Kryo kryo, Output output, Schema schema) {
     output.writeString(schema.toString());
@@ -37,10 +50,17 @@ public class SchemaSerializer extends Serializer<Schema> {
 
   @Override
   public Schema read(Kryo kryo, Input input, Class<Schema> type) {
+    String json = input.readString();
+    Schema schema = schemaCache.get(json);
+    if (schema != null) {
+      return schema;
+    }
     try {
-      return Schema.parseJson(input.readString());
+      schema = Schema.parseJson(json);
     } catch (IOException e) {
       throw new KryoException("Fail to deserialize Schema", e);
     }
+    schemaCache.put(json, schema);
+    return schema;
   }
 }
@@ -27,35 +27,119 @@ import io.cdap.cdap.format.io.StructuredRecordDatumReader;
 import io.cdap.cdap.format.io.StructuredRecordDatumWriter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A Kryo {@link Serializer} for {@link StructuredRecord}.
+ *
+ * The {@link Schema} of a record is written as a varint schema id, followed by the record data. The first time a
+ * schema is written within the current Kryo object graph, it is assigned the next id, and the id {@code 0} followed
+ * by the schema json is written instead. Schema ids are kept in the Kryo graph context, which is cleared whenever
+ * Kryo resets. With auto reset enabled, which is what Spark requires before relocating serialized records in the
+ * serialized sort shuffle, the ids are only shared by records written as part of the same top level object, such
+ * as an array of records. Without auto reset, the ids are shared by all records written to the same stream.
+ * In either case, a serialized object never refers to schemas defined outside of it.
  */
 public class StructuredRecordSerializer extends Serializer<StructuredRecord> {
 
+  private static final int MAX_CACHED_SCHEMAS = 128;
   private static final StructuredRecordDatumWriter DATUM_WRITER = new StructuredRecordDatumWriter();
   private static final StructuredRecordDatumReader DATUM_READER = new StructuredRecordDatumReader();
 
+  // No need to be thread safe since each Kryo instance has its own serializer instance and is used by one thread.
+  // The schema ids of the current object graph. They are reused as long as the keys are in the Kryo graph context.
+  private final Object writeScope = new Object();
+  private final Object readScope = new Object();
+  private final Map<Schema, Integer> writeSchemaIds = new HashMap<>();
+  private final List<Schema> readSchemas = new ArrayList<>();
+  // Cache of parsed schemas keyed by the schema json, so that a schema is not parsed for every object graph
+  private final Map<String, Schema> schemaCache = new LinkedHashMap<String, Schema>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Schema> eldest) {
+      return size() > MAX_CACHED_SCHEMAS;
+    }
+  };
+
   @Override
   public void write(Kryo kryo, Output output, StructuredRecord record) {
-    // First write out the schema
-    kryo.writeObject(output, record.getSchema());
+    // First write out the schema id, followed by the schema if it is not yet written in the current object graph
+    Schema schema = record.getSchema();
+    if (enterScope(kryo, writeScope)) {
+      writeSchemaIds.clear();
+    }
+    Integer id = writeSchemaIds.get(schema);
+    if (id == null) {
+      writeSchemaIds.put(schema, writeSchemaIds.size());
+      output.writeInt(0, true);
+      output.writeString(schema.toString());
+    } else {
+      output.writeInt(id + 1, true);
+    }
+
     // Then write out the data
     try {
       DATUM_WRITER.encode(record, new KryoEncoder(output));
     } catch (IOException e) {
-      throw new KryoException("Failed to encode StructuredRecord " + record.getSchema().getRecordName(), e);
+      throw new KryoException("Failed to encode StructuredRecord " + schema.getRecordName(), e);
     }
   }
 
   @Override
   public StructuredRecord read(Kryo kryo, Input input, Class<StructuredRecord> type) {
-    // Read the schema
-    Schema schema = kryo.readObject(input, Schema.class);
+    // Read the schema id, followed by the schema if it is not yet defined in the current object graph
+    if (enterScope(kryo, readScope)) {
+      readSchemas.clear();
+    }
+    int id = input.readInt(true);
+    Schema schema;
+    if (id == 0) {
+      schema = readSchema(input);
+      readSchemas.add(schema);
+    } else if (id <= readSchemas.size()) {
+      schema = readSchemas.get(id - 1);
+    } else {
+      throw new KryoException("Unknown schema id " + (id - 1) + " in the serialized StructuredRecord");
+    }
+
     try {
       return DATUM_READER.read(new KryoDecoder(input), schema);
     } catch (IOException e) {
       throw new KryoException("Failed to decode StructuredRecord " + schema.getRecordName(), e);
     }
   }
+
+  /**
+   * Reads the schema json, which only needs to be parsed if it is not in the cache.
+   */
+  private Schema readSchema(Input input) {
+    String json = input.readString();
+    Schema schema = schemaCache.get(json);
+    if (schema == null) {
+      try {
+        schema = Schema.parseJson(json);
+      } catch (IOException e) {
+        throw new KryoException("Fail to deserialize Schema", e);
+      }
+      schemaCache.put(json, schema);
+    }
+    return schema;
+  }
+
+  /**
+   * Marks the given scope key in the graph context of the given {@link Kryo}.
+   *
+   * @return {@code true} if this starts a new scope, since Kryo was reset after the key was last marked
+   */
+  @SuppressWarnings("unchecked")
+  private static boolean enterScope(Kryo kryo, Object scope) {
+    if (kryo.getGraphContext().get(scope) != null) {
+      return false;
+    }
+    kryo.getGraphContext().put(scope, Boolean.TRUE);
+    return true;
+  }
 }
@@ -29,6 +29,9 @@ import org.junit.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Unit tests for various Kryo serializers in CDAP.
@@ -87,6 +90,131 @@ public class KryoSerializerTest {
                         StructuredRecordStringConverter.toJsonString(newRecord));
   }
 
+  @Test
+  public void testStructuredRecordRelocation() throws IOException {
+    Kryo kryo = new Kryo();
+    kryo.addDefaultSerializer(StructuredRecord.class, StructuredRecordSerializer.class);
+
+    List<StructuredRecord> records = createRecords();
+
+    // Serialize the records with the same Kryo and keep the bytes of each record
+    List<byte[]> serialized = new ArrayList<>();
+    for (StructuredRecord record : records) {
+      try (Output output = new Output(1024, -1)) {
+        kryo.writeObject(output, record);
+        serialized.add(output.toBytes());
+      }
+    }
+
+    // Each record should be readable on its own in any order, which is how the serialized shuffle relocates records.
+    // Reading with a different Kryo instance reads records with schemas that are not cached.
+    Kryo otherKryo = new Kryo();
+    otherKryo.addDefaultSerializer(StructuredRecord.class, StructuredRecordSerializer.class);
+    for (Kryo readKryo : Arrays.asList(kryo, otherKryo)) {
+      for (int i = records.size() - 1; i >= 0; i--) {
+        StructuredRecord newRecord = readKryo.readObject(new Input(serialized.get(i)), StructuredRecord.class);
+        Assert.assertEquals(records.get(i).getSchema(), newRecord.getSchema());
+        Assert.assertEquals(StructuredRecordStringConverter.toJsonString(records.get(i)),
+                            StructuredRecordStringConverter.toJsonString(newRecord));
+      }
+    }
+  }
+
+  @Test
+  public void testStructuredRecordStream() throws IOException {
+    List<StructuredRecord> records = createRecords();
+
+    // Without auto reset, records written to the same stream share the schema ids
+    Kryo kryo = new Kryo();
+    kryo.setAutoReset(false);
+    kryo.addDefaultSerializer(StructuredRecord.class, StructuredRecordSerializer.class);
+    byte[] serialized = writeRecords(kryo, records);
+
+    // With auto reset, every record carries its schema json
+    Kryo autoResetKryo = new Kryo();
+    autoResetKryo.addDefaultSerializer(StructuredRecord.class, StructuredRecordSerializer.class);
+    byte[] autoResetSerialized = writeRecords(autoResetKryo, records);
+    Assert.assertTrue(serialized.length * 3 < autoResetSerialized.length);
+
+    Input input = new Input(serialized);
+    for (StructuredRecord record : records) {
+      StructuredRecord newRecord = kryo.readObject(input, StructuredRecord.class);
+      Assert.assertEquals(record.getSchema(), newRecord.getSchema());
+      Assert.assertEquals(StructuredRecordStringConverter.toJsonString(record),
+                          StructuredRecordStringConverter.toJsonString(newRecord));
+    }
+
+    // A reset starts new schema ids
+    kryo.reset();
+    try (Output output = new Output(1024, -1)) {
+      kryo.writeObject(output, records.get(0));
+      serialized = output.toBytes();
+    }
+    kryo.reset();
+    StructuredRecord newRecord = kryo.readObject(new Input(serialized), StructuredRecord.class);
+    Assert.assertEquals(StructuredRecordStringConverter.toJsonString(records.get(0)),
+                        StructuredRecordStringConverter.toJsonString(newRecord));
+  }
+
+  @Test
+  public void testStructuredRecordArray() throws IOException {
+    List<StructuredRecord> records = createRecords();
+
+    // With auto reset, records written as part of the same object share the schema ids
+    Kryo kryo = new Kryo();
+    kryo.addDefaultSerializer(StructuredRecord.class, StructuredRecordSerializer.class);
+
+    byte[] serialized;
+    try (Output output = new Output(1024, -1)) {
+      kryo.writeObject(output, records.toArray(new StructuredRecord[0]));
+      kryo.writeObject(output, records.get(0));
+      serialized = output.toBytes();
+    }
+
+    Input input = new Input(serialized);
+    StructuredRecord[] newRecords = kryo.readObject(input, StructuredRecord[].class);
+    Assert.assertEquals(records.size(), newRecords.length);
+    for (int i = 0; i < records.size(); i++) {
+      Assert.assertEquals(StructuredRecordStringConverter.toJsonString(records.get(i)),
+                          StructuredRecordStringConverter.toJsonString(newRecords[i]));
+    }
+    StructuredRecord newRecord = kryo.readObject(input, StructuredRecord.class);
+    Assert.assertEquals(StructuredRecordStringConverter.toJsonString(records.get(0)),
+                        StructuredRecordStringConverter.toJsonString(newRecord));
+  }
+
+  private byte[] writeRecords(Kryo kryo, List<StructuredRecord> records) {
+    try (Output output = new Output(1024, -1)) {
+      for (StructuredRecord record : records) {
+        kryo.writeObject(output, record);
+      }
+      return output.toBytes();
+    }
+  }
+
+  private List<StructuredRecord> createRecords() {
+    Schema schema = createSchema();
+    Schema otherSchema = Schema.recordOf("other", Schema.Field.of("name", Schema.of(Schema.Type.STRING)));
+
+    List<StructuredRecord> records = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      records.add(StructuredRecord.builder(schema)
+                    .set("boolean", i % 2 == 0)
+                    .set("int", i)
+                    .set("long", 1L + i)
+                    .set("float", 1.5f)
+                    .set("double", 2.25d)
+                    .set("string", "Hello " + i)
+                    .set("bytes", "Hello Bytes".getBytes(StandardCharsets.UTF_8))
+                    .set("enum", "b")
+                    .set("array", new int[]{i})
+                    .set("map", ImmutableMap.of("1", i))
+                    .set("union", null).build());
+      records.add(StructuredRecord.builder(otherSchema).set("name", "name" + i).build());
+    }
+    return records;
+  }
+
   private Schema createSchema() {
     return Schema.recordOf("record",
       Schema.Field.of("boolean", Schema.of(Schema.Type.BOOLEAN)),
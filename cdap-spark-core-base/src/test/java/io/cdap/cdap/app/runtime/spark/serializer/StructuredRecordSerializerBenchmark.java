@@ -0,0 +1,170 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.app.runtime.spark.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.format.io.StructuredRecordDatumReader;
+import io.cdap.cdap.format.io.StructuredRecordDatumWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the {@link StructuredRecordSerializer} with the previous serializer, which writes the
+ * schema json with every record. It reports the records/sec throughput for writing and reading a batch of records,
+ * with Kryo auto reset enabled, where each record is a separate object graph, and disabled, where all records in
+ * the batch share the schema ids. The serialized bytes per record are printed during setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StructuredRecordSerializerBenchmark {
+
+  private static final int RECORDS_PER_BATCH = 1000;
+
+  @Param({"false", "true"})
+  public boolean baseline;
+
+  @Param({"true", "false"})
+  public boolean autoReset;
+
+  @Param({"10", "100"})
+  public int fields;
+
+  private Kryo kryo;
+  private List<StructuredRecord> records;
+  private byte[] serialized;
+
+  @Setup
+  public void setup() {
+    kryo = new Kryo();
+    kryo.setAutoReset(autoReset);
+    kryo.addDefaultSerializer(Schema.class, SchemaSerializer.class);
+    kryo.addDefaultSerializer(StructuredRecord.class,
+                              baseline ? BaselineStructuredRecordSerializer.class : StructuredRecordSerializer.class);
+
+    List<Schema.Field> schemaFields = new ArrayList<>();
+    for (int i = 0; i < fields; i++) {
+      schemaFields.add(Schema.Field.of("field" + i, i % 2 == 0
+        ? Schema.of(Schema.Type.LONG)
+        : Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    }
+    Schema schema = Schema.recordOf("record", schemaFields);
+
+    records = new ArrayList<>(RECORDS_PER_BATCH);
+    for (int i = 0; i < RECORDS_PER_BATCH; i++) {
+      StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+      for (int j = 0; j < fields; j++) {
+        builder.set("field" + j, j % 2 == 0 ? (Object) ((long) i * j) : "value" + i);
+      }
+      records.add(builder.build());
+    }
+    serialized = write();
+    System.out.printf("Serialized bytes per record (baseline=%s, autoReset=%s, fields=%d): %d%n",
+                      baseline, autoReset, fields, serialized.length / RECORDS_PER_BATCH);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS_PER_BATCH)
+  public byte[] serialize() {
+    return write();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS_PER_BATCH)
+  public StructuredRecord deserialize() {
+    StructuredRecord record = null;
+    kryo.reset();
+    Input input = new Input(serialized);
+    for (int i = 0; i < RECORDS_PER_BATCH; i++) {
+      record = kryo.readObject(input, StructuredRecord.class);
+    }
+    return record;
+  }
+
+  private byte[] write() {
+    kryo.reset();
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (Output output = new Output(bos)) {
+      for (StructuredRecord record : records) {
+        kryo.writeObject(output, record);
+      }
+    }
+    return bos.toByteArray();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(StructuredRecordSerializerBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  /**
+   * The previous {@link StructuredRecordSerializer}, which writes the schema json with every record and parses it
+   * on every read.
+   */
+  public static final class BaselineStructuredRecordSerializer extends Serializer<StructuredRecord> {
+
+    private static final StructuredRecordDatumWriter DATUM_WRITER = new StructuredRecordDatumWriter();
+    private static final StructuredRecordDatumReader DATUM_READER = new StructuredRecordDatumReader();
+
+    @Override
+    public void write(Kryo kryo, Output output, StructuredRecord record) {
+      output.writeString(record.getSchema().toString());
+      try {
+        DATUM_WRITER.encode(record, new KryoEncoder(output));
+      } catch (IOException e) {
+        throw new KryoException("Failed to encode StructuredRecord " + record.getSchema().getRecordName(), e);
+      }
+    }
+
+    @Override
+    public StructuredRecord read(Kryo kryo, Input input, Class<StructuredRecord> type) {
+      try {
+        Schema schema = Schema.parseJson(input.readString());
+        return DATUM_READER.read(new KryoDecoder(input), schema);
+      } catch (IOException e) {
+        throw new KryoException("Failed to decode StructuredRecord", e);
+      }
+    }
+  }
+}
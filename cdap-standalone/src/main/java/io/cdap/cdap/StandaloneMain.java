@@ -45,6 +45,7 @@ import io.cdap.cdap.common.guice.LocalLocationModule;
 import io.cdap.cdap.common.guice.ZKClientModule;
 import io.cdap.cdap.common.io.URLConnections;
 import io.cdap.cdap.common.logging.common.UncaughtExceptionHandler;
+import io.cdap.cdap.common.service.ServiceGraph;
 import io.cdap.cdap.common.startup.ConfigurationLogger;
 import io.cdap.cdap.common.utils.DirUtils;
 import io.cdap.cdap.common.utils.OSDetector;
@@ -233,61 +234,48 @@ public class StandaloneMain {
 
     ConfigurationLogger.logImportantConfig(cConf);
 
-    if (messagingService instanceof Service) {
-      ((Service) messagingService).startAndWait();
-    }
-    // TODO: CDAP-7688, remove next line after the issue is resolved
-    injector.getInstance(MessagingHttpService.class).startAndWait();
-
-    if (txService != null) {
-      txService.startAndWait();
-    }
-    // Define all StructuredTable before starting any services that need StructuredTable
-    StoreDefinition.createAllTables(injector.getInstance(StructuredTableAdmin.class),
-                                    injector.getInstance(StructuredTableRegistry.class));
-    metadataStorage.createIndex();
-
-    metricsCollectionService.startAndWait();
-    datasetOpExecutorService.startAndWait();
-    datasetService.startAndWait();
-    serviceStore.startAndWait();
-
-    remoteExecutionTwillRunnerService.start();
-    metadataSubscriberService.startAndWait();
-
-    // Validate the logging pipeline configuration.
-    // Do it explicitly as Standalone doesn't have a separate master check phase as the distributed does.
-    new LogPipelineLoader(cConf).validate();
-    // It is recommended to initialize log appender after datasetService is started,
-    // since log appender instantiates a dataset.
-    logAppenderInitializer.initialize();
-
-    Service.State state = appFabricServer.startAndWait();
-    if (state != Service.State.RUNNING) {
-      throw new Exception("Failed to start Application Fabric");
-    }
-
-    previewHttpServer.startAndWait();
-    metricsQueryService.startAndWait();
-    logQueryService.startAndWait();
-    router.startAndWait();
-
-    if (userInterfaceService != null) {
-      userInterfaceService.startAndWait();
-    }
-
-    if (securityEnabled) {
-      externalAuthenticationServer.startAndWait();
-    }
-
-    if (exploreExecutorService != null) {
-      exploreExecutorService.startAndWait();
-    }
-    metadataService.startAndWait();
-
-    operationalStatsService.startAndWait();
-
-    secureStoreService.startAndWait();
+    // Services are started concurrently according to their dependencies
+    ServiceGraph.builder()
+      .addService("messaging", messagingService instanceof Service ? (Service) messagingService : null)
+      // TODO: CDAP-7688, remove next line after the issue is resolved
+      .addService("messaging.http", injector.getInstance(MessagingHttpService.class), "messaging")
+      .addService("transaction", txService)
+      // Define all StructuredTable before starting any services that need StructuredTable
+      .addTask("system.tables", () -> {
+        StoreDefinition.createAllTables(injector.getInstance(StructuredTableAdmin.class),
+                                        injector.getInstance(StructuredTableRegistry.class));
+        metadataStorage.createIndex();
+      }, "transaction")
+      .addService("metrics.collection", metricsCollectionService, "messaging.http", "system.tables")
+      .addService("dataset.executor", datasetOpExecutorService, "system.tables")
+      .addService("dataset.service", datasetService, "dataset.executor", "messaging.http")
+      .addService("service.store", serviceStore, "system.tables")
+      .addTask("remote.execution.twill.runner", remoteExecutionTwillRunnerService::start,
+               "system.tables", "service.store")
+      .addService("metadata.subscriber", metadataSubscriberService, "dataset.service")
+      .addTask("log.appender", () -> {
+        // Validate the logging pipeline configuration.
+        // Do it explicitly as Standalone doesn't have a separate master check phase as the distributed does.
+        new LogPipelineLoader(cConf).validate();
+        // It is recommended to initialize log appender after datasetService is started,
+        // since log appender instantiates a dataset.
+        logAppenderInitializer.initialize();
+      }, "dataset.service")
+      .addService("app.fabric", appFabricServer, "metrics.collection", "service.store", "metadata",
+                  "remote.execution.twill.runner", "metadata.subscriber", "log.appender")
+      .addService("preview", previewHttpServer, "dataset.service")
+      .addService("metrics.query", metricsQueryService, "metrics.collection")
+      .addService("log.query", logQueryService, "log.appender")
+      // The router is only started after app fabric, so that CDAP is usable once the router is up
+      .addService("router", router, "app.fabric")
+      .addService("ui", userInterfaceService, "router")
+      .addService("external.authentication", securityEnabled ? externalAuthenticationServer : null)
+      .addService("explore", exploreExecutorService, "dataset.service")
+      .addService("metadata", metadataService, "system.tables")
+      .addService("operational.stats", operationalStatsService, "app.fabric")
+      .addService("secure.store", secureStoreService, "system.tables")
+      .build()
+      .startAndWait(metricsCollectionService.getContext(Constants.Metrics.SERVICE_STARTUP_METRICS_TAGS));
 
     String protocol = sslEnabled ? "https" : "http";
     int dashboardPort = sslEnabled ?
@@ -20,12 +20,14 @@ import io.cdap.cdap.api.annotation.Beta;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.spi.data.table.StructuredTableSpecification;
 import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.FieldFilter;
 import io.cdap.cdap.spi.data.table.field.Range;
 
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Optional;
+import javax.annotation.Nullable;
 
 /**
  * Abstraction for a table that contains rows and columns.
@@ -46,6 +48,18 @@ public interface StructuredTable extends Closeable {
    */
   void upsert(Collection<Field<?>> fields) throws InvalidFieldException, IOException;
 
+  /**
+   * Insert or replace a collection of rows to the table. Each element of the collection contains the fields of
+   * one row, which are written in the same way as {@link #upsert(Collection)}. Implementations may write
+   * all the rows in a single batch, which is more efficient than calling {@link #upsert(Collection)} for each row.
+   *
+   * @param rows the fields of the rows to write
+   * @throws InvalidFieldException if any of the fields are not part of the table schema, or the types of the value
+   *                               do not match
+   * @throws IOException if there is an error writing to the table
+   */
+  void upsertAll(Collection<? extends Collection<Field<?>>> rows) throws InvalidFieldException, IOException;
+
   /**
    * Read a single row with all the columns from the table.
    *
@@ -73,6 +87,20 @@ public interface StructuredTable extends Closeable {
   Optional<StructuredRow> read(Collection<Field<?>> keys,
                                Collection<String> columns) throws InvalidFieldException, IOException;
 
+  /**
+   * Read multiple rows with all the columns from the table in a single batch.
+   * Rows that do not exist in the table are not included in the result. The order of the returned rows is not
+   * guaranteed to match the order of the keys.
+   *
+   * @param multiKeys the primary keys of the rows to read
+   * @return the rows addressed by the primary keys that exist in the table
+   * @throws InvalidFieldException if any of the keys are not part of the table schema, or the types of the value
+   *                               do not match
+   * @throws IOException if there is an error reading from the table
+   */
+  Collection<StructuredRow> multiRead(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException;
+
   /**
    * Read a set of rows from the table matching the key range.
    * The rows returned will be sorted on the primary key order.
@@ -86,6 +114,53 @@ public interface StructuredTable extends Closeable {
    */
   CloseableIterator<StructuredRow> scan(Range keyRange, int limit) throws InvalidFieldException, IOException;
 
+  /**
+   * Read a set of rows with the specified columns from the table matching the key range and the filter.
+   * The rows returned will be sorted on the primary key order. The filter and the projection are applied by
+   * the storage, hence rows that do not match the filter are never returned to the caller.
+   *
+   * @param keyRange key range for the scan
+   * @param limit maximum number of rows to return
+   * @param filter filter on the fields of the rows to return, {@link FieldFilter#all()} to return all the rows
+   *               in the key range
+   * @param columns the columns to read, {@code null} to read all the columns. The primary keys are always contained
+   *                in the rows returned
+   * @return a {@link CloseableIterator} of rows
+   * @throws InvalidFieldException if any of the keys, filter fields or columns are not part of the table schema,
+   *                               or the types of the value do not match
+   * @throws IOException if there is an error scanning the table
+   */
+  CloseableIterator<StructuredRow> scan(Range keyRange, int limit, FieldFilter filter,
+                                        @Nullable Collection<String> columns) throws InvalidFieldException, IOException;
+
+  /**
+   * Count the number of rows in the table matching the key range and the filter, without reading the rows.
+   *
+   * @param keyRange key range of the rows to count
+   * @param filter filter on the fields of the rows to count, {@link FieldFilter#all()} to count all the rows
+   *               in the key range
+   * @return the number of rows matching the key range and the filter
+   * @throws InvalidFieldException if any of the keys or filter fields are not part of the table schema,
+   *                               or the types of the value do not match
+   * @throws IOException if there is an error scanning the table
+   */
+  long count(Range keyRange, FieldFilter filter) throws InvalidFieldException, IOException;
+
+  /**
+   * Read a set of rows from the table matching any of the key ranges.
+   * The rows returned will be sorted on the primary key order. A row matching more than one range
+   * is only returned once.
+   *
+   * @param keyRanges key ranges for the scan
+   * @param limit maximum number of rows to return
+   * @return a {@link CloseableIterator} of rows
+   * @throws InvalidFieldException if any of the keys are not part of the table schema, or the types of the value
+   *                               do not match
+   * @throws IOException if there is an error scanning the table
+   */
+  CloseableIterator<StructuredRow> multiScan(Collection<Range> keyRanges,
+                                             int limit) throws InvalidFieldException, IOException;
+
   /**
    * Read a set of rows from the table matching the index.
    * The rows returned will be sorted on the primary key order.
@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.spi.data.table.field;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a filter on the fields of the rows returned by a scan. The filter is a conjunction of conditions,
+ * each of which compares the value of a field in the row with a given value.
+ *
+ * A condition on a field that is {@code null} in the row is only satisfied if it is an equal condition with
+ * a {@code null} value, or a not equal condition with a non-null value.
+ */
+@Beta
+public final class FieldFilter {
+
+  /**
+   * The comparison performed by a condition.
+   */
+  public enum Operator {
+    EQUAL,
+    NOT_EQUAL,
+    LESS,
+    LESS_OR_EQUAL,
+    GREATER,
+    GREATER_OR_EQUAL
+  }
+
+  private static final FieldFilter ALL = new FieldFilter(Collections.emptyList());
+
+  private final List<Condition> conditions;
+
+  private FieldFilter(List<Condition> conditions) {
+    this.conditions = Collections.unmodifiableList(conditions);
+  }
+
+  /**
+   * Create a filter that matches all the rows.
+   *
+   * @return a filter object
+   */
+  public static FieldFilter all() {
+    return ALL;
+  }
+
+  /**
+   * Create a filter that matches the rows having the given field value. If the value of the field is null,
+   * it matches the rows that do not have a value for the field.
+   *
+   * @param field the field to match
+   * @return a filter object
+   */
+  public static FieldFilter equalTo(Field<?> field) {
+    return new FieldFilter(Collections.singletonList(new Condition(field, Operator.EQUAL)));
+  }
+
+  /**
+   * Create a filter that matches the rows not having the given field value. If the value of the field is null,
+   * it matches the rows that have a value for the field.
+   *
+   * @param field the field to match
+   * @return a filter object
+   */
+  public static FieldFilter notEqualTo(Field<?> field) {
+    return new FieldFilter(Collections.singletonList(new Condition(field, Operator.NOT_EQUAL)));
+  }
+
+  /**
+   * Create a filter that matches the rows having a value less than the given field value.
+   *
+   * @param field the field to compare with, the value cannot be null
+   * @return a filter object
+   */
+  public static FieldFilter lessThan(Field<?> field) {
+    return new FieldFilter(Collections.singletonList(new Condition(field, Operator.LESS)));
+  }
+
+  /**
+   * Create a filter that matches the rows having a value less than or equal to the given field value.
+   *
+   * @param field the field to compare with, the value cannot be null
+   * @return a filter object
+   */
+  public static FieldFilter lessThanOrEqualTo(Field<?> field) {
+    return new FieldFilter(Collections.singletonList(new Condition(field, Operator.LESS_OR_EQUAL)));
+  }
+
+  /**
+   * Create a filter that matches the rows having a value greater than the given field value.
+   *
+   * @param field the field to compare with, the value cannot be null
+   * @return a filter object
+   */
+  public static FieldFilter greaterThan(Field<?> field) {
+    return new FieldFilter(Collections.singletonList(new Condition(field, Operator.GREATER)));
+  }
+
+  /**
+   * Create a filter that matches the rows having a value greater than or equal to the given field value.
+   *
+   * @param field the field to compare with, the value cannot be null
+   * @return a filter object
+   */
+  public static FieldFilter greaterThanOrEqualTo(Field<?> field) {
+    return new FieldFilter(Collections.singletonList(new Condition(field, Operator.GREATER_OR_EQUAL)));
+  }
+
+  /**
+   * Create a filter that only matches the rows matched by both this filter and the given filter.
+   *
+   * @param other the other filter
+   * @return a filter object
+   */
+  public FieldFilter and(FieldFilter other) {
+    if (conditions.isEmpty()) {
+      return other;
+    }
+    if (other.conditions.isEmpty()) {
+      return this;
+    }
+    List<Condition> combined = new ArrayList<>(conditions);
+    combined.addAll(other.conditions);
+    return new FieldFilter(combined);
+  }
+
+  /**
+   * @return the conditions of this filter, empty if this filter matches all the rows
+   */
+  public List<Condition> getConditions() {
+    return conditions;
+  }
+
+  @Override
+  public String toString() {
+    return "FieldFilter{" +
+      "conditions=" + conditions +
+      '}';
+  }
+
+  /**
+   * A condition in a {@link FieldFilter}.
+   */
+  public static final class Condition {
+    private final Field<?> field;
+    private final Operator operator;
+
+    private Condition(Field<?> field, Operator operator) {
+      if (field.getValue() == null && operator != Operator.EQUAL && operator != Operator.NOT_EQUAL) {
+        throw new IllegalArgumentException(
+          String.format("The value of field %s cannot be null for operator %s", field.getName(), operator));
+      }
+      this.field = field;
+      this.operator = operator;
+    }
+
+    /**
+     * @return the field to compare with
+     */
+    public Field<?> getField() {
+      return field;
+    }
+
+    /**
+     * @return the comparison operator
+     */
+    public Operator getOperator() {
+      return operator;
+    }
+
+    @Override
+    public String toString() {
+      return "Condition{" +
+        "field=" + field +
+        ", operator=" + operator +
+        '}';
+    }
+  }
+}
@@ -22,6 +22,7 @@ import io.cdap.cdap.spi.data.table.StructuredTableId;
 import io.cdap.cdap.spi.data.table.StructuredTableSchema;
 import io.cdap.cdap.spi.data.table.StructuredTableSpecification;
 import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.FieldFilter;
 import io.cdap.cdap.spi.data.table.field.FieldType;
 import io.cdap.cdap.spi.data.table.field.Fields;
 import io.cdap.cdap.spi.data.table.field.Range;
@@ -37,6 +38,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -445,6 +447,186 @@ public abstract class StructuredTableTest {
     });
   }
 
+  @Test
+  public void testUpsertAll() throws Exception {
+    int max = 10;
+    List<Collection<Field<?>>> expected = new ArrayList<>(max);
+    for (int i = 0; i < max; i++) {
+      expected.add(Arrays.asList(Fields.intField(KEY, i),
+                                 Fields.longField(KEY2, (long) i),
+                                 Fields.stringField(STRING_COL, VAL + i),
+                                 Fields.doubleField(DOUBLE_COL, (double) i),
+                                 Fields.floatField(FLOAT_COL, (float) i),
+                                 Fields.bytesField(BYTES_COL, Bytes.toBytes("bytes-" + i))));
+    }
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.upsertAll(expected);
+    });
+    Assert.assertEquals(expected, readSimpleStructuredRows(max));
+
+    // Upsert again with a subset of columns, only those columns should be updated
+    List<Collection<Field<?>>> updates = new ArrayList<>();
+    for (int i = 0; i < max; i += 2) {
+      updates.add(Arrays.asList(Fields.intField(KEY, i), Fields.longField(KEY2, (long) i),
+                                Fields.stringField(STRING_COL, VAL + i + "-new")));
+      expected.set(i, Arrays.asList(Fields.intField(KEY, i),
+                                    Fields.longField(KEY2, (long) i),
+                                    Fields.stringField(STRING_COL, VAL + i + "-new"),
+                                    Fields.doubleField(DOUBLE_COL, (double) i),
+                                    Fields.floatField(FLOAT_COL, (float) i),
+                                    Fields.bytesField(BYTES_COL, Bytes.toBytes("bytes-" + i))));
+    }
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.upsertAll(updates);
+    });
+    Assert.assertEquals(expected, readSimpleStructuredRows(max));
+
+    // Rows without all the primary keys should be rejected
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      try {
+        table.upsertAll(Collections.singletonList(Arrays.asList(Fields.intField(KEY, 1),
+                                                                Fields.stringField(STRING_COL, VAL))));
+        Assert.fail("Expected InvalidFieldException for missing primary key");
+      } catch (InvalidFieldException e) {
+        // Expected
+      }
+    });
+  }
+
+  @Test
+  public void testMultiRead() throws Exception {
+    int max = 10;
+    List<Collection<Field<?>>> expected = writeSimpleStructuredRows(max, "");
+
+    // Read (3, 3L), (1, 1L), a missing row, and (3, 3L) again
+    List<Collection<Field<?>>> keys = Arrays.asList(
+      Arrays.asList(Fields.intField(KEY, 3), Fields.longField(KEY2, 3L)),
+      Arrays.asList(Fields.intField(KEY, 1), Fields.longField(KEY2, 1L)),
+      Arrays.asList(Fields.intField(KEY, 1), Fields.longField(KEY2, 5L)),
+      Arrays.asList(Fields.intField(KEY, 3), Fields.longField(KEY2, 3L)));
+    List<String> columns = Arrays.asList(KEY, KEY2, STRING_COL, DOUBLE_COL, FLOAT_COL, BYTES_COL);
+    List<Collection<Field<?>>> actual = new ArrayList<>();
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      for (StructuredRow row : table.multiRead(keys)) {
+        actual.add(convertRowToFields(row, columns));
+      }
+    });
+    actual.sort(Comparator.comparing(fields -> ((Integer) fields.iterator().next().getValue())));
+    Assert.assertEquals(Arrays.asList(expected.get(1), expected.get(3)), actual);
+
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      Assert.assertTrue(table.multiRead(Collections.emptyList()).isEmpty());
+      // Keys must be complete primary keys
+      try {
+        table.multiRead(Collections.singletonList(Collections.singletonList(Fields.intField(KEY, 1))));
+        Assert.fail("Expected InvalidFieldException for incomplete primary key");
+      } catch (InvalidFieldException e) {
+        // Expected
+      }
+    });
+  }
+
+  @Test
+  public void testMultiScan() throws Exception {
+    int max = 100;
+    List<Collection<Field<?>>> expected = writeSimpleStructuredRows(max, "");
+
+    // [20, 30), [5, 10), (25, 35] and the singleton 50, returned in key order without duplicates
+    List<Range> ranges = Arrays.asList(
+      Range.create(Collections.singleton(Fields.intField(KEY, 20)), Range.Bound.INCLUSIVE,
+                   Collections.singleton(Fields.intField(KEY, 30)), Range.Bound.EXCLUSIVE),
+      Range.create(Collections.singleton(Fields.intField(KEY, 5)), Range.Bound.INCLUSIVE,
+                   Collections.singleton(Fields.intField(KEY, 10)), Range.Bound.EXCLUSIVE),
+      Range.create(Collections.singleton(Fields.intField(KEY, 25)), Range.Bound.EXCLUSIVE,
+                   Collections.singleton(Fields.intField(KEY, 35)), Range.Bound.INCLUSIVE),
+      Range.singleton(Collections.singleton(Fields.intField(KEY, 50))));
+    List<Collection<Field<?>>> expectedRows = new ArrayList<>(expected.subList(5, 10));
+    expectedRows.addAll(expected.subList(20, 36));
+    expectedRows.add(expected.get(50));
+    Assert.assertEquals(expectedRows, multiScanSimpleStructuredRows(ranges, max));
+
+    // The limit applies to the total number of rows
+    Assert.assertEquals(expectedRows.subList(0, 8), multiScanSimpleStructuredRows(ranges, 8));
+
+    // No range returns nothing, while an unbounded range returns everything
+    Assert.assertEquals(Collections.emptyList(), multiScanSimpleStructuredRows(Collections.emptyList(), max));
+    Assert.assertEquals(expected, multiScanSimpleStructuredRows(Arrays.asList(ranges.get(0), Range.all()), max));
+  }
+
+  @Test
+  public void testFilterScan() throws Exception {
+    int max = 100;
+    List<Collection<Field<?>>> expected = writeSimpleStructuredRows(max, "");
+    List<String> columns = Arrays.asList(KEY, KEY2, STRING_COL, DOUBLE_COL, FLOAT_COL, BYTES_COL);
+
+    // Equal condition on a non-key column
+    FieldFilter filter = FieldFilter.equalTo(Fields.stringField(STRING_COL, VAL + 5));
+    Assert.assertEquals(expected.subList(5, 6), filterScanSimpleStructuredRows(Range.all(), max, filter, columns));
+
+    // Comparisons on key and non-key columns, combined with a key range and a limit
+    filter = FieldFilter.greaterThanOrEqualTo(Fields.doubleField(DOUBLE_COL, 40d))
+      .and(FieldFilter.lessThan(Fields.longField(KEY2, 60L)));
+    Range range = Range.create(Collections.singleton(Fields.intField(KEY, 50)), Range.Bound.INCLUSIVE,
+                               Collections.singleton(Fields.intField(KEY, 70)), Range.Bound.INCLUSIVE);
+    Assert.assertEquals(expected.subList(50, 60), filterScanSimpleStructuredRows(range, max, filter, columns));
+    Assert.assertEquals(expected.subList(50, 53), filterScanSimpleStructuredRows(range, 3, filter, columns));
+
+    // Conditions on null values, the long column is never written
+    Assert.assertEquals(expected, filterScanSimpleStructuredRows(
+      Range.all(), max, FieldFilter.equalTo(Fields.longField(LONG_COL, null)), columns));
+    Assert.assertEquals(Collections.emptyList(), filterScanSimpleStructuredRows(
+      Range.all(), max, FieldFilter.notEqualTo(Fields.longField(LONG_COL, null)), columns));
+    Assert.assertEquals(expected.subList(1, max), filterScanSimpleStructuredRows(
+      Range.all(), max, FieldFilter.notEqualTo(Fields.bytesField(BYTES_COL, Bytes.toBytes("bytes-0"))), columns));
+
+    // Only the projected columns and the primary keys are returned
+    List<Collection<Field<?>>> actual = filterScanSimpleStructuredRows(
+      Range.singleton(Collections.singleton(Fields.intField(KEY, 7))), max, FieldFilter.all(),
+      Collections.singleton(STRING_COL));
+    Assert.assertEquals(Collections.singletonList(Arrays.asList(Fields.intField(KEY, 7),
+                                                                Fields.longField(KEY2, 7L),
+                                                                Fields.stringField(STRING_COL, VAL + 7),
+                                                                Fields.doubleField(DOUBLE_COL, null),
+                                                                Fields.floatField(FLOAT_COL, null),
+                                                                Fields.bytesField(BYTES_COL, null))),
+                        actual);
+
+    // Filter on a column that is not part of the schema
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      try {
+        table.scan(Range.all(), max, FieldFilter.equalTo(Fields.stringField("unknown", VAL)), null);
+        Assert.fail("Expected InvalidFieldException for filtering on an unknown column");
+      } catch (InvalidFieldException e) {
+        // Expected
+      }
+    });
+  }
+
+  @Test
+  public void testCount() throws Exception {
+    int max = 100;
+    writeSimpleStructuredRows(max, "");
+
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      Assert.assertEquals(max, table.count(Range.all(), FieldFilter.all()));
+      Assert.assertEquals(10, table.count(
+        Range.create(Collections.singleton(Fields.intField(KEY, 5)), Range.Bound.INCLUSIVE,
+                     Collections.singleton(Fields.intField(KEY, 15)), Range.Bound.EXCLUSIVE), FieldFilter.all()));
+      Assert.assertEquals(1, table.count(Range.all(), FieldFilter.equalTo(Fields.stringField(STRING_COL, VAL + 42))));
+      Assert.assertEquals(20, table.count(Range.all(),
+                                          FieldFilter.greaterThan(Fields.floatField(FLOAT_COL, 9f))
+                                            .and(FieldFilter.lessThanOrEqualTo(Fields.intField(KEY, 29)))));
+      Assert.assertEquals(0, table.count(Range.all(), FieldFilter.notEqualTo(Fields.longField(LONG_COL, null))));
+    });
+  }
+
   private List<Collection<Field<?>>> writeSimpleStructuredRows(int max, String suffix) throws Exception {
     List<Collection<Field<?>>> expected = new ArrayList<>(max);
     // Write rows in reverse order to test sorting
@@ -578,4 +760,30 @@ public abstract class StructuredTableTest {
     });
     return actual;
   }
+
+  private List<Collection<Field<?>>> multiScanSimpleStructuredRows(Collection<Range> ranges,
+                                                                   int max) throws Exception {
+    List<String> columns = Arrays.asList(KEY, KEY2, STRING_COL, DOUBLE_COL, FLOAT_COL, BYTES_COL);
+    List<Collection<Field<?>>> actual = new ArrayList<>();
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      try (CloseableIterator<StructuredRow> iterator = table.multiScan(ranges, max)) {
+        actual.addAll(convertRowsToFields(iterator, columns));
+      }
+    });
+    return actual;
+  }
+
+  private List<Collection<Field<?>>> filterScanSimpleStructuredRows(Range range, int max, FieldFilter filter,
+                                                                    Collection<String> columns) throws Exception {
+    List<String> fields = Arrays.asList(KEY, KEY2, STRING_COL, DOUBLE_COL, FLOAT_COL, BYTES_COL);
+    List<Collection<Field<?>>> actual = new ArrayList<>();
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      try (CloseableIterator<StructuredRow> iterator = table.scan(range, max, filter, columns)) {
+        actual.addAll(convertRowsToFields(iterator, fields));
+      }
+    });
+    return actual;
+  }
 }
@@ -22,12 +22,15 @@ import io.cdap.cdap.messaging.data.RawMessage;
 import org.apache.tephra.Transaction;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
  * A builder to setup parameters for fetching messages from the messaging system.
  * Sub-class needs to override the {@link #fetch()} method to return a {@link CloseableIterator}
- * for fetching messages.
+ * for fetching messages. Sub-class that supports waiting for new messages without blocking the caller
+ * thread should also override the {@link #fetchAsync()} method.
  */
 public abstract class MessageFetcher {
 
@@ -38,6 +41,8 @@ public abstract class MessageFetcher {
 
   // by default there is virtually no limit
   private int limit = Integer.MAX_VALUE;
+  // by default returns immediately if there is no message available
+  private long waitMillis;
 
   /**
    * Setup the message fetching starting point based on the given message id. Calling this method
@@ -96,6 +101,23 @@ public abstract class MessageFetcher {
     return this;
   }
 
+  /**
+   * Sets the maximum amount of time to wait for new messages to be published to the topic if there is no message
+   * available when fetching. The fetch returns as soon as new messages are published or when the wait time expires,
+   * whichever comes first. By default, this is set to {@code 0}, meaning there is no waiting.
+   *
+   * @param time maximum time to wait
+   * @param unit the unit of the {@code time}
+   * @return this instance
+   */
+  public MessageFetcher setWaitTime(long time, TimeUnit unit) {
+    if (time < 0) {
+      throw new IllegalArgumentException("Invalid message fetching wait time. Wait time must be >= 0");
+    }
+    this.waitMillis = unit.toMillis(time);
+    return this;
+  }
+
   @Nullable
   protected byte[] getStartOffset() {
     return startOffset;
@@ -119,6 +141,10 @@ public abstract class MessageFetcher {
     return limit;
   }
 
+  protected long getWaitMillis() {
+    return waitMillis;
+  }
+
   /**
    * Returns a {@link CloseableIterator} that iterates over messages fetched from the messaging system.
    *
@@ -126,4 +152,22 @@ public abstract class MessageFetcher {
    * @throws IOException if it fails to create the iterator
    */
   public abstract CloseableIterator<RawMessage> fetch() throws TopicNotFoundException, IOException;
+
+  /**
+   * Fetches messages asynchronously. If there is no message available and a wait time is set through
+   * {@link #setWaitTime(long, TimeUnit)}, the returned {@link CompletableFuture} completes when new messages are
+   * published or when the wait time expires. The default implementation calls {@link #fetch()} from the caller thread.
+   *
+   * @return a {@link CompletableFuture} that completes with a {@link CloseableIterator} of messages, or
+   *         exceptionally with the same exceptions as thrown by the {@link #fetch()} method
+   */
+  public CompletableFuture<CloseableIterator<RawMessage>> fetchAsync() {
+    CompletableFuture<CloseableIterator<RawMessage>> future = new CompletableFuture<>();
+    try {
+      future.complete(fetch());
+    } catch (Throwable t) {
+      future.completeExceptionally(t);
+    }
+    return future;
+  }
 }
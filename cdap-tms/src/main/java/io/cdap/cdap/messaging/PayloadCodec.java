@@ -0,0 +1,300 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging;
+
+import io.cdap.cdap.api.common.Bytes;
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codecs for compressing a batch of message payloads into a single payload, which is stored as one entry in the
+ * message table and expanded back to individual messages on fetch.
+ *
+ * A compressed batch is encoded as
+ *
+ * <pre>
+ *   [codec id (1 byte)][uncompressed size (int)][compressed bytes]
+ * </pre>
+ *
+ * where the uncompressed bytes is a sequence of {@code [payload length (int)][payload bytes]}.
+ */
+public enum PayloadCodec {
+
+  SNAPPY("snappy", 1) {
+    @Override
+    int compress(byte[] input, int length, byte[] output, int outputOffset) throws IOException {
+      return Snappy.compress(input, 0, length, output, outputOffset);
+    }
+
+    @Override
+    int maxCompressedLength(int length) {
+      return Snappy.maxCompressedLength(length);
+    }
+
+    @Override
+    long maxUncompressedLength(int length) {
+      // The most compact snappy element is a 3 bytes copy of 64 bytes
+      return length * 22L;
+    }
+
+    @Override
+    void uncompress(byte[] input, int offset, int length, byte[] output) throws IOException {
+      // Check the length recorded by snappy first, since snappy doesn't fail if the output buffer is larger
+      int uncompressedLength = Snappy.uncompressedLength(input, offset, length);
+      if (uncompressedLength != output.length) {
+        throw new IOException("Corrupted snappy payload batch. Expected " + output.length
+                                + " bytes but got " + uncompressedLength + " bytes");
+      }
+      Snappy.uncompress(input, offset, length, output, 0);
+    }
+  },
+
+  DEFLATE("deflate", 2) {
+    @Override
+    int compress(byte[] input, int length, byte[] output, int outputOffset) {
+      Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try {
+        deflater.setInput(input, 0, length);
+        deflater.finish();
+        int size = 0;
+        while (!deflater.finished()) {
+          size += deflater.deflate(output, outputOffset + size, output.length - outputOffset - size);
+        }
+        return size;
+      } finally {
+        deflater.end();
+      }
+    }
+
+    @Override
+    int maxCompressedLength(int length) {
+      // Deflate falls back to stored blocks for incompressible data, which has 5 bytes overhead per 16K block,
+      // plus the zlib header and checksum
+      return length + (length >> 12) + (length >> 14) + 64;
+    }
+
+    @Override
+    long maxUncompressedLength(int length) {
+      // The maximum compression ratio of deflate is 1032:1
+      return length * 1032L;
+    }
+
+    @Override
+    void uncompress(byte[] input, int offset, int length, byte[] output) throws IOException {
+      Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(input, offset, length);
+        // Inflate until the end of the stream, so that the trailing checksum is verified.
+        // Data inflated after the output buffer is full goes to the extra buffer, which means the batch is corrupted.
+        byte[] extra = new byte[1];
+        int size = 0;
+        while (!inflater.finished()) {
+          int inflated = size < output.length
+            ? inflater.inflate(output, size, output.length - size)
+            : inflater.inflate(extra);
+          if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+            break;
+          }
+          size += inflated;
+        }
+        if (size != output.length || !inflater.finished()) {
+          throw new IOException("Corrupted deflate payload batch. Expected " + output.length
+                                  + " bytes but got " + size + " bytes");
+        }
+      } catch (DataFormatException e) {
+        throw new IOException("Corrupted deflate payload batch", e);
+      } finally {
+        inflater.end();
+      }
+    }
+  };
+
+  /**
+   * Maximum number of payloads in a batch. Messages expanded from a batch are identified by their position in the
+   * batch, which is stored in the {@code short} payload sequence id of the message id.
+   */
+  public static final int MAX_BATCH_SIZE = Short.MAX_VALUE;
+
+  private static final int HEADER_SIZE = 1 + Bytes.SIZEOF_INT;
+
+  private final String name;
+  private final byte id;
+
+  PayloadCodec(String name, int id) {
+    this.name = name;
+    this.id = (byte) id;
+  }
+
+  /**
+   * Returns the name of this codec, which is used as the {@code codec} parameter of the request content type.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Compresses the given payloads into a single payload batch.
+   *
+   * @param payloads the message payloads to compress, which can have at most {@link #MAX_BATCH_SIZE} payloads
+   * @return the encoded payload batch
+   * @throws IOException if failed to compress
+   */
+  public byte[] encode(Iterator<byte[]> payloads) throws IOException {
+    List<byte[]> list = new ArrayList<>();
+    int size = 0;
+    while (payloads.hasNext()) {
+      byte[] payload = payloads.next();
+      list.add(payload);
+      size += Bytes.SIZEOF_INT + payload.length;
+    }
+    if (list.size() > MAX_BATCH_SIZE) {
+      throw new IllegalArgumentException("Number of payloads in a batch cannot be larger than " + MAX_BATCH_SIZE);
+    }
+
+    byte[] uncompressed = new byte[size];
+    int offset = 0;
+    for (byte[] payload : list) {
+      offset = Bytes.putInt(uncompressed, offset, payload.length);
+      offset = Bytes.putBytes(uncompressed, offset, payload, 0, payload.length);
+    }
+
+    byte[] result = new byte[HEADER_SIZE + maxCompressedLength(size)];
+    result[0] = id;
+    Bytes.putInt(result, 1, size);
+    int compressedSize = compress(uncompressed, size, result, HEADER_SIZE);
+    return Arrays.copyOf(result, HEADER_SIZE + compressedSize);
+  }
+
+  /**
+   * Decompresses the given payload batch into individual payloads.
+   *
+   * @param batch a payload batch encoded by the {@link #encode(Iterator)} method
+   * @return the list of message payloads in the batch
+   * @throws IOException if the batch is corrupted or failed to decompress
+   */
+  public static List<byte[]> decode(byte[] batch) throws IOException {
+    int uncompressedSize = getUncompressedSize(batch);
+    PayloadCodec codec = fromId(batch[0]);
+    // Check the size before allocating the buffer, so that a corrupted size doesn't cause OOM
+    if (uncompressedSize > codec.maxUncompressedLength(batch.length - HEADER_SIZE)) {
+      throw new IOException("Corrupted payload batch. Uncompressed size " + uncompressedSize
+                              + " is too large for " + (batch.length - HEADER_SIZE) + " compressed bytes");
+    }
+    byte[] uncompressed = new byte[uncompressedSize];
+    codec.uncompress(batch, HEADER_SIZE, batch.length - HEADER_SIZE, uncompressed);
+
+    List<byte[]> payloads = new ArrayList<>();
+    int offset = 0;
+    while (offset < uncompressed.length) {
+      if (uncompressed.length - offset < Bytes.SIZEOF_INT) {
+        throw new IOException("Corrupted payload batch. Truncated payload length at offset " + offset);
+      }
+      int length = Bytes.toInt(uncompressed, offset);
+      offset += Bytes.SIZEOF_INT;
+      if (length < 0 || length > uncompressed.length - offset) {
+        throw new IOException("Corrupted payload batch. Invalid payload length " + length + " at offset " + offset);
+      }
+      if (payloads.size() == MAX_BATCH_SIZE) {
+        throw new IOException("Corrupted payload batch. It has more than " + MAX_BATCH_SIZE + " payloads");
+      }
+      payloads.add(Arrays.copyOfRange(uncompressed, offset, offset + length));
+      offset += length;
+    }
+    return payloads;
+  }
+
+  /**
+   * Validates that the given payload batch is encoded by this codec and can be decoded into at most
+   * {@link #MAX_BATCH_SIZE} payloads.
+   *
+   * @param batch the payload batch to validate
+   * @throws IOException if the batch is not a valid payload batch of this codec
+   */
+  public void validate(byte[] batch) throws IOException {
+    if (batch.length < HEADER_SIZE || batch[0] != id) {
+      throw new IOException("Payload batch is not encoded with codec " + name);
+    }
+    decode(batch);
+  }
+
+  /**
+   * Returns the uncompressed size in bytes of the given payload batch.
+   */
+  public static int getUncompressedSize(byte[] batch) throws IOException {
+    if (batch.length < HEADER_SIZE) {
+      throw new IOException("Invalid payload batch of size " + batch.length);
+    }
+    int size = Bytes.toInt(batch, 1);
+    if (size < 0) {
+      throw new IOException("Invalid uncompressed size " + size + " of payload batch");
+    }
+    return size;
+  }
+
+  /**
+   * Returns the {@link PayloadCodec} of the given name.
+   *
+   * @throws IllegalArgumentException if there is no codec of the given name
+   */
+  public static PayloadCodec fromName(String name) {
+    for (PayloadCodec codec : values()) {
+      if (codec.name.equalsIgnoreCase(name)) {
+        return codec;
+      }
+    }
+    throw new IllegalArgumentException("Unsupported payload codec " + name);
+  }
+
+  private static PayloadCodec fromId(byte id) throws IOException {
+    for (PayloadCodec codec : values()) {
+      if (codec.id == id) {
+        return codec;
+      }
+    }
+    throw new IOException("Unknown payload codec id " + id);
+  }
+
+  /**
+   * Compresses the given input to the output buffer.
+   *
+   * @return the size of the compressed data
+   */
+  abstract int compress(byte[] input, int length, byte[] output, int outputOffset) throws IOException;
+
+  /**
+   * Returns the maximum size of the compressed data for input of the given length.
+   */
+  abstract int maxCompressedLength(int length);
+
+  /**
+   * Returns the maximum size of the uncompressed data for compressed data of the given length.
+   */
+  abstract long maxUncompressedLength(int length);
+
+  /**
+   * Decompresses the given input to fill the given output buffer.
+   */
+  abstract void uncompress(byte[] input, int offset, int length, byte[] output) throws IOException;
+}
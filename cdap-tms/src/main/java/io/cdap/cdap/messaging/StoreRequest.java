@@ -19,21 +19,30 @@ package io.cdap.cdap.messaging;
 import io.cdap.cdap.proto.id.TopicId;
 
 import java.util.Iterator;
+import javax.annotation.Nullable;
 
 /**
  * This class represents messages to be store to the messaging system.
- * The message payloads are provide through the {@link Iterator}.
+ * The message payloads are provide through the {@link Iterator}. If the request has a {@link PayloadCodec},
+ * each payload provided by the {@link Iterator} is a batch of message payloads compressed by the codec.
  */
 public abstract class StoreRequest implements Iterable<byte[]> {
 
   private final TopicId topicId;
   private final boolean transactional;
   private final long transactionWritePointer;
+  private final PayloadCodec payloadCodec;
 
   protected StoreRequest(TopicId topicId, boolean transactional, long transactionWritePointer) {
+    this(topicId, transactional, transactionWritePointer, null);
+  }
+
+  protected StoreRequest(TopicId topicId, boolean transactional, long transactionWritePointer,
+                         @Nullable PayloadCodec payloadCodec) {
     this.topicId = topicId;
     this.transactional = transactional;
     this.transactionWritePointer = transactionWritePointer;
+    this.payloadCodec = payloadCodec;
   }
 
   public TopicId getTopicId() {
@@ -55,6 +64,15 @@ public abstract class StoreRequest implements Iterable<byte[]> {
     return transactionWritePointer;
   }
 
+  /**
+   * Returns the {@link PayloadCodec} used to compress the payloads of this request, or {@code null} if the payloads
+   * are not compressed.
+   */
+  @Nullable
+  public PayloadCodec getPayloadCodec() {
+    return payloadCodec;
+  }
+
   /**
    * Returns {@code true} if there is payload in this request.
    */
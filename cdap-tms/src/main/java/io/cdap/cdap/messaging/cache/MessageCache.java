@@ -72,6 +72,9 @@ public class MessageCache<T> {
   private static final String METRICS_ADD_REDUCE_WEIGHT = "cache.add.reduce.weight";
   private static final String METRICS_SCAN_REQUESTS = "cache.scan.requests";
   private static final String METRICS_SCAN_REDUCE_WEIGHT = "cache.scan.reduce.weight";
+  private static final String METRICS_SCAN_HITS = "cache.scan.hits";
+  private static final String METRICS_SCAN_MISSES = "cache.scan.misses";
+  private static final String METRICS_HARD_LIMIT = "cache.hard.limit";
 
   private final NavigableSet<CacheEntry<T>> cache;
   private final Comparator<T> comparator;
@@ -82,6 +85,8 @@ public class MessageCache<T> {
   private final AtomicBoolean adding;
   private final Weigher<T> weigher;
   private final ReadWriteLock cacheLock;
+  private final AtomicLong scanHits;
+  private final AtomicLong scanMisses;
 
   /**
    * Creates a new instance of the cache.
@@ -101,6 +106,8 @@ public class MessageCache<T> {
     this.adding = new AtomicBoolean();
     this.weigher = weigher;
     this.cacheLock = new ReentrantReadWriteLock();
+    this.scanHits = new AtomicLong();
+    this.scanMisses = new AtomicLong();
   }
 
   /**
@@ -230,6 +237,36 @@ public class MessageCache<T> {
     };
   }
 
+  /**
+   * Records the result of a scan from this cache.
+   *
+   * @param hit {@code true} if the scan was fully served by the cache; {@code false} if the caller also needs
+   *            to fetch entries from the underlying storage
+   */
+  public void recordScan(boolean hit) {
+    if (hit) {
+      scanHits.incrementAndGet();
+      metricsContext.increment(METRICS_SCAN_HITS, 1L);
+    } else {
+      scanMisses.incrementAndGet();
+      metricsContext.increment(METRICS_SCAN_MISSES, 1L);
+    }
+  }
+
+  /**
+   * Returns the total number of scans recorded as cache hits through the {@link #recordScan(boolean)} method.
+   */
+  public long getScanHits() {
+    return scanHits.get();
+  }
+
+  /**
+   * Returns the total number of scans recorded as cache misses through the {@link #recordScan(boolean)} method.
+   */
+  public long getScanMisses() {
+    return scanMisses.get();
+  }
+
   /**
    * Updates entries in the cache. Update to each entry shouldn't change the ordering of the entry based on the
    * {@link Comparator} provided to this cache.
@@ -297,6 +334,7 @@ public class MessageCache<T> {
     try {
       this.limits.set(limits);
       reduceWeight();
+      metricsContext.gauge(METRICS_HARD_LIMIT, limits.getHardLimit());
     } finally {
       cacheLock.writeLock().unlock();
     }
@@ -340,6 +378,7 @@ public class MessageCache<T> {
       cacheLock.writeLock().unlock();
     }
     metricsContext.increment(METRICS_ENTRIES_REMOVED, entriesRemoved);
+    metricsContext.gauge(METRICS_WEIGHT, currentWeight.get());
   }
 
   /**
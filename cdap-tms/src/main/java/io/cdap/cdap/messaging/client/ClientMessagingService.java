@@ -31,6 +31,7 @@ import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.messaging.TopicAlreadyExistsException;
 import io.cdap.cdap.api.messaging.TopicNotFoundException;
 import io.cdap.cdap.common.ServiceUnavailableException;
+import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.http.DefaultHttpRequestConfig;
 import io.cdap.cdap.common.internal.remote.RemoteClient;
@@ -98,8 +99,8 @@ public final class ClientMessagingService implements MessagingService {
 
   @VisibleForTesting
   @Inject
-  public ClientMessagingService(final DiscoveryServiceClient discoveryServiceClient) {
-    this.remoteClient = new RemoteClient(discoveryServiceClient, Constants.Service.MESSAGING_SERVICE,
+  public ClientMessagingService(CConfiguration cConf, DiscoveryServiceClient discoveryServiceClient) {
+    this.remoteClient = new RemoteClient(cConf, discoveryServiceClient, Constants.Service.MESSAGING_SERVICE,
                                          HTTP_REQUEST_CONFIG, "/v1/namespaces/");
   }
 
@@ -242,11 +243,14 @@ public final class ClientMessagingService implements MessagingService {
     DatumWriter<GenericRecord> datumWriter = new GenericDatumWriter<>(Schemas.V1.PublishRequest.SCHEMA);
     datumWriter.write(record, encoder);
 
-    // Make the publish request
+    // Make the publish request. If the payloads are compressed batches, the codec is carried in the content type.
     String writeType = publish ? "publish" : "store";
+    String contentType = request.getPayloadCodec() == null
+      ? "avro/binary"
+      : "avro/binary; codec=" + request.getPayloadCodec().getName();
     TopicId topicId = request.getTopicId();
     HttpRequest httpRequest = remoteClient.requestBuilder(HttpMethod.POST, createTopicPath(topicId) + "/" + writeType)
-      .addHeader(HttpHeaders.CONTENT_TYPE, "avro/binary")
+      .addHeader(HttpHeaders.CONTENT_TYPE, contentType)
       .withBody(os.toByteBuffer())
       .build();
 
@@ -398,10 +402,17 @@ public final class ClientMessagingService implements MessagingService {
 
       // The cask common http library doesn't support read streaming, and we don't want to buffer all messages
       // in memory, hence we use the HttpURLConnection directly instead.
-      URL url = remoteClient.resolve(createTopicPath(topicId) + "/poll");
+      // If there is wait time, the server may only respond after the wait time, hence extend the read timeout.
+      String path = createTopicPath(topicId) + "/poll";
+      int readTimeout = HTTP_REQUEST_CONFIG.getReadTimeout();
+      if (getWaitMillis() > 0) {
+        path += "?waitMillis=" + getWaitMillis();
+        readTimeout = readTimeout <= 0 ? readTimeout : (int) Math.min(Integer.MAX_VALUE, readTimeout + getWaitMillis());
+      }
+      URL url = remoteClient.resolve(path);
       final HttpURLConnection urlConn = (HttpURLConnection)  url.openConnection();
       urlConn.setConnectTimeout(HTTP_REQUEST_CONFIG.getConnectTimeout());
-      urlConn.setReadTimeout(HTTP_REQUEST_CONFIG.getReadTimeout());
+      urlConn.setReadTimeout(readTimeout);
       urlConn.setRequestMethod("POST");
       urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, "avro/binary");
       urlConn.setDoInput(true);
@@ -18,10 +18,13 @@ package io.cdap.cdap.messaging.client;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
+import io.cdap.cdap.messaging.PayloadCodec;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.proto.id.TopicId;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -39,6 +42,7 @@ public final class StoreRequestBuilder {
   private final TopicId topicId;
   private List<byte[]> payloads;
   private Long txWritePointer;
+  private PayloadCodec payloadCodec;
 
   /**
    * Creates a new {@link StoreRequestBuilder} instance.
@@ -98,6 +102,17 @@ public final class StoreRequestBuilder {
     return this;
   }
 
+  /**
+   * Sets the {@link PayloadCodec} for compressing all payloads in the request into a single payload batch.
+   * The batch is stored as one entry in the messaging system and expanded back to individual messages on fetch.
+   *
+   * @param payloadCodec the codec to use, or {@code null} to not compress the payloads
+   */
+  public StoreRequestBuilder setPayloadCodec(@Nullable PayloadCodec payloadCodec) {
+    this.payloadCodec = payloadCodec;
+    return this;
+  }
+
   /**
    * Returns {@code true} if there is some payload in this builder.
    */
@@ -112,8 +127,21 @@ public final class StoreRequestBuilder {
     if (txWritePointer == null && (payloads == null || payloads.isEmpty())) {
       throw new IllegalArgumentException("Payload cannot be empty for non-transactional publish");
     }
+    List<byte[]> requestPayloads = payloads;
+    PayloadCodec requestCodec = null;
+    if (payloadCodec != null && payloads != null && !payloads.isEmpty()) {
+      requestPayloads = new ArrayList<>();
+      for (List<byte[]> batch : Iterables.partition(payloads, PayloadCodec.MAX_BATCH_SIZE)) {
+        try {
+          requestPayloads.add(payloadCodec.encode(batch.iterator()));
+        } catch (IOException e) {
+          throw new IllegalStateException("Failed to compress payloads with codec " + payloadCodec.getName(), e);
+        }
+      }
+      requestCodec = payloadCodec;
+    }
     return new SimpleStoreRequest(topicId, txWritePointer != null, txWritePointer == null ? -1L : txWritePointer,
-                                  payloads);
+                                  requestPayloads, requestCodec);
   }
 
   /**
@@ -135,8 +163,8 @@ public final class StoreRequestBuilder {
     private final List<byte[]> payloads;
 
     SimpleStoreRequest(TopicId topicId, boolean transactional, long transactionWritePointer,
-                       @Nullable List<byte[]> payloads) {
-      super(topicId, transactional, transactionWritePointer);
+                       @Nullable List<byte[]> payloads, @Nullable PayloadCodec payloadCodec) {
+      super(topicId, transactional, transactionWritePointer, payloadCodec);
       this.payloads = payloads == null ? Collections.emptyList() : payloads;
     }
 
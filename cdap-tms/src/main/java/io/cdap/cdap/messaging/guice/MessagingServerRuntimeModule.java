@@ -46,6 +46,7 @@ import io.cdap.cdap.messaging.store.cache.DefaultMessageTableCacheProvider;
 import io.cdap.cdap.messaging.store.cache.MessageTableCacheProvider;
 import io.cdap.cdap.messaging.store.hbase.HBaseTableFactory;
 import io.cdap.cdap.messaging.store.leveldb.LevelDBTableFactory;
+import io.cdap.cdap.messaging.store.segment.SegmentTableFactory;
 import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.http.HttpHandler;
 
@@ -121,7 +122,8 @@ public class MessagingServerRuntimeModule extends RuntimeModule {
         }
       });
 
-      bind(TableFactory.class).to(LevelDBTableFactory.class).in(Scopes.SINGLETON);
+      bind(LevelDBTableFactory.class).in(Scopes.SINGLETON);
+      bind(TableFactory.class).toProvider(LocalTableFactoryProvider.class).in(Scopes.SINGLETON);
       bind(MessagingService.class).to(CoreMessagingService.class).in(Scopes.SINGLETON);
       expose(MessagingService.class);
 
@@ -138,6 +140,39 @@ public class MessagingServerRuntimeModule extends RuntimeModule {
     }
   }
 
+  /**
+   * A guice provider for the {@link TableFactory} used in local mode, which is selected by the
+   * {@link Constants.MessagingSystem#LOCAL_TABLE_STORE} configuration.
+   */
+  private static final class LocalTableFactoryProvider implements Provider<TableFactory> {
+
+    private final CConfiguration cConf;
+    private final Provider<LevelDBTableFactory> levelDBTableFactoryProvider;
+    private final Provider<SegmentTableFactory> segmentTableFactoryProvider;
+
+    @Inject
+    LocalTableFactoryProvider(CConfiguration cConf, Provider<LevelDBTableFactory> levelDBTableFactoryProvider,
+                              Provider<SegmentTableFactory> segmentTableFactoryProvider) {
+      this.cConf = cConf;
+      this.levelDBTableFactoryProvider = levelDBTableFactoryProvider;
+      this.segmentTableFactoryProvider = segmentTableFactoryProvider;
+    }
+
+    @Override
+    public TableFactory get() {
+      String store = cConf.get(Constants.MessagingSystem.LOCAL_TABLE_STORE, "leveldb");
+      switch (store) {
+        case "leveldb":
+          return levelDBTableFactoryProvider.get();
+        case "segment":
+          return segmentTableFactoryProvider.get();
+        default:
+          throw new IllegalArgumentException("Unsupported messaging table store '" + store + "' set by "
+                                               + Constants.MessagingSystem.LOCAL_TABLE_STORE);
+      }
+    }
+  }
+
   /**
    * A guice provider for {@link HBaseTableUtil}. We don't use {@link HBaseTableUtilFactory} as a provider
    * directly because the {@code @Inject} constructor of {@link HBaseTableUtilFactory} requires a
@@ -16,12 +16,14 @@
 
 package io.cdap.cdap.messaging.server;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.messaging.TopicNotFoundException;
 import io.cdap.cdap.common.BadRequestException;
+import io.cdap.cdap.common.HttpExceptionHandler;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.ByteBuffers;
@@ -37,23 +39,19 @@ import io.cdap.http.AbstractHttpHandler;
 import io.cdap.http.BodyProducer;
 import io.cdap.http.HttpResponder;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufInputStream;
-import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
-import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericDatumReader;
-import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.io.DatumReader;
-import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.Decoder;
 import org.apache.avro.io.DecoderFactory;
-import org.apache.avro.io.Encoder;
-import org.apache.avro.io.EncoderFactory;
 import org.apache.tephra.TransactionCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -65,10 +63,15 @@ import java.nio.channels.ClosedChannelException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 
 /**
  * A netty http handler for handling message fetching REST API for the messaging system.
@@ -80,25 +83,34 @@ public final class FetchHandler extends AbstractHttpHandler {
   // Log at most once per minute.
   private static final Logger SAMPLING_LOG = Loggers.sampling(LOG, LogSamplers.limitRate(60000));
   private static final TransactionCodec TRANSACTION_CODEC = new TransactionCodec();
+  private static final HttpExceptionHandler EXCEPTION_HANDLER = new HttpExceptionHandler();
   private static final Set<String> KNOWN_IO_EXCEPTION_MESSAGES = ImmutableSet.of(
     "Connection reset by peer",
     "Broken pipe"
   );
 
   private final MessagingService messagingService;
-  private int messageChunkSize;
+  private final int messageChunkSize;
+  private final long maxWaitMillis;
 
   @Inject
   FetchHandler(CConfiguration cConf, MessagingService messagingService) {
     this.messagingService = messagingService;
     this.messageChunkSize = cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_CONSUME_CHUNK_SIZE);
+    this.maxWaitMillis = cConf.getLong(Constants.MessagingSystem.HTTP_SERVER_CONSUME_MAX_WAIT_MS);
   }
 
+  /**
+   * Fetches messages from a topic. If there is no message available and the {@code waitMillis} is positive,
+   * the response is sent when new messages are published to the topic or when the wait time expires,
+   * without blocking the handler thread while waiting.
+   */
   @POST
   @Path("poll")
   public void poll(FullHttpRequest request, HttpResponder responder,
                    @PathParam("namespace") String namespace,
-                   @PathParam("topic") String topic) throws Exception {
+                   @PathParam("topic") String topic,
+                   @QueryParam("waitMillis") @DefaultValue("0") long waitMillis) throws Exception {
 
     TopicId topicId = new NamespaceId(namespace).topic(topic);
 
@@ -112,7 +124,40 @@ public final class FetchHandler extends AbstractHttpHandler {
     DatumReader<GenericRecord> datumReader = new GenericDatumReader<>(Schemas.V1.ConsumeRequest.SCHEMA);
 
     // Fetch the messages
-    CloseableIterator<RawMessage> iterator = fetchMessages(datumReader.read(null, decoder), topicId);
+    CompletableFuture<CloseableIterator<RawMessage>> future = fetchMessages(datumReader.read(null, decoder), topicId,
+                                                                            Math.min(waitMillis, maxWaitMillis));
+
+    // If the fetch is already completed, respond directly from the handler thread
+    if (future.isDone()) {
+      CloseableIterator<RawMessage> iterator;
+      try {
+        iterator = future.get();
+      } catch (ExecutionException e) {
+        Throwables.propagateIfPossible(e.getCause(), Exception.class);
+        throw e;
+      }
+      sendMessages(responder, iterator);
+      return;
+    }
+
+    // Otherwise respond when the fetch completes
+    future.whenComplete((iterator, failure) -> {
+      if (failure != null) {
+        EXCEPTION_HANDLER.handle(failure, request, responder);
+        return;
+      }
+      try {
+        sendMessages(responder, iterator);
+      } catch (Throwable t) {
+        EXCEPTION_HANDLER.handle(t, request, responder);
+      }
+    });
+  }
+
+  /**
+   * Sends the messages from the given {@link CloseableIterator} as the response.
+   */
+  private void sendMessages(HttpResponder responder, CloseableIterator<RawMessage> iterator) {
     try {
       responder.sendContent(HttpResponseStatus.OK, new MessagesBodyProducer(iterator, messageChunkSize),
                             new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "avro/binary"));
@@ -123,10 +168,12 @@ public final class FetchHandler extends AbstractHttpHandler {
   }
 
   /**
-   * Creates a {@link CloseableIterator} of {@link RawMessage} based on the given fetch request.
+   * Fetches messages based on the given fetch request. The returned future completes with a {@link CloseableIterator}
+   * of {@link RawMessage}.
    */
-  private CloseableIterator<RawMessage> fetchMessages(GenericRecord fetchRequest,
-                                                      TopicId topicId) throws IOException, TopicNotFoundException {
+  private CompletableFuture<CloseableIterator<RawMessage>> fetchMessages(GenericRecord fetchRequest, TopicId topicId,
+                                                                         long waitMillis)
+    throws IOException, TopicNotFoundException {
     MessageFetcher fetcher = messagingService.prepareFetch(topicId);
 
     Object startFrom = fetchRequest.get("startFrom");
@@ -153,45 +200,37 @@ public final class FetchHandler extends AbstractHttpHandler {
       fetcher.setTransaction(TRANSACTION_CODEC.decode(ByteBuffers.getByteArray(encodedTx)));
     }
 
-    return fetcher.fetch();
+    if (waitMillis > 0) {
+      fetcher.setWaitTime(waitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    return fetcher.fetchAsync();
   }
 
   /**
    * A {@link BodyProducer} to encode and send back messages.
-   * Instead of using GenericDatumWriter, we perform the array encoding manually so that we don't have to buffer
-   * all messages in memory before sending out.
+   * Instead of using GenericDatumWriter, we perform the Avro binary encoding of the array manually so that we don't
+   * have to buffer all messages in memory before sending out. Each chunk is a {@link CompositeByteBuf} that wraps
+   * the payload arrays of large messages as is, with only the Avro framing and small messages written to a pooled
+   * buffer, so that payloads are not copied before they are written to the channel.
    */
-  private static class MessagesBodyProducer extends BodyProducer {
+  static class MessagesBodyProducer extends BodyProducer {
+
+    // Payloads smaller than this size are copied to the framing buffer,
+    // since adding them as separate components of the chunk costs more than copying.
+    private static final int MIN_WRAP_PAYLOAD_SIZE = 1024;
+    // Maximum number of bytes of a long in Avro binary encoding
+    private static final int MAX_VAR_LONG_SIZE = 10;
 
     private final CloseableIterator<RawMessage> iterator;
     private final List<RawMessage> messages;
     private final int messageChunkSize;
-    private final ByteBuf chunk;
-    private final Encoder encoder;
-    private final GenericRecord messageRecord;
-    private final DatumWriter<GenericRecord> messageWriter;
-    private boolean arrayStarted;
     private boolean arrayEnded;
 
     MessagesBodyProducer(CloseableIterator<RawMessage> iterator, int messageChunkSize) {
       this.iterator = iterator;
       this.messages = new ArrayList<>();
       this.messageChunkSize = messageChunkSize;
-      this.chunk = Unpooled.buffer(messageChunkSize);
-      this.encoder = EncoderFactory.get().directBinaryEncoder(new ByteBufOutputStream(chunk), null);
-
-      // These are for writing individual message (response is an array of messages)
-      this.messageRecord = new GenericData.Record(Schemas.V1.ConsumeResponse.SCHEMA.getElementType());
-      this.messageWriter = new GenericDatumWriter<GenericRecord>(Schemas.V1.ConsumeResponse.SCHEMA.getElementType()) {
-        @Override
-        protected void writeBytes(Object datum, Encoder out) throws IOException {
-          if (datum instanceof byte[]) {
-            out.writeBytes((byte[]) datum);
-          } else {
-            super.writeBytes(datum, out);
-          }
-        }
-      };
     }
 
     @Override
@@ -201,15 +240,9 @@ public final class FetchHandler extends AbstractHttpHandler {
         return Unpooled.EMPTY_BUFFER;
       }
 
-      chunk.clear();
-
-      if (!arrayStarted) {
-        arrayStarted = true;
-        encoder.writeArrayStart();
-      }
-
       // Try to buffer up to buffer size
       int size = 0;
+      int framingSize = MAX_VAR_LONG_SIZE * 2;
       messages.clear();
       while (iterator.hasNext() && size < messageChunkSize) {
         RawMessage message = iterator.next();
@@ -219,32 +252,58 @@ public final class FetchHandler extends AbstractHttpHandler {
         // Straightly speaking it can be up to 9 bytes each (hence 18 bytes),
         // but we don't expect id and payload of such size
         size += message.getId().length + message.getPayload().length + 8;
+        framingSize += MAX_VAR_LONG_SIZE * 2 + message.getId().length;
+        if (message.getPayload().length < MIN_WRAP_PAYLOAD_SIZE) {
+          framingSize += message.getPayload().length;
+        }
       }
 
-      encoder.setItemCount(messages.size());
-      for (RawMessage message : messages) {
-        encoder.startItem();
-
-        // Write individual message (array element) with DatumWrite.
-        // This provides greater flexibility on schema evolution.
-        // The response will likely always be an array, but the element schema can evolve.
-        messageRecord.put("id", message.getId());
-        messageRecord.put("payload", message.getPayload());
-        messageWriter.write(messageRecord, encoder);
-      }
+      // The framing buffer is allocated with the maximum size needed, so that it never needs to grow
+      CompositeByteBuf chunk = ByteBufAllocator.DEFAULT.compositeBuffer(Integer.MAX_VALUE);
+      ByteBuf framing = ByteBufAllocator.DEFAULT.buffer(framingSize);
+      try {
+        // An Avro array is encoded as blocks of items, with each block prefixed by the item count,
+        // and the array is terminated by a block of zero count.
+        // Each array element is a record of the "id" and "payload" bytes fields, as defined by the
+        // Schemas.V1.ConsumeResponse schema, and bytes is encoded as (len + bytes).
+        if (!messages.isEmpty()) {
+          writeLong(framing, messages.size());
+        }
+        int sliceStart = 0;
+        for (RawMessage message : messages) {
+          writeLong(framing, message.getId().length);
+          framing.writeBytes(message.getId());
+
+          byte[] payload = message.getPayload();
+          writeLong(framing, payload.length);
+          if (payload.length < MIN_WRAP_PAYLOAD_SIZE) {
+            framing.writeBytes(payload);
+          } else {
+            chunk.addComponent(true, framing.retainedSlice(sliceStart, framing.writerIndex() - sliceStart));
+            chunk.addComponent(true, Unpooled.wrappedBuffer(payload));
+            sliceStart = framing.writerIndex();
+          }
+        }
 
-      if (!iterator.hasNext()) {
-        arrayEnded = true;
-        encoder.writeArrayEnd();
+        if (!iterator.hasNext()) {
+          arrayEnded = true;
+          framing.writeByte(0);
+        }
+        if (framing.writerIndex() > sliceStart) {
+          chunk.addComponent(true, framing.retainedSlice(sliceStart, framing.writerIndex() - sliceStart));
+        }
+        return chunk;
+      } catch (Throwable t) {
+        chunk.release();
+        throw t;
+      } finally {
+        framing.release();
       }
-
-      return chunk.copy();
     }
 
     @Override
     public void finished() throws Exception {
       iterator.close();
-      chunk.release();
     }
 
     @Override
@@ -263,5 +322,17 @@ public final class FetchHandler extends AbstractHttpHandler {
         LOG.trace("Exception raised when sending messages back to client", cause);
       }
     }
+
+    /**
+     * Writes a long value with the zig-zag variable length encoding of Avro.
+     */
+    private static void writeLong(ByteBuf buf, long value) {
+      long n = (value << 1) ^ (value >> 63);
+      while ((n & ~0x7FL) != 0) {
+        buf.writeByte((int) ((n & 0x7F) | 0x80));
+        n >>>= 7;
+      }
+      buf.writeByte((int) n);
+    }
   }
 }
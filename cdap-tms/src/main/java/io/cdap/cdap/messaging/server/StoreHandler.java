@@ -20,6 +20,7 @@ import com.google.inject.Inject;
 import io.cdap.cdap.common.BadRequestException;
 import io.cdap.cdap.common.io.ByteBuffers;
 import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.PayloadCodec;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.Schemas;
 import io.cdap.cdap.messaging.StoreRequest;
@@ -52,6 +53,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.List;
+import javax.annotation.Nullable;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -83,6 +85,8 @@ public final class StoreHandler extends AbstractHttpHandler {
       throw new BadRequestException("Empty payload is only allowed for publishing transactional message. Topic: "
                                       + topicId);
     }
+    // Compressed payload batches are expanded on fetch, hence reject invalid batches before they get persisted
+    validatePayloadBatches(storeRequest);
 
     // Publish the message and response with the rollback information
     RollbackDetail rollbackInfo = messagingService.publish(storeRequest);
@@ -109,6 +113,10 @@ public final class StoreHandler extends AbstractHttpHandler {
     if (!storeRequest.isTransactional() || !storeRequest.hasPayload()) {
       throw new BadRequestException("Store request must be transactional with payload. Topic: " + topicId);
     }
+    // Compressed payload batches can only be published to the message table
+    if (storeRequest.getPayloadCodec() != null) {
+      throw new BadRequestException("Store request cannot have compressed payloads. Topic: " + topicId);
+    }
 
     messagingService.storePayload(storeRequest);
     responder.sendStatus(HttpResponseStatus.OK);
@@ -131,14 +139,59 @@ public final class StoreHandler extends AbstractHttpHandler {
    * Creates a {@link StoreRequest} instance based on the given {@link HttpRequest}.
    */
   private StoreRequest createStoreRequest(TopicId topicId, FullHttpRequest request) throws Exception {
+    PayloadCodec payloadCodec = getPayloadCodec(request.headers().get(HttpHeaderNames.CONTENT_TYPE));
+    Decoder decoder = DecoderFactory.get().directBinaryDecoder(new ByteBufInputStream(request.content()), null);
+    DatumReader<GenericRecord> datumReader = new GenericDatumReader<>(Schemas.V1.PublishRequest.SCHEMA);
+    return new GenericRecordStoreRequest(topicId, datumReader.read(null, decoder), payloadCodec);
+  }
+
+  /**
+   * Validates that all payloads of the given {@link StoreRequest} are valid batches of its {@link PayloadCodec}.
+   * This method is a no-op if the request payloads are not compressed.
+   *
+   * @throws BadRequestException if any of the payload batches is invalid
+   */
+  private void validatePayloadBatches(StoreRequest storeRequest) throws BadRequestException {
+    PayloadCodec payloadCodec = storeRequest.getPayloadCodec();
+    if (payloadCodec == null) {
+      return;
+    }
+    for (byte[] batch : storeRequest) {
+      try {
+        payloadCodec.validate(batch);
+      } catch (IOException e) {
+        throw new BadRequestException("Invalid compressed payload batch for topic " + storeRequest.getTopicId()
+                                        + ": " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Returns the {@link PayloadCodec} specified by the {@code codec} parameter of the given content type,
+   * or {@code null} if the payloads are not compressed.
+   *
+   * @throws BadRequestException if the content type is not avro/binary or the codec is not supported
+   */
+  @Nullable
+  private PayloadCodec getPayloadCodec(@Nullable String contentType) throws BadRequestException {
     // Currently only support avro
-    if (!"avro/binary".equals(request.headers().get(HttpHeaderNames.CONTENT_TYPE))) {
+    String[] parts = contentType == null ? new String[] { "" } : contentType.split(";");
+    if (!"avro/binary".equals(parts[0].trim())) {
       throw new BadRequestException("Only avro/binary content type is supported.");
     }
 
-    Decoder decoder = DecoderFactory.get().directBinaryDecoder(new ByteBufInputStream(request.content()), null);
-    DatumReader<GenericRecord> datumReader = new GenericDatumReader<>(Schemas.V1.PublishRequest.SCHEMA);
-    return new GenericRecordStoreRequest(topicId, datumReader.read(null, decoder));
+    PayloadCodec payloadCodec = null;
+    for (int i = 1; i < parts.length; i++) {
+      String[] param = parts[i].trim().split("=", 2);
+      if (param.length == 2 && "codec".equalsIgnoreCase(param[0].trim())) {
+        try {
+          payloadCodec = PayloadCodec.fromName(param[1].trim());
+        } catch (IllegalArgumentException e) {
+          throw new BadRequestException(e.getMessage());
+        }
+      }
+    }
+    return payloadCodec;
   }
 
   /**
@@ -177,12 +230,13 @@ public final class StoreHandler extends AbstractHttpHandler {
     private final List<ByteBuffer> payloads;
 
     @SuppressWarnings("unchecked")
-    GenericRecordStoreRequest(TopicId topicId, GenericRecord record) {
+    GenericRecordStoreRequest(TopicId topicId, GenericRecord record, @Nullable PayloadCodec payloadCodec) {
       super(topicId,
             record.get("transactionWritePointer") != null,
             record.get("transactionWritePointer") == null
               ? -1L
-              : Long.parseLong(record.get("transactionWritePointer").toString()));
+              : Long.parseLong(record.get("transactionWritePointer").toString()),
+            payloadCodec);
 
       this.payloads = ((List<ByteBuffer>) record.get("messages"));
     }
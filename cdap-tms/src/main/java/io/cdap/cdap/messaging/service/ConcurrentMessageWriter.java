@@ -19,10 +19,15 @@ package io.cdap.cdap.messaging.service;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import io.cdap.cdap.api.metrics.MetricsCollector;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.api.metrics.NoopMetricsContext;
+import io.cdap.cdap.common.metrics.BoundMetrics;
+import io.cdap.cdap.messaging.PayloadCodec;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -62,8 +67,15 @@ import javax.annotation.concurrent.ThreadSafe;
 @ThreadSafe
 final class ConcurrentMessageWriter implements Closeable {
 
+  private static final Logger LOG = LoggerFactory.getLogger(ConcurrentMessageWriter.class);
+
   private final StoreRequestWriter<?> messagesWriter;
-  private final MetricsCollector metricsCollector;
+  private final MetricsContext.Counter persistRequestedMetric;
+  private final MetricsContext.Counter persistSuccessMetric;
+  private final MetricsContext.Counter persistFailureMetric;
+  private final MetricsContext.Counter persistCompressedBytesMetric;
+  private final MetricsContext.Counter persistUncompressedBytesMetric;
+  private final Runnable persistListener;
   private final PendingStoreQueue pendingStoreQueue;
   private final AtomicBoolean writerFlag;
   private final AtomicBoolean closed;
@@ -73,7 +85,7 @@ final class ConcurrentMessageWriter implements Closeable {
    */
   @VisibleForTesting
   ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter) {
-    this(messagesWriter, new NoopMetricsContext());
+    this(messagesWriter, new NoopMetricsContext(), () -> { });
   }
 
   /**
@@ -81,10 +93,18 @@ final class ConcurrentMessageWriter implements Closeable {
    *
    * @param messagesWriter the {@link StoreRequestWriter} for persisting {@link StoreRequest}.
    * @param metricsCollector the {@link MetricsCollector} for collecting metrics emitted by this class.
+   * @param persistListener a {@link Runnable} to be called after each batch of {@link StoreRequest} is persisted
+   *                        successfully. It is called while holding the writer flag, hence must be fast.
    */
-  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector) {
+  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector,
+                          Runnable persistListener) {
     this.messagesWriter = messagesWriter;
-    this.metricsCollector = metricsCollector;
+    this.persistRequestedMetric = BoundMetrics.counter(metricsCollector, "persist.requested");
+    this.persistSuccessMetric = BoundMetrics.counter(metricsCollector, "persist.success");
+    this.persistFailureMetric = BoundMetrics.counter(metricsCollector, "persist.failure");
+    this.persistCompressedBytesMetric = BoundMetrics.counter(metricsCollector, "persist.compressed.bytes");
+    this.persistUncompressedBytesMetric = BoundMetrics.counter(metricsCollector, "persist.uncompressed.bytes");
+    this.persistListener = persistListener;
     this.pendingStoreQueue = new PendingStoreQueue(metricsCollector);
     this.writerFlag = new AtomicBoolean();
     this.closed = new AtomicBoolean();
@@ -109,7 +129,7 @@ final class ConcurrentMessageWriter implements Closeable {
     PendingStoreRequest pendingStoreRequest = new PendingStoreRequest(storeRequest, metadata);
     pendingStoreQueue.enqueue(pendingStoreRequest);
 
-    metricsCollector.increment("persist.requested", 1L);
+    persistRequestedMetric.increment(1L);
 
     while (!pendingStoreRequest.isCompleted()) {
       if (!tryWrite()) {
@@ -118,7 +138,10 @@ final class ConcurrentMessageWriter implements Closeable {
     }
 
     if (pendingStoreRequest.isSuccess()) {
-      metricsCollector.increment("persist.success", 1L);
+      persistSuccessMetric.increment(1L);
+      if (storeRequest.getPayloadCodec() != null) {
+        emitCompressionMetrics(storeRequest);
+      }
       if (!pendingStoreRequest.isTransactional()) {
         return null;
       }
@@ -126,13 +149,33 @@ final class ConcurrentMessageWriter implements Closeable {
                                       pendingStoreRequest.getStartTimestamp(), pendingStoreRequest.getStartSequenceId(),
                                       pendingStoreRequest.getEndTimestamp(), pendingStoreRequest.getEndSequenceId());
     } else {
-      metricsCollector.increment("persist.failure", 1L);
+      persistFailureMetric.increment(1L);
       Throwables.propagateIfInstanceOf(pendingStoreRequest.getFailureCause(), IOException.class);
       throw new IOException("Unable to write message to " + storeRequest.getTopicId(),
                             pendingStoreRequest.getFailureCause());
     }
   }
 
+  /**
+   * Emits the compressed and uncompressed sizes of the payload batches in the given {@link StoreRequest}, from which
+   * the compression ratio can be derived.
+   */
+  private void emitCompressionMetrics(StoreRequest storeRequest) {
+    long compressedBytes = 0L;
+    long uncompressedBytes = 0L;
+    try {
+      for (byte[] batch : storeRequest) {
+        compressedBytes += batch.length;
+        uncompressedBytes += PayloadCodec.getUncompressedSize(batch);
+      }
+    } catch (IOException e) {
+      // This shouldn't happen since the batches are validated before they are published
+      LOG.warn("Failed to get the uncompressed size of payload batch in {}", storeRequest.getTopicId(), e);
+    }
+    persistCompressedBytesMetric.increment(compressedBytes);
+    persistUncompressedBytesMetric.increment(uncompressedBytes);
+  }
+
   /**
    * Tries to acquire the writer flag and persist the pending requests.
    *
@@ -144,7 +187,9 @@ final class ConcurrentMessageWriter implements Closeable {
       return false;
     }
     try {
-      pendingStoreQueue.persist(messagesWriter);
+      if (pendingStoreQueue.persist(messagesWriter)) {
+        persistListener.run();
+      }
     } finally {
       writerFlag.set(false);
     }
@@ -172,12 +217,12 @@ final class ConcurrentMessageWriter implements Closeable {
    */
   private static final class PendingStoreQueue {
 
-    private final MetricsCollector metricsCollector;
+    private final MetricsContext.Gauge queueSizeMetric;
     private final Queue<PendingStoreRequest> writeQueue;
     private final List<PendingStoreRequest> inflightRequests;
 
     private PendingStoreQueue(MetricsCollector metricsCollector) {
-      this.metricsCollector = metricsCollector;
+      this.queueSizeMetric = BoundMetrics.gauge(metricsCollector, "persist.queue.size");
       this.writeQueue = new ConcurrentLinkedQueue<>();
       this.inflightRequests = new ArrayList<>(100);
     }
@@ -191,8 +236,10 @@ final class ConcurrentMessageWriter implements Closeable {
 
     /**
      * Persists all {@link PendingStoreRequest} currently in the queue with the given writer.
+     *
+     * @return {@code true} if there were requests in the queue and they were persisted successfully
      */
-    void persist(StoreRequestWriter<?> writer) {
+    boolean persist(StoreRequestWriter<?> writer) {
       // Capture all current events.
       // The reason for capturing instead of using a live iterator is to avoid the possible case of infinite write
       // time. E.g. while generating the entry to write to the storage table, a new store request get enqueued.
@@ -206,13 +253,19 @@ final class ConcurrentMessageWriter implements Closeable {
         request = writeQueue.poll();
       }
 
-      metricsCollector.gauge("persist.queue.size", inflightRequests.size());
+      queueSizeMetric.set(inflightRequests.size());
+
+      if (inflightRequests.isEmpty()) {
+        return false;
+      }
 
       try {
         writer.write(inflightRequests.iterator());
         completeAll(null);
+        return true;
       } catch (Throwable t) {
         completeAll(t);
+        return false;
       }
     }
 
@@ -18,7 +18,11 @@ package io.cdap.cdap.messaging.service;
 
 import com.google.common.base.Throwables;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.api.metrics.MetricsCollector;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.metrics.BoundMetrics;
 import io.cdap.cdap.messaging.MessageFetcher;
+import io.cdap.cdap.messaging.PayloadCodec;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.data.MessageId;
 import io.cdap.cdap.messaging.data.RawMessage;
@@ -29,13 +33,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
  * Implementation of {@link MessageFetcher} that fetch messages directly
- * from {@link MessageTable} and {@link PayloadTable}.
+ * from {@link MessageTable} and {@link PayloadTable}. Message table entries that are compressed batches of payloads
+ * are expanded to individual messages, with the position in the batch used as the payload sequence id of the
+ * {@link MessageId}.
  */
 final class CoreMessageFetcher extends MessageFetcher {
 
@@ -44,17 +55,82 @@ final class CoreMessageFetcher extends MessageFetcher {
   private final TopicMetadata topicMetadata;
   private final TableProvider<MessageTable> messageTableProvider;
   private final TableProvider<PayloadTable> payloadTableProvider;
+  private final PublishNotifier publishNotifier;
+  private final MetricsContext.Counter decompressedBytesMetric;
+  private final MetricsContext.Counter decompressTimeMetric;
 
   CoreMessageFetcher(TopicMetadata topicMetadata,
                      TableProvider<MessageTable> messageTableProvider,
-                     TableProvider<PayloadTable> payloadTableProvider) {
+                     TableProvider<PayloadTable> payloadTableProvider,
+                     PublishNotifier publishNotifier,
+                     MetricsCollector metricsCollector) {
     this.topicMetadata = topicMetadata;
     this.messageTableProvider = messageTableProvider;
     this.payloadTableProvider = payloadTableProvider;
+    this.publishNotifier = publishNotifier;
+    this.decompressedBytesMetric = BoundMetrics.counter(metricsCollector, "fetch.decompressed.bytes");
+    this.decompressTimeMetric = BoundMetrics.counter(metricsCollector, "fetch.decompress.time.us");
   }
 
   @Override
   public CloseableIterator<RawMessage> fetch() throws IOException {
+    if (getWaitMillis() <= 0) {
+      return fetchNow();
+    }
+
+    CompletableFuture<CloseableIterator<RawMessage>> future = fetchAsync();
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      // Make sure the iterator is closed when the fetch completes
+      future.thenAccept(CloseableIterator::close);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for messages from " + topicMetadata.getTopicId());
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  @Override
+  public CompletableFuture<CloseableIterator<RawMessage>> fetchAsync() {
+    long waitMillis = getWaitMillis();
+    if (waitMillis <= 0) {
+      return super.fetchAsync();
+    }
+
+    TopicId topicId = topicMetadata.getTopicId();
+    CompletableFuture<CloseableIterator<RawMessage>> result = new CompletableFuture<>();
+    try {
+      // Get the publish count before fetching so that messages published after the fetch started won't be missed
+      long publishCount = publishNotifier.getPublishCount(topicId);
+      CloseableIterator<RawMessage> iterator = fetchNow();
+      if (iterator.hasNext()) {
+        result.complete(iterator);
+        return result;
+      }
+      iterator.close();
+
+      // Fetch again when there are new messages published or on timeout. Fetching on timeout is needed since
+      // messages published transactionally only become visible after the transaction is committed.
+      publishNotifier.awaitPublish(topicId, publishCount, waitMillis, TimeUnit.MILLISECONDS)
+        .whenComplete((published, failure) -> {
+          try {
+            result.complete(fetchNow());
+          } catch (Throwable t) {
+            result.completeExceptionally(t);
+          }
+        });
+    } catch (Throwable t) {
+      result.completeExceptionally(t);
+    }
+    return result;
+  }
+
+  /**
+   * Fetches messages from the tables without waiting.
+   */
+  private CloseableIterator<RawMessage> fetchNow() throws IOException {
     MessageTable messageTable = messageTableProvider.get();
     try {
       return new MessageCloseableIterator(messageTable);
@@ -103,6 +179,29 @@ final class CoreMessageFetcher extends MessageFetcher {
     return rawId;
   }
 
+  /**
+   * Returns {@code true} if the given {@link MessageId} refers to a message inside a compressed payload batch.
+   */
+  private boolean isInBatch(MessageId messageId) {
+    return messageId.getPayloadWriteTimestamp() == 0L && messageId.getPayloadSequenceId() != 0;
+  }
+
+  /**
+   * Decodes a compressed payload batch stored in the given {@link MessageTable.Entry}.
+   */
+  private List<byte[]> decodeBatch(MessageTable.Entry messageEntry) throws IOException {
+    byte[] batch = messageEntry.getPayload();
+    if (batch == null) {
+      throw new IOException("Missing payload batch in message " + messageEntry.getPublishTimestamp()
+                              + ":" + messageEntry.getSequenceId() + " of " + topicMetadata.getTopicId());
+    }
+    long startNanos = System.nanoTime();
+    List<byte[]> payloads = PayloadCodec.decode(batch);
+    decompressTimeMetric.increment(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    decompressedBytesMetric.increment(PayloadCodec.getUncompressedSize(batch));
+    return payloads;
+  }
+
   /**
    * Calls the {@link AutoCloseable#close()} on the given {@link AutoCloseable} without throwing exception.
    * If there is exception raised, it will be logged but never thrown out.
@@ -130,6 +229,8 @@ final class CoreMessageFetcher extends MessageFetcher {
     private RawMessage nextMessage;
     private MessageTable.Entry messageEntry;
     private CloseableIterator<PayloadTable.Entry> payloadIterator;
+    private Iterator<byte[]> batchIterator;
+    private int batchSequenceId;
     private MessageId startOffset;
     private boolean inclusive;
     private int messageLimit;
@@ -156,8 +257,9 @@ final class CoreMessageFetcher extends MessageFetcher {
         messageIterator = messageTable.fetch(topicMetadata, fetchStartTime, messageLimit, getTransaction());
       } else {
         // Start scanning based on the start message id
-        if (startOffset.getPayloadWriteTimestamp() != 0L) {
-          // This message ID refer to payload table. Scan the message table with the reference message ID inclusively.
+        if (startOffset.getPayloadWriteTimestamp() != 0L || isInBatch(startOffset)) {
+          // This message ID refer to payload table or a message inside a payload batch.
+          // Scan the message table with the reference message ID inclusively.
           messageIterator = messageTable.fetch(topicMetadata, createMessageTableMessageId(startOffset),
                                                true, messageLimit, getTransaction());
         } else {
@@ -176,6 +278,14 @@ final class CoreMessageFetcher extends MessageFetcher {
 
       // Find the next message
       while (nextMessage == null) {
+        // If there is a payload batch being expanded, read the next message from it
+        if (batchIterator != null && batchIterator.hasNext()) {
+          // messageEntry is guaranteed to be non-null if batchIterator is non-null
+          nextMessage = new RawMessage(createMessageId(messageEntry, 0L, (short) ++batchSequenceId),
+                                       batchIterator.next());
+          break;
+        }
+
         // If there is a payload iterator and is not empty, read the next message from the it
         if (payloadIterator != null && payloadIterator.hasNext()) {
           PayloadTable.Entry payloadEntry = payloadIterator.next();
@@ -209,6 +319,24 @@ final class CoreMessageFetcher extends MessageFetcher {
             } catch (IOException e) {
               throw Throwables.propagate(e);
             }
+          } else if (messageEntry.isCompressedBatch()) {
+            try {
+              List<byte[]> payloads = decodeBatch(messageEntry);
+              batchSequenceId = 0;
+
+              // Skip the messages in the batch up to the start offset. The start offset is only used for
+              // the first message entry being fetched.
+              if (startOffset != null && isInBatch(startOffset)
+                && startOffset.getPublishTimestamp() == messageEntry.getPublishTimestamp()
+                && startOffset.getSequenceId() == messageEntry.getSequenceId()) {
+                batchSequenceId = Math.min(payloads.size(), inclusive ? startOffset.getPayloadSequenceId() - 1
+                                                                      : startOffset.getPayloadSequenceId());
+              }
+              startOffset = null;
+              batchIterator = payloads.listIterator(batchSequenceId);
+            } catch (IOException e) {
+              throw Throwables.propagate(e);
+            }
           } else {
             // Otherwise, the message entry is the next message
             nextMessage = new RawMessage(createMessageId(messageEntry, null), messageEntry.getPayload());
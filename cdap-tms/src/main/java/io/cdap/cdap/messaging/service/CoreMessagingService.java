@@ -85,6 +85,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   private final TimeProvider timeProvider;
   private final MetricsCollectionService metricsCollectionService;
   private final long txMaxLifeTimeInMillis;
+  private final PublishNotifier publishNotifier;
 
   @Inject
   protected CoreMessagingService(CConfiguration cConf, TableFactory tableFactory,
@@ -97,6 +98,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
                        TimeProvider timeProvider, MetricsCollectionService metricsCollectionService) {
     this.cConf = cConf;
     this.tableFactory = tableFactory;
+    this.publishNotifier = new PublishNotifier(cConf.getInt(Constants.MessagingSystem.FETCH_WAIT_THREADS));
     this.topicCache = createTopicCache();
     this.messageTableWriterCache = createTableWriterCache(true, cConf);
     this.payloadTableWriterCache = createTableWriterCache(false, cConf);
@@ -142,6 +144,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
       topicCache.invalidate(topicId);
       messageTableWriterCache.invalidate(topicId);
       payloadTableWriterCache.invalidate(topicId);
+      publishNotifier.remove(topicId);
     }
   }
 
@@ -168,7 +171,9 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     final TopicMetadata metadata = getTopic(topicId);
     return new CoreMessageFetcher(metadata,
                                   () -> createMessageTable(metadata),
-                                  () -> createPayloadTable(metadata));
+                                  () -> createPayloadTable(metadata),
+                                  publishNotifier,
+                                  createMetricsContext(topicId, true));
   }
 
   @Nullable
@@ -189,6 +194,10 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
 
   @Override
   public void storePayload(StoreRequest request) throws TopicNotFoundException, IOException {
+    if (request.getPayloadCodec() != null) {
+      throw new IllegalArgumentException("Compressed payloads cannot be stored to the payload table of topic "
+                                           + request.getTopicId());
+    }
     try {
       TopicMetadata metadata = topicCache.get(request.getTopicId());
       payloadTableWriterCache.get(request.getTopicId()).persist(request, metadata);
@@ -252,6 +261,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     messageTableWriterCache.invalidateAll();
     messageTableWriterCache.invalidateAll();
     payloadTableWriterCache.invalidateAll();
+    publishNotifier.close();
     LOG.info("Core Messaging Service stopped");
   }
 
@@ -358,18 +368,28 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
             ? new MessageTableStoreRequestWriter(createMessageTable(metadata), timeProvider)
             : new PayloadTableStoreRequestWriter(createPayloadTable(metadata), timeProvider);
 
-          MetricsContext metricsContext = metricsCollectionService.getContext(ImmutableMap.of(
-            Constants.Metrics.Tag.COMPONENT, Constants.Service.MESSAGING_SERVICE,
-            Constants.Metrics.Tag.INSTANCE_ID, cConf.get(Constants.MessagingSystem.CONTAINER_INSTANCE_ID, "0"),
-            Constants.Metrics.Tag.NAMESPACE, topicId.getNamespace(),
-            Constants.Metrics.Tag.TABLE, messageTable ? "message" : "payload"
-          ));
+          MetricsContext metricsContext = createMetricsContext(topicId, messageTable);
 
-          return new ConcurrentMessageWriter(messagesWriter, metricsContext);
+          // Notify fetchers waiting for new messages when messages are written to the message table.
+          // Writes to the payload table are not visible to fetchers until the message table is written.
+          Runnable persistListener = messageTable ? () -> publishNotifier.published(topicId) : () -> { };
+          return new ConcurrentMessageWriter(messagesWriter, metricsContext, persistListener);
         }
       });
   }
 
+  /**
+   * Creates a {@link MetricsContext} for emitting metrics of the given topic and table.
+   */
+  private MetricsContext createMetricsContext(TopicId topicId, boolean messageTable) {
+    return metricsCollectionService.getContext(ImmutableMap.of(
+      Constants.Metrics.Tag.COMPONENT, Constants.Service.MESSAGING_SERVICE,
+      Constants.Metrics.Tag.INSTANCE_ID, cConf.get(Constants.MessagingSystem.CONTAINER_INSTANCE_ID, "0"),
+      Constants.Metrics.Tag.NAMESPACE, topicId.getNamespace(),
+      Constants.Metrics.Tag.TABLE, messageTable ? "message" : "payload"
+    ));
+  }
+
   /**
    * Creates a new instance of {@link MetadataTable}.
    */
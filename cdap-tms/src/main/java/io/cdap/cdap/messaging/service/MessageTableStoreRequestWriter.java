@@ -44,7 +44,8 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
 
   @Override
   MessageTable.Entry getEntry(TopicMetadata metadata, boolean transactional, long transactionWritePointer,
-                              long writeTimestamp, short sequenceId, @Nullable byte[] payload) {
+                              long writeTimestamp, short sequenceId, @Nullable byte[] payload,
+                              boolean compressedBatch) {
     return entry
       .setTopicId(metadata.getTopicId())
       .setGeneration(metadata.getGeneration())
@@ -52,7 +53,8 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
       .setTransactionWritePointer(transactionWritePointer)
       .setPublishTimestamp(writeTimestamp)
       .setSequenceId(sequenceId)
-      .setPayload(payload);
+      .setPayload(payload)
+      .setCompressedBatch(compressedBatch);
   }
 
   @Override
@@ -77,6 +79,7 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
     private long publishTimestamp;
     private short sequenceId;
     private byte[] payload;
+    private boolean compressedBatch;
 
     MutableMessageTableEntry setTopicId(TopicId topicId) {
       this.topicId = topicId;
@@ -113,6 +116,11 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
       return this;
     }
 
+    MutableMessageTableEntry setCompressedBatch(boolean compressedBatch) {
+      this.compressedBatch = compressedBatch;
+      return this;
+    }
+
     @Override
     public TopicId getTopicId() {
       return topicId;
@@ -144,6 +152,11 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
       return payload;
     }
 
+    @Override
+    public boolean isCompressedBatch() {
+      return compressedBatch;
+    }
+
     @Override
     public long getPublishTimestamp() {
       return publishTimestamp;
@@ -44,7 +44,8 @@ final class PayloadTableStoreRequestWriter extends StoreRequestWriter<PayloadTab
 
   @Override
   PayloadTable.Entry getEntry(TopicMetadata metadata, boolean transactional, long transactionWritePointer,
-                              long writeTimestamp, short sequenceId, @Nullable byte[] payload) {
+                              long writeTimestamp, short sequenceId, @Nullable byte[] payload,
+                              boolean compressedBatch) {
     return entry
       .setTopicId(metadata.getTopicId())
       .setGeneration(metadata.getGeneration())
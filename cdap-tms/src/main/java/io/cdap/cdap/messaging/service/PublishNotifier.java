@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.service;
+
+import io.cdap.cdap.proto.id.TopicId;
+import org.apache.twill.common.Threads;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Keeps track of messages being published to topics so that fetchers can wait for new messages
+ * instead of polling the message table repeatedly.
+ *
+ * A fetcher first gets the current publish count of the topic through {@link #getPublishCount(TopicId)}, then
+ * performs the fetch. If the fetch returns nothing, it calls {@link #awaitPublish(TopicId, long, long, TimeUnit)}
+ * with the publish count, which completes as soon as messages have been published since the count was obtained.
+ */
+@ThreadSafe
+final class PublishNotifier implements Closeable {
+
+  private final ConcurrentMap<TopicId, TopicWaiters> topics;
+  private final ScheduledExecutorService executor;
+
+  PublishNotifier(int threads) {
+    this.topics = new ConcurrentHashMap<>();
+    this.executor = Executors.newScheduledThreadPool(threads,
+                                                     Threads.createDaemonThreadFactory("messaging-fetch-waiter-%d"));
+  }
+
+  /**
+   * Returns the number of times messages were published to the given topic since it is being tracked.
+   */
+  long getPublishCount(TopicId topicId) {
+    return topics.computeIfAbsent(topicId, t -> new TopicWaiters()).publishCount.get();
+  }
+
+  /**
+   * Waits for messages to be published to the given topic.
+   *
+   * @param topicId the topic to wait for
+   * @param publishCount the publish count as returned by {@link #getPublishCount(TopicId)} before the last fetch
+   * @param timeout maximum time to wait
+   * @param unit unit of the {@code timeout}
+   * @return a {@link CompletableFuture} that completes with {@code true} when new messages are published, or with
+   *         {@code false} if the timeout expired. It is always completed from a thread owned by this class.
+   */
+  CompletableFuture<Boolean> awaitPublish(TopicId topicId, long publishCount, long timeout, TimeUnit unit) {
+    TopicWaiters topicWaiters = topics.computeIfAbsent(topicId, t -> new TopicWaiters());
+    CompletableFuture<Boolean> waiter = new CompletableFuture<>();
+
+    // Add the waiter before checking the publish count. Since publisher increments the count before notifying the
+    // waiters, either the change in count is seen here or the waiter is seen by the publisher.
+    topicWaiters.waiters.add(waiter);
+    if (topicWaiters.publishCount.get() != publishCount) {
+      topicWaiters.waiters.remove(waiter);
+      complete(waiter, true);
+      return waiter;
+    }
+
+    try {
+      ScheduledFuture<?> timeoutFuture = executor.schedule(() -> {
+        topicWaiters.waiters.remove(waiter);
+        waiter.complete(false);
+      }, timeout, unit);
+      waiter.whenComplete((published, t) -> timeoutFuture.cancel(false));
+    } catch (RejectedExecutionException e) {
+      // The notifier is closed, just return without waiting
+      topicWaiters.waiters.remove(waiter);
+      waiter.complete(false);
+    }
+    return waiter;
+  }
+
+  /**
+   * Notifies the waiters of the given topic that new messages were published.
+   */
+  void published(TopicId topicId) {
+    TopicWaiters topicWaiters = topics.get(topicId);
+    if (topicWaiters == null) {
+      return;
+    }
+    topicWaiters.publishCount.incrementAndGet();
+    Iterator<CompletableFuture<Boolean>> iterator = topicWaiters.waiters.iterator();
+    while (iterator.hasNext()) {
+      CompletableFuture<Boolean> waiter = iterator.next();
+      iterator.remove();
+      complete(waiter, true);
+    }
+  }
+
+  /**
+   * Stops tracking the given topic. Existing waiters of the topic will complete on timeout.
+   */
+  void remove(TopicId topicId) {
+    topics.remove(topicId);
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Completes the given waiter from the executor thread, so that the publisher thread won't be used for
+   * performing fetches by the waiter.
+   */
+  private void complete(CompletableFuture<Boolean> waiter, boolean published) {
+    try {
+      executor.execute(() -> waiter.complete(published));
+    } catch (RejectedExecutionException e) {
+      waiter.complete(published);
+    }
+  }
+
+  /**
+   * Publish count and waiters of a topic.
+   */
+  private static final class TopicWaiters {
+    private final AtomicLong publishCount = new AtomicLong();
+    private final Set<CompletableFuture<Boolean>> waiters = Collections.newSetFromMap(new ConcurrentHashMap<>());
+  }
+}
@@ -104,10 +104,11 @@ abstract class StoreRequestWriter<T> implements Closeable {
    * @param writeTimestamp the timestamp to be used as the write timestamp
    * @param sequenceId the sequence id to be used
    * @param payload the message payload
+   * @param compressedBatch whether the payload is a compressed batch of payloads
    * @return an entry of type {@code <T>}.
    */
   abstract T getEntry(TopicMetadata metadata, boolean transactional, long transactionWritePointer,
-                      long writeTimestamp, short sequenceId, @Nullable byte[] payload);
+                      long writeTimestamp, short sequenceId, @Nullable byte[] payload, boolean compressedBatch);
 
   /**
    * Writes the given list of entries of type {@code <T>}.
@@ -145,7 +146,7 @@ abstract class StoreRequestWriter<T> implements Closeable {
 
   /**
    * A resettable {@link Iterator} to transform payloads in a {@link PendingStoreRequest} to entries using
-   * the {@link #getEntry(TopicMetadata, boolean, long, long, short, byte[])} method.
+   * the {@link #getEntry(TopicMetadata, boolean, long, long, short, byte[], boolean)} method.
    */
   private final class PayloadTransformIterator implements Iterator<T> {
 
@@ -174,7 +175,8 @@ abstract class StoreRequestWriter<T> implements Closeable {
       if (payloadIterator.hasNext() || (generateNullPayloadEntry && !computedFirst)) {
         byte[] payload = payloadIterator.hasNext() ? payloadIterator.next() : null;
         nextEntry = getEntry(storeRequest.getTopicMetadata(), storeRequest.isTransactional(),
-                             storeRequest.getTransactionWritePointer(), writeTimestamp, (short) seqId, payload);
+                             storeRequest.getTransactionWritePointer(), writeTimestamp, (short) seqId, payload,
+                             storeRequest.getPayloadCodec() != null);
       }
       computedFirst = true;
       completed = nextEntry == null;
@@ -152,7 +152,8 @@ public abstract class AbstractMessageTable implements MessageTable {
         MessageFilter.Result status = accept(tableEntry.getTxPtr());
         if (status == MessageFilter.Result.ACCEPT) {
           maxLimit--;
-          return new ImmutableMessageTableEntry(tableEntry.getKey(), tableEntry.getPayload(), tableEntry.getTxPtr());
+          return new ImmutableMessageTableEntry(tableEntry.getKey(), tableEntry.getPayload(), tableEntry.getTxPtr(),
+                                                tableEntry.isCompressedBatch());
         }
 
         if (status == MessageFilter.Result.HOLD) {
@@ -223,7 +224,7 @@ public abstract class AbstractMessageTable implements MessageTable {
       if (entry.isTransactional()) {
         txPtr = Bytes.toBytes(entry.getTransactionWritePointer());
       }
-      return tableEntry.set(rowKey, txPtr, entry.getPayload());
+      return tableEntry.set(rowKey, txPtr, entry.getPayload(), entry.isCompressedBatch());
     }
   }
 }
@@ -33,8 +33,14 @@ public final class ImmutableMessageTableEntry implements MessageTable.Entry {
   private final byte[] payload;
   private final long publishTimestamp;
   private final short sequenceId;
+  private final boolean compressedBatch;
 
   public ImmutableMessageTableEntry(byte[] row, @Nullable byte[] payload, @Nullable byte[] txPtr) {
+    this(row, payload, txPtr, false);
+  }
+
+  public ImmutableMessageTableEntry(byte[] row, @Nullable byte[] payload, @Nullable byte[] txPtr,
+                                    boolean compressedBatch) {
     this.topicId = MessagingUtils.toTopicId(row, 0,
                                             row.length - Bytes.SIZEOF_SHORT - Bytes.SIZEOF_LONG - Bytes.SIZEOF_INT);
     this.generation = Bytes.toInt(row, row.length - Bytes.SIZEOF_SHORT - Bytes.SIZEOF_LONG - Bytes.SIZEOF_INT);
@@ -46,6 +52,7 @@ public final class ImmutableMessageTableEntry implements MessageTable.Entry {
     // since we mark tx as negative when tx is rolled back, we return the absolute value of tx
     this.transactionWritePointer = txPtr == null ? -1 : Math.abs(Bytes.toLong(txPtr));
     this.payload = payload;
+    this.compressedBatch = compressedBatch;
   }
 
   @Override
@@ -79,6 +86,11 @@ public final class ImmutableMessageTableEntry implements MessageTable.Entry {
     return payload;
   }
 
+  @Override
+  public boolean isCompressedBatch() {
+    return compressedBatch;
+  }
+
   @Override
   public long getPublishTimestamp() {
     return publishTimestamp;
@@ -17,6 +17,7 @@
 package io.cdap.cdap.messaging.store;
 
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.messaging.PayloadCodec;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.data.MessageId;
@@ -73,6 +74,12 @@ public interface MessageTable extends Closeable {
     @Nullable
     byte[] getPayload();
 
+    /**
+     * Returns {@code true} if the payload of this entry is a batch of message payloads compressed by
+     * {@link PayloadCodec}, which should be expanded into individual messages when fetched.
+     */
+    boolean isCompressedBatch();
+
     /**
      * Returns the timestamp in milliseconds when this entry was written to the message table.
      */
@@ -25,11 +25,18 @@ public class RawMessageTableEntry {
   private byte[] key;
   private byte[] txPtr;
   private byte[] payload;
+  private boolean compressedBatch;
 
   public RawMessageTableEntry set(byte[] key, @Nullable byte[] txPtr, @Nullable byte[] payload) {
+    return set(key, txPtr, payload, false);
+  }
+
+  public RawMessageTableEntry set(byte[] key, @Nullable byte[] txPtr, @Nullable byte[] payload,
+                                  boolean compressedBatch) {
     this.key = key;
     this.txPtr = txPtr;
     this.payload = payload;
+    this.compressedBatch = compressedBatch;
     return this;
   }
 
@@ -46,4 +53,8 @@ public class RawMessageTableEntry {
   public byte[] getPayload() {
     return payload;
   }
+
+  public boolean isCompressedBatch() {
+    return compressedBatch;
+  }
 }
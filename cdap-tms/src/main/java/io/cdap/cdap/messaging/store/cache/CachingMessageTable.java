@@ -87,7 +87,10 @@ final class CachingMessageTable implements MessageTable {
                                                             limit, createFilter(metadata, transaction));
 
     // No need to scan the table if there is no adjustment on the start time and the cache has everything needed
-    if (lookupEntry == adjustedEntry && cacheHasAllEntries(lookupEntry, scanner, messageCache.getComparator())) {
+    boolean hit = lookupEntry == adjustedEntry
+      && cacheHasAllEntries(lookupEntry, scanner, messageCache.getComparator());
+    messageCache.recordScan(hit);
+    if (hit) {
       return scanner;
     }
 
@@ -116,7 +119,10 @@ final class CachingMessageTable implements MessageTable {
                                                             limit, createFilter(metadata, transaction));
 
     // No need to scan the table if there is no adjustment on the start messageId and the cache has everything needed
-    if (lookupEntry == adjustedEntry && cacheHasAllEntries(lookupEntry, scanner, messageCache.getComparator())) {
+    boolean hit = lookupEntry == adjustedEntry
+      && cacheHasAllEntries(lookupEntry, scanner, messageCache.getComparator());
+    messageCache.recordScan(hit);
+    if (hit) {
       return scanner;
     }
 
@@ -343,6 +349,7 @@ final class CachingMessageTable implements MessageTable {
     private final byte[] payload;
     private final long publishTimestamp;
     private final short sequenceId;
+    private final boolean compressedBatch;
     private long transactionWritePointer;
     private boolean rollback;
 
@@ -354,6 +361,7 @@ final class CachingMessageTable implements MessageTable {
       this.payload = null;
       this.publishTimestamp = publishTimestamp;
       this.sequenceId = sequenceId;
+      this.compressedBatch = false;
     }
 
     CacheMessageTableEntry(Entry other) {
@@ -365,6 +373,7 @@ final class CachingMessageTable implements MessageTable {
       this.payload = other.getPayload();
       this.publishTimestamp = other.getPublishTimestamp();
       this.sequenceId = other.getSequenceId();
+      this.compressedBatch = other.isCompressedBatch();
     }
 
     void rollback() {
@@ -417,6 +426,14 @@ final class CachingMessageTable implements MessageTable {
       return payload;
     }
 
+    @Override
+    public boolean isCompressedBatch() {
+      if (lookupOnly) {
+        throw new UnsupportedOperationException();
+      }
+      return compressedBatch;
+    }
+
     @Override
     public long getPublishTimestamp() {
       return publishTimestamp;
@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.messaging.store.cache;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 import io.cdap.cdap.api.metrics.MetricsCollectionService;
@@ -26,21 +27,46 @@ import io.cdap.cdap.messaging.MessagingServiceUtils;
 import io.cdap.cdap.messaging.cache.MessageCache;
 import io.cdap.cdap.messaging.store.MessageTable;
 import io.cdap.cdap.proto.id.TopicId;
+import org.apache.twill.common.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nullable;
 
 /**
  * The default implementation of {@link MessageTableCacheProvider}.
+ *
+ * The configured cache size is a global budget shared by the {@link MessageCache} of all system topics.
+ * It is initially distributed evenly among topics. Periodically, the budget is redistributed by a background thread
+ * based on the number of fetches of each topic during the last interval, counting both fetches served from the cache
+ * and the ones that missed it, such that busy topics get a larger share while idle topics shrink down to a minimum
+ * share. Shrinking a cache evicts its oldest entries based on the entry weights.
  */
 public class DefaultMessageTableCacheProvider implements MessageTableCacheProvider {
 
+  private static final Logger LOG = LoggerFactory.getLogger(DefaultMessageTableCacheProvider.class);
+
+  // Each topic always has at least this fraction of the even share of the cache size
+  private static final double MIN_SHARE_RATIO = 0.2d;
+  // Weight of the latest interval when smoothing the fetch rate of a topic across intervals
+  private static final double RATE_SMOOTHING_FACTOR = 0.5d;
+
   private final CConfiguration cConf;
   private final MetricsCollectionService metricsCollectionService;
-  private Map<TopicId, MessageCache<MessageTable.Entry>> topicMessageCaches;
+  private final long rebalanceIntervalMillis;
+  private final Lock rebalanceLock;
+  private Map<TopicId, TopicCache> topicCaches;
+  private long cacheSize;
+  private ScheduledExecutorService rebalanceExecutor;
   private volatile boolean initialized;
 
   @Inject
@@ -49,6 +75,9 @@ public class DefaultMessageTableCacheProvider implements MessageTableCacheProvid
     // constructor, hence delay the cache initialization to later time.
     this.cConf = cConf;
     this.metricsCollectionService = metricsCollectionService;
+    this.rebalanceIntervalMillis = TimeUnit.SECONDS.toMillis(
+      cConf.getLong(Constants.MessagingSystem.CACHE_REBALANCE_INTERVAL_SECONDS, 60L));
+    this.rebalanceLock = new ReentrantLock();
   }
 
 
@@ -58,56 +87,125 @@ public class DefaultMessageTableCacheProvider implements MessageTableCacheProvid
     if (!initialized) {
       synchronized (this) {
         if (!initialized) {
-          Map<TopicId, MessageCache<MessageTable.Entry>> caches = new HashMap<>();
+          Map<TopicId, TopicCache> caches = new HashMap<>();
 
-          long cacheSize = cConf.getInt(Constants.MessagingSystem.CACHE_SIZE_MB) * 1024 * 1024;
+          long cacheSize = cConf.getInt(Constants.MessagingSystem.CACHE_SIZE_MB) * 1024L * 1024L;
           Set<TopicId> systemTopics = MessagingServiceUtils.getSystemTopics(cConf, true);
           if (cacheSize > 0 && !systemTopics.isEmpty()) {
             MessageTableEntryWeigher weigher = new MessageTableEntryWeigher();
             MessageTableEntryComparator comparator = new MessageTableEntryComparator();
 
-            // Just evenly distributed the cache among all system topics.
-            // More sophisticated logic can be employed at runtime to monitor the metrics from MessageCache
-            // for each topic and adjust the soft/hard limit accordingly to maximize efficiency in
-            // memory usage and performance
+            // Evenly distributed the cache among all system topics initially.
+            // It will get redistributed based on the fetch rate of each topic in the rebalance call.
             long hardLimit = cacheSize / systemTopics.size();
             if (hardLimit > 0) {
-              // Have reduce trigger as 70% of the hard limit and min retain as 50% of the hard limit
-              // In future, it can be adjusted dynamically based on metrics
-              MessageCache.Limits limits = new MessageCache.Limits(hardLimit / 2, hardLimit * 7 / 10, hardLimit);
               for (TopicId topic : systemTopics) {
-                caches.put(topic, new MessageCache<>(comparator, weigher, limits,
-                                                     createMetricsContext(cConf, topic, metricsCollectionService)));
+                caches.put(topic, new TopicCache(new MessageCache<>(
+                  comparator, weigher, createLimits(hardLimit),
+                  createMetricsContext(cConf, topic, metricsCollectionService))));
               }
             }
           }
 
-          topicMessageCaches = caches;
+          topicCaches = caches;
+          this.cacheSize = cacheSize;
+          if (caches.size() > 1 && rebalanceIntervalMillis > 0) {
+            rebalanceExecutor = Executors.newSingleThreadScheduledExecutor(
+              Threads.createDaemonThreadFactory("message-cache-rebalance"));
+            rebalanceExecutor.scheduleWithFixedDelay(() -> {
+              try {
+                rebalance();
+              } catch (Exception e) {
+                LOG.warn("Failed to rebalance the message cache among topics", e);
+              }
+            }, rebalanceIntervalMillis, rebalanceIntervalMillis, TimeUnit.MILLISECONDS);
+          }
           initialized = true;
         }
       }
     }
 
-    return topicMessageCaches.get(topicId);
+    Map<TopicId, TopicCache> caches = topicCaches;
+    if (caches == null) {
+      return null;
+    }
+    TopicCache topicCache = caches.get(topicId);
+    return topicCache == null ? null : topicCache.getCache();
   }
 
   @Override
   public void clear() {
-    Collection<MessageCache<MessageTable.Entry>> caches;
+    Collection<TopicCache> caches;
 
     synchronized (this) {
       initialized = false;
-      caches = topicMessageCaches == null ? null : topicMessageCaches.values();
-      topicMessageCaches = null;
+      caches = topicCaches == null ? null : topicCaches.values();
+      topicCaches = null;
+      if (rebalanceExecutor != null) {
+        rebalanceExecutor.shutdownNow();
+        rebalanceExecutor = null;
+      }
     }
 
     if (caches != null) {
-      for (MessageCache<MessageTable.Entry> cache : caches) {
-        cache.clear();
+      for (TopicCache cache : caches) {
+        cache.getCache().clear();
+      }
+    }
+  }
+
+  /**
+   * Redistributes the cache size among topics based on the number of fetches of each topic since the last call to
+   * this method.
+   */
+  @VisibleForTesting
+  void rebalance() {
+    rebalanceLock.lock();
+    try {
+      Map<TopicId, TopicCache> caches;
+      long cacheSize;
+      synchronized (this) {
+        caches = topicCaches;
+        cacheSize = this.cacheSize;
+      }
+      if (caches == null || caches.isEmpty()) {
+        return;
+      }
+
+      double totalRate = 0d;
+      for (TopicCache topicCache : caches.values()) {
+        totalRate += topicCache.updateFetchRate();
+      }
+
+      long evenShare = cacheSize / caches.size();
+      long minShare = (long) (evenShare * MIN_SHARE_RATIO);
+      long sharedSize = cacheSize - minShare * caches.size();
+      for (Map.Entry<TopicId, TopicCache> entry : caches.entrySet()) {
+        TopicCache topicCache = entry.getValue();
+        long hardLimit = totalRate <= 0d
+          ? evenShare
+          : minShare + (long) (sharedSize * (topicCache.getFetchRate() / totalRate));
+
+        MessageCache<MessageTable.Entry> cache = topicCache.getCache();
+        if (hardLimit != cache.getLimits().getHardLimit()) {
+          LOG.trace("Resizing message cache of topic {} from {} to {} bytes",
+                    entry.getKey(), cache.getLimits().getHardLimit(), hardLimit);
+          cache.resize(createLimits(hardLimit));
+        }
       }
+    } finally {
+      rebalanceLock.unlock();
     }
   }
 
+  /**
+   * Creates the {@link MessageCache.Limits} with the given hard limit.
+   */
+  private MessageCache.Limits createLimits(long hardLimit) {
+    // Have reduce trigger as 70% of the hard limit and min retain as 50% of the hard limit
+    return new MessageCache.Limits(hardLimit / 2, hardLimit * 7 / 10, hardLimit);
+  }
+
   /**
    * Creates a {@link MetricsContext} for {@link MessageCache} to use for the given topic.
    */
@@ -120,4 +218,40 @@ public class DefaultMessageTableCacheProvider implements MessageTableCacheProvid
       Constants.Metrics.Tag.TOPIC, topicId.getTopic()
     ));
   }
+
+  /**
+   * The {@link MessageCache} of a topic together with the fetch statistics for redistributing the cache size.
+   * Statistics are only updated by the thread doing the rebalance.
+   */
+  private static final class TopicCache {
+
+    private final MessageCache<MessageTable.Entry> cache;
+    private long lastFetches;
+    private double fetchRate;
+
+    TopicCache(MessageCache<MessageTable.Entry> cache) {
+      this.cache = cache;
+    }
+
+    MessageCache<MessageTable.Entry> getCache() {
+      return cache;
+    }
+
+    double getFetchRate() {
+      return fetchRate;
+    }
+
+    /**
+     * Updates the smoothed fetch rate based on the number of fetches since the last update. Both cache hits and misses
+     * are counted, since a topic with a cache too small for its fetches mostly misses and needs a larger share.
+     *
+     * @return the updated fetch rate
+     */
+    double updateFetchRate() {
+      long fetches = cache.getScanHits() + cache.getScanMisses();
+      fetchRate = RATE_SMOOTHING_FACTOR * (fetches - lastFetches) + (1 - RATE_SMOOTHING_FACTOR) * fetchRate;
+      lastFetches = fetches;
+      return fetchRate;
+    }
+  }
 }
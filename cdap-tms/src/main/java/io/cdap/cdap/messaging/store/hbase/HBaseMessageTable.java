@@ -45,6 +45,7 @@ import java.util.concurrent.ExecutorService;
 final class HBaseMessageTable extends AbstractMessageTable {
   private static final byte[] PAYLOAD_COL = MessagingUtils.Constants.PAYLOAD_COL;
   private static final byte[] TX_COL = MessagingUtils.Constants.TX_COL;
+  private static final byte[] COMPRESSED_PAYLOAD_COL = MessagingUtils.Constants.COMPRESSED_PAYLOAD_COL;
 
   private final HBaseTableUtil tableUtil;
   private final byte[] columnFamily;
@@ -96,9 +97,10 @@ final class HBaseMessageTable extends AbstractMessageTable {
             return endOfData();
           }
 
+          byte[] compressedPayload = result.getValue(columnFamily, COMPRESSED_PAYLOAD_COL);
+          byte[] payload = compressedPayload == null ? result.getValue(columnFamily, PAYLOAD_COL) : compressedPayload;
           return tableEntry.set(rowKeyDistributor.getOriginalKey(result.getRow()),
-                                result.getValue(columnFamily, TX_COL),
-                                result.getValue(columnFamily, PAYLOAD_COL));
+                                result.getValue(columnFamily, TX_COL), payload, compressedPayload != null);
         }
 
         @Override
@@ -127,7 +129,9 @@ final class HBaseMessageTable extends AbstractMessageTable {
       }
 
       if (entry.getPayload() != null) {
-        putBuilder.add(columnFamily, PAYLOAD_COL, entry.getPayload());
+        // Compressed payload batch is stored in a different column to distinguish it from a single payload
+        putBuilder.add(columnFamily, entry.isCompressedBatch() ? COMPRESSED_PAYLOAD_COL : PAYLOAD_COL,
+                       entry.getPayload());
       }
       batchPuts.add(putBuilder.build());
     }
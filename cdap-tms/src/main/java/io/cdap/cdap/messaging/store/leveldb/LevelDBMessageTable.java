@@ -46,12 +46,15 @@ import javax.annotation.Nullable;
 final class LevelDBMessageTable extends AbstractMessageTable {
   private static final WriteOptions WRITE_OPTIONS = new WriteOptions().sync(true);
   private static final String PAYLOAD_COL = "p";
+  private static final String COMPRESSED_PAYLOAD_COL = "c";
   private static final String TX_COL = "t";
 
   private enum EncodeType {
     NON_TRANSACTIONAL(0),
     TRANSACTIONAL(1),
-    PAYLOAD_REFERENCE(2);
+    PAYLOAD_REFERENCE(2),
+    COMPRESSED_NON_TRANSACTIONAL(3),
+    COMPRESSED_TRANSACTIONAL(4);
 
     private final byte type;
 
@@ -95,7 +98,10 @@ final class LevelDBMessageTable extends AbstractMessageTable {
 
         Map.Entry<byte[], byte[]> row = iterator.next();
         Map<String, byte[]> columns = decodeValue(row.getValue());
-        return tableEntry.set(row.getKey(), columns.get(TX_COL), columns.get(PAYLOAD_COL));
+        byte[] compressedPayload = columns.get(COMPRESSED_PAYLOAD_COL);
+        return compressedPayload == null
+          ? tableEntry.set(row.getKey(), columns.get(TX_COL), columns.get(PAYLOAD_COL))
+          : tableEntry.set(row.getKey(), columns.get(TX_COL), compressedPayload, true);
       }
 
       @Override
@@ -117,7 +123,8 @@ final class LevelDBMessageTable extends AbstractMessageTable {
         RawMessageTableEntry entry = entries.next();
         byte[] rowKey = entry.getKey();
         // LevelDB doesn't make copies, and since we reuse RawMessageTableEntry object, we need to create copies.
-        writeBatch.put(Arrays.copyOf(rowKey, rowKey.length), encodeValue(entry.getTxPtr(), entry.getPayload()));
+        writeBatch.put(Arrays.copyOf(rowKey, rowKey.length),
+                       encodeValue(entry.getTxPtr(), entry.getPayload(), entry.isCompressedBatch()));
       }
       levelDB.write(writeBatch, WRITE_OPTIONS);
     } catch (DBException ex) {
@@ -133,7 +140,10 @@ final class LevelDBMessageTable extends AbstractMessageTable {
         Map.Entry<byte[], byte[]> rowValue = rowIterator.next();
         byte[] value = rowValue.getValue();
         Map<String, byte[]> columns = decodeValue(value);
-        writeBatch.put(rowValue.getKey(), encodeValue(txWritePtr, columns.get(PAYLOAD_COL)));
+        byte[] compressedPayload = columns.get(COMPRESSED_PAYLOAD_COL);
+        writeBatch.put(rowValue.getKey(), compressedPayload == null
+          ? encodeValue(txWritePtr, columns.get(PAYLOAD_COL), false)
+          : encodeValue(txWritePtr, compressedPayload, true));
       }
     }
 
@@ -197,13 +207,19 @@ final class LevelDBMessageTable extends AbstractMessageTable {
   // Encoding:
   // If the returned byte array starts with 0, then it is a non-tx message and all the subsequent bytes are payload
   // If the returned byte array starts with 1, then next 8 bytes correspond to txWritePtr and rest are payload bytes
-  private byte[] encodeValue(@Nullable byte[] txWritePtr, @Nullable byte[] payload) {
+  // If the returned byte array starts with 2, then it is a payload table reference and the next 8 bytes correspond
+  // to txWritePtr
+  // If the returned byte array starts with 3 or 4, it is the same as 0 or 1 respectively,
+  // except the payload is a compressed batch of payloads
+  private byte[] encodeValue(@Nullable byte[] txWritePtr, @Nullable byte[] payload, boolean compressedBatch) {
     // Non-transactional
     if (txWritePtr == null) {
       // For non-tx message, payload cannot be null
       Preconditions.checkArgument(payload != null, "Payload cannot be null for non-transactional message");
       byte[] result = new byte[1 + payload.length];
-      result[0] = EncodeType.NON_TRANSACTIONAL.getType();
+      result[0] = compressedBatch
+        ? EncodeType.COMPRESSED_NON_TRANSACTIONAL.getType()
+        : EncodeType.NON_TRANSACTIONAL.getType();
       Bytes.putBytes(result, 1, payload, 0, payload.length);
       return result;
     }
@@ -211,7 +227,7 @@ final class LevelDBMessageTable extends AbstractMessageTable {
     // Transactional
     if (payload != null) {
       byte[] result = new byte[1 + Bytes.SIZEOF_LONG + payload.length];
-      result[0] = EncodeType.TRANSACTIONAL.getType();
+      result[0] = compressedBatch ? EncodeType.COMPRESSED_TRANSACTIONAL.getType() : EncodeType.TRANSACTIONAL.getType();
       Bytes.putBytes(result, 1, txWritePtr, 0, txWritePtr.length);
       Bytes.putBytes(result, 1 + Bytes.SIZEOF_LONG, payload, 0, payload.length);
       return result;
@@ -229,12 +245,16 @@ final class LevelDBMessageTable extends AbstractMessageTable {
 
     if (value[0] == EncodeType.NON_TRANSACTIONAL.getType()) {
       data.put(PAYLOAD_COL, Arrays.copyOfRange(value, 1, value.length));
+    } else if (value[0] == EncodeType.COMPRESSED_NON_TRANSACTIONAL.getType()) {
+      data.put(COMPRESSED_PAYLOAD_COL, Arrays.copyOfRange(value, 1, value.length));
     } else {
       data.put(TX_COL, Arrays.copyOfRange(value, 1, 1 + Bytes.SIZEOF_LONG));
 
       // Only transactional type has payload, otherwise payload should be null.
       if (value[0] == EncodeType.TRANSACTIONAL.getType()) {
         data.put(PAYLOAD_COL, Arrays.copyOfRange(value, 1 + Bytes.SIZEOF_LONG, value.length));
+      } else if (value[0] == EncodeType.COMPRESSED_TRANSACTIONAL.getType()) {
+        data.put(COMPRESSED_PAYLOAD_COL, Arrays.copyOfRange(value, 1 + Bytes.SIZEOF_LONG, value.length));
       }
     }
     return data;
@@ -98,6 +98,13 @@ public final class LevelDBTableFactory implements TableFactory {
     return metadataTable;
   }
 
+  /**
+   * Returns a {@link CloseableIterator} of the {@link TopicMetadata} of all topics, including the deleted ones.
+   */
+  public CloseableIterator<TopicMetadata> scanTopics() throws IOException {
+    return ((LevelDBMetadataTable) createMetadataTable()).scanTopics();
+  }
+
   @Override
   public MessageTable createMessageTable(TopicMetadata topicMetadata) throws IOException {
     return new LevelDBMessageTable(getLevelDB(topicMetadata, messageTableName), topicMetadata);
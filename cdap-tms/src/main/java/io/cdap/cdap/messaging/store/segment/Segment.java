@@ -0,0 +1,402 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.segment;
+
+import com.google.common.collect.AbstractIterator;
+import io.cdap.cdap.api.common.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * A segment of a {@link SegmentStore}. It is a preallocated file of appended records, which is memory mapped for both
+ * reading and writing. Each record is encoded as
+ *
+ * <pre>
+ *   [key length (int)][value length (int)][key][value]
+ * </pre>
+ *
+ * Records in a segment are sorted by key. A sparse index from keys to record positions is kept in memory, such that
+ * reads can seek close to the start key without scanning from the beginning of the segment. The end of the records
+ * is marked by a zero key length, which is written on every commit, and is also how the preallocated space reads.
+ * <p/>
+ * Appends are only visible to readers after {@link #commit()}. The methods for writing must be called by one thread
+ * at a time, which is guarded by the {@link SegmentStore}, while reads can happen concurrently.
+ * <p/>
+ * The memory mapping is reference counted, starting with the reference held by the {@link SegmentStore}.
+ * Readers {@link #retain()} the segment for the duration of a scan, and the file is unmapped when
+ * the last reference is {@link #release() released}.
+ */
+final class Segment {
+
+  static final int HEADER_SIZE = 2 * Bytes.SIZEOF_INT;
+
+  private static final Logger LOG = LoggerFactory.getLogger(Segment.class);
+
+  private final long sequence;
+  private final File file;
+  private final MappedByteBuffer buffer;
+  private final int indexInterval;
+  private final int timestampOffset;
+  private final ConcurrentNavigableMap<byte[], Integer> index;
+  private final AtomicInteger refCount;
+
+  // States visible to readers, updated on commit
+  private volatile int size;
+  private volatile byte[] lastKey;
+  private volatile long maxTimestamp;
+
+  // States of the writer
+  private final ByteBuffer writeBuffer;
+  private final List<Map.Entry<byte[], Integer>> pendingIndex;
+  private int writePosition;
+  private int lastIndexPosition;
+  private byte[] writeLastKey;
+  private long writeMaxTimestamp;
+  private int pendingHeaderPosition;
+  private int pendingKeyLength;
+
+  /**
+   * Creates a new segment file with the given capacity.
+   */
+  static Segment create(File file, long sequence, int capacity,
+                        int indexInterval, int timestampOffset) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      // Extending the file length doesn't write anything, hence on most file systems it is a sparse file
+      raf.setLength(capacity);
+      return new Segment(sequence, file, raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity),
+                         indexInterval, timestampOffset);
+    }
+  }
+
+  /**
+   * Opens an existing segment file and recovers the sparse index by scanning all the records in it.
+   */
+  static Segment open(File file, long sequence, int indexInterval, int timestampOffset) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      long length = raf.length();
+      if (length > Integer.MAX_VALUE) {
+        throw new IOException("Segment file " + file + " is larger than the maximum segment size");
+      }
+      Segment segment = new Segment(sequence, file, raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length),
+                                    indexInterval, timestampOffset);
+      segment.recover();
+      return segment;
+    }
+  }
+
+  private Segment(long sequence, File file, MappedByteBuffer buffer, int indexInterval, int timestampOffset) {
+    this.sequence = sequence;
+    this.file = file;
+    this.buffer = buffer;
+    this.indexInterval = indexInterval;
+    this.timestampOffset = timestampOffset;
+    this.index = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    this.refCount = new AtomicInteger(1);
+    this.maxTimestamp = Long.MIN_VALUE;
+    this.writeBuffer = buffer.duplicate();
+    this.pendingIndex = new ArrayList<>();
+    this.lastIndexPosition = -1;
+    this.writeMaxTimestamp = Long.MIN_VALUE;
+    this.pendingHeaderPosition = -1;
+  }
+
+  long getSequence() {
+    return sequence;
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  /**
+   * Returns the number of bytes of the committed records.
+   */
+  int getSize() {
+    return size;
+  }
+
+  /**
+   * Returns the maximum timestamp of the committed records, or {@link Long#MIN_VALUE} if the segment is empty.
+   */
+  long getMaxTimestamp() {
+    return maxTimestamp;
+  }
+
+  /**
+   * Returns {@code true} if the segment has any committed record with key in the range of
+   * {@code [startKey, stopKey)}.
+   */
+  boolean overlaps(byte[] startKey, @Nullable byte[] stopKey) {
+    byte[] last = lastKey;
+    if (last == null || Bytes.compareTo(last, startKey) < 0) {
+      return false;
+    }
+    return stopKey == null || Bytes.compareTo(index.firstKey(), stopKey) < 0;
+  }
+
+  /**
+   * Returns the last key of the committed records, or {@code null} if the segment is empty.
+   */
+  @Nullable
+  byte[] getLastKey() {
+    return lastKey;
+  }
+
+  /**
+   * Returns {@code true} if records of the given total size, with the given smallest key, can be appended to this
+   * segment without exceeding the capacity or breaking the key order.
+   */
+  boolean canAppend(byte[] firstKey, int length) {
+    return (long) writePosition + length <= buffer.capacity()
+      && (writeLastKey == null || Bytes.compareTo(writeLastKey, firstKey) < 0);
+  }
+
+  /**
+   * Appends a record that is already encoded in the given array starting at the given position, in the same format
+   * as in the segment file. The record is not visible to readers until {@link #commit()} is called.
+   *
+   * @return the size of the record in bytes
+   */
+  int append(byte[] records, int position) {
+    int keyLength = Bytes.toInt(records, position);
+    int recordSize = HEADER_SIZE + keyLength + Bytes.toInt(records, position + Bytes.SIZEOF_INT);
+    int keyPosition = position + HEADER_SIZE;
+    int writeStart = writePosition;
+
+    // The key length of the first record after the last commit is written on commit, such that records of
+    // an incomplete append are never recovered after a failure.
+    if (pendingHeaderPosition < 0) {
+      pendingHeaderPosition = writeStart;
+      pendingKeyLength = keyLength;
+      writeBuffer.putInt(writeStart, 0);
+    } else {
+      writeBuffer.putInt(writeStart, keyLength);
+    }
+    writeBuffer.position(writeStart + Bytes.SIZEOF_INT);
+    writeBuffer.put(records, position + Bytes.SIZEOF_INT, recordSize - Bytes.SIZEOF_INT);
+    writePosition = writeStart + recordSize;
+
+    // Only index the first of records with the same key, such that seeking to the key won't skip any of them
+    boolean sameKey = writeLastKey != null
+      && Bytes.compareTo(writeLastKey, 0, writeLastKey.length, records, keyPosition, keyLength) == 0;
+    if (!sameKey && (lastIndexPosition < 0 || writeStart - lastIndexPosition >= indexInterval)) {
+      pendingIndex.add(new AbstractMap.SimpleImmutableEntry<>(Arrays.copyOfRange(records, keyPosition,
+                                                                                 keyPosition + keyLength),
+                                                              writeStart));
+      lastIndexPosition = writeStart;
+    }
+    // Keys of the same table have the same length, hence the array for the last key can mostly be reused
+    if (writeLastKey == null || writeLastKey.length != keyLength) {
+      writeLastKey = new byte[keyLength];
+    }
+    System.arraycopy(records, keyPosition, writeLastKey, 0, keyLength);
+    writeMaxTimestamp = Math.max(writeMaxTimestamp, Bytes.toLong(records, keyPosition + timestampOffset));
+    return recordSize;
+  }
+
+  /**
+   * Flushes appended records to disk and makes them visible to readers.
+   */
+  void commit() {
+    if (pendingHeaderPosition < 0) {
+      return;
+    }
+    // Mark the end of the records and flush them before publishing the first header, such that recovery after
+    // a crash either sees none of the records, or all of them without anything of aborted appends beyond them.
+    if (writePosition + Bytes.SIZEOF_INT <= buffer.capacity()) {
+      writeBuffer.putInt(writePosition, 0);
+    }
+    buffer.force();
+    writeBuffer.putInt(pendingHeaderPosition, pendingKeyLength);
+    buffer.force();
+
+    for (Map.Entry<byte[], Integer> entry : pendingIndex) {
+      index.put(entry.getKey(), entry.getValue());
+    }
+    pendingIndex.clear();
+    pendingHeaderPosition = -1;
+    maxTimestamp = writeMaxTimestamp;
+    lastKey = writeLastKey.clone();
+    size = writePosition;
+  }
+
+  /**
+   * Discards all the appended records since the last {@link #commit()}.
+   */
+  void abort() {
+    if (pendingHeaderPosition < 0) {
+      return;
+    }
+    writeBuffer.putInt(pendingHeaderPosition, 0);
+    pendingIndex.clear();
+    pendingHeaderPosition = -1;
+    writePosition = size;
+    writeLastKey = lastKey == null ? null : lastKey.clone();
+    writeMaxTimestamp = maxTimestamp;
+    lastIndexPosition = index.isEmpty() ? -1 : index.lastEntry().getValue();
+  }
+
+  /**
+   * Overwrites part of the value of a committed record in place.
+   */
+  void overwrite(SegmentRecord record, int valueOffset, byte[] bytes) {
+    writeBuffer.position(record.getValuePosition() + valueOffset);
+    writeBuffer.put(bytes);
+  }
+
+  /**
+   * Flushes all modifications to disk.
+   */
+  void flush() {
+    buffer.force();
+  }
+
+  /**
+   * Acquires a reference to the memory mapped file, which must be released by calling {@link #release()}.
+   *
+   * @return {@code false} if the segment is already released by all the references, hence it can no longer be read
+   */
+  boolean retain() {
+    while (true) {
+      int count = refCount.get();
+      if (count <= 0) {
+        return false;
+      }
+      if (refCount.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Releases a reference to the memory mapped file. The file is unmapped when the last reference is released.
+   */
+  void release() {
+    if (refCount.decrementAndGet() == 0) {
+      unmap(buffer);
+    }
+  }
+
+  /**
+   * Returns {@code true} if all references to the segment are released.
+   */
+  boolean isReleased() {
+    return refCount.get() <= 0;
+  }
+
+  /**
+   * Returns an {@link Iterator} of the committed records with key in the range of {@code [startKey, stopKey)}.
+   */
+  Iterator<SegmentRecord> scan(byte[] startKey, @Nullable byte[] stopKey) {
+    final ByteBuffer readBuffer = buffer.duplicate();
+    final int limit = size;
+    Map.Entry<byte[], Integer> floor = index.floorEntry(startKey);
+
+    return new AbstractIterator<SegmentRecord>() {
+
+      private int position = floor == null ? 0 : floor.getValue();
+
+      @Override
+      protected SegmentRecord computeNext() {
+        while (position < limit) {
+          SegmentRecord record = new SegmentRecord(Segment.this, readBuffer, position,
+                                                   readBuffer.getInt(position),
+                                                   readBuffer.getInt(position + Bytes.SIZEOF_INT));
+          position += HEADER_SIZE + record.getKeyLength() + record.getValueLength();
+          if (record.compareKey(startKey) < 0) {
+            continue;
+          }
+          if (stopKey != null && record.compareKey(stopKey) >= 0) {
+            break;
+          }
+          return record;
+        }
+        return endOfData();
+      }
+    };
+  }
+
+  /**
+   * Scans through all the records to rebuild the sparse index and find the end of the records.
+   */
+  private void recover() {
+    int capacity = buffer.capacity();
+    int position = 0;
+    while (position + HEADER_SIZE <= capacity) {
+      int keyLength = buffer.getInt(position);
+      int valueLength = buffer.getInt(position + Bytes.SIZEOF_INT);
+      if (keyLength <= 0 || valueLength < 0 || (long) position + HEADER_SIZE + keyLength + valueLength > capacity) {
+        break;
+      }
+      byte[] key = new byte[keyLength];
+      ByteBuffer readBuffer = buffer.duplicate();
+      readBuffer.position(position + HEADER_SIZE);
+      readBuffer.get(key);
+
+      if (lastIndexPosition < 0 || position - lastIndexPosition >= indexInterval) {
+        index.put(key, position);
+        lastIndexPosition = position;
+      }
+      writeLastKey = key;
+      writeMaxTimestamp = Math.max(writeMaxTimestamp, Bytes.toLong(key, timestampOffset));
+      position += HEADER_SIZE + keyLength + valueLength;
+    }
+
+    writePosition = position;
+    lastKey = writeLastKey == null ? null : writeLastKey.clone();
+    maxTimestamp = writeMaxTimestamp;
+    size = position;
+  }
+
+  /**
+   * Unmaps the given buffer without waiting for it to be garbage collected, which otherwise keeps the disk space of
+   * deleted segment files and the virtual memory in use.
+   */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      Object cleaner = cleanerMethod.invoke(buffer);
+      if (cleaner != null) {
+        Method cleanMethod = cleaner.getClass().getMethod("clean");
+        cleanMethod.setAccessible(true);
+        cleanMethod.invoke(cleaner);
+      }
+    } catch (Exception e) {
+      // The buffer will be unmapped when it is garbage collected
+      LOG.debug("Failed to unmap memory mapped buffer", e);
+    }
+  }
+}
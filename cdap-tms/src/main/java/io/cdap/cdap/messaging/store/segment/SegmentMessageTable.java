@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.segment;
+
+import com.google.common.base.Preconditions;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.messaging.store.AbstractMessageTable;
+import io.cdap.cdap.messaging.store.MessageTable;
+import io.cdap.cdap.messaging.store.RawMessageTableEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+/**
+ * A {@link MessageTable} that stores messages in a {@link SegmentStore}.
+ */
+final class SegmentMessageTable extends AbstractMessageTable {
+
+  // Encoding of the value, which is the same as the LevelDB message table:
+  // If the value starts with 0, then it is a non-tx message and all the subsequent bytes are payload
+  // If the value starts with 1, then next 8 bytes correspond to txWritePtr and rest are payload bytes
+  // If the value starts with 2, then it is a payload table reference and the next 8 bytes correspond to txWritePtr
+  // If the value starts with 3 or 4, it is the same as 0 or 1 respectively,
+  // except the payload is a compressed batch of payloads
+  private static final byte NON_TRANSACTIONAL = 0;
+  private static final byte TRANSACTIONAL = 1;
+  private static final byte PAYLOAD_REFERENCE = 2;
+  private static final byte COMPRESSED_NON_TRANSACTIONAL = 3;
+  private static final byte COMPRESSED_TRANSACTIONAL = 4;
+
+  private static final SegmentStore.RecordEncoder<RawMessageTableEntry> ENCODER =
+    new SegmentStore.RecordEncoder<RawMessageTableEntry>() {
+      @Override
+      public byte[] getKey(RawMessageTableEntry entry) {
+        return entry.getKey();
+      }
+
+      @Override
+      public int getValueLength(RawMessageTableEntry entry) {
+        byte[] txPtr = entry.getTxPtr();
+        byte[] payload = entry.getPayload();
+        if (txPtr == null) {
+          // For non-tx message, payload cannot be null
+          Preconditions.checkArgument(payload != null, "Payload cannot be null for non-transactional message");
+        }
+        return 1 + (txPtr == null ? 0 : txPtr.length) + (payload == null ? 0 : payload.length);
+      }
+
+      @Override
+      public void encodeValue(RawMessageTableEntry entry, ByteBuffer buffer) {
+        byte[] txPtr = entry.getTxPtr();
+        byte[] payload = entry.getPayload();
+        if (txPtr == null) {
+          buffer.put(entry.isCompressedBatch() ? COMPRESSED_NON_TRANSACTIONAL : NON_TRANSACTIONAL);
+        } else if (payload == null) {
+          buffer.put(PAYLOAD_REFERENCE).put(txPtr);
+        } else {
+          buffer.put(entry.isCompressedBatch() ? COMPRESSED_TRANSACTIONAL : TRANSACTIONAL).put(txPtr);
+        }
+        if (payload != null) {
+          buffer.put(payload);
+        }
+      }
+    };
+
+  private final SegmentStore store;
+
+  SegmentMessageTable(SegmentStore store) {
+    this.store = store;
+  }
+
+  @Override
+  protected CloseableIterator<RawMessageTableEntry> read(byte[] startRow, byte[] stopRow) {
+    CloseableIterator<SegmentRecord> iterator = store.scan(startRow, stopRow);
+    RawMessageTableEntry tableEntry = new RawMessageTableEntry();
+    return new AbstractCloseableIterator<RawMessageTableEntry>() {
+      private boolean closed = false;
+
+      @Override
+      protected RawMessageTableEntry computeNext() {
+        if (closed || (!iterator.hasNext())) {
+          return endOfData();
+        }
+
+        SegmentRecord record = iterator.next();
+        int valueLength = record.getValueLength();
+        byte type = record.getValueByte(0);
+        if (type == NON_TRANSACTIONAL || type == COMPRESSED_NON_TRANSACTIONAL) {
+          return tableEntry.set(record.getKey(), null, record.getValue(1, valueLength - 1),
+                                type == COMPRESSED_NON_TRANSACTIONAL);
+        }
+        byte[] txPtr = record.getValue(1, Bytes.SIZEOF_LONG);
+        byte[] payload = null;
+        if (type == TRANSACTIONAL || type == COMPRESSED_TRANSACTIONAL) {
+          int payloadOffset = 1 + Bytes.SIZEOF_LONG;
+          payload = record.getValue(payloadOffset, valueLength - payloadOffset);
+        }
+        return tableEntry.set(record.getKey(), txPtr, payload, type == COMPRESSED_TRANSACTIONAL);
+      }
+
+      @Override
+      public void close() {
+        endOfData();
+        closed = true;
+        iterator.close();
+      }
+    };
+  }
+
+  @Override
+  protected void persist(Iterator<RawMessageTableEntry> entries) throws IOException {
+    store.append(entries, ENCODER);
+  }
+
+  @Override
+  protected void rollback(byte[] startKey, byte[] stopKey, byte[] txWritePtr) {
+    // The transaction write pointer is at a fixed position of the value, hence it can be updated in place
+    store.update(startKey, stopKey, record -> {
+      byte type = record.getValueByte(0);
+      if (type != NON_TRANSACTIONAL && type != COMPRESSED_NON_TRANSACTIONAL) {
+        record.overwriteValue(1, txWritePtr);
+      }
+    });
+  }
+
+  @Override
+  public void close() {
+    // This method has to be an no-op instead of closing the underlying SegmentStore object
+    // This is because a given SegmentStore object instance is shared within the same JVM
+  }
+}
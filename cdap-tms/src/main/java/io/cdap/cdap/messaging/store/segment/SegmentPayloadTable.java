@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.segment;
+
+import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.messaging.store.AbstractPayloadTable;
+import io.cdap.cdap.messaging.store.PayloadTable;
+import io.cdap.cdap.messaging.store.RawPayloadTableEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+/**
+ * A {@link PayloadTable} that stores payloads in a {@link SegmentStore}.
+ */
+final class SegmentPayloadTable extends AbstractPayloadTable {
+
+  private static final SegmentStore.RecordEncoder<RawPayloadTableEntry> ENCODER =
+    new SegmentStore.RecordEncoder<RawPayloadTableEntry>() {
+      @Override
+      public byte[] getKey(RawPayloadTableEntry entry) {
+        return entry.getKey();
+      }
+
+      @Override
+      public int getValueLength(RawPayloadTableEntry entry) {
+        return entry.getValue().length;
+      }
+
+      @Override
+      public void encodeValue(RawPayloadTableEntry entry, ByteBuffer buffer) {
+        buffer.put(entry.getValue());
+      }
+    };
+
+  private final SegmentStore store;
+
+  SegmentPayloadTable(SegmentStore store) {
+    this.store = store;
+  }
+
+  @Override
+  protected CloseableIterator<RawPayloadTableEntry> read(byte[] startRow, byte[] stopRow, int limit) {
+    CloseableIterator<SegmentRecord> iterator = store.scan(startRow, stopRow);
+    return new AbstractCloseableIterator<RawPayloadTableEntry>() {
+      private final RawPayloadTableEntry tableEntry = new RawPayloadTableEntry();
+      private boolean closed = false;
+      private int maxLimit = limit;
+
+      @Override
+      protected RawPayloadTableEntry computeNext() {
+        if (closed || maxLimit <= 0 || (!iterator.hasNext())) {
+          return endOfData();
+        }
+
+        SegmentRecord record = iterator.next();
+        maxLimit--;
+        return tableEntry.set(record.getKey(), record.getValue(0, record.getValueLength()));
+      }
+
+      @Override
+      public void close() {
+        endOfData();
+        closed = true;
+        iterator.close();
+      }
+    };
+  }
+
+  @Override
+  protected void persist(Iterator<RawPayloadTableEntry> entries) throws IOException {
+    store.append(entries, ENCODER);
+  }
+
+  @Override
+  public void close() {
+    // This method has to be an no-op instead of closing the underlying SegmentStore object
+    // This is because a given SegmentStore object instance is shared within the same JVM
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.segment;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A record in a {@link Segment}, which reads the key and value directly from the memory mapped segment file.
+ * Only the parts being asked for are copied out. Records returned by the same iterator share the same
+ * {@link ByteBuffer}, hence this class is not thread safe.
+ */
+final class SegmentRecord implements Comparable<SegmentRecord> {
+
+  private final Segment segment;
+  private final ByteBuffer buffer;
+  private final int position;
+  private final int keyLength;
+  private final int valueLength;
+
+  SegmentRecord(Segment segment, ByteBuffer buffer, int position, int keyLength, int valueLength) {
+    this.segment = segment;
+    this.buffer = buffer;
+    this.position = position;
+    this.keyLength = keyLength;
+    this.valueLength = valueLength;
+  }
+
+  Segment getSegment() {
+    return segment;
+  }
+
+  int getKeyLength() {
+    return keyLength;
+  }
+
+  int getValueLength() {
+    return valueLength;
+  }
+
+  /**
+   * Returns the position of the value in the segment file.
+   */
+  int getValuePosition() {
+    return position + Segment.HEADER_SIZE + keyLength;
+  }
+
+  /**
+   * Returns a copy of the key.
+   */
+  byte[] getKey() {
+    return copy(position + Segment.HEADER_SIZE, keyLength);
+  }
+
+  /**
+   * Returns the byte at the given offset of the value.
+   */
+  byte getValueByte(int offset) {
+    return buffer.get(getValuePosition() + offset);
+  }
+
+  /**
+   * Returns a copy of a part of the value.
+   */
+  byte[] getValue(int offset, int length) {
+    return copy(getValuePosition() + offset, length);
+  }
+
+  /**
+   * Overwrites part of the value in place. This method must only be called from a
+   * {@link SegmentStore.RecordUpdater}, which serializes all writes to the segment.
+   */
+  void overwriteValue(int offset, byte[] bytes) {
+    segment.overwrite(this, offset, bytes);
+  }
+
+  /**
+   * Compares the key of this record with the given key lexicographically, with bytes treated as unsigned.
+   */
+  int compareKey(byte[] key) {
+    int keyPosition = position + Segment.HEADER_SIZE;
+    int len = Math.min(keyLength, key.length);
+    for (int i = 0; i < len; i++) {
+      int a = buffer.get(keyPosition + i) & 0xff;
+      int b = key[i] & 0xff;
+      if (a != b) {
+        return a - b;
+      }
+    }
+    return keyLength - key.length;
+  }
+
+  @Override
+  public int compareTo(SegmentRecord other) {
+    int keyPosition = position + Segment.HEADER_SIZE;
+    int otherKeyPosition = other.position + Segment.HEADER_SIZE;
+    int len = Math.min(keyLength, other.keyLength);
+    for (int i = 0; i < len; i++) {
+      int a = buffer.get(keyPosition + i) & 0xff;
+      int b = other.buffer.get(otherKeyPosition + i) & 0xff;
+      if (a != b) {
+        return a - b;
+      }
+    }
+    return keyLength - other.keyLength;
+  }
+
+  private byte[] copy(int from, int length) {
+    byte[] bytes = new byte[length];
+    buffer.position(from);
+    buffer.get(bytes);
+    return bytes;
+  }
+}
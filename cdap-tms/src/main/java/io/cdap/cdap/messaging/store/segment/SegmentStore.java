@@ -0,0 +1,426 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.segment;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.common.utils.DirUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * An append-only store of key value records, which is a list of {@link Segment} files in a directory.
+ * Each append writes all of its records, sorted by key, into a single segment, such that they are committed
+ * atomically. The records go to the segment with the largest last key that is still smaller than the smallest key of
+ * the append and has enough space left. A new segment is only created if there is no such segment. This keeps records
+ * sorted within each segment, while segments can have overlapping key ranges when keys are not appended in order.
+ * <p/>
+ * Each record carries a timestamp at a fixed offset of its key. Records are deleted by whole segments, when the
+ * maximum timestamp of a segment is older than the retention time. Appends and updates are serialized, while
+ * scans are lock free and only see records of completed appends.
+ */
+final class SegmentStore implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SegmentStore.class);
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final int INITIAL_BATCH_SIZE = 64 * 1024;
+
+  private final File dir;
+  private final int segmentSize;
+  private final int indexInterval;
+  private final int timestampOffset;
+  private volatile List<Segment> segments;
+  private long nextSequence;
+
+  // Buffers for encoding the records of an append, guarded by the lock of this store
+  private ByteBuffer batchBuffer;
+  private int[] recordPositions;
+
+  /**
+   * Encodes entries of type {@code T} into records.
+   *
+   * @param <T> type of the entry
+   */
+  interface RecordEncoder<T> {
+
+    /**
+     * Returns the key of the given entry. The returned array can be reused across entries.
+     */
+    byte[] getKey(T entry);
+
+    /**
+     * Returns the number of bytes of the encoded value of the given entry.
+     */
+    int getValueLength(T entry);
+
+    /**
+     * Writes the encoded value of the given entry to the given buffer at its current position.
+     */
+    void encodeValue(T entry, ByteBuffer buffer);
+  }
+
+  /**
+   * Updates a record in place.
+   */
+  interface RecordUpdater {
+
+    /**
+     * Updates the given record by calling {@link SegmentRecord#overwriteValue(int, byte[])}.
+     */
+    void update(SegmentRecord record);
+  }
+
+  /**
+   * Opens the store in the given directory, loading all the existing segments in it.
+   *
+   * @param dir the directory of the segment files, which will be created if it doesn't exist
+   * @param segmentSize the size in bytes of each segment file
+   * @param indexInterval minimum number of bytes between two entries of the sparse index of a segment
+   * @param timestampOffset the offset in the key of the record timestamp, which is encoded as a long
+   */
+  static SegmentStore open(File dir, int segmentSize, int indexInterval, int timestampOffset) throws IOException {
+    if (!DirUtils.mkdirs(dir)) {
+      throw new IOException("Failed to create local directory " + dir + " for the messaging system.");
+    }
+
+    TreeMap<Long, File> segmentFiles = new TreeMap<>();
+    for (File file : DirUtils.listFiles(dir, (d, name) -> name.endsWith(SEGMENT_SUFFIX))) {
+      String name = file.getName();
+      try {
+        segmentFiles.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), file);
+      } catch (NumberFormatException e) {
+        LOG.warn("Ignoring file {} with unrecognized segment name", file);
+      }
+    }
+
+    List<Segment> segments = new ArrayList<>();
+    for (Map.Entry<Long, File> entry : segmentFiles.entrySet()) {
+      segments.add(Segment.open(entry.getValue(), entry.getKey(), indexInterval, timestampOffset));
+    }
+    long nextSequence = segmentFiles.isEmpty() ? 0L : segmentFiles.lastKey() + 1;
+    return new SegmentStore(dir, segmentSize, indexInterval, timestampOffset, segments, nextSequence);
+  }
+
+  private SegmentStore(File dir, int segmentSize, int indexInterval, int timestampOffset,
+                       List<Segment> segments, long nextSequence) {
+    this.dir = dir;
+    this.segmentSize = segmentSize;
+    this.indexInterval = indexInterval;
+    this.timestampOffset = timestampOffset;
+    this.segments = ImmutableList.copyOf(segments);
+    this.nextSequence = nextSequence;
+    this.recordPositions = new int[16];
+  }
+
+  /**
+   * Returns the directory of this store.
+   */
+  File getDirectory() {
+    return dir;
+  }
+
+  /**
+   * Returns the number of segments in this store.
+   */
+  int getSegmentCount() {
+    return segments.size();
+  }
+
+  /**
+   * Returns the current segments of this store.
+   */
+  List<Segment> getSegments() {
+    return segments;
+  }
+
+  /**
+   * Appends all the given entries. Records of the entries become visible to scans together after all of them are
+   * flushed to disk. If iterating or encoding the entries fails, none of the entries will be appended.
+   */
+  synchronized <T> void append(Iterator<T> entries, RecordEncoder<T> encoder) throws IOException {
+    // The entries can be reused by the iterator, hence they are encoded into a buffer before writing to a segment
+    int count = encode(entries, encoder);
+    if (count == 0) {
+      return;
+    }
+    byte[] records = batchBuffer.array();
+    int batchSize = batchBuffer.position();
+    if (batchSize > segmentSize) {
+      // Don't hold on to the memory of an unusually large append
+      batchBuffer = null;
+    }
+    int firstPosition = recordPositions[0];
+    byte[] firstKey = Arrays.copyOfRange(records, firstPosition + Segment.HEADER_SIZE,
+                                         firstPosition + Segment.HEADER_SIZE + Bytes.toInt(records, firstPosition));
+
+    List<Segment> currentSegments = segments;
+    Segment segment = selectSegment(currentSegments, firstKey, batchSize);
+    boolean created = segment == null;
+    if (created) {
+      segment = createSegment(batchSize);
+    }
+
+    try {
+      for (int i = 0; i < count; i++) {
+        segment.append(records, recordPositions[i]);
+      }
+      segment.commit();
+    } catch (RuntimeException e) {
+      segment.abort();
+      if (created) {
+        segment.release();
+        deleteFile(segment.getFile());
+      }
+      throw e;
+    }
+
+    if (created) {
+      segments = ImmutableList.<Segment>builder().addAll(currentSegments).add(segment).build();
+    }
+  }
+
+  /**
+   * Returns a {@link CloseableIterator} of all the records with key in the range of {@code [startKey, stopKey)},
+   * in key order. The segments being read are released when the iterator is exhausted or closed, after which
+   * records returned by the iterator must not be used.
+   */
+  CloseableIterator<SegmentRecord> scan(byte[] startKey, @Nullable byte[] stopKey) {
+    List<Segment> retained = retainSegments(startKey, stopKey);
+    List<Iterator<SegmentRecord>> iterators = new ArrayList<>(retained.size());
+    for (Segment segment : retained) {
+      iterators.add(segment.scan(startKey, stopKey));
+    }
+    Iterator<SegmentRecord> iterator = iterators.size() == 1
+      ? iterators.get(0) : Iterators.mergeSorted(iterators, Comparator.naturalOrder());
+
+    return new AbstractCloseableIterator<SegmentRecord>() {
+      private boolean closed;
+
+      @Override
+      protected SegmentRecord computeNext() {
+        if (!closed && iterator.hasNext()) {
+          return iterator.next();
+        }
+        close();
+        return endOfData();
+      }
+
+      @Override
+      public void close() {
+        if (!closed) {
+          closed = true;
+          retained.forEach(Segment::release);
+        }
+      }
+    };
+  }
+
+  /**
+   * Updates all the records with key in the range of {@code [startKey, stopKey)} in place.
+   */
+  synchronized void update(byte[] startKey, @Nullable byte[] stopKey, RecordUpdater updater) {
+    List<Segment> updated = new ArrayList<>();
+    try (CloseableIterator<SegmentRecord> iterator = scan(startKey, stopKey)) {
+      while (iterator.hasNext()) {
+        SegmentRecord record = iterator.next();
+        if (!updated.contains(record.getSegment())) {
+          updated.add(record.getSegment());
+        }
+        updater.update(record);
+      }
+      // Flush before closing the iterator, which may release the segments
+      for (Segment segment : updated) {
+        segment.flush();
+      }
+    }
+  }
+
+  /**
+   * Deletes all the segments that only contain records with timestamp smaller than the given timestamp.
+   *
+   * @return the number of segments deleted
+   */
+  synchronized int deleteBefore(long timestamp) {
+    List<Segment> currentSegments = segments;
+    List<Segment> retained = new ArrayList<>(currentSegments.size());
+    List<Segment> deleted = new ArrayList<>();
+    for (Segment segment : currentSegments) {
+      if (segment.getMaxTimestamp() < timestamp) {
+        deleted.add(segment);
+      } else {
+        retained.add(segment);
+      }
+    }
+    if (deleted.isEmpty()) {
+      return 0;
+    }
+
+    // Remove the segments from the list first, such that new scans won't see them.
+    // Existing scans can still read from the deleted files, which are only unmapped after those scans are done.
+    segments = ImmutableList.copyOf(retained);
+    for (Segment segment : deleted) {
+      segment.release();
+      deleteFile(segment.getFile());
+    }
+    return deleted.size();
+  }
+
+  @Override
+  public synchronized void close() {
+    // All the appends are flushed on commit, hence closing only needs to release the segments.
+    List<Segment> currentSegments = segments;
+    segments = ImmutableList.of();
+    currentSegments.forEach(Segment::release);
+  }
+
+  /**
+   * Encodes the given entries into the {@link #batchBuffer}, with positions of the records in key order stored in
+   * the {@link #recordPositions}.
+   *
+   * @return the number of records
+   */
+  private <T> int encode(Iterator<T> entries, RecordEncoder<T> encoder) {
+    ByteBuffer buffer = batchBuffer == null ? ByteBuffer.allocate(INITIAL_BATCH_SIZE) : batchBuffer;
+    buffer.clear();
+    int count = 0;
+    boolean sorted = true;
+
+    while (entries.hasNext()) {
+      T entry = entries.next();
+      byte[] key = encoder.getKey(entry);
+      int valueLength = encoder.getValueLength(entry);
+      int recordSize = Segment.HEADER_SIZE + key.length + valueLength;
+      if (buffer.remaining() < recordSize) {
+        ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + recordSize));
+        buffer.flip();
+        buffer = newBuffer.put(buffer);
+      }
+
+      int position = buffer.position();
+      buffer.putInt(key.length).putInt(valueLength).put(key);
+      encoder.encodeValue(entry, buffer);
+
+      if (count == recordPositions.length) {
+        recordPositions = Arrays.copyOf(recordPositions, count * 2);
+      }
+      recordPositions[count++] = position;
+      if (sorted && count > 1 && compareKeys(buffer.array(), recordPositions[count - 2], position) > 0) {
+        sorted = false;
+      }
+    }
+    batchBuffer = buffer;
+
+    if (!sorted) {
+      byte[] records = buffer.array();
+      Integer[] positions = new Integer[count];
+      for (int i = 0; i < count; i++) {
+        positions[i] = recordPositions[i];
+      }
+      Arrays.sort(positions, (p1, p2) -> compareKeys(records, p1, p2));
+      for (int i = 0; i < count; i++) {
+        recordPositions[i] = positions[i];
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Compares the keys of two encoded records in the given array.
+   */
+  private static int compareKeys(byte[] records, int position1, int position2) {
+    return Bytes.compareTo(records, position1 + Segment.HEADER_SIZE, Bytes.toInt(records, position1),
+                           records, position2 + Segment.HEADER_SIZE, Bytes.toInt(records, position2));
+  }
+
+  /**
+   * Selects the segment for appending records of the given total size with the given smallest key. Among the segments
+   * that have enough space and only smaller keys, the one with the largest last key is selected, which keeps the number
+   * of segments small when appends are slightly out of order.
+   *
+   * @return the selected segment or {@code null} if a new segment is needed
+   */
+  @Nullable
+  private Segment selectSegment(List<Segment> segments, byte[] firstKey, int batchSize) {
+    Segment selected = null;
+    for (Segment segment : segments) {
+      if (!segment.canAppend(firstKey, batchSize)) {
+        continue;
+      }
+      if (selected == null || selected.getLastKey() == null
+        || (segment.getLastKey() != null && Bytes.compareTo(segment.getLastKey(), selected.getLastKey()) >= 0)) {
+        selected = segment;
+      }
+    }
+    return selected;
+  }
+
+  /**
+   * Acquires references to all the segments that overlap with the given key range.
+   */
+  private List<Segment> retainSegments(byte[] startKey, @Nullable byte[] stopKey) {
+    while (true) {
+      List<Segment> retained = new ArrayList<>();
+      boolean completed = true;
+      for (Segment segment : segments) {
+        if (!segment.overlaps(startKey, stopKey)) {
+          continue;
+        }
+        if (!segment.retain()) {
+          // The segment is concurrently deleted, retry with the latest list of segments
+          completed = false;
+          break;
+        }
+        retained.add(segment);
+      }
+      if (completed) {
+        return retained;
+      }
+      retained.forEach(Segment::release);
+    }
+  }
+
+  private Segment createSegment(int batchSize) throws IOException {
+    File file = new File(dir, String.format("%020d%s", nextSequence, SEGMENT_SUFFIX));
+    Segment segment = Segment.create(file, nextSequence, Math.max(segmentSize, batchSize),
+                                     indexInterval, timestampOffset);
+    nextSequence++;
+    LOG.trace("Created segment {}", file);
+    return segment;
+  }
+
+  private void deleteFile(File file) {
+    if (!file.delete() && file.exists()) {
+      LOG.warn("Failed to delete segment file {}", file);
+    }
+  }
+}
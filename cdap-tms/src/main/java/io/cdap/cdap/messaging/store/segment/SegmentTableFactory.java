@@ -0,0 +1,201 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.segment;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.Closeables;
+import com.google.inject.Inject;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.messaging.MessagingUtils;
+import io.cdap.cdap.messaging.TopicMetadata;
+import io.cdap.cdap.messaging.store.ForwardingTableFactory;
+import io.cdap.cdap.messaging.store.MessageTable;
+import io.cdap.cdap.messaging.store.PayloadTable;
+import io.cdap.cdap.messaging.store.TableFactory;
+import io.cdap.cdap.messaging.store.leveldb.LevelDBTableFactory;
+import io.cdap.cdap.proto.id.TopicId;
+import org.apache.twill.common.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link TableFactory} for creating tables used by the messaging system that store messages and payloads in
+ * append-only, memory mapped segment files through {@link SegmentStore}. Since messages of a topic are appended in
+ * publish time order, each segment file holds messages of a time range, and expired messages are removed by deleting
+ * whole segment files instead of deleting messages one by one. The metadata table is provided by the
+ * {@link LevelDBTableFactory}.
+ */
+public final class SegmentTableFactory extends ForwardingTableFactory {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SegmentTableFactory.class);
+  private static final String SEGMENTS_DIR = "segments";
+
+  private final LevelDBTableFactory metadataTableFactory;
+  private final File baseDir;
+  private final int segmentSize;
+  private final int indexInterval;
+  private final String messageTableName;
+  private final String payloadTableName;
+  private final ConcurrentMap<File, SegmentStore> stores;
+
+  @VisibleForTesting
+  @Inject
+  public SegmentTableFactory(CConfiguration cConf, LevelDBTableFactory metadataTableFactory) {
+    this.metadataTableFactory = metadataTableFactory;
+    this.baseDir = new File(cConf.get(Constants.MessagingSystem.LOCAL_DATA_DIR), SEGMENTS_DIR);
+    this.segmentSize = cConf.getInt(Constants.MessagingSystem.LOCAL_SEGMENT_SIZE_BYTES);
+    this.indexInterval = cConf.getInt(Constants.MessagingSystem.LOCAL_SEGMENT_INDEX_INTERVAL_BYTES);
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+      Threads.createDaemonThreadFactory("segment-tms-data-cleanup"));
+    executor.scheduleAtFixedRate(new DataCleanup(), 0L,
+                                 Long.parseLong(cConf.get(Constants.MessagingSystem.LOCAL_DATA_CLEANUP_FREQUENCY)),
+                                 TimeUnit.SECONDS);
+
+    this.messageTableName = cConf.get(Constants.MessagingSystem.MESSAGE_TABLE_NAME);
+    this.payloadTableName = cConf.get(Constants.MessagingSystem.PAYLOAD_TABLE_NAME);
+    this.stores = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public TableFactory getDelegate() {
+    return metadataTableFactory;
+  }
+
+  @Override
+  public MessageTable createMessageTable(TopicMetadata topicMetadata) throws IOException {
+    // Message table key is [topic prefix][publish timestamp][sequence id]
+    int timestampOffset = getKeyPrefixLength(topicMetadata);
+    return new SegmentMessageTable(getSegmentStore(topicMetadata, messageTableName, timestampOffset));
+  }
+
+  @Override
+  public PayloadTable createPayloadTable(TopicMetadata topicMetadata) throws IOException {
+    // Payload table key is [topic prefix][tx write pointer][payload write timestamp][sequence id]
+    int timestampOffset = getKeyPrefixLength(topicMetadata) + Bytes.SIZEOF_LONG;
+    return new SegmentPayloadTable(getSegmentStore(topicMetadata, payloadTableName, timestampOffset));
+  }
+
+  private int getKeyPrefixLength(TopicMetadata topicMetadata) {
+    return MessagingUtils.toDataKeyPrefix(topicMetadata.getTopicId(), topicMetadata.getGeneration()).length;
+  }
+
+  /**
+   * Returns the {@link SegmentStore} for the given {@link TopicMetadata}, which stores segments in a directory
+   * derived from the given table name.
+   */
+  private SegmentStore getSegmentStore(TopicMetadata topicMetadata, String tableName,
+                                       int timestampOffset) throws IOException {
+    File storePath = getStorePath(tableName, topicMetadata.getTopicId(), topicMetadata.getGeneration());
+
+    SegmentStore store = stores.get(storePath);
+    if (store != null) {
+      return store;
+    }
+
+    synchronized (this) {
+      // Check again to make sure no new instance was being created while this thread is acquiring the lock
+      store = stores.get(storePath);
+      if (store != null) {
+        return store;
+      }
+
+      store = SegmentStore.open(storePath, segmentSize, indexInterval, timestampOffset);
+      stores.put(storePath, store);
+    }
+
+    LOG.debug("Messaging segment store created at {}", storePath);
+    return store;
+  }
+
+  private File getStorePath(String tableName, TopicId topicId, int generation) {
+    String fileName = String.format("%s.%s.%s.%d", topicId.getNamespace(), tableName, topicId.getTopic(), generation);
+    return new File(baseDir, fileName);
+  }
+
+  private class DataCleanup implements Runnable {
+
+    @Override
+    public void run() {
+      long now = System.currentTimeMillis();
+
+      try (CloseableIterator<TopicMetadata> metadataIterator = metadataTableFactory.scanTopics()) {
+        while (metadataIterator.hasNext()) {
+          TopicMetadata metadata = metadataIterator.next();
+          int currGeneration = metadata.getGeneration();
+
+          // We can safely remove all generations that are less than `cleanOlderThan`.
+          int cleanOlderThan = currGeneration < 0 ? currGeneration * -1 + 1 : currGeneration;
+
+          // Find the generations older than `cleanOlderThan`, that have data on disk, and remove them in reverse order.
+          // We do it in reverse order, so that in case there is a failure in deleting one of them, we can repeat
+          // the same process next iteration and not lose track of generations that need to be deleted.
+          Deque<File> filesToDelete = new LinkedList<>();
+          for (int olderGeneration = cleanOlderThan - 1; olderGeneration > 0; olderGeneration--) {
+            File messageStorePath = getStorePath(messageTableName, metadata.getTopicId(), olderGeneration);
+            File payloadStorePath = getStorePath(payloadTableName, metadata.getTopicId(), olderGeneration);
+            if (!messageStorePath.exists() && !payloadStorePath.exists()) {
+              break;
+            }
+            // We can safely remove and close the stores as no one should be accessing them anymore
+            Closeables.closeQuietly(stores.remove(messageStorePath));
+            Closeables.closeQuietly(stores.remove(payloadStorePath));
+            filesToDelete.add(messageStorePath);
+            filesToDelete.add(payloadStorePath);
+          }
+
+          Iterator<File> descendingIterator = filesToDelete.descendingIterator();
+          while (descendingIterator.hasNext()) {
+            File storePath = descendingIterator.next();
+            if (storePath.exists()) {
+              LOG.info("Deleting file: {}", storePath);
+              DirUtils.deleteDirectoryContents(storePath);
+            }
+          }
+
+          // Delete the expired segments of the current generation
+          long expireBefore = now - TimeUnit.SECONDS.toMillis(metadata.getTTL());
+          for (String tableName : new String[] { messageTableName, payloadTableName }) {
+            SegmentStore store = stores.get(getStorePath(tableName, metadata.getTopicId(), currGeneration));
+            if (store != null) {
+              int deleted = store.deleteBefore(expireBefore);
+              if (deleted > 0) {
+                LOG.debug("Deleted {} expired segments from {}", deleted, store.getDirectory());
+              }
+            }
+          }
+        }
+      } catch (IOException ex) {
+        LOG.debug("Unable to perform data cleanup in TMS segment stores", ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging;
+
+import com.google.common.base.Strings;
+import io.cdap.cdap.api.common.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for {@link PayloadCodec}.
+ */
+public class PayloadCodecTest {
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    Random random = new Random();
+    List<byte[]> payloads = new ArrayList<>();
+    payloads.add(new byte[0]);
+    payloads.add(Bytes.toBytes(Strings.repeat("compressible", 1000)));
+    byte[] randomPayload = new byte[70000];
+    random.nextBytes(randomPayload);
+    payloads.add(randomPayload);
+    payloads.add(Bytes.toBytes("m"));
+
+    for (PayloadCodec codec : PayloadCodec.values()) {
+      byte[] batch = codec.encode(payloads.iterator());
+      Assert.assertEquals(payloads.stream().mapToInt(p -> Bytes.SIZEOF_INT + p.length).sum(),
+                          PayloadCodec.getUncompressedSize(batch));
+
+      List<byte[]> decoded = PayloadCodec.decode(batch);
+      Assert.assertEquals(payloads.size(), decoded.size());
+      for (int i = 0; i < payloads.size(); i++) {
+        Assert.assertArrayEquals(payloads.get(i), decoded.get(i));
+      }
+
+      // Empty batch
+      Assert.assertTrue(PayloadCodec.decode(codec.encode(Collections.emptyIterator())).isEmpty());
+      Assert.assertSame(codec, PayloadCodec.fromName(codec.getName().toUpperCase()));
+    }
+  }
+
+  @Test
+  public void testInvalid() {
+    try {
+      PayloadCodec.fromName("lzo");
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    try {
+      PayloadCodec.decode(new byte[] { 1, 0 });
+      Assert.fail("Expected IOException");
+    } catch (IOException e) {
+      // Expected
+    }
+
+    try {
+      PayloadCodec.decode(new byte[] { 100, 0, 0, 0, 1, 0 });
+      Assert.fail("Expected IOException");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void testValidate() throws IOException {
+    for (PayloadCodec codec : PayloadCodec.values()) {
+      byte[] batch = codec.encode(Collections.singletonList(Bytes.toBytes("m")).iterator());
+      codec.validate(batch);
+
+      // Validation fails for batch of another codec
+      for (PayloadCodec otherCodec : PayloadCodec.values()) {
+        if (otherCodec != codec) {
+          assertInvalid(otherCodec, batch);
+        }
+      }
+
+      // Negative and wrong uncompressed size
+      assertInvalid(codec, withUncompressedSize(batch, -1));
+      assertInvalid(codec, withUncompressedSize(batch, Integer.MAX_VALUE));
+      assertInvalid(codec, withUncompressedSize(batch, PayloadCodec.getUncompressedSize(batch) + 1));
+      assertInvalid(codec, withUncompressedSize(batch, PayloadCodec.getUncompressedSize(batch) - 1));
+
+      // Payload length that goes beyond the batch
+      byte[] uncompressed = Bytes.add(Bytes.toBytes(100), Bytes.toBytes("m"));
+      assertInvalid(codec, compress(codec, uncompressed));
+
+      // Truncated payload length
+      assertInvalid(codec, compress(codec, new byte[] { 0, 0 }));
+    }
+  }
+
+  private void assertInvalid(PayloadCodec codec, byte[] batch) {
+    try {
+      codec.validate(batch);
+      Assert.fail("Expected IOException");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+
+  private byte[] withUncompressedSize(byte[] batch, int size) {
+    byte[] result = Arrays.copyOf(batch, batch.length);
+    Bytes.putInt(result, 1, size);
+    return result;
+  }
+
+  /**
+   * Creates a payload batch with the given uncompressed bytes.
+   */
+  private byte[] compress(PayloadCodec codec, byte[] uncompressed) throws IOException {
+    byte[] batch = codec.encode(Collections.emptyIterator());
+    byte[] compressed = new byte[codec.maxCompressedLength(uncompressed.length)];
+    int size = codec.compress(uncompressed, uncompressed.length, compressed, 0);
+    return Bytes.add(new byte[] { batch[0] }, Bytes.toBytes(uncompressed.length), Arrays.copyOf(compressed, size));
+  }
+}
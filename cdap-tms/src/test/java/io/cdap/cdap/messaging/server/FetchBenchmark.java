@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.server;
+
+import com.google.common.collect.Iterators;
+import com.google.common.io.Files;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.guice.InMemoryDiscoveryModule;
+import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.StoreRequest;
+import io.cdap.cdap.messaging.TopicMetadata;
+import io.cdap.cdap.messaging.client.StoreRequestBuilder;
+import io.cdap.cdap.messaging.data.RawMessage;
+import io.cdap.cdap.messaging.guice.MessagingServerRuntimeModule;
+import io.cdap.cdap.messaging.service.CoreMessagingService;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.TopicId;
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for fetching messages from the {@link CoreMessagingService} and encoding them into response chunks
+ * with the {@link FetchHandler}. Each operation encodes {@link #FETCH_LIMIT} messages, hence the throughput
+ * in MB/s is {@code ops/ms * FETCH_LIMIT * payloadSize / 1000}. The {@code encode} benchmark encodes messages that
+ * are already fetched into memory, which excludes the cost of reading from the message table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FetchBenchmark {
+
+  private static final int FETCH_LIMIT = 1000;
+
+  @Param({"100", "10240"})
+  public int payloadSize;
+
+  private File baseDir;
+  private CoreMessagingService messagingService;
+  private TopicId topicId;
+  private int chunkSize;
+  private List<RawMessage> messages;
+
+  @Setup
+  public void setup() throws Exception {
+    baseDir = Files.createTempDir();
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, baseDir.getAbsolutePath());
+    chunkSize = cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_CONSUME_CHUNK_SIZE);
+
+    Injector injector = Guice.createInjector(
+      new ConfigModule(cConf),
+      new InMemoryDiscoveryModule(),
+      new MessagingServerRuntimeModule().getStandaloneModules(),
+      new AbstractModule() {
+        @Override
+        protected void configure() {
+          bind(MetricsCollectionService.class).toInstance(new NoOpMetricsCollectionService());
+        }
+      }
+    );
+    messagingService = (CoreMessagingService) injector.getInstance(MessagingService.class);
+    messagingService.startAndWait();
+
+    topicId = NamespaceId.DEFAULT.topic("benchmark");
+    messagingService.createTopic(new TopicMetadata(topicId));
+
+    byte[] payload = new byte[payloadSize];
+    for (int i = 0; i < FETCH_LIMIT / 100; i++) {
+      StoreRequestBuilder builder = StoreRequestBuilder.of(topicId);
+      for (int j = 0; j < 100; j++) {
+        builder.addPayload(payload);
+      }
+      StoreRequest request = builder.build();
+      messagingService.publish(request);
+    }
+
+    messages = new ArrayList<>();
+    try (CloseableIterator<RawMessage> iterator = messagingService.prepareFetch(topicId).fetch()) {
+      Iterators.addAll(messages, iterator);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    messagingService.stopAndWait();
+    DirUtils.deleteDirectoryContents(baseDir);
+  }
+
+  @Benchmark
+  public long fetch() throws Exception {
+    return encode(messagingService.prepareFetch(topicId).setLimit(FETCH_LIMIT).fetch());
+  }
+
+  @Benchmark
+  public long encode() throws Exception {
+    Iterator<RawMessage> iterator = messages.iterator();
+    return encode(new AbstractCloseableIterator<RawMessage>() {
+      @Override
+      protected RawMessage computeNext() {
+        return iterator.hasNext() ? iterator.next() : endOfData();
+      }
+
+      @Override
+      public void close() {
+        // no-op
+      }
+    });
+  }
+
+  private long encode(CloseableIterator<RawMessage> iterator) throws Exception {
+    FetchHandler.MessagesBodyProducer producer = new FetchHandler.MessagesBodyProducer(iterator, chunkSize);
+    long bytes = 0;
+    try {
+      ByteBuf chunk = producer.nextChunk();
+      while (chunk.isReadable()) {
+        bytes += chunk.readableBytes();
+        chunk.release();
+        chunk = producer.nextChunk();
+      }
+    } finally {
+      producer.finished();
+    }
+    return bytes;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(FetchBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -32,6 +32,7 @@ import io.cdap.cdap.common.guice.ConfigModule;
 import io.cdap.cdap.common.guice.InMemoryDiscoveryModule;
 import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
 import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.PayloadCodec;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
@@ -57,8 +58,11 @@ import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -97,7 +101,7 @@ public class MessagingHttpServiceTest {
     httpService = injector.getInstance(MessagingHttpService.class);
     httpService.startAndWait();
 
-    client = new ClientMessagingService(injector.getInstance(DiscoveryServiceClient.class));
+    client = new ClientMessagingService(cConf, injector.getInstance(DiscoveryServiceClient.class));
   }
 
   @AfterClass
@@ -442,6 +446,164 @@ public class MessagingHttpServiceTest {
     client.deleteTopic(topicId);
   }
 
+  @Test
+  public void testMixedSizeConsume() throws Exception {
+    // This test is to verify the body producer encodes both small payloads that are copied to the response chunk
+    // and large payloads that are wrapped in the response chunk correctly
+    TopicId topicId = new NamespaceId("ns1").topic("testMixedSizeConsume");
+
+    client.createTopic(new TopicMetadata(topicId));
+
+    int[] payloadSizes = { 1, 5000, 0, 1023, 1024, 200, 70000, 3 };
+    StoreRequestBuilder builder = StoreRequestBuilder.of(topicId);
+    for (int i = 0; i < payloadSizes.length; i++) {
+      builder.addPayload(Strings.repeat(Integer.toString(i), payloadSizes[i]));
+    }
+    client.publish(builder.build());
+
+    List<RawMessage> messages = new ArrayList<>();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).fetch()) {
+      Iterators.addAll(messages, iterator);
+    }
+    Assert.assertEquals(payloadSizes.length, messages.size());
+    for (int i = 0; i < payloadSizes.length; i++) {
+      String payload = Strings.repeat(Integer.toString(i), payloadSizes[i]);
+      Assert.assertEquals(payload, Bytes.toString(messages.get(i).getPayload()));
+    }
+
+    client.deleteTopic(topicId);
+  }
+
+  @Test
+  public void testCompressedPubSub() throws Exception {
+    // This test is to verify publishing payloads as compressed batches and fetching them as individual messages
+    TopicId topicId = new NamespaceId("ns1").topic("testCompressedPubSub");
+
+    client.createTopic(new TopicMetadata(topicId));
+
+    // Publish two non-tx batches of 5 messages, one with each codec
+    int count = 0;
+    for (PayloadCodec codec : PayloadCodec.values()) {
+      StoreRequestBuilder builder = StoreRequestBuilder.of(topicId).setPayloadCodec(codec);
+      for (int i = 0; i < 5; i++) {
+        builder.addPayload("m" + count++);
+      }
+      Assert.assertNull(client.publish(builder.build()));
+    }
+
+    // Publish a transactional batch and rollback it
+    RollbackDetail rollbackDetail = client.publish(StoreRequestBuilder.of(topicId)
+                                                     .setPayloadCodec(PayloadCodec.SNAPPY)
+                                                     .addPayload("m10").addPayload("m11")
+                                                     .setTransaction(1L).build());
+    Assert.assertNotNull(rollbackDetail);
+    client.rollback(topicId, rollbackDetail);
+
+    // Storing compressed payloads to the payload table is not supported
+    try {
+      client.storePayload(StoreRequestBuilder.of(topicId).setPayloadCodec(PayloadCodec.SNAPPY)
+                            .addPayload("p").setTransaction(2L).build());
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    List<RawMessage> messages = new ArrayList<>();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).fetch()) {
+      Iterators.addAll(messages, iterator);
+    }
+    Assert.assertEquals(12, messages.size());
+    for (int i = 0; i < 12; i++) {
+      Assert.assertEquals("m" + i, Bytes.toString(messages.get(i).getPayload()));
+    }
+
+    // Consume transactionally. It should only get messages from the non-tx batches
+    Transaction transaction = new Transaction(3L, 3L, new long[0], new long[]{2L}, 2L);
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+      .setStartTime(0)
+      .setTransaction(transaction)
+      .fetch()) {
+      Assert.assertEquals(10, Iterators.size(iterator));
+    }
+
+    // Fetch from offsets inside and at the end of a batch, both inclusively and exclusively, with limit
+    for (int i : new int[] { 0, 2, 4, 5, 7, 9 }) {
+      byte[] startMessageId = messages.get(i).getId();
+      List<RawMessage> fetched = new ArrayList<>();
+      try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+        .setStartMessage(startMessageId, true)
+        .setLimit(4)
+        .fetch()) {
+        Iterators.addAll(fetched, iterator);
+      }
+      Assert.assertEquals(Math.min(4, 12 - i), fetched.size());
+      for (int j = 0; j < fetched.size(); j++) {
+        Assert.assertEquals("m" + (i + j), Bytes.toString(fetched.get(j).getPayload()));
+        Assert.assertArrayEquals(messages.get(i + j).getId(), fetched.get(j).getId());
+      }
+
+      fetched.clear();
+      try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+        .setStartMessage(startMessageId, false)
+        .fetch()) {
+        Iterators.addAll(fetched, iterator);
+      }
+      Assert.assertEquals(11 - i, fetched.size());
+      for (int j = 0; j < fetched.size(); j++) {
+        Assert.assertEquals("m" + (i + j + 1), Bytes.toString(fetched.get(j).getPayload()));
+      }
+    }
+
+    client.deleteTopic(topicId);
+  }
+
+  @Test
+  public void testPublishInvalidBatch() throws Exception {
+    TopicId topicId = new NamespaceId("ns1").topic("testPublishInvalidBatch");
+    client.createTopic(new TopicMetadata(topicId));
+
+    client.publish(StoreRequestBuilder.of(topicId).setPayloadCodec(PayloadCodec.SNAPPY).addPayload("m0").build());
+
+    byte[] validBatch = PayloadCodec.DEFLATE.encode(Arrays.asList(Bytes.toBytes("x"), Bytes.toBytes("y")).iterator());
+    List<byte[]> invalidBatches = Arrays.asList(
+      // Not a batch at all
+      Bytes.toBytes("garbage"),
+      // Truncated batch
+      Arrays.copyOf(validBatch, validBatch.length - 2),
+      // Uncompressed size larger than the actual size
+      Bytes.add(new byte[] { validBatch[0] }, Bytes.toBytes(Integer.MAX_VALUE),
+                Arrays.copyOfRange(validBatch, 1 + Bytes.SIZEOF_INT, validBatch.length))
+    );
+
+    for (byte[] invalidBatch : invalidBatches) {
+      try {
+        client.publish(new BatchStoreRequest(topicId, PayloadCodec.DEFLATE, invalidBatch));
+        Assert.fail("Expected IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        // Expected
+      }
+    }
+
+    // A valid batch sent with a different codec should also be rejected
+    try {
+      client.publish(new BatchStoreRequest(topicId, PayloadCodec.SNAPPY, validBatch));
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    client.publish(StoreRequestBuilder.of(topicId).setPayloadCodec(PayloadCodec.DEFLATE).addPayload("m1").build());
+
+    // Fetch should get all the messages in the valid batches
+    List<String> messages = new ArrayList<>();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).fetch()) {
+      iterator.forEachRemaining(message -> messages.add(Bytes.toString(message.getPayload())));
+    }
+    Assert.assertEquals(Arrays.asList("m0", "m1"), messages);
+
+    client.deleteTopic(topicId);
+  }
+
   @Test
   public void testPayloadTable() throws Exception {
     // This test is to verify storing transaction messages to the payload table
@@ -596,4 +758,63 @@ public class MessagingHttpServiceTest {
                           .map(RawMessage::getPayload)
                           .map(Bytes::toString).collect(Collectors.toList()));
   }
+
+  @Test
+  public void testWaitingFetch() throws Exception {
+    TopicId topicId = new NamespaceId("ns1").topic("testWaitingFetch");
+    client.createTopic(new TopicMetadata(topicId));
+
+    // Fetching from an empty topic with a wait time should return empty after the wait time
+    long startTime = System.currentTimeMillis();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+      .setWaitTime(500, TimeUnit.MILLISECONDS).fetch()) {
+      Assert.assertFalse(iterator.hasNext());
+    }
+    Assert.assertTrue(System.currentTimeMillis() - startTime >= 500);
+
+    // A waiting fetch should return as soon as a message is published
+    CompletableFuture<List<String>> fetched = CompletableFuture.supplyAsync(() -> {
+      try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+        .setWaitTime(30, TimeUnit.SECONDS).fetch()) {
+        List<String> payloads = new ArrayList<>();
+        iterator.forEachRemaining(message -> payloads.add(Bytes.toString(message.getPayload())));
+        return payloads;
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+
+    // Make sure the fetch is waiting before publishing
+    TimeUnit.MILLISECONDS.sleep(500);
+    Assert.assertFalse(fetched.isDone());
+    startTime = System.currentTimeMillis();
+    client.publish(StoreRequestBuilder.of(topicId).addPayload("m1").build());
+    Assert.assertEquals(Arrays.asList("m1"), fetched.get(10, TimeUnit.SECONDS));
+    Assert.assertTrue(System.currentTimeMillis() - startTime < 10000);
+
+    client.deleteTopic(topicId);
+  }
+
+  /**
+   * A non-transactional {@link StoreRequest} that publishes the given payload batches as is.
+   */
+  private static final class BatchStoreRequest extends StoreRequest {
+
+    private final List<byte[]> batches;
+
+    BatchStoreRequest(TopicId topicId, PayloadCodec payloadCodec, byte[]... batches) {
+      super(topicId, false, -1L, payloadCodec);
+      this.batches = Arrays.asList(batches);
+    }
+
+    @Override
+    public boolean hasPayload() {
+      return !batches.isEmpty();
+    }
+
+    @Override
+    public Iterator<byte[]> iterator() {
+      return batches.iterator();
+    }
+  }
 }
@@ -167,7 +167,7 @@ public class ConcurrentMessageWriterTest {
       public void gauge(String metricName, long value) {
         LOG.info("MetricsContext.gauge: {} = {}", metricName, value);
       }
-    });
+    }, () -> { });
 
     ExecutorService executor = Executors.newFixedThreadPool(3);
     for (final StoreRequest request : requests) {
@@ -290,7 +290,8 @@ public class ConcurrentMessageWriterTest {
 
     @Override
     TestEntry getEntry(TopicMetadata metadata, boolean transactional, long transactionWritePointer,
-                       long writeTimestamp, short sequenceId, @Nullable byte[] payload) {
+                       long writeTimestamp, short sequenceId, @Nullable byte[] payload,
+                       boolean compressedBatch) {
       return new TestEntry(metadata.getTopicId(), transactional, transactionWritePointer, writeTimestamp,
                            sequenceId, payload);
     }
@@ -329,6 +329,11 @@ public abstract class DataCleanupTest {
       return Bytes.toBytes(payload);
     }
 
+    @Override
+    public boolean isCompressedBatch() {
+      return false;
+    }
+
     @Override
     public long getPublishTimestamp() {
       return timestamp;
@@ -0,0 +1,200 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.io.Files;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.messaging.TopicMetadata;
+import io.cdap.cdap.messaging.store.leveldb.LevelDBTableFactory;
+import io.cdap.cdap.messaging.store.segment.SegmentTableFactory;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.TopicId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * JMH benchmark for the throughput of storing and fetching batches of non-transactional messages with the
+ * {@link MessageTable} of the {@link LevelDBTableFactory} and the {@link SegmentTableFactory}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageTableBenchmark {
+
+  private static final int BATCH_SIZE = 100;
+  private static final int PAYLOAD_SIZE = 100;
+  private static final int PRELOAD_BATCHES = 1000;
+
+  @Param({"leveldb", "segment"})
+  public String store;
+
+  private final byte[] payload = new byte[PAYLOAD_SIZE];
+  private File baseDir;
+  private TopicMetadata topicMetadata;
+  private MessageTable messageTable;
+  private long firstPublishTime;
+  private long publishTime;
+
+  @Setup
+  public void setup() throws Exception {
+    baseDir = Files.createTempDir();
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, baseDir.getAbsolutePath());
+
+    LevelDBTableFactory levelDBTableFactory = new LevelDBTableFactory(cConf);
+    TableFactory tableFactory = "segment".equals(store)
+      ? new SegmentTableFactory(cConf, levelDBTableFactory)
+      : levelDBTableFactory;
+
+    topicMetadata = new TopicMetadata(NamespaceId.DEFAULT.topic("benchmark"),
+                                      TopicMetadata.TTL_KEY, Long.toString(TimeUnit.DAYS.toSeconds(1)),
+                                      TopicMetadata.GENERATION_KEY, "1");
+    try (MetadataTable metadataTable = tableFactory.createMetadataTable()) {
+      metadataTable.createTopic(topicMetadata);
+    }
+    messageTable = tableFactory.createMessageTable(topicMetadata);
+
+    firstPublishTime = System.currentTimeMillis();
+    publishTime = firstPublishTime;
+    for (int i = 0; i < PRELOAD_BATCHES; i++) {
+      store();
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    messageTable.close();
+    DirUtils.deleteDirectoryContents(baseDir);
+  }
+
+  @Benchmark
+  public void store() throws IOException {
+    messageTable.store(new MessageBatch(topicMetadata.getTopicId(), publishTime++, payload));
+  }
+
+  @Benchmark
+  public long fetch() throws IOException {
+    long startTime = ThreadLocalRandom.current().nextLong(firstPublishTime, publishTime);
+    long bytes = 0;
+    try (CloseableIterator<MessageTable.Entry> iterator = messageTable.fetch(topicMetadata, startTime,
+                                                                             BATCH_SIZE, null)) {
+      while (iterator.hasNext()) {
+        bytes += iterator.next().getPayload().length;
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * A batch of non-transactional messages with the same publish time, which reuses the same entry object.
+   */
+  private static final class MessageBatch extends AbstractIterator<MessageTable.Entry> implements MessageTable.Entry {
+
+    private final TopicId topicId;
+    private final long publishTimestamp;
+    private final byte[] payload;
+    private short sequenceId = -1;
+
+    MessageBatch(TopicId topicId, long publishTimestamp, byte[] payload) {
+      this.topicId = topicId;
+      this.publishTimestamp = publishTimestamp;
+      this.payload = payload;
+    }
+
+    @Override
+    protected MessageTable.Entry computeNext() {
+      return ++sequenceId < BATCH_SIZE ? this : endOfData();
+    }
+
+    @Override
+    public TopicId getTopicId() {
+      return topicId;
+    }
+
+    @Override
+    public int getGeneration() {
+      return 1;
+    }
+
+    @Override
+    public boolean isPayloadReference() {
+      return false;
+    }
+
+    @Override
+    public boolean isTransactional() {
+      return false;
+    }
+
+    @Override
+    public long getTransactionWritePointer() {
+      return -1L;
+    }
+
+    @Nullable
+    @Override
+    public byte[] getPayload() {
+      return payload;
+    }
+
+    @Override
+    public boolean isCompressedBatch() {
+      return false;
+    }
+
+    @Override
+    public long getPublishTimestamp() {
+      return publishTimestamp;
+    }
+
+    @Override
+    public short getSequenceId() {
+      return sequenceId;
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(MessageTableBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -247,6 +247,50 @@ public abstract class MessageTableTest {
     }
   }
 
+  @Test
+  public void testCompressedBatch() throws Exception {
+    TopicId topicId = NamespaceId.DEFAULT.topic("testCompressedBatch");
+    TopicMetadata metadata = new TopicMetadata(topicId, DEFAULT_PROPERTY);
+
+    try (MessageTable table = getMessageTable(metadata);
+         MetadataTable metadataTable = getMetadataTable()) {
+      metadataTable.createTopic(metadata);
+      List<MessageTable.Entry> entryList = new ArrayList<>();
+      entryList.add(new TestMessageEntry(topicId, GENERATION, 1L, 0, null, Bytes.toBytes("batch0"), true));
+      entryList.add(new TestMessageEntry(topicId, GENERATION, 1L, 1, null, Bytes.toBytes("single"), false));
+      entryList.add(new TestMessageEntry(topicId, GENERATION, 1L, 2, 10L, Bytes.toBytes("batch2"), true));
+      table.store(entryList.iterator());
+
+      List<MessageTable.Entry> entries = new ArrayList<>();
+      try (CloseableIterator<MessageTable.Entry> iterator = table.fetch(metadata, 0L, Integer.MAX_VALUE, null)) {
+        Iterators.addAll(entries, iterator);
+      }
+      Assert.assertEquals(3, entries.size());
+      Assert.assertTrue(entries.get(0).isCompressedBatch());
+      Assert.assertArrayEquals(Bytes.toBytes("batch0"), entries.get(0).getPayload());
+      Assert.assertFalse(entries.get(1).isCompressedBatch());
+      Assert.assertArrayEquals(Bytes.toBytes("single"), entries.get(1).getPayload());
+      Assert.assertTrue(entries.get(2).isCompressedBatch());
+      Assert.assertTrue(entries.get(2).isTransactional());
+      Assert.assertArrayEquals(Bytes.toBytes("batch2"), entries.get(2).getPayload());
+
+      // Rollback the transactional batch. It should still be a compressed batch when fetched non-transactionally
+      table.rollback(metadata, new TestRollbackDetail(10L, 1L, (short) 2, 1L, (short) 2));
+      try (CloseableIterator<MessageTable.Entry> iterator = table.fetch(metadata, 0L, Integer.MAX_VALUE, null)) {
+        Iterators.addAll(entries, iterator);
+      }
+      Assert.assertEquals(6, entries.size());
+      Assert.assertTrue(entries.get(5).isCompressedBatch());
+      Assert.assertArrayEquals(Bytes.toBytes("batch2"), entries.get(5).getPayload());
+
+      // The batch is invisible to transactional fetch after rollback
+      Transaction tx = new Transaction(200, 200, new long[0], new long[0], -1);
+      try (CloseableIterator<MessageTable.Entry> iterator = table.fetch(metadata, 0L, Integer.MAX_VALUE, tx)) {
+        Assert.assertEquals(2, Iterators.size(iterator));
+      }
+    }
+  }
+
   @Test
   public void testConcurrentWrites() throws Exception {
     // Create two threads, each of them writes to a different topic with two events in one store call.
@@ -400,9 +444,16 @@ public abstract class MessageTableTest {
     private final byte[] payload;
     private final long publishTimestamp;
     private final short sequenceId;
+    private final boolean compressedBatch;
 
     TestMessageEntry(TopicId topicId, int generation, long publishTimestamp, int sequenceId,
                      @Nullable Long transactionWritePointer, @Nullable byte[] payload) {
+      this(topicId, generation, publishTimestamp, sequenceId, transactionWritePointer, payload, false);
+    }
+
+    TestMessageEntry(TopicId topicId, int generation, long publishTimestamp, int sequenceId,
+                     @Nullable Long transactionWritePointer, @Nullable byte[] payload, boolean compressedBatch) {
+      this.compressedBatch = compressedBatch;
       this.topicId = topicId;
       this.generation = generation;
       this.transactionWritePointer = transactionWritePointer;
@@ -442,6 +493,11 @@ public abstract class MessageTableTest {
       return payload;
     }
 
+    @Override
+    public boolean isCompressedBatch() {
+      return compressedBatch;
+    }
+
     @Override
     public long getPublishTimestamp() {
       return publishTimestamp;
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.cache;
+
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
+import io.cdap.cdap.common.utils.Tasks;
+import io.cdap.cdap.messaging.cache.MessageCache;
+import io.cdap.cdap.messaging.store.MessageTable;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.TopicId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit test for {@link DefaultMessageTableCacheProvider}.
+ */
+public class DefaultMessageTableCacheProviderTest {
+
+  private static final long CACHE_SIZE = 10 * 1024 * 1024;
+
+  @Test
+  public void testRebalance() {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.MessagingSystem.SYSTEM_TOPICS, "hot,warm,idle");
+    cConf.setInt(Constants.MessagingSystem.CACHE_SIZE_MB, 10);
+    // Disable the automatic rebalance
+    cConf.setInt(Constants.MessagingSystem.CACHE_REBALANCE_INTERVAL_SECONDS, 0);
+
+    DefaultMessageTableCacheProvider provider = new DefaultMessageTableCacheProvider(
+      cConf, new NoOpMetricsCollectionService());
+
+    MessageCache<MessageTable.Entry> hot = provider.getMessageCache(NamespaceId.SYSTEM.topic("hot"));
+    MessageCache<MessageTable.Entry> warm = provider.getMessageCache(NamespaceId.SYSTEM.topic("warm"));
+    MessageCache<MessageTable.Entry> idle = provider.getMessageCache(NamespaceId.SYSTEM.topic("idle"));
+    Assert.assertNotNull(hot);
+    Assert.assertNotNull(warm);
+    Assert.assertNotNull(idle);
+    Assert.assertNull(provider.getMessageCache(new TopicId("ns", "hot")));
+
+    // Initially the cache is evenly distributed
+    Assert.assertEquals(CACHE_SIZE / 3, hot.getLimits().getHardLimit());
+    Assert.assertEquals(CACHE_SIZE / 3, warm.getLimits().getHardLimit());
+    Assert.assertEquals(CACHE_SIZE / 3, idle.getLimits().getHardLimit());
+
+    // Without any fetch, rebalance keeps the even distribution
+    provider.rebalance();
+    Assert.assertEquals(CACHE_SIZE / 3, hot.getLimits().getHardLimit());
+
+    for (int i = 0; i < 100; i++) {
+      hot.recordScan(true);
+    }
+    for (int i = 0; i < 20; i++) {
+      warm.recordScan(i % 2 == 0);
+    }
+    Assert.assertEquals(100L, hot.getScanHits());
+    Assert.assertEquals(10L, warm.getScanHits());
+    Assert.assertEquals(10L, warm.getScanMisses());
+
+    provider.rebalance();
+    long hotLimit = hot.getLimits().getHardLimit();
+    long warmLimit = warm.getLimits().getHardLimit();
+    long idleLimit = idle.getLimits().getHardLimit();
+    Assert.assertTrue(hotLimit > warmLimit);
+    Assert.assertTrue(warmLimit > idleLimit);
+    Assert.assertTrue(idleLimit > 0);
+    Assert.assertTrue(hotLimit + warmLimit + idleLimit <= CACHE_SIZE);
+
+    // The idle topic becomes the busiest one. It should gain share over the next intervals.
+    for (int i = 0; i < 3; i++) {
+      for (int j = 0; j < 1000; j++) {
+        idle.recordScan(false);
+      }
+      provider.rebalance();
+    }
+    Assert.assertTrue(idle.getLimits().getHardLimit() > hot.getLimits().getHardLimit());
+    Assert.assertTrue(hot.getLimits().getHardLimit() < hotLimit);
+  }
+
+  @Test
+  public void testBackgroundRebalance() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.MessagingSystem.SYSTEM_TOPICS, "hot,idle");
+    cConf.setInt(Constants.MessagingSystem.CACHE_SIZE_MB, 10);
+    cConf.setInt(Constants.MessagingSystem.CACHE_REBALANCE_INTERVAL_SECONDS, 1);
+
+    DefaultMessageTableCacheProvider provider = new DefaultMessageTableCacheProvider(
+      cConf, new NoOpMetricsCollectionService());
+    try {
+      MessageCache<MessageTable.Entry> hot = provider.getMessageCache(NamespaceId.SYSTEM.topic("hot"));
+      Assert.assertNotNull(hot);
+      Assert.assertEquals(CACHE_SIZE / 2, hot.getLimits().getHardLimit());
+
+      // The cache is rebalanced in the background without any call to the provider
+      for (int i = 0; i < 100; i++) {
+        hot.recordScan(false);
+      }
+      Tasks.waitFor(true, () -> hot.getLimits().getHardLimit() > CACHE_SIZE / 2, 10, TimeUnit.SECONDS);
+    } finally {
+      provider.clear();
+    }
+  }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.segment;
+
+import com.google.common.collect.AbstractIterator;
+import io.cdap.cdap.api.common.Bytes;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Unit tests for {@link SegmentStore}.
+ */
+public class SegmentStoreTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  /**
+   * Encodes a long array of {@code [timestamp, value]}, with the timestamp as the key.
+   */
+  private static final SegmentStore.RecordEncoder<long[]> ENCODER = new SegmentStore.RecordEncoder<long[]>() {
+    @Override
+    public byte[] getKey(long[] entry) {
+      return Bytes.toBytes(entry[0]);
+    }
+
+    @Override
+    public int getValueLength(long[] entry) {
+      return Bytes.SIZEOF_LONG;
+    }
+
+    @Override
+    public void encodeValue(long[] entry, ByteBuffer buffer) {
+      buffer.putLong(entry[1]);
+    }
+  };
+
+  @Test
+  public void testAppendAndScan() throws Exception {
+    // Small segment and index interval to have multiple segments and index entries
+    SegmentStore store = SegmentStore.open(TEMP_FOLDER.newFolder(), 256, 64, 0);
+    for (int i = 0; i < 10; i++) {
+      store.append(entries(i * 10, i * 10 + 10), ENCODER);
+    }
+    Assert.assertTrue(store.getSegmentCount() > 1);
+
+    Assert.assertEquals(range(0, 100), scan(store, 0, null));
+    Assert.assertEquals(range(37, 81), scan(store, 37, 81L));
+    Assert.assertEquals(range(99, 100), scan(store, 99, null));
+    Assert.assertEquals(range(0, 0), scan(store, 100, null));
+  }
+
+  @Test
+  public void testOutOfOrderAppend() throws Exception {
+    SegmentStore store = SegmentStore.open(TEMP_FOLDER.newFolder(), 4096, 64, 0);
+    store.append(entries(10, 20), ENCODER);
+    Assert.assertEquals(1, store.getSegmentCount());
+
+    // Appending smaller keys creates a new segment, and scan merges records of overlapping segments
+    store.append(entries(0, 5), ENCODER);
+    Assert.assertEquals(2, store.getSegmentCount());
+
+    // Appends go to the segment with the largest last key smaller than the appended keys
+    store.append(entries(20, 30), ENCODER);
+    store.append(entries(5, 10), ENCODER);
+    Assert.assertEquals(2, store.getSegmentCount());
+    Assert.assertEquals(range(0, 30), scan(store, 0, null));
+    Assert.assertEquals(range(3, 12), scan(store, 3, 12L));
+  }
+
+  @Test
+  public void testInterleavedAppend() throws Exception {
+    File dir = TEMP_FOLDER.newFolder();
+    SegmentStore store = SegmentStore.open(dir, 64 * 1024, 64, 0);
+
+    // Two writers with interleaving keys only need two segments, instead of a new segment per out of order append
+    for (int i = 0; i < 100; i++) {
+      store.append(entries(i * 10 + 5, i * 10 + 10), ENCODER);
+      store.append(entries(i * 10, i * 10 + 5), ENCODER);
+    }
+    Assert.assertEquals(2, store.getSegmentCount());
+    Assert.assertEquals(range(0, 1000), scan(store, 0, null));
+
+    // Records of an unsorted append are sorted
+    List<long[]> unsorted = new ArrayList<>();
+    for (long i = 1099; i >= 1000; i--) {
+      unsorted.add(new long[] { i, i });
+    }
+    store.append(unsorted.iterator(), ENCODER);
+    Assert.assertEquals(2, store.getSegmentCount());
+    Assert.assertEquals(range(990, 1100), scan(store, 990, null));
+    store.close();
+
+    store = SegmentStore.open(dir, 64 * 1024, 64, 0);
+    Assert.assertEquals(range(0, 1100), scan(store, 0, null));
+  }
+
+  @Test
+  public void testAtomicAppend() throws Exception {
+    File dir = TEMP_FOLDER.newFolder();
+    SegmentStore store = SegmentStore.open(dir, 256, 64, 0);
+    store.append(entries(0, 5), ENCODER);
+
+    // An append larger than the segment size goes to a single larger segment, such that it is committed atomically
+    store.append(entries(5, 100), ENCODER);
+    Assert.assertEquals(2, store.getSegmentCount());
+    Assert.assertEquals(range(0, 100), scan(store, 0, null));
+    store.close();
+
+    store = SegmentStore.open(dir, 256, 64, 0);
+    Assert.assertEquals(2, store.getSegmentCount());
+    Assert.assertEquals(range(0, 100), scan(store, 0, null));
+  }
+
+  @Test
+  public void testRecoverAfterAbort() throws Exception {
+    File file = new File(TEMP_FOLDER.newFolder(), "0.seg");
+    Segment segment = Segment.create(file, 0, 1024, 64, 0);
+    appendRecords(segment, 0, 2);
+    segment.commit();
+
+    // Abort an append, followed by a shorter one at the same position
+    appendRecords(segment, 2, 10);
+    segment.abort();
+    appendRecords(segment, 2, 3);
+    segment.commit();
+    Assert.assertEquals(range(0, 3), scan(segment));
+
+    // Simulate a crash by opening the file without closing the segment.
+    // Records of the aborted append beyond the last commit should not be recovered.
+    Segment recovered = Segment.open(file, 0, 64, 0);
+    Assert.assertEquals(range(0, 3), scan(recovered));
+    Assert.assertEquals(3 * (Segment.HEADER_SIZE + 2 * Bytes.SIZEOF_LONG), recovered.getSize());
+
+    // A pending append is not recovered either
+    appendRecords(recovered, 3, 5);
+    Assert.assertEquals(range(0, 3), scan(Segment.open(file, 0, 64, 0)));
+  }
+
+  @Test
+  public void testRecover() throws Exception {
+    File dir = TEMP_FOLDER.newFolder();
+    SegmentStore store = SegmentStore.open(dir, 512, 64, 0);
+    for (int i = 0; i < 10; i++) {
+      store.append(entries(i * 10, i * 10 + 10), ENCODER);
+    }
+    int segments = store.getSegmentCount();
+    store.close();
+
+    // Reopen the store should recover all the records
+    store = SegmentStore.open(dir, 512, 64, 0);
+    Assert.assertEquals(segments, store.getSegmentCount());
+    Assert.assertEquals(range(0, 100), scan(store, 0, null));
+    Assert.assertEquals(range(55, 65), scan(store, 55, 65L));
+
+    // Should be able to continue appending to the last segment
+    store.append(entries(100, 110), ENCODER);
+    Assert.assertEquals(range(0, 110), scan(store, 0, null));
+    store.close();
+
+    store = SegmentStore.open(dir, 512, 64, 0);
+    Assert.assertEquals(range(0, 110), scan(store, 0, null));
+  }
+
+  @Test
+  public void testFailedAppend() throws Exception {
+    File dir = TEMP_FOLDER.newFolder();
+    SegmentStore store = SegmentStore.open(dir, 256, 64, 0);
+    store.append(entries(0, 5), ENCODER);
+
+    // Fail the append after some records are encoded, which spans multiple segments
+    Iterator<long[]> failingEntries = new AbstractIterator<long[]>() {
+      private long timestamp = 5;
+
+      @Override
+      protected long[] computeNext() {
+        if (timestamp == 30) {
+          throw new IllegalStateException("Failure");
+        }
+        return new long[] { timestamp, timestamp++ };
+      }
+    };
+    try {
+      store.append(failingEntries, ENCODER);
+      Assert.fail("Expected failure");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    Assert.assertEquals(1, store.getSegmentCount());
+    Assert.assertEquals(range(0, 5), scan(store, 0, null));
+
+    // Appending again should succeed, and none of the failed records should be recovered
+    store.append(entries(5, 10), ENCODER);
+    Assert.assertEquals(range(0, 10), scan(store, 0, null));
+    store.close();
+
+    store = SegmentStore.open(dir, 256, 64, 0);
+    Assert.assertEquals(range(0, 10), scan(store, 0, null));
+  }
+
+  @Test
+  public void testUpdate() throws Exception {
+    File dir = TEMP_FOLDER.newFolder();
+    SegmentStore store = SegmentStore.open(dir, 256, 64, 0);
+    store.append(entries(0, 20), ENCODER);
+
+    store.update(Bytes.toBytes(5L), Bytes.toBytes(15L), record -> record.overwriteValue(0, Bytes.toBytes(-1L)));
+    store.close();
+
+    store = SegmentStore.open(dir, 256, 64, 0);
+    Iterator<SegmentRecord> iterator = store.scan(Bytes.toBytes(0L), null);
+    for (long i = 0; i < 20; i++) {
+      SegmentRecord record = iterator.next();
+      long expected = i >= 5 && i < 15 ? -1L : i;
+      Assert.assertEquals(expected, Bytes.toLong(record.getValue(0, Bytes.SIZEOF_LONG)));
+    }
+    Assert.assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void testDeleteBefore() throws Exception {
+    File dir = TEMP_FOLDER.newFolder();
+    SegmentStore store = SegmentStore.open(dir, 256, 64, 0);
+    for (int i = 0; i < 10; i++) {
+      store.append(entries(i * 10, i * 10 + 10), ENCODER);
+    }
+    int segments = store.getSegmentCount();
+
+    // Only segments with all records older than the given time are deleted
+    List<Segment> segmentList = store.getSegments();
+    Iterator<SegmentRecord> iterator = store.scan(Bytes.toBytes(0L), null);
+    Assert.assertTrue(store.deleteBefore(50) > 0);
+    Assert.assertTrue(store.getSegmentCount() < segments);
+    List<Long> remaining = scan(store, 0, null);
+    Assert.assertTrue(remaining.get(0) <= 50);
+    Assert.assertEquals(range(remaining.get(0), 100), remaining);
+    Assert.assertEquals(store.getSegmentCount(), dir.list().length);
+
+    // Existing scan can still read from the deleted segments, which are released after the scan is done
+    Assert.assertFalse(segmentList.get(0).isReleased());
+    for (long i = 0; i < 100; i++) {
+      Assert.assertEquals(i, Bytes.toLong(iterator.next().getKey()));
+    }
+    Assert.assertFalse(iterator.hasNext());
+    for (Segment segment : segmentList) {
+      Assert.assertEquals(!store.getSegments().contains(segment), segment.isReleased());
+    }
+
+    // Deleting all segments and continue to append
+    Assert.assertEquals(store.getSegmentCount(), store.deleteBefore(Long.MAX_VALUE));
+    Assert.assertEquals(0, store.getSegmentCount());
+    store.append(entries(100, 110), ENCODER);
+    Assert.assertEquals(range(100, 110), scan(store, 0, null));
+  }
+
+  /**
+   * Appends records of keys in the range of {@code [from, to)} to the given segment.
+   */
+  private void appendRecords(Segment segment, long from, long to) {
+    ByteBuffer buffer = ByteBuffer.allocate(Segment.HEADER_SIZE + 2 * Bytes.SIZEOF_LONG);
+    for (long i = from; i < to; i++) {
+      buffer.clear();
+      buffer.putInt(Bytes.SIZEOF_LONG).putInt(Bytes.SIZEOF_LONG).putLong(i).putLong(i);
+      segment.append(buffer.array(), 0);
+    }
+  }
+
+  private List<Long> scan(Segment segment) {
+    List<Long> result = new ArrayList<>();
+    Iterator<SegmentRecord> iterator = segment.scan(Bytes.toBytes(0L), null);
+    while (iterator.hasNext()) {
+      result.add(Bytes.toLong(iterator.next().getKey()));
+    }
+    return result;
+  }
+
+  private Iterator<long[]> entries(long from, long to) {
+    List<long[]> entries = new ArrayList<>();
+    for (long i = from; i < to; i++) {
+      entries.add(new long[] { i, i });
+    }
+    return entries.iterator();
+  }
+
+  private List<Long> range(long from, long to) {
+    List<Long> result = new ArrayList<>();
+    for (long i = from; i < to; i++) {
+      result.add(i);
+    }
+    return result;
+  }
+
+  private List<Long> scan(SegmentStore store, long startTime, Long stopTime) {
+    List<Long> result = new ArrayList<>();
+    Iterator<SegmentRecord> iterator = store.scan(Bytes.toBytes(startTime),
+                                                  stopTime == null ? null : Bytes.toBytes(stopTime));
+    while (iterator.hasNext()) {
+      SegmentRecord record = iterator.next();
+      long key = Bytes.toLong(record.getKey());
+      Assert.assertEquals(key, Bytes.toLong(record.getValue(0, record.getValueLength())));
+      result.add(key);
+    }
+    return result;
+  }
+}
@@ -62,6 +62,7 @@ import io.cdap.cdap.common.guice.IOModule;
 import io.cdap.cdap.common.guice.InMemoryDiscoveryModule;
 import io.cdap.cdap.common.guice.LocalLocationModule;
 import io.cdap.cdap.common.namespace.NamespaceAdmin;
+import io.cdap.cdap.common.service.ServiceGraph;
 import io.cdap.cdap.common.test.TestRunner;
 import io.cdap.cdap.common.utils.OSDetector;
 import io.cdap.cdap.data.runtime.DataFabricModules;
@@ -272,50 +273,58 @@ public class TestBase {
     );
 
     messagingService = injector.getInstance(MessagingService.class);
-    if (messagingService instanceof Service) {
-      ((Service) messagingService).startAndWait();
-    }
-
     txService = injector.getInstance(TransactionManager.class);
-    txService.startAndWait();
-
     metadataSubscriberService = injector.getInstance(MetadataSubscriberService.class);
     metadataStorage = injector.getInstance(MetadataStorage.class);
     metadataAdmin = injector.getInstance(MetadataAdmin.class);
-    metadataStorage.createIndex();
     metadataService = injector.getInstance(MetadataService.class);
-    metadataService.startAndWait();
-
-    // Define all StructuredTable before starting any services that need StructuredTable
-    StoreDefinition.createAllTables(injector.getInstance(StructuredTableAdmin.class),
-                                    injector.getInstance(StructuredTableRegistry.class));
-
     dsOpService = injector.getInstance(DatasetOpExecutorService.class);
-    dsOpService.startAndWait();
     datasetService = injector.getInstance(DatasetService.class);
-    datasetService.startAndWait();
     metricsCollectionService = injector.getInstance(MetricsCollectionService.class);
-    metricsCollectionService.startAndWait();
     programNotificationSubscriberService = injector.getInstance(ProgramNotificationSubscriberService.class);
-    programNotificationSubscriberService.startAndWait();
     scheduler = injector.getInstance(Scheduler.class);
-    if (scheduler instanceof Service) {
-      ((Service) scheduler).startAndWait();
-    }
-    if (scheduler instanceof CoreSchedulerService) {
-      ((CoreSchedulerService) scheduler).waitUntilFunctional(10, TimeUnit.SECONDS);
-    }
     if (cConf.getBoolean(Constants.Explore.EXPLORE_ENABLED)) {
       exploreExecutorService = injector.getInstance(ExploreExecutorService.class);
-      exploreExecutorService.startAndWait();
-      // wait for explore service to be discoverable
-      DiscoveryServiceClient discoveryService = injector.getInstance(DiscoveryServiceClient.class);
-      EndpointStrategy endpointStrategy = new RandomEndpointStrategy(() ->
-        discoveryService.discover(Constants.Service.EXPLORE_HTTP_USER_SERVICE));
-      Preconditions.checkNotNull(endpointStrategy.pick(5, TimeUnit.SECONDS),
-                                 "%s service is not up after 5 seconds", Constants.Service.EXPLORE_HTTP_USER_SERVICE);
-      exploreClient = injector.getInstance(ExploreClient.class);
     }
+
+    // Services are started concurrently according to their dependencies
+    ServiceGraph.builder()
+      .addService("messaging", messagingService instanceof Service ? (Service) messagingService : null)
+      .addService("transaction", txService)
+      .addTask("metadata.index", metadataStorage::createIndex, "transaction")
+      .addService("metadata", metadataService, "metadata.index")
+      // Define all StructuredTable before starting any services that need StructuredTable
+      .addTask("system.tables", () -> StoreDefinition.createAllTables(
+        injector.getInstance(StructuredTableAdmin.class), injector.getInstance(StructuredTableRegistry.class)),
+               "transaction")
+      .addService("dataset.executor", dsOpService, "system.tables")
+      .addService("dataset.service", datasetService, "dataset.executor", "messaging")
+      .addService("metrics.collection", metricsCollectionService, "messaging", "system.tables")
+      .addService("program.notification.subscriber", programNotificationSubscriberService, "dataset.service")
+      .addTask("scheduler", () -> {
+        if (scheduler instanceof Service) {
+          ((Service) scheduler).startAndWait();
+        }
+        if (scheduler instanceof CoreSchedulerService) {
+          ((CoreSchedulerService) scheduler).waitUntilFunctional(10, TimeUnit.SECONDS);
+        }
+      }, "dataset.service")
+      .addTask("explore", () -> {
+        if (exploreExecutorService == null) {
+          return;
+        }
+        exploreExecutorService.startAndWait();
+        // wait for explore service to be discoverable
+        DiscoveryServiceClient discoveryService = injector.getInstance(DiscoveryServiceClient.class);
+        EndpointStrategy endpointStrategy = new RandomEndpointStrategy(() ->
+          discoveryService.discover(Constants.Service.EXPLORE_HTTP_USER_SERVICE));
+        Preconditions.checkNotNull(endpointStrategy.pick(5, TimeUnit.SECONDS),
+                                   "%s service is not up after 5 seconds", Constants.Service.EXPLORE_HTTP_USER_SERVICE);
+        exploreClient = injector.getInstance(ExploreClient.class);
+      }, "dataset.service")
+      .build()
+      .startAndWait(null);
+
     programScheduler = injector.getInstance(Scheduler.class);
     if (programScheduler instanceof Service) {
       ((Service) programScheduler).startAndWait();
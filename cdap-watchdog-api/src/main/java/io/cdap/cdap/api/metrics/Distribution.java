@@ -0,0 +1,261 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.api.metrics;
+
+import com.google.common.base.Objects;
+
+import java.util.Arrays;
+
+/**
+ * An immutable histogram of non-negative long values, carried by a {@link MetricValue} of type
+ * {@link MetricType#DISTRIBUTION}.
+ * <p>
+ * Values are counted in a fixed set of log-linear buckets: values {@code 0} to {@code 3} have a bucket each, and
+ * every power of two range above is split into four equally sized buckets. This bounds the relative error of a
+ * percentile estimate to 25%, and makes two distributions mergeable by summing up the counts of the same bucket.
+ * Only the non-empty buckets are kept, sorted by bucket index.
+ * </p>
+ */
+public final class Distribution {
+
+  private static final int SUB_BUCKET_BITS = 2;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * Total number of buckets, covering all non-negative long values.
+   */
+  public static final int NUM_BUCKETS = getBucket(Long.MAX_VALUE) + 1;
+
+  private static final Distribution EMPTY = new Distribution(new int[0], new long[0]);
+
+  private final int[] buckets;
+  private final long[] counts;
+
+  /**
+   * Creates a {@link Distribution} from the non-empty buckets.
+   *
+   * @param buckets bucket indices in strictly increasing order
+   * @param counts counts of the buckets, in the same order as the bucket indices
+   */
+  public Distribution(int[] buckets, long[] counts) {
+    if (buckets.length != counts.length) {
+      throw new IllegalArgumentException("Number of buckets " + buckets.length
+                                           + " is different from the number of counts " + counts.length);
+    }
+    for (int i = 0; i < buckets.length; i++) {
+      if (buckets[i] < 0 || buckets[i] >= NUM_BUCKETS || (i > 0 && buckets[i] <= buckets[i - 1])) {
+        throw new IllegalArgumentException("Bucket indices must be increasing and within [0, " + NUM_BUCKETS
+                                             + "), but got " + Arrays.toString(buckets));
+      }
+      if (counts[i] < 0) {
+        throw new IllegalArgumentException("Bucket counts must not be negative, but got " + Arrays.toString(counts));
+      }
+    }
+    this.buckets = buckets;
+    this.counts = counts;
+  }
+
+  /**
+   * Returns an empty {@link Distribution}.
+   */
+  public static Distribution empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Returns the index of the bucket that the given value is counted in. Negative values are counted as {@code 0}.
+   */
+  public static int getBucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return value < 0 ? 0 : (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Returns the smallest value counted in the given bucket.
+   */
+  public static long getBucketLowerBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+  }
+
+  /**
+   * Returns the largest value counted in the given bucket.
+   */
+  public static long getBucketUpperBound(int bucket) {
+    return bucket == NUM_BUCKETS - 1 ? Long.MAX_VALUE : getBucketLowerBound(bucket + 1) - 1;
+  }
+
+  /**
+   * Returns the indices of the non-empty buckets, in increasing order. The returned array must not be modified.
+   */
+  public int[] getBuckets() {
+    return buckets;
+  }
+
+  /**
+   * Returns the counts of the non-empty buckets, in the same order as {@link #getBuckets()}.
+   * The returned array must not be modified.
+   */
+  public long[] getCounts() {
+    return counts;
+  }
+
+  /**
+   * Returns the total number of values counted in this distribution.
+   */
+  public long getCount() {
+    long total = 0;
+    for (long count : counts) {
+      total += count;
+    }
+    return total;
+  }
+
+  /**
+   * Returns a new {@link Distribution} that counts the values of both this and the given distribution.
+   */
+  public Distribution merge(Distribution other) {
+    return builder().add(this).add(other).build();
+  }
+
+  /**
+   * Returns an estimate of the given percentile of the values counted in this distribution. The estimate is
+   * interpolated linearly within the bucket that contains the percentile.
+   *
+   * @param percentile the percentile to estimate, in the range of {@code (0, 100]}
+   * @return the estimated value or {@code 0} if the distribution is empty
+   */
+  public long getPercentile(double percentile) {
+    if (!(percentile > 0d && percentile <= 100d)) {
+      throw new IllegalArgumentException("Percentile must be in the range of (0, 100], but got " + percentile);
+    }
+    long total = getCount();
+    if (total == 0) {
+      return 0L;
+    }
+    long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100d));
+    long seen = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      if (seen + counts[i] >= rank) {
+        long lower = getBucketLowerBound(buckets[i]);
+        long width = getBucketUpperBound(buckets[i]) - lower;
+        return lower + (long) (width * ((double) (rank - seen) / counts[i]));
+      }
+      seen += counts[i];
+    }
+    // Should never reach here since rank <= total
+    return getBucketUpperBound(buckets[buckets.length - 1]);
+  }
+
+  /**
+   * Creates a {@link Builder} for building a {@link Distribution}.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    Distribution that = (Distribution) o;
+    return Arrays.equals(buckets, that.buckets) && Arrays.equals(counts, that.counts);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(buckets) + Arrays.hashCode(counts);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+      .add("buckets", Arrays.toString(buckets))
+      .add("counts", Arrays.toString(counts))
+      .toString();
+  }
+
+  /**
+   * A builder for {@link Distribution} that counts values in dense buckets. This class is not thread safe.
+   */
+  public static final class Builder {
+
+    private final long[] counts = new long[NUM_BUCKETS];
+
+    private Builder() {
+    }
+
+    /**
+     * Counts the given value.
+     */
+    public Builder add(long value) {
+      counts[getBucket(value)]++;
+      return this;
+    }
+
+    /**
+     * Adds the given count to the given bucket.
+     */
+    public Builder addToBucket(int bucket, long count) {
+      counts[bucket] += count;
+      return this;
+    }
+
+    /**
+     * Adds all the counts of the given distribution.
+     */
+    public Builder add(Distribution distribution) {
+      for (int i = 0; i < distribution.buckets.length; i++) {
+        counts[distribution.buckets[i]] += distribution.counts[i];
+      }
+      return this;
+    }
+
+    /**
+     * Creates a {@link Distribution} from the non-empty buckets counted by this builder.
+     */
+    public Distribution build() {
+      int size = 0;
+      for (long count : counts) {
+        if (count != 0) {
+          size++;
+        }
+      }
+      int[] nonEmptyBuckets = new int[size];
+      long[] nonEmptyCounts = new long[size];
+      int idx = 0;
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] != 0) {
+          nonEmptyBuckets[idx] = i;
+          nonEmptyCounts[idx++] = counts[i];
+        }
+      }
+      return new Distribution(nonEmptyBuckets, nonEmptyCounts);
+    }
+  }
+}
@@ -23,6 +23,7 @@ import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
 import io.cdap.cdap.api.dataset.lib.cube.AggregationOption;
 import io.cdap.cdap.api.dataset.lib.cube.Interpolator;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
@@ -63,6 +64,11 @@ public final class MetricDataQuery {
 
   private final Interpolator interpolator;
 
+  /**
+   * Percentiles to compute for {@link MetricType#DISTRIBUTION} metrics, empty to query the metric values.
+   */
+  private final List<Double> percentiles;
+
   /**
    * @param startTs Start timestamp, in seconds.
    * @param endTs End timestamp, in seconds.
@@ -104,6 +110,19 @@ public final class MetricDataQuery {
                          Map<String, String> sliceByTagValues, List<String> groupByTags,
                          AggregationOption aggregationOption,
                          @Nullable Interpolator interpolator) {
+    this(startTs, endTs, resolution, limit, metrics, sliceByTagValues, groupByTags, aggregationOption, interpolator,
+         Collections.emptyList());
+  }
+
+  /**
+   * @param percentiles percentiles in the range of (0, 100] to compute from the distribution metrics, in which case
+   *                    the result contains a time series per metric and percentile instead of the metric values.
+   */
+  public MetricDataQuery(long startTs, long endTs, int resolution, int limit,
+                         Map<String, AggregationFunction> metrics,
+                         Map<String, String> sliceByTagValues, List<String> groupByTags,
+                         AggregationOption aggregationOption,
+                         @Nullable Interpolator interpolator, List<Double> percentiles) {
     this.startTs = startTs;
     this.endTs = endTs;
     this.resolution = resolution;
@@ -113,6 +132,7 @@ public final class MetricDataQuery {
     this.groupByTags = groupByTags;
     this.aggregationOption = aggregationOption;
     this.interpolator = interpolator;
+    this.percentiles = percentiles;
   }
 
   public long getStartTs() {
@@ -152,6 +172,10 @@ public final class MetricDataQuery {
     return interpolator;
   }
 
+  public List<Double> getPercentiles() {
+    return percentiles;
+  }
+
   @Override
   public String toString() {
     return Objects.toStringHelper(this)
@@ -160,6 +184,7 @@ public final class MetricDataQuery {
       .add("resolution", resolution)
       .add("metrics", metrics)
       .add("sliceByTags", Joiner.on(",").withKeyValueSeparator(":").useForNull("null").join(sliceByTagValues))
-      .add("groupByTags", Joiner.on(",").join(groupByTags)).toString();
+      .add("groupByTags", Joiner.on(",").join(groupByTags))
+      .add("percentiles", percentiles).toString();
   }
 }
@@ -34,8 +34,61 @@ public interface MetricsContext extends MetricsCollector {
    */
   MetricsContext childContext(String tagName, String tagValue);
 
+  /**
+   * Counts a value in the {@link Distribution} of the given metric, such as the latency of a request.
+   * The default implementation ignores the value, for contexts that don't support distribution metrics.
+   * @param metricName Name of the metric.
+   * @param value value to count in the distribution.
+   */
+  default void distribution(String metricName, long value) {
+    // no-op
+  }
+
   /**
    * @return tags that identify the context.
    */
   Map<String, String> getTags();
+
+  /**
+   * Returns a {@link Counter} bound to the given metric of this context. Incrementing a bound counter is
+   * equivalent to calling {@link #increment(String, long)}, but implementations can avoid looking up the metric
+   * on every call, which makes it preferable for metrics that are updated frequently.
+   *
+   * @param metricName Name of the metric.
+   */
+  default Counter getCounter(String metricName) {
+    return delta -> increment(metricName, delta);
+  }
+
+  /**
+   * Returns a {@link Gauge} bound to the given metric of this context. Setting a bound gauge is equivalent to calling
+   * {@link #gauge(String, long)}, but implementations can avoid looking up the metric on every call.
+   *
+   * @param metricName Name of the metric.
+   */
+  default Gauge getGauge(String metricName) {
+    return value -> gauge(metricName, value);
+  }
+
+  /**
+   * A counter metric bound to a {@link MetricsContext}.
+   */
+  interface Counter {
+
+    /**
+     * Increases the value of the metric by the given delta.
+     */
+    void increment(long delta);
+  }
+
+  /**
+   * A gauge metric bound to a {@link MetricsContext}.
+   */
+  interface Gauge {
+
+    /**
+     * Sets the value of the metric.
+     */
+    void set(long value);
+  }
 }
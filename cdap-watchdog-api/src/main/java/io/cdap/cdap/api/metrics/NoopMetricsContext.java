@@ -25,6 +25,9 @@ import java.util.Map;
  */
 public final class NoopMetricsContext implements MetricsContext {
 
+  private static final Counter NOOP_COUNTER = delta -> { };
+  private static final Gauge NOOP_GAUGE = value -> { };
+
   private final Map<String, String> tags;
 
   public NoopMetricsContext() {
@@ -59,4 +62,14 @@ public final class NoopMetricsContext implements MetricsContext {
   public void gauge(String metricName, long value) {
     // no-op
   }
+
+  @Override
+  public Counter getCounter(String metricName) {
+    return NOOP_COUNTER;
+  }
+
+  @Override
+  public Gauge getGauge(String metricName) {
+    return NOOP_GAUGE;
+  }
 }
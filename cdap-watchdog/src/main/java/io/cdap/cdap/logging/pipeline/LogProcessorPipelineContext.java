@@ -193,4 +193,19 @@ public class LogProcessorPipelineContext implements Flushable, Syncable, Metrics
   public void gauge(String metricName, long value) {
     metricsContext.gauge(String.format("%s.%s", metricsPrefix, metricName), value);
   }
+
+  @Override
+  public void distribution(String metricName, long value) {
+    metricsContext.distribution(String.format("%s.%s", metricsPrefix, metricName), value);
+  }
+
+  @Override
+  public Counter getCounter(String metricName) {
+    return metricsContext.getCounter(String.format("%s.%s", metricsPrefix, metricName));
+  }
+
+  @Override
+  public Gauge getGauge(String metricName) {
+    return metricsContext.getGauge(String.format("%s.%s", metricsPrefix, metricName));
+  }
 }
@@ -18,6 +18,7 @@ package io.cdap.cdap.metrics.collect;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
@@ -36,6 +37,8 @@ import org.slf4j.LoggerFactory;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
@@ -64,17 +67,25 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
       .expireAfterAccess(CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
       .build(createCollectorLoader());
 
+    // NOTE : we don't need to have removalListener to  emit metrics, as we have expireAfterAccess set for a minute,
+    // emitters.get() is used to increment/gauge and that would reset the access time,
+    // and since runOneIteration() emits all the metrics for the scheduled duration (every 1 second)
+    // there wont be any loss of emitter entries.
+    // Bound metrics don't access the cache, hence getMetrics() resets the access time of emitters that have values,
+    // and removed emitters are marked, such that bound metrics can move their values to a new emitter.
+    RemovalListener<String, AggregatedMetricsEmitter> emitterRemovalListener =
+      notification -> notification.getValue().markRemoved();
     this.emitters = CacheBuilder.newBuilder()
-      // NOTE : we don't need to have removalListener to  emit metrics, as we have expireAfterAccess set for a minute,
-      // emitters.get() is used to increment/gauge and that would reset the access time,
-      // and since runOneIteration() emits all the metrics for the scheduled duration (every 1 second)
-      // there wont be any loss of emitter entries.
       .expireAfterAccess(CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+      .removalListener(
+        (RemovalListener<Map<String, String>, LoadingCache<String, AggregatedMetricsEmitter>>) notification ->
+          notification.getValue().invalidateAll())
       .build(new CacheLoader<Map<String, String>, LoadingCache<String, AggregatedMetricsEmitter>>() {
         @Override
         public LoadingCache<String, AggregatedMetricsEmitter> load(Map<String, String> tags) throws Exception {
-          return CacheBuilder.newBuilder().expireAfterAccess(CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES).
-            build(new CacheLoader<String, AggregatedMetricsEmitter>() {
+          return CacheBuilder.newBuilder().expireAfterAccess(CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .removalListener(emitterRemovalListener)
+            .build(new CacheLoader<String, AggregatedMetricsEmitter>() {
               @Override
               public AggregatedMetricsEmitter load(String metricName) throws Exception {
                 return new AggregatedMetricsEmitter(metricName);
@@ -174,6 +185,8 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
   private Iterator<MetricValues> getMetrics(final long timestamp) {
     // NOTE : emitters.asMap does not reset the access time in cache,
     // so it's the preferred way to access the cache entries. as we access and emit metrics every second.
+    // Expired entries are cleaned up first, so that bound metrics of the removed emitters get notified.
+    emitters.cleanUp();
     final Iterator<Map.Entry<Map<String, String>, LoadingCache<String, AggregatedMetricsEmitter>>> iterator =
       emitters.asMap().entrySet().iterator();
     return new AbstractIterator<MetricValues>() {
@@ -181,22 +194,26 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
       protected MetricValues computeNext() {
         while (iterator.hasNext()) {
           Map.Entry<Map<String, String>, LoadingCache<String, AggregatedMetricsEmitter>> entry = iterator.next();
+          entry.getValue().cleanUp();
           Map<String, AggregatedMetricsEmitter> metricEmitters = entry.getValue().asMap();
           // +1 because we add extra metric about how many metric values did we emit in this context (see below)
           List<MetricValue> metricValues = Lists.newArrayListWithCapacity(metricEmitters.size() + 1);
           for (Map.Entry<String, AggregatedMetricsEmitter> emitterEntry : metricEmitters.entrySet()) {
             MetricValue metricValue = emitterEntry.getValue().emit();
-            // skip increment by 0
-            if (metricValue.getType() == MetricType.COUNTER && metricValue.getValue() == 0) {
+            // skip increment by 0 and empty distribution
+            if (metricValue.getType() != MetricType.GAUGE && metricValue.getValue() == 0) {
               continue;
             }
             metricValues.add(metricValue);
+            // keep the emitter in the cache since it is in use
+            entry.getValue().getIfPresent(emitterEntry.getKey());
           }
 
           if (metricValues.isEmpty()) {
             // skip if there are no metric values to send
             continue;
           }
+          emitters.getIfPresent(entry.getKey());
 
           // number of emitted metrics
           metricValues.add(new MetricValue("metrics.emitted.count", MetricType.COUNTER, metricValues.size() + 1));
@@ -221,19 +238,42 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
   private final class MetricsContextImpl implements MetricsContext {
 
     private final Map<String, String> tags;
+    // metrics of this context that are bound to the emitters, to avoid looking up the emitter on every update
+    private final ConcurrentMap<String, BoundMetric> boundMetrics;
 
     private MetricsContextImpl(final Map<String, String> tags) {
       this.tags = ImmutableMap.copyOf(tags);
+      this.boundMetrics = new ConcurrentHashMap<>();
     }
 
     @Override
     public void increment(String metricName, long value) {
-      emitters.getUnchecked(tags).getUnchecked(metricName).increment(value);
+      getBoundMetric(metricName).increment(value);
     }
 
     @Override
     public void gauge(String metricName, long value) {
-      emitters.getUnchecked(tags).getUnchecked(metricName).gauge(value);
+      getBoundMetric(metricName).set(value);
+    }
+
+    @Override
+    public Counter getCounter(String metricName) {
+      return getBoundMetric(metricName);
+    }
+
+    @Override
+    public Gauge getGauge(String metricName) {
+      return getBoundMetric(metricName);
+    }
+
+    private BoundMetric getBoundMetric(String metricName) {
+      BoundMetric metric = boundMetrics.get(metricName);
+      return metric != null ? metric : boundMetrics.computeIfAbsent(metricName, name -> new BoundMetric(tags, name));
+    }
+
+    @Override
+    public void distribution(String metricName, long value) {
+      emitters.getUnchecked(tags).getUnchecked(metricName).distribution(value);
     }
 
     @Override
@@ -260,4 +300,50 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
       return collectors.getUnchecked(allTags);
     }
   }
+
+  /**
+   * A metric bound to an {@link AggregatedMetricsEmitter}. If the emitter expires from the cache, the bound metric
+   * moves to a new emitter on its next update, together with the count that was added to the removed emitter.
+   */
+  private final class BoundMetric implements MetricsContext.Counter, MetricsContext.Gauge {
+
+    private final Map<String, String> tags;
+    private final String metricName;
+    private volatile AggregatedMetricsEmitter emitter;
+
+    private BoundMetric(Map<String, String> tags, String metricName) {
+      this.tags = tags;
+      this.metricName = metricName;
+      this.emitter = emitters.getUnchecked(tags).getUnchecked(metricName);
+    }
+
+    @Override
+    public void increment(long delta) {
+      AggregatedMetricsEmitter emitter = this.emitter;
+      emitter.increment(delta);
+      if (emitter.isRemoved()) {
+        rebind(emitter);
+      }
+    }
+
+    @Override
+    public void set(long value) {
+      AggregatedMetricsEmitter emitter = this.emitter;
+      emitter.gauge(value);
+      if (emitter.isRemoved()) {
+        rebind(emitter).gauge(value);
+      }
+    }
+
+    private AggregatedMetricsEmitter rebind(AggregatedMetricsEmitter removed) {
+      AggregatedMetricsEmitter emitter = emitters.getUnchecked(tags).getUnchecked(metricName);
+      this.emitter = emitter;
+      // the removed emitter is no longer emitted, hence move its count to the new emitter
+      long count = removed.drainCount();
+      if (count != 0) {
+        emitter.increment(count);
+      }
+      return emitter;
+    }
+  }
 }
@@ -15,6 +15,7 @@
  */
 package io.cdap.cdap.metrics.collect;
 
+import io.cdap.cdap.api.metrics.Distribution;
 import io.cdap.cdap.api.metrics.MetricType;
 import io.cdap.cdap.api.metrics.MetricValue;
 import org.slf4j.Logger;
@@ -22,6 +23,9 @@ import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * {@link MetricsEmitter} that aggregates  values for a metric
@@ -31,10 +35,16 @@ final class AggregatedMetricsEmitter implements MetricsEmitter {
   private static final Logger LOG = LoggerFactory.getLogger(AggregatedMetricsEmitter.class);
 
   private final String name;
-  // metric value
+  // counter value, which is striped to reduce contention of concurrent increments
+  private final LongAdder count;
+  // gauge value
   private final AtomicLong value;
   // specifies if the metric type is gauge or counter
   private final AtomicBoolean gaugeUsed;
+  // bucket counts of the distribution, only created when the metric is used as distribution
+  private final AtomicReference<AtomicLongArray> distribution;
+  // set when this emitter is no longer emitted by the metrics collection service
+  private volatile boolean removed;
 
   AggregatedMetricsEmitter(String name) {
     if (name == null || name.isEmpty()) {
@@ -42,25 +52,67 @@ final class AggregatedMetricsEmitter implements MetricsEmitter {
     }
 
     this.name = name;
+    this.count = new LongAdder();
     this.value = new AtomicLong();
     this.gaugeUsed = new AtomicBoolean(false);
+    this.distribution = new AtomicReference<>();
   }
 
   void increment(long value) {
-    this.value.addAndGet(value);
+    count.add(value);
   }
 
+  void distribution(long value) {
+    AtomicLongArray buckets = distribution.get();
+    if (buckets == null) {
+      distribution.compareAndSet(null, new AtomicLongArray(Distribution.NUM_BUCKETS));
+      buckets = distribution.get();
+    }
+    buckets.incrementAndGet(Distribution.getBucket(value));
+  }
 
   @Override
   public MetricValue emit() {
-    // todo CDAP-2195 - potential race condition , reseting value and type has to be done together
-    long value = this.value.getAndSet(0);
-    MetricType type = gaugeUsed.getAndSet(false) ? MetricType.GAUGE : MetricType.COUNTER;
-    return new MetricValue(name, type, value);
+    AtomicLongArray buckets = distribution.get();
+    if (buckets != null) {
+      Distribution.Builder builder = Distribution.builder();
+      for (int i = 0; i < buckets.length(); i++) {
+        // only reset the non-empty buckets to avoid writes
+        if (buckets.get(i) != 0) {
+          builder.addToBucket(i, buckets.getAndSet(i, 0));
+        }
+      }
+      return new MetricValue(name, builder.build());
+    }
+    if (gaugeUsed.getAndSet(false)) {
+      return new MetricValue(name, MetricType.GAUGE, value.get());
+    }
+    return new MetricValue(name, MetricType.COUNTER, drainCount());
   }
 
   public void gauge(long value) {
     this.value.set(value);
     this.gaugeUsed.set(true);
   }
+
+  /**
+   * Returns the count accumulated since the last call and resets it, without losing concurrent increments.
+   */
+  synchronized long drainCount() {
+    long sum = count.sum();
+    count.add(-sum);
+    return sum;
+  }
+
+  /**
+   * Marks this emitter as removed from the metrics collection service, such that bound metrics can move to a new
+   * emitter.
+   */
+  void markRemoved() {
+    removed = true;
+  }
+
+  boolean isRemoved() {
+    return removed;
+  }
 }
@@ -52,24 +52,19 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.BlockingDeque;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
 /**
- * Process metrics by consuming metrics being published to TMS.
+ * Process metrics by consuming metrics being published to TMS. Each topic is processed and persisted by its own
+ * thread, such that metrics from different topics are written to the {@link MetricStore} concurrently, each
+ * together with the id of the last message persisted for the topic.
  */
 public class MessagingMetricsProcessorService extends AbstractExecutionThreadService {
   private static final Logger LOG = LoggerFactory.getLogger(MessagingMetricsProcessorService.class);
@@ -85,17 +80,13 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
   private final Map<String, String> metricsContextMap;
   private final int fetcherLimit;
   private final long maxDelayMillis;
-  private final int queueSize;
-  private final BlockingDeque<MetricValues> metricsFromAllTopics;
-  private final ConcurrentMap<TopicIdMetaKey, TopicProcessMeta> topicProcessMetaMap;
-  private final AtomicBoolean persistingFlag;
   // maximum number of milliseconds to sleep between each run of fetching & processing new metrics, the max sleep time
   // is 1 min
   private final long metricsProcessIntervalMillis;
   private final List<ProcessMetricsThread> processMetricsThreads;
   private final String processMetricName;
   private final String metricsPrefixForDelayMetrics;
-  private long metricsProcessedCount;
+  private final AtomicLong metricsProcessedCount;
 
   private MetricsConsumerMetaTable metaTable;
 
@@ -145,17 +136,15 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
     this.metricStore = metricStore;
     this.metricStore.setMetricsContext(metricsContext);
     this.maxDelayMillis = cConf.getLong(Constants.Metrics.PROCESSOR_MAX_DELAY_MS);
-    this.queueSize = cConf.getInt(Constants.Metrics.QUEUE_SIZE);
-    this.fetcherLimit = Math.max(1, queueSize / topicNumbers.size()); // fetcherLimit is at least one
+    // the queue size is shared by all the topics, and fetcherLimit is at least one
+    this.fetcherLimit = Math.max(1, cConf.getInt(Constants.Metrics.QUEUE_SIZE) / topicNumbers.size());
     this.metricsContextMap = metricsContext.getTags();
     this.processMetricsThreads = new ArrayList<>();
-    this.metricsFromAllTopics = new LinkedBlockingDeque<>(queueSize);
-    this.topicProcessMetaMap = new ConcurrentHashMap<>();
-    this.persistingFlag = new AtomicBoolean();
     // the max sleep time will be 1 min
     this.metricsProcessIntervalMillis = metricsProcessIntervalMillis < Constants.Metrics.PROCESS_INTERVAL_MILLIS ?
       metricsProcessIntervalMillis : Constants.Metrics.PROCESS_INTERVAL_MILLIS;
     this.processMetricName = String.format("metrics.%s.process.count", instanceId);
+    this.metricsProcessedCount = new AtomicLong();
   }
 
   private MetricsConsumerMetaTable getMetaTable() {
@@ -207,6 +196,8 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
       thread.start();
     }
 
+    // Each thread persists the metrics it fetched before fetching again, hence there is nothing left to persist
+    // after all the threads completed.
     for (ProcessMetricsThread thread : processMetricsThreads) {
       try {
         thread.join();
@@ -215,10 +206,6 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
         Thread.currentThread().interrupt();
       }
     }
-
-    // Persist metricsFromAllTopics and messageId's after all ProcessMetricsThread's complete.
-    // No need to make a copy of metricsFromAllTopics and topicProcessMetaMap because no thread is writing to them
-    persistMetricsAndTopicProcessMeta(metricsFromAllTopics, topicProcessMetaMap);
   }
 
   @Override
@@ -232,66 +219,45 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
   }
 
   /**
-   * Persist metrics from all topics into metric store and messageId's of the last persisted metrics of each topic
-   * into metrics meta table
+   * Persist the messageId of the last persisted metrics of a topic into metrics meta table. This method is
+   * synchronized since the meta table is shared by the threads of all topics and is not thread safe.
    *
-   * @param metricValues a deque of {@link MetricValues}
-   * @param topicProcessMetaMap a map with each key {@link TopicIdMetaKey} representing a topic
-   *                            and {@link TopicProcessMeta} which has info on messageId and processing stats
+   * @param topicIdMetaKey the {@link TopicIdMetaKey} representing the topic
+   * @param topicProcessMeta the {@link TopicProcessMeta} which has info on messageId and processing stats
    */
-  private void persistMetricsAndTopicProcessMeta(Deque<MetricValues> metricValues,
-                                                 Map<TopicIdMetaKey, TopicProcessMeta> topicProcessMetaMap) {
-    try {
-      if (!metricValues.isEmpty()) {
-        persistMetrics(metricValues, topicProcessMetaMap);
-      }
-      persistTopicProcessMeta(topicProcessMetaMap);
-    } catch (Exception e) {
-      LOG.warn("Failed to persist metrics.", e);
-    }
-  }
-
-  private void persistTopicProcessMeta(Map<TopicIdMetaKey, TopicProcessMeta> messageIds) {
+  private synchronized void persistTopicProcessMeta(TopicIdMetaKey topicIdMetaKey,
+                                                    TopicProcessMeta topicProcessMeta) {
     try {
-      // messageIds can be empty if the current thread fetches nothing while other threads keep fetching new metrics
-      // and haven't updated messageId's of the corresponding topics
-      if (!messageIds.isEmpty()) {
-        metaTable.saveMetricsProcessorStats(messageIds);
-      }
+      metaTable.saveMetricsProcessorStats(Collections.singletonMap(topicIdMetaKey, topicProcessMeta));
     } catch (Exception e) {
       LOG.warn("Failed to update processing stats of consumed messages.", e);
     }
   }
 
   /**
-   * Persist metrics into metric store
+   * Persist metrics of a topic into metric store
    *
-   * @param metricValues a non-empty deque of {@link MetricValues}
+   * @param metricValues a non-empty list of {@link MetricValues}
+   * @param topicProcessMeta the {@link TopicProcessMeta} of the topic that the metrics were fetched from
    */
-  private void persistMetrics(Deque<MetricValues> metricValues,
-                              Map<TopicIdMetaKey, TopicProcessMeta> topicProcessMetaMap) {
+  private void persistMetrics(List<MetricValues> metricValues, TopicProcessMeta topicProcessMeta) {
     long now = System.currentTimeMillis();
-    long lastMetricTime = metricValues.peekLast().getTimestamp();
-    List<MetricValue> topicLevelDelays = new ArrayList<>();
+    long lastMetricTime = metricValues.get(metricValues.size() - 1).getTimestamp();
 
     //add topic level delay metrics
-    for (Map.Entry<TopicIdMetaKey, TopicProcessMeta> entry : topicProcessMetaMap.entrySet()) {
-      TopicProcessMeta topicProcessMeta = entry.getValue();
-      long delay = now - TimeUnit.SECONDS.toMillis(topicProcessMeta.getOldestMetricsTimestamp());
-      topicLevelDelays.add(new MetricValue(topicProcessMeta.getOldestMetricsTimestampMetricName(),
-                                           MetricType.GAUGE, delay));
-      delay = now - TimeUnit.SECONDS.toMillis(topicProcessMeta.getLatestMetricsTimestamp());
-      topicLevelDelays.add(new MetricValue(topicProcessMeta.getLatestMetricsTimestampMetricName(),
-                                           MetricType.GAUGE, delay));
-    }
-    List<MetricValue> processorMetrics = new ArrayList<>(topicLevelDelays);
+    List<MetricValue> processorMetrics = new ArrayList<>();
+    long delay = now - TimeUnit.SECONDS.toMillis(topicProcessMeta.getOldestMetricsTimestamp());
+    processorMetrics.add(new MetricValue(topicProcessMeta.getOldestMetricsTimestampMetricName(),
+                                         MetricType.GAUGE, delay));
+    delay = now - TimeUnit.SECONDS.toMillis(topicProcessMeta.getLatestMetricsTimestamp());
+    processorMetrics.add(new MetricValue(topicProcessMeta.getLatestMetricsTimestampMetricName(),
+                                         MetricType.GAUGE, delay));
     processorMetrics.add(new MetricValue(processMetricName, MetricType.COUNTER, metricValues.size()));
 
     metricValues.add(new MetricValues(metricsContextMap, TimeUnit.MILLISECONDS.toSeconds(now), processorMetrics));
     metricStore.add(metricValues);
-    metricsProcessedCount += metricValues.size();
-    PROGRESS_LOG.debug("{} metrics persisted. Last metric's timestamp: {}",
-                       metricsProcessedCount, lastMetricTime);
+    long processedCount = metricsProcessedCount.addAndGet(metricValues.size());
+    PROGRESS_LOG.debug("{} metrics persisted. Last metric's timestamp: {}", processedCount, lastMetricTime);
   }
 
   private class ProcessMetricsThread extends Thread {
@@ -300,6 +266,8 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
     private final BinaryDecoder decoder;
     private final String oldestTsMetricName;
     private final String latestTsMetricName;
+    // the meta of the last persisted metrics of the topic
+    private TopicProcessMeta topicProcessMeta;
     private long lastMetricTimeSecs;
 
     ProcessMetricsThread(TopicIdMetaKey topicIdMetaKey, @Nullable TopicProcessMeta topicProcessMeta) {
@@ -310,15 +278,14 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
       latestTsMetricName = String.format("%s.topic.%s.latest.delay.ms",
                                                 metricsPrefixForDelayMetrics, topicIdMetaKey.getTopicId().getTopic());
       if (topicProcessMeta != null && topicProcessMeta.getMessageId() != null) {
-        // message-id already for this topic in metaTable, we create a new TopicProcessMeta with existing values,
-        // add metric names and put it in map
+        // message-id already for this topic in metaTable, we create a new TopicProcessMeta with existing values
+        // and metric names
         byte[] persistedMessageId = topicProcessMeta.getMessageId();
-        topicProcessMetaMap.put(topicIdMetaKey,
-                                new TopicProcessMeta(persistedMessageId, topicProcessMeta.getOldestMetricsTimestamp(),
+        this.topicProcessMeta = new TopicProcessMeta(persistedMessageId, topicProcessMeta.getOldestMetricsTimestamp(),
                                                      topicProcessMeta.getLatestMetricsTimestamp(),
                                                      topicProcessMeta.getMessagesProcessed(),
                                                      topicProcessMeta.getLastProcessedTimestamp(),
-                                                     oldestTsMetricName, latestTsMetricName));
+                                                     oldestTsMetricName, latestTsMetricName);
       }
       this.topicIdMetaKey = topicIdMetaKey;
       this.payloadInput = new PayloadInputStream();
@@ -342,7 +309,7 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
     }
 
     /**
-     * Fetch at most {@code fetcherLimit} metrics to process, and calculate the estimated sleep time
+     * Fetch at most {@code fetcherLimit} metrics to process, persist them, and calculate the estimated sleep time
      * before the next run with the best effort to avoid accumulating unprocessed metrics
      *
      * @return the estimated sleep time before the next run with the best effort to avoid accumulating
@@ -353,11 +320,10 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
       try {
         MessageFetcher fetcher = messagingService.prepareFetch(topicIdMetaKey.getTopicId());
         fetcher.setLimit(fetcherLimit);
-        TopicProcessMeta persistMetaInfo = topicProcessMetaMap.get(topicIdMetaKey);
         byte[] lastMessageId = null;
 
-        if (persistMetaInfo != null) {
-          lastMessageId = persistMetaInfo.getMessageId();
+        if (topicProcessMeta != null) {
+          lastMessageId = topicProcessMeta.getMessageId();
         }
 
         if (lastMessageId != null) {
@@ -367,6 +333,7 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
         }
 
         byte[] currentMessageId = null;
+        List<MetricValues> metrics = new ArrayList<>();
         TopicProcessMeta localTopicProcessMeta =
           new TopicProcessMeta(lastMessageId, Long.MAX_VALUE, Long.MIN_VALUE, 0,
                                TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()),
@@ -377,9 +344,7 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
             try {
               payloadInput.reset(input.getPayload());
               MetricValues metricValues = metricReader.read(decoder, metricSchema);
-              if (!metricsFromAllTopics.offer(metricValues)) {
-                break;
-              }
+              metrics.add(metricValues);
               lastMetricTimeSecs = metricValues.getTimestamp();
               currentMessageId = input.getId();
               if (LOG.isTraceEnabled()) {
@@ -393,13 +358,13 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
         }
 
         if (currentMessageId != null) {
-          // update the last processed timestamp in local topic meta and update the topicProcessMetaMap with this
-          // local topic meta for the topic
+          // update the last processed timestamp in local topic meta and persist it after the metrics are persisted,
+          // such that the metrics will be fetched again if persisting fails
           localTopicProcessMeta.updateLastProcessedTimestamp();
-          topicProcessMetaMap.put(topicIdMetaKey, localTopicProcessMeta);
+          persistMetrics(metrics, localTopicProcessMeta);
+          persistTopicProcessMeta(topicIdMetaKey, localTopicProcessMeta);
+          topicProcessMeta = localTopicProcessMeta;
         }
-        // Try to persist metrics and messageId's of the last metrics to be persisted if no other thread is persisting
-        tryPersist();
 
         long endTime = System.currentTimeMillis();
         // use currentMessageId != null to ensure that the current fetching is not empty and
@@ -418,45 +383,6 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
       }
       return metricsProcessIntervalMillis;
     }
-
-    /**
-     * Persist metrics and messageId's of the last metrics to be persisted if no other thread is persisting
-     */
-    private void tryPersist() {
-      // Ensure there's only one thread can persist metricsFromAllTopics and messageId's.
-      // This is because the underlying metrics table is not thread safe.
-      // If persistingFlag is false, set it to true and start persisting. Otherwise, log and return.
-      if (!persistingFlag.compareAndSet(false, true)) {
-        LOG.trace("There is another thread performing persisting. No need to persist in this thread.");
-        return;
-      }
-      try {
-        // Make a copy of topicProcessMetaMap before copying metrics from metricsFromAllTopics to ensure that
-        // topicMessageIdsCopy will not contain new MessageId's in metricsFromAllTopics but not in metricsCopy.
-        // This guarantees the metrics corresponding to last persisted MessageId's of each topic are persisted.
-        Map<TopicIdMetaKey, TopicProcessMeta> topicProcessMetaMapCopy = new HashMap<>(topicProcessMetaMap);
-        // Remove at most queueSize of metrics from metricsFromAllTopics and put into metricsCopy to limit
-        // the number of metrics being persisted each time
-        Deque<MetricValues> metricsCopy = new LinkedList<>();
-        Iterator<MetricValues> iterator = metricsFromAllTopics.iterator();
-        // Though the blocking queue(metricsFromAllTopics) has upper bound on its size (which is the "queueSize")
-        // there can be a scenario, as the current thread is removing entries from blocking queue
-        // and adding it to a copy list, other threads are simultaneously adding entries to the queue and
-        // the current list might become very big causing out of memory issues, we avoid this
-        // by making the copy list size also to be limited by the max queue size.
-        while (iterator.hasNext() && metricsCopy.size() < queueSize) {
-          metricsCopy.add(iterator.next());
-          iterator.remove();
-        }
-        // Persist the copy of metrics and MessageId's
-        persistMetricsAndTopicProcessMeta(metricsCopy, topicProcessMetaMapCopy);
-      } catch (Exception e) {
-        LOG.warn("Failed to persist metrics. Will be retried in next iteration.", e);
-      } finally {
-        // Set persistingFlag back to false after persisting completes.
-        persistingFlag.set(false);
-      }
-    }
   }
 
   private class PayloadInputStream extends ByteArrayInputStream {
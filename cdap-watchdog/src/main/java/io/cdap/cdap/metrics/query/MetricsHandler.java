@@ -84,7 +84,9 @@ public class MetricsHandler extends AbstractHttpHandler {
   }
 
   /**
-   * REST endpoint for metrics query
+   * REST endpoint for metrics query. For distribution metrics, the {@code percentile} query parameter,
+   * e.g. {@code percentile=50,99}, returns the given percentiles instead of the number of values. The percentiles
+   * are estimated within 25% of the actual values, for values below 2^40.
    *
    * @param metrics the list metrics name
    * @param groupBy the list of tag names to group the results
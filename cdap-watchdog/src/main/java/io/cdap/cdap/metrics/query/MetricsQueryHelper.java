@@ -45,6 +45,7 @@ import io.cdap.cdap.proto.MetricTagValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -72,6 +73,7 @@ public class MetricsQueryHelper {
   private static final String PARAM_MAX_INTERPOLATE_GAP = "maxInterpolateGap";
   private static final String PARAM_AGGREGATE = "aggregate";
   private static final String PARAM_AUTO_RESOLUTION = "auto";
+  private static final String PARAM_PERCENTILE = "percentile";
   private static final String ANY_TAG_VALUE = "*";
 
   private final MetricStore metricStore;
@@ -146,7 +148,9 @@ public class MetricsQueryHelper {
     Map<String, MetricQueryResult> queryFinalResponse = Maps.newHashMap();
     for (Map.Entry<String, QueryRequestFormat> query : queries.entrySet()) {
       MetricQueryRequest queryRequest = getQueryRequestFromFormat(query.getValue());
-      queryFinalResponse.put(query.getKey(), executeQuery(queryRequest));
+      String percentiles = query.getValue().getTimeRange().get(PARAM_PERCENTILE);
+      queryFinalResponse.put(query.getKey(), executeQuery(queryRequest, parsePercentiles(
+        percentiles == null ? Collections.emptyList() : Collections.singletonList(percentiles))));
     }
     return queryFinalResponse;
   }
@@ -155,7 +159,8 @@ public class MetricsQueryHelper {
                                            Map<String, List<String>> queryTimeParams) throws Exception {
     MetricQueryRequest queryRequest = new MetricQueryRequest(parseTagValuesAsMap(tags), metrics, groupByTags);
     setTimeRangeInQueryRequest(queryRequest, queryTimeParams);
-    return executeQuery(queryRequest);
+    return executeQuery(queryRequest, parsePercentiles(queryTimeParams.getOrDefault(PARAM_PERCENTILE,
+                                                                                    Collections.emptyList())));
   }
 
   @VisibleForTesting
@@ -349,7 +354,31 @@ public class MetricsQueryHelper {
     return null;
   }
 
-  private MetricQueryResult executeQuery(MetricQueryRequest queryRequest) throws Exception {
+  /**
+   * Parses the percentiles to compute for distribution metrics, each parameter value can have multiple
+   * comma separated percentiles, e.g. {@code percentile=50,99}.
+   */
+  private List<Double> parsePercentiles(List<String> values) {
+    List<Double> percentiles = new ArrayList<>();
+    for (String value : values) {
+      for (String percentile : value.split(",")) {
+        double parsed;
+        try {
+          parsed = Double.parseDouble(percentile.trim());
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Invalid percentile " + percentile, e);
+        }
+        if (!(parsed > 0d && parsed <= 100d)) {
+          throw new IllegalArgumentException("Percentile must be in the range of (0, 100], but got " + percentile);
+        }
+        percentiles.add(parsed);
+      }
+    }
+    return percentiles;
+  }
+
+  private MetricQueryResult executeQuery(MetricQueryRequest queryRequest,
+                                         List<Double> percentiles) throws Exception {
     if (queryRequest.getMetrics().size() == 0) {
       throw new IllegalArgumentException("Missing metrics parameter in the query");
     }
@@ -366,7 +395,7 @@ public class MetricsQueryHelper {
                                                 timeRange.getResolutionInSeconds(),
                                                 timeRange.getCount(), toMetrics(queryRequest.getMetrics()),
                                                 tagsSliceBy, transformGroupByTags(queryRequest.getGroupBy()),
-                                                aggregation, timeRange.getInterpolate());
+                                                aggregation, timeRange.getInterpolate(), percentiles);
     Collection<MetricTimeSeries> queryResult = metricStore.query(query);
 
     long endTime = timeRange.getEnd();
@@ -37,6 +37,7 @@ import io.cdap.cdap.proto.id.NamespaceId;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -50,6 +51,7 @@ public class DefaultMetricDatasetFactory implements MetricDatasetFactory {
   private final DatasetDefinition<MetricsTable, DatasetAdmin> metricsTableDefinition;
   private final Set<DatasetId> existingDatasets;
   private final Supplier<EntityTable> entityTable;
+  private final Map<Integer, FactTable.CounterCache> counterCaches;
 
   @Inject
   public DefaultMetricDatasetFactory(CConfiguration cConf,
@@ -57,6 +59,7 @@ public class DefaultMetricDatasetFactory implements MetricDatasetFactory {
     this.cConf = cConf;
     this.metricsTableDefinition = metricsTableDefinition;
     this.existingDatasets = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    this.counterCaches = new ConcurrentHashMap<>();
     this.entityTable = Suppliers.memoize(() -> {
       String tableName = cConf.get(Constants.Metrics.ENTITY_TABLE_NAME,
                                    Constants.Metrics.DEFAULT_ENTITY_TABLE_NAME);
@@ -82,7 +85,11 @@ public class DefaultMetricDatasetFactory implements MetricDatasetFactory {
     }
 
     MetricsTable table = getOrCreateMetricsTable(tableName, props.build());
-    return new FactTable(table, entityTable.get(), resolution, getRollTime(resolution));
+    // FactTables of the same resolution share the same counter cache, since they can be written concurrently.
+    // Only use the cache if the resolution is not the total resolution
+    FactTable.CounterCache counterCache = resolution == Integer.MAX_VALUE ? null :
+      counterCaches.computeIfAbsent(resolution, r -> new FactTable.CounterCache());
+    return new FactTable(table, entityTable.get(), resolution, getRollTime(resolution), counterCache);
   }
 
   @Override
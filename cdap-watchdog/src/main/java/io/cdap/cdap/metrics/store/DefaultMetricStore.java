@@ -24,6 +24,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
 import io.cdap.cdap.api.dataset.lib.cube.Cube;
 import io.cdap.cdap.api.dataset.lib.cube.CubeDeleteQuery;
 import io.cdap.cdap.api.dataset.lib.cube.CubeExploreQuery;
@@ -33,6 +34,8 @@ import io.cdap.cdap.api.dataset.lib.cube.DimensionValue;
 import io.cdap.cdap.api.dataset.lib.cube.MeasureType;
 import io.cdap.cdap.api.dataset.lib.cube.Measurement;
 import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import io.cdap.cdap.api.metrics.Distribution;
 import io.cdap.cdap.api.metrics.MetricDataQuery;
 import io.cdap.cdap.api.metrics.MetricDeleteQuery;
 import io.cdap.cdap.api.metrics.MetricSearchQuery;
@@ -65,6 +68,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
@@ -75,6 +82,13 @@ public class DefaultMetricStore implements MetricStore {
   public static final Map<String, Aggregation> AGGREGATIONS;
 
   private static final int TOTALS_RESOLUTION = Integer.MAX_VALUE;
+  // separates the metric name and the column index in the measure names of distribution columns
+  private static final char DISTRIBUTION_COLUMN_SEPARATOR = '~';
+  // values from 2^DISTRIBUTION_MAX_EXPONENT up are all counted in the last column of a distribution
+  private static final int DISTRIBUTION_MAX_EXPONENT = 40;
+  // number of columns that a distribution is stored in, column i counts the values of the distribution bucket i,
+  // and the last column also counts all the larger values
+  private static final int DISTRIBUTION_COLUMNS = Distribution.getBucket(1L << DISTRIBUTION_MAX_EXPONENT) + 1;
   private static final String BY_NAMESPACE = "namespace";
   private static final String BY_APP = "app";
   private static final String BY_MAPREDUCE = "mapreduce";
@@ -90,7 +104,12 @@ public class DefaultMetricStore implements MetricStore {
                     new AggregationAlias(ImmutableMap.of(Constants.Metrics.Tag.RUN_ID,
                                                          Constants.Metrics.Tag.WORKFLOW_RUN_ID)));
 
+  private final int[] resolutions;
+  private final FactTableSupplier factTableSupplier;
   private final Supplier<Cube> cube;
+  // Cubes for adding metrics. Each concurrent add call uses a cube of its own, since the tables of a cube are not
+  // thread safe. Cubes are created on demand, hence there are as many cubes as the maximum number of concurrent adds.
+  private final Queue<Cube> writeCubes;
   private final Supplier<MetricsConsumerMetaTable> metaTableSupplier;
   private MetricsContext metricsContext;
   private final List<TopicId> metricsTopics;
@@ -212,19 +231,14 @@ public class DefaultMetricStore implements MetricStore {
       builder.put(minimumResolution, cConf.getLong(Constants.Metrics.MINIMUM_RESOLUTION_RETENTION_SECONDS));
     }
     this.resolutionTTLMap = builder.build();
-    FactTableSupplier factTableSupplier = (resolution, ignoredRollTime) -> {
+    this.resolutions = resolutions;
+    this.factTableSupplier = (resolution, ignoredRollTime) -> {
       // roll time will be taken from configuration
       // TODO: remove roll time from the supplier api, https://issues.cask.co/browse/CDAP-14730
       return dsFactory.getOrCreateFactTable(resolution);
     };
-    this.cube = Suppliers.memoize(new Supplier<Cube>() {
-      @Override
-      public Cube get() {
-        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS);
-        cube.setMetricsCollector(metricsContext);
-        return cube;
-      }
-    });
+    this.cube = Suppliers.memoize(this::createCube);
+    this.writeCubes = new ConcurrentLinkedQueue<>();
 
     this.metaTableSupplier = Suppliers.memoize(dsFactory::createConsumerMeta);
     int topicNumbers = cConf.getInt(Constants.Metrics.MESSAGING_TOPIC_NUM);
@@ -254,6 +268,10 @@ public class DefaultMetricStore implements MetricStore {
       // todo improve this logic?
       for (MetricValue metric : metricValue.getMetrics()) {
         String measureName = (scope == null ? "system." : scope + ".") + metric.getName();
+        if (metric.getType() == MetricType.DISTRIBUTION) {
+          addDistribution(measureName, metric, metrics);
+          continue;
+        }
         MeasureType type = metric.getType() == MetricType.COUNTER ? MeasureType.COUNTER : MeasureType.GAUGE;
         metrics.add(new Measurement(measureName, type, metric.getValue()));
       }
@@ -263,11 +281,82 @@ public class DefaultMetricStore implements MetricStore {
         .addMeasurements(metrics);
       facts.add(fact);
     }
-    cube.get().add(facts);
+    Cube writeCube = writeCubes.poll();
+    if (writeCube == null) {
+      writeCube = createCube();
+    }
+    try {
+      writeCube.add(facts);
+    } finally {
+      writeCubes.offer(writeCube);
+    }
+  }
+
+  private Cube createCube() {
+    DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS);
+    cube.setMetricsCollector(metricsContext);
+    return cube;
+  }
+
+  /**
+   * Adds the measurements of a distribution metric. The total count is stored under the metric name, and the buckets
+   * are stored in at most {@link #DISTRIBUTION_COLUMNS} counters, one for each bucket of the values below
+   * 2^{@link #DISTRIBUTION_MAX_EXPONENT}, so that the precision of the log-linear buckets is kept. This bounds the
+   * number of measures per distribution, while the rollups to the coarser resolutions and the aggregation groups merge
+   * the distributions column-wise.
+   */
+  private void addDistribution(String measureName, MetricValue metric, List<Measurement> measurements) {
+    measurements.add(new Measurement(measureName, MeasureType.COUNTER, metric.getValue()));
+    Distribution distribution = metric.getDistribution();
+    if (distribution == null) {
+      return;
+    }
+    long[] columns = new long[DISTRIBUTION_COLUMNS];
+    int[] buckets = distribution.getBuckets();
+    long[] counts = distribution.getCounts();
+    for (int i = 0; i < buckets.length; i++) {
+      columns[Math.min(DISTRIBUTION_COLUMNS - 1, buckets[i])] += counts[i];
+    }
+    for (int i = 0; i < columns.length; i++) {
+      if (columns[i] != 0) {
+        measurements.add(new Measurement(measureName + DISTRIBUTION_COLUMN_SEPARATOR + i,
+                                         MeasureType.COUNTER, columns[i]));
+      }
+    }
+  }
+
+  /**
+   * Returns an estimate of the given percentile from the counts of the distribution columns. The estimate is
+   * interpolated linearly within the column that contains the percentile, which keeps the relative error within the
+   * 25% bound of the {@link Distribution} buckets. For the last column, the smallest value of the column is returned.
+   */
+  private static long getPercentile(long[] columns, double percentile) {
+    long total = 0;
+    for (long count : columns) {
+      total += count;
+    }
+    if (total == 0) {
+      return 0L;
+    }
+    long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100d));
+    long seen = 0;
+    int column = 0;
+    while (column < columns.length - 1 && seen + columns[column] < rank) {
+      seen += columns[column++];
+    }
+    long lower = Distribution.getBucketLowerBound(column);
+    if (column == columns.length - 1) {
+      return lower;
+    }
+    long width = Distribution.getBucketUpperBound(column) - lower;
+    return lower + (long) (width * ((double) (rank - seen) / columns[column]));
   }
 
   @Override
   public Collection<MetricTimeSeries> query(MetricDataQuery query) {
+    if (!query.getPercentiles().isEmpty()) {
+      return queryPercentiles(query);
+    }
     Collection<TimeSeries> cubeResult = cube.get().query(buildCubeQuery(query));
     List<MetricTimeSeries> result = Lists.newArrayList();
     for (TimeSeries timeSeries : cubeResult) {
@@ -278,6 +367,72 @@ public class DefaultMetricStore implements MetricStore {
     return result;
   }
 
+  /**
+   * Computes the percentiles of the distribution metrics in the query. The columns of each distribution are queried
+   * as separate measures, and merged back into the columns per timestamp to compute the percentiles from.
+   */
+  private Collection<MetricTimeSeries> queryPercentiles(MetricDataQuery query) {
+    for (double percentile : query.getPercentiles()) {
+      if (!(percentile > 0d && percentile <= 100d)) {
+        throw new IllegalArgumentException("Percentile must be in the range of (0, 100], but got " + percentile);
+      }
+    }
+    Map<String, AggregationFunction> columnMeasures = new HashMap<>();
+    for (String metricName : query.getMetrics().keySet()) {
+      for (int i = 0; i < DISTRIBUTION_COLUMNS; i++) {
+        columnMeasures.put(metricName + DISTRIBUTION_COLUMN_SEPARATOR + i, AggregationFunction.SUM);
+      }
+    }
+    CubeQuery cubeQuery = new CubeQuery(null, query.getStartTs(), query.getEndTs(), query.getResolution(),
+                                        query.getLimit(), columnMeasures, query.getSliceByTags(),
+                                        query.getGroupByTags(), query.getAggregationOption(), null);
+
+    // metric name -> tags -> timestamp -> column counts
+    Map<String, Map<Map<String, String>, SortedMap<Long, long[]>>> distributions = new HashMap<>();
+    for (TimeSeries timeSeries : cube.get().query(cubeQuery)) {
+      String measureName = timeSeries.getMeasureName();
+      int idx = measureName.lastIndexOf(DISTRIBUTION_COLUMN_SEPARATOR);
+      int column = Integer.parseInt(measureName.substring(idx + 1));
+      SortedMap<Long, long[]> columns = distributions
+        .computeIfAbsent(measureName.substring(0, idx), k -> new HashMap<>())
+        .computeIfAbsent(timeSeries.getDimensionValues(), k -> new TreeMap<>());
+      for (TimeValue timeValue : timeSeries.getTimeValues()) {
+        columns.computeIfAbsent(timeValue.getTimestamp(), k -> new long[DISTRIBUTION_COLUMNS])[column]
+          += timeValue.getValue();
+      }
+    }
+
+    List<MetricTimeSeries> result = new ArrayList<>();
+    for (Map.Entry<String, Map<Map<String, String>, SortedMap<Long, long[]>>> metric : distributions.entrySet()) {
+      for (Map.Entry<Map<String, String>, SortedMap<Long, long[]>> series : metric.getValue().entrySet()) {
+        List<List<TimeValue>> percentileValues = new ArrayList<>();
+        for (int i = 0; i < query.getPercentiles().size(); i++) {
+          percentileValues.add(new ArrayList<>());
+        }
+        for (Map.Entry<Long, long[]> entry : series.getValue().entrySet()) {
+          for (int i = 0; i < query.getPercentiles().size(); i++) {
+            percentileValues.get(i).add(new TimeValue(entry.getKey(),
+                                                      getPercentile(entry.getValue(), query.getPercentiles().get(i))));
+          }
+        }
+        for (int i = 0; i < query.getPercentiles().size(); i++) {
+          result.add(new MetricTimeSeries(getPercentileMetricName(metric.getKey(), query.getPercentiles().get(i)),
+                                          series.getKey(), percentileValues.get(i)));
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the name of the time series of a percentile of a distribution metric, e.g. {@code system.latency.p99}.
+   */
+  public static String getPercentileMetricName(String metricName, double percentile) {
+    String suffix = percentile == Math.rint(percentile)
+      ? Long.toString((long) percentile) : Double.toString(percentile);
+    return metricName + ".p" + suffix;
+  }
+
   private CubeQuery buildCubeQuery(MetricDataQuery query) {
     return new CubeQuery(null, query.getStartTs(), query.getEndTs(),
                          query.getResolution(), query.getLimit(), query.getMetrics(),
@@ -339,7 +494,14 @@ public class DefaultMetricStore implements MetricStore {
 
   @Override
   public Collection<String> findMetricNames(MetricSearchQuery query) {
-    return cube.get().findMeasureNames(buildCubeSearchQuery(query));
+    // the columns of distribution metrics are not exposed as metrics of their own
+    List<String> metricNames = new ArrayList<>();
+    for (String measureName : cube.get().findMeasureNames(buildCubeSearchQuery(query))) {
+      if (measureName.indexOf(DISTRIBUTION_COLUMN_SEPARATOR) < 0) {
+        metricNames.add(measureName);
+      }
+    }
+    return metricNames;
   }
 
   /**
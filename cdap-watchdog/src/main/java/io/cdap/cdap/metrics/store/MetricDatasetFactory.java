@@ -26,7 +26,7 @@ public interface MetricDatasetFactory {
 
   /**
    * @param resolution resolution of {@link FactTable}
-   * @return A new instance of {@link FactTable}.
+   * @return A new instance of {@link FactTable}. Instances of the same resolution can add facts concurrently.
    */
   FactTable getOrCreateFactTable(int resolution);
 
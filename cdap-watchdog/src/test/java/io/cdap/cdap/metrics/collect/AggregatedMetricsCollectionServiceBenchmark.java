@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.collect;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.metrics.MetricValues;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded JMH benchmark for the throughput of updating a counter of the same metric through
+ * {@link MetricsContext#increment(String, long)} and through a bound {@link MetricsContext.Counter}, while the
+ * {@link AggregatedMetricsCollectionService} is publishing the metrics every second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class AggregatedMetricsCollectionServiceBenchmark {
+
+  private static final String METRIC = "dataset.store.ops";
+
+  private AggregatedMetricsCollectionService service;
+  private MetricsContext context;
+  private MetricsContext.Counter counter;
+
+  @Setup
+  public void setup() {
+    service = new AggregatedMetricsCollectionService(1000L) {
+      @Override
+      protected void publish(Iterator<MetricValues> metrics) {
+        while (metrics.hasNext()) {
+          metrics.next();
+        }
+      }
+    };
+    service.startAndWait();
+    context = service.getContext(ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, "ns",
+                                                 Constants.Metrics.Tag.APP, "app",
+                                                 Constants.Metrics.Tag.SERVICE, "service",
+                                                 Constants.Metrics.Tag.RUN_ID, "run",
+                                                 Constants.Metrics.Tag.DATASET, "dataset"));
+    counter = context.getCounter(METRIC);
+  }
+
+  @TearDown
+  public void tearDown() {
+    service.stopAndWait();
+  }
+
+  @Benchmark
+  public void increment() {
+    context.increment(METRIC, 1L);
+  }
+
+  @Benchmark
+  public void boundCounter() {
+    counter.increment(1L);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+                 .include(AggregatedMetricsCollectionServiceBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -17,6 +17,8 @@ package io.cdap.cdap.metrics.collect;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
+import io.cdap.cdap.api.metrics.Distribution;
+import io.cdap.cdap.api.metrics.MetricType;
 import io.cdap.cdap.api.metrics.MetricValue;
 import io.cdap.cdap.api.metrics.MetricValues;
 import io.cdap.cdap.api.metrics.MetricsContext;
@@ -139,6 +141,120 @@ public class AggregatedMetricsCollectionServiceTest {
     }
   }
 
+  @Test
+  public void testDistribution() throws InterruptedException {
+    BlockingQueue<MetricValues> published = new LinkedBlockingQueue<>();
+
+    AggregatedMetricsCollectionService service = new AggregatedMetricsCollectionService(1000L) {
+      @Override
+      protected void publish(Iterator<MetricValues> metrics) {
+        Iterators.addAll(published, metrics);
+      }
+    };
+
+    service.startAndWait();
+    try {
+      MetricsContext context = service.getContext(EMPTY_TAGS);
+      for (long value = 1; value <= 100; value++) {
+        context.distribution(METRIC, value);
+      }
+
+      // the values are aggregated into distributions, which are merged until all the values are received
+      Distribution distribution = Distribution.empty();
+      long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+      while (timeout > System.currentTimeMillis() && distribution.getCount() < 100) {
+        MetricValues metricValues = published.poll(100, TimeUnit.MILLISECONDS);
+        if (metricValues == null) {
+          continue;
+        }
+        for (MetricValue metricValue : metricValues.getMetrics()) {
+          if (metricValue.getName().equals(METRIC)) {
+            Assert.assertEquals(MetricType.DISTRIBUTION, metricValue.getType());
+            Assert.assertEquals(metricValue.getDistribution().getCount(), metricValue.getValue());
+            distribution = distribution.merge(metricValue.getDistribution());
+          }
+        }
+      }
+      Assert.assertEquals(100L, distribution.getCount());
+      Assert.assertEquals(1L, distribution.getPercentile(1));
+      Assert.assertEquals(50L, distribution.getPercentile(50));
+      // values 96 to 100 are in the bucket [96, 111]
+      Assert.assertEquals(111L, distribution.getPercentile(100));
+
+      // No publishing for empty distributions
+      Assert.assertNull(published.poll(3, TimeUnit.SECONDS));
+    } finally {
+      service.stopAndWait();
+    }
+  }
+
+  @Test
+  public void testBoundMetrics() throws InterruptedException {
+    BlockingQueue<MetricValues> published = new LinkedBlockingQueue<>();
+
+    AggregatedMetricsCollectionService service = new AggregatedMetricsCollectionService(1000L) {
+      @Override
+      protected void publish(Iterator<MetricValues> metrics) {
+        Iterators.addAll(published, metrics);
+      }
+    };
+
+    service.startAndWait();
+    try {
+      MetricsContext context = service.getContext(EMPTY_TAGS);
+      MetricsContext.Counter counter = context.getCounter(METRIC);
+      MetricsContext.Gauge gauge = context.getGauge(GAUGE_METRIC);
+
+      // bound handles and the name based methods update the same metric
+      for (int i = 0; i < 10; i++) {
+        counter.increment(1);
+        context.increment(METRIC, 2);
+      }
+      gauge.set(5);
+      gauge.set(7);
+
+      long count = 0;
+      Long gaugeValue = null;
+      long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+      while (timeout > System.currentTimeMillis() && (count < 30 || gaugeValue == null)) {
+        MetricValues metricValues = published.poll(100, TimeUnit.MILLISECONDS);
+        if (metricValues == null) {
+          continue;
+        }
+        for (MetricValue metricValue : metricValues.getMetrics()) {
+          if (metricValue.getName().equals(METRIC)) {
+            Assert.assertEquals(MetricType.COUNTER, metricValue.getType());
+            count += metricValue.getValue();
+          } else if (metricValue.getName().equals(GAUGE_METRIC)) {
+            Assert.assertEquals(MetricType.GAUGE, metricValue.getType());
+            gaugeValue = metricValue.getValue();
+          }
+        }
+      }
+      Assert.assertEquals(30L, count);
+      Assert.assertEquals(Long.valueOf(7L), gaugeValue);
+    } finally {
+      service.stopAndWait();
+    }
+  }
+
+  @Test
+  public void testDistributionBuckets() {
+    Assert.assertEquals(0, Distribution.getBucket(-1L));
+    Assert.assertEquals(Distribution.NUM_BUCKETS - 1, Distribution.getBucket(Long.MAX_VALUE));
+
+    // the buckets cover all values without gaps, with a relative error of at most 25%
+    Assert.assertEquals(0L, Distribution.getBucketLowerBound(0));
+    for (int bucket = 1; bucket < Distribution.NUM_BUCKETS; bucket++) {
+      long lower = Distribution.getBucketLowerBound(bucket);
+      long upper = Distribution.getBucketUpperBound(bucket);
+      Assert.assertEquals(Distribution.getBucketUpperBound(bucket - 1) + 1, lower);
+      Assert.assertEquals(bucket, Distribution.getBucket(lower));
+      Assert.assertEquals(bucket, Distribution.getBucket(upper));
+      Assert.assertTrue(upper - lower <= lower / 4);
+    }
+  }
+
   private void verifyCounterMetricsValue(BlockingQueue<MetricValues> published,
                                          Map<Integer, Map<String, Long>> expected) throws InterruptedException {
     Map<Integer, Map<String, Long>> received = new HashMap<>();
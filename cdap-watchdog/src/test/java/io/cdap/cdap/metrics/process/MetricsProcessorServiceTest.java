@@ -21,12 +21,18 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationOption;
 import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import io.cdap.cdap.api.metrics.Distribution;
 import io.cdap.cdap.api.metrics.MetricDataQuery;
+import io.cdap.cdap.api.metrics.MetricSearchQuery;
 import io.cdap.cdap.api.metrics.MetricStore;
 import io.cdap.cdap.api.metrics.MetricTimeSeries;
 import io.cdap.cdap.api.metrics.MetricType;
+import io.cdap.cdap.api.metrics.MetricValue;
+import io.cdap.cdap.api.metrics.MetricValues;
 import io.cdap.cdap.api.metrics.NoopMetricsContext;
+import io.cdap.cdap.api.metrics.TagValue;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.utils.Tasks;
 import io.cdap.cdap.data2.datafabric.dataset.service.DatasetService;
@@ -43,6 +49,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -57,6 +64,7 @@ import java.util.concurrent.TimeoutException;
 public class MetricsProcessorServiceTest extends MetricsProcessorServiceTestBase {
 
   private static final String SYSTEM_METRIC_PREFIX = "system.";
+  private static final String DISTRIBUTION_METRIC_NAME = "distribution_metric";
 
   @Test
   public void testMetricsProcessor() throws Exception {
@@ -138,12 +146,76 @@ public class MetricsProcessorServiceTest extends MetricsProcessorServiceTestBase
       Assert.assertEquals(1L, timeValue.getValue());
     }
 
+    testDistributionMetrics(metricStore, startTime);
+
     // Stop services and servers
     messagingMetricsProcessorService.stopAndWait();
     // Delete all metrics
     metricStore.deleteAll();
   }
 
+  /**
+   * Publishes the values 1 to 100 as four distributions in the same minute, and verifies the percentiles
+   * computed from the merged distribution.
+   */
+  private void testDistributionMetrics(MetricStore metricStore, long startTime) throws Exception {
+    long minuteStart = startTime / 60 * 60;
+    for (int i = 0; i < 4; i++) {
+      Distribution.Builder builder = Distribution.builder();
+      for (long value = i * 25 + 1; value <= (i + 1) * 25; value++) {
+        builder.add(value);
+      }
+      MetricValue metricValue = new MetricValue(DISTRIBUTION_METRIC_NAME, builder.build());
+      publishMessagingMetrics(i, new MetricValues(METRICS_CONTEXT, minuteStart + i,
+                                                  Collections.singletonList(metricValue)));
+    }
+
+    // the metric itself has the number of values in the distribution
+    String metricName = SYSTEM_METRIC_PREFIX + DISTRIBUTION_METRIC_NAME;
+    Tasks.waitFor(100L, () -> {
+      Collection<MetricTimeSeries> result =
+        metricStore.query(new MetricDataQuery(0, Integer.MAX_VALUE, Integer.MAX_VALUE, metricName,
+                                              AggregationFunction.SUM, METRICS_CONTEXT, ImmutableList.of()));
+      return result.isEmpty() ? 0L : Iterables.getOnlyElement(result).getTimeValues().get(0).getValue();
+    }, 10, TimeUnit.SECONDS);
+
+    // the distribution buckets are not exposed as metrics
+    List<TagValue> tags = new ArrayList<>();
+    for (Map.Entry<String, String> tag : METRICS_CONTEXT.entrySet()) {
+      tags.add(new TagValue(tag.getKey(), tag.getValue()));
+    }
+    Collection<String> metricNames =
+      metricStore.findMetricNames(new MetricSearchQuery(0, Integer.MAX_VALUE, -1, tags));
+    Assert.assertTrue(metricNames.contains(metricName));
+    for (String name : metricNames) {
+      Assert.assertFalse(name.startsWith(metricName + "~"));
+    }
+
+    // the percentiles from the totals and the minute resolution are computed from the same merged distribution
+    List<Double> percentiles = ImmutableList.of(50d, 99d);
+    for (int resolution : new int[] { Integer.MAX_VALUE, 60 }) {
+      long start = resolution == 60 ? minuteStart : 0;
+      long end = resolution == 60 ? minuteStart + 59 : Integer.MAX_VALUE;
+      Collection<MetricTimeSeries> result =
+        metricStore.query(new MetricDataQuery(start, end, resolution, Integer.MAX_VALUE,
+                                              ImmutableMap.of(metricName, AggregationFunction.SUM),
+                                              METRICS_CONTEXT, ImmutableList.of(), AggregationOption.FALSE, null,
+                                              percentiles));
+      Assert.assertEquals(2, result.size());
+      for (MetricTimeSeries timeSeries : result) {
+        long value = Iterables.getOnlyElement(timeSeries.getTimeValues()).getValue();
+        if (timeSeries.getMetricName().equals(metricName + ".p50")) {
+          // the values from 48 to 55 are stored in the same column
+          Assert.assertTrue("Unexpected p50 " + value, value >= 48 && value <= 55);
+        } else {
+          Assert.assertEquals(metricName + ".p99", timeSeries.getMetricName());
+          // the values from 96 to 111 are stored in the same column
+          Assert.assertTrue("Unexpected p99 " + value, value >= 96 && value <= 111);
+        }
+      }
+    }
+  }
+
   /**
    * Checks whether all expected metrics can be obtained with query
    */
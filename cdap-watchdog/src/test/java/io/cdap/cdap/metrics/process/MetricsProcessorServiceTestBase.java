@@ -93,6 +93,20 @@ abstract class MetricsProcessorServiceTestBase extends MetricsTestBase {
     }
   }
 
+  void publishMessagingMetrics(int metricIndex, MetricValues metricValues) {
+    try {
+      recordWriter.encode(metricValues, encoder);
+      int numOfTopics = cConf.getInt(Constants.Metrics.MESSAGING_TOPIC_NUM);
+      messagingService.publish(
+        StoreRequestBuilder.of(NamespaceId.SYSTEM.topic(TOPIC_PREFIX + (metricIndex % numOfTopics)))
+          .addPayload(encoderOutputStream.toByteArray()).build());
+    } catch (Exception e) {
+      LOG.error("Failed to publish metric with index {} to messaging service", metricIndex, e);
+    } finally {
+      encoderOutputStream.reset();
+    }
+  }
+
   /**
    * Returns expected {@link MetricValues} of the given {@link MetricType}. Add the {@link MetricValues} to the
    * {@code expected} metrics map. If the {@link MetricValues} is of type {@code MetricType.COUNTER} and is present
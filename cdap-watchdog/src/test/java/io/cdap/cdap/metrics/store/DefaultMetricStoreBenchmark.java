@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.store;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.cdap.cdap.api.metrics.MetricStore;
+import io.cdap.cdap.api.metrics.MetricType;
+import io.cdap.cdap.api.metrics.MetricValue;
+import io.cdap.cdap.api.metrics.MetricValues;
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.data.runtime.SystemDatasetRuntimeModule;
+import io.cdap.cdap.metrics.guice.MetricsStoreModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multi-threaded JMH benchmark for the throughput of adding metrics to the {@link DefaultMetricStore}, backed by the
+ * in-memory or the LevelDB metrics table. Each thread adds batches of metrics of its own contexts, as the metrics
+ * processor does for each metrics topic. The {@code single} mode serializes the adds, which is how metrics were
+ * persisted when only one thread could persist at a time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class DefaultMetricStoreBenchmark {
+
+  private static final int BATCH_SIZE = 100;
+  private static final int CONTEXTS = 20;
+
+  @Param({"inmemory", "leveldb"})
+  public String table;
+
+  @Param({"single", "partitioned"})
+  public String persist;
+
+  private final AtomicInteger partitions = new AtomicInteger();
+  private File baseDir;
+  private MetricStore metricStore;
+
+  @Setup
+  public void setup() {
+    baseDir = Files.createTempDir();
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, baseDir.getAbsolutePath());
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, baseDir.getAbsolutePath());
+
+    SystemDatasetRuntimeModule datasetModule = new SystemDatasetRuntimeModule();
+    Injector injector = Guice.createInjector(
+      new ConfigModule(cConf),
+      "leveldb".equals(table) ? datasetModule.getStandaloneModules() : datasetModule.getInMemoryModules(),
+      new MetricsStoreModule()
+    );
+    metricStore = injector.getInstance(MetricStore.class);
+    metricStore.setMetricsContext(new NoopMetricsContext());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    metricStore.deleteAll();
+    DirUtils.deleteDirectoryContents(baseDir);
+  }
+
+  /**
+   * Per thread state holding the contexts of the metrics added by the thread.
+   */
+  @State(Scope.Thread)
+  public static class PartitionState {
+    private final List<Map<String, String>> contexts = new ArrayList<>();
+    private long timestamp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+
+    @Setup
+    public void setup(DefaultMetricStoreBenchmark benchmark) {
+      int partition = benchmark.partitions.getAndIncrement();
+      for (int i = 0; i < CONTEXTS; i++) {
+        contexts.add(ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, "ns",
+                                     Constants.Metrics.Tag.APP, "app" + partition,
+                                     Constants.Metrics.Tag.SERVICE, "service" + i,
+                                     Constants.Metrics.Tag.RUN_ID, "run",
+                                     Constants.Metrics.Tag.HANDLER, "handler"));
+      }
+    }
+
+    private List<MetricValues> nextBatch() {
+      List<MetricValues> batch = new ArrayList<>(BATCH_SIZE);
+      for (int i = 0; i < BATCH_SIZE; i++) {
+        batch.add(new MetricValues(contexts.get(i % CONTEXTS), timestamp++, Arrays.asList(
+          new MetricValue("requests", MetricType.COUNTER, 1L),
+          new MetricValue("latency", MetricType.GAUGE, i))));
+      }
+      return batch;
+    }
+  }
+
+  @Benchmark
+  public void add(PartitionState state) {
+    List<MetricValues> batch = state.nextBatch();
+    if ("single".equals(persist)) {
+      synchronized (this) {
+        metricStore.add(batch);
+      }
+    } else {
+      metricStore.add(batch);
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(DefaultMetricStoreBenchmark.class.getSimpleName()).build()).run();
+  }
+}